@@ -0,0 +1,52 @@
+package doit;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * CostKernel 의 jdk.incubator.vector 구현 (Maven profile "vector" 에서만 컴파일).
+ *
+ * lane 마다 거리를 masked select 로 만든다.
+ *   d = dFar → (같은 pod) dPod → (같은 rack) dRack → (같은 host 또는 없는 VM) 0
+ * 그리고 acc += row · d 를 lane 별로 누적하고 마지막에 한 번만 reduce.
+ */
+final class VectorCostKernel implements CostKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    @Override
+    public double rowCost(double[] row, int from, int to,
+                          double[] host, double[] rack, double[] pod,
+                          double h, double r, double p,
+                          double dRack, double dPod, double dFar) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        DoubleVector far = DoubleVector.broadcast(SPECIES, dFar);
+        DoubleVector zero = DoubleVector.zero(SPECIES);
+        int j = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; j < bound; j += LANES) {
+            DoubleVector hj = DoubleVector.fromArray(SPECIES, host, j);
+            VectorMask<Double> samePod = DoubleVector.fromArray(SPECIES, pod, j).compare(VectorOperators.EQ, p);
+            VectorMask<Double> sameRack = DoubleVector.fromArray(SPECIES, rack, j).compare(VectorOperators.EQ, r);
+            VectorMask<Double> none = hj.compare(VectorOperators.EQ, h).or(hj.compare(VectorOperators.LT, 0.0));
+            DoubleVector d = far.blend(dPod, samePod).blend(dRack, sameRack).blend(zero, none);
+            acc = DoubleVector.fromArray(SPECIES, row, j).fma(d, acc);
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; j < to; j++) {
+            double hj = host[j];
+            if (hj < 0 || hj == h) continue;
+            double d = (rack[j] == r) ? dRack : (pod[j] == p) ? dPod : dFar;
+            sum += row[j] * d;
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "vector(" + LANES + " x double)";
+    }
+}
@@ -0,0 +1,70 @@
+package doit;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * FitKernel 의 jdk.incubator.vector 구현 (Maven profile "vector" 에서만 컴파일).
+ *
+ * SPECIES_PREFERRED 폭 (AVX2 면 long 4 개, AVX-512 면 8 개) 만큼의 host 를
+ * 차원마다 compare(GE) 한 mask 의 AND 로 한 번에 판정한다. 나머지 꼬리는 scalar.
+ */
+final class VectorFitKernel implements FitKernel {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    @Override
+    public int collectFitting(long[][] residual, int hostCount, long[] demand, int[] out) {
+        int cnt = 0;
+        int bound = SPECIES.loopBound(hostCount);
+        int h = 0;
+        for (; h < bound; h += LANES) {
+            long bits = laneMask(residual, h, demand);
+            while (bits != 0) {
+                out[cnt++] = h + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        for (; h < hostCount; h++) {
+            if (fitsScalar(residual, h, demand)) out[cnt++] = h;
+        }
+        return cnt;
+    }
+
+    @Override
+    public int firstFit(long[][] residual, int from, int hostCount, long[] demand) {
+        int h = from;
+        int bound = from + SPECIES.loopBound(hostCount - from);
+        for (; h < bound; h += LANES) {
+            long bits = laneMask(residual, h, demand);
+            if (bits != 0) return h + Long.numberOfTrailingZeros(bits);
+        }
+        for (; h < hostCount; h++) {
+            if (fitsScalar(residual, h, demand)) return h;
+        }
+        return -1;
+    }
+
+    private static long laneMask(long[][] residual, int h, long[] demand) {
+        VectorMask<Long> m = SPECIES.maskAll(true);
+        for (int d = 0; d < demand.length; d++) {
+            m = m.and(LongVector.fromArray(SPECIES, residual[d], h).compare(VectorOperators.GE, demand[d]));
+        }
+        return m.toLong();
+    }
+
+    private static boolean fitsScalar(long[][] residual, int h, long[] demand) {
+        for (int d = 0; d < demand.length; d++) {
+            if (residual[d][h] < demand[d]) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String name() {
+        return "vector(" + LANES + " x long)";
+    }
+}
@@ -0,0 +1,301 @@
+package doit;
+
+import org.cloudbus.cloudsim.allocationpolicies.VmAllocationPolicyAbstract;
+import org.cloudbus.cloudsim.hosts.Host;
+import org.cloudbus.cloudsim.hosts.HostSuitability;
+import org.cloudbus.cloudsim.vms.Vm;
+
+import java.util.*;
+
+/**
+ * PlacementAlgorithm (ffd / sercon / proposed ...) 을 CloudSim Plus 의 VmAllocationPolicy 로 감싼 것.
+ *
+ *  - 최초 배치 : 워크로드 전체(VmInfo 목록)에 대해 알고리즘을 한 번 돌려 VM id → host index 계획을 만들고,
+ *                VM 생성 요청마다 계획된 host 를 O(1) 로 돌려준다.
+ *                계획 host 가 안 맞으면 (PE / BW / storage 등 모델 밖 자원) 잔여량 mirror 에서 first-fit.
+ *  - 통합 트리거 : datacenter 가 getOptimizedAllocationMap 을 부를 때마다가 아니라
+ *                consolidationInterval (시뮬레이션 초) 마다만 본다.
+ *                살아 있는 VM 집합이 지난 계획 이후 바뀌었으면 알고리즘을 다시 돌리고,
+ *                안 바뀌었으면 지난 계획에서 아직 못 옮긴 VM 만 다시 스케줄한다.
+ *                migration 순서는 MigrationPlanner 의 첫 wave (도착 host 에 지금 자리가 있는 것) 만 요청한다.
+ *
+ * host index 는 datacenter host 목록의 순서 (= layout 의 HostInfo.id). rack / pod 는 layout 에서 가져온다.
+ * VM id 는 TrafficMatrix 인덱스와 같아야 한다.
+ */
+public class CloudSimConsolidationPolicy extends VmAllocationPolicyAbstract {
+
+    /** 잔여량 mirror 의 차원: RAM, BW, storage, 남은 MIPS */
+    private static final int DIMS = 4;
+
+    private final TrafficSimulationCore core;
+    private final PlacementAlgorithm algorithm;
+    private final List<TrafficSimulationCore.HostInfo> layout;
+    private final Map<Integer, TrafficSimulationCore.VmInfo> workload = new HashMap<>();
+    private final TrafficMatrix traffic;
+    private final TrafficSimulationCore.Topology topo;
+    private final double consolidationInterval;
+    private final MigrationPlanner planner;
+
+    /** VM id → 계획된 host index (-1: 계획 없음) */
+    private int[] planned;
+    /** 계획을 만들 때 살아 있던 VM id */
+    private BitSet plannedVms;
+    private double nextConsolidation;
+
+    // FitKernel 로 훑는 잔여량 mirror (실제 host 와 어긋나면 후보 검증 때 그 host 만 다시 읽는다)
+    private long[][] residual;
+    private final long[] demand = new long[DIMS];
+    private int cursor;
+
+    // 통계
+    private long decisions;
+    private long decisionNanos;
+    private long fallbacks;
+    private int consolidations;
+    private int replans;
+    private long migrationsRequested;
+    private long consolidationNanos;
+
+    public CloudSimConsolidationPolicy(TrafficSimulationCore core,
+                                       PlacementAlgorithm algorithm,
+                                       List<TrafficSimulationCore.HostInfo> layout,
+                                       List<TrafficSimulationCore.VmInfo> workload,
+                                       TrafficMatrix traffic,
+                                       TrafficSimulationCore.Topology topo,
+                                       double consolidationInterval) {
+        if (consolidationInterval <= 0) throw new IllegalArgumentException("consolidationInterval must be > 0");
+        for (TrafficSimulationCore.VmInfo v : workload) {
+            if (v.id < 0 || v.id >= traffic.size()) {
+                throw new IllegalArgumentException("VM id " + v.id + " is outside the traffic matrix (size "
+                        + traffic.size() + ")");
+            }
+            this.workload.put(v.id, v);
+        }
+        for (int i = 0; i < layout.size(); i++) {
+            if (layout.get(i).id != i) {
+                throw new IllegalArgumentException("layout host at index " + i + " has id " + layout.get(i).id);
+            }
+        }
+        this.core = core;
+        this.algorithm = algorithm;
+        this.layout = core.copyHosts(layout);
+        this.traffic = traffic;
+        this.topo = topo;
+        this.consolidationInterval = consolidationInterval;
+        this.planner = new MigrationPlanner(core, 1_000.0, 2);
+    }
+
+    public PlacementAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    // ==========================================================
+    //  최초 배치 (VM 생성 요청 1건 = 결정 1번)
+    // ==========================================================
+
+    @Override
+    protected Optional<Host> defaultFindHostForVm(Vm vm) {
+        long t0 = System.nanoTime();
+        List<Host> hostList = getHostList();
+        if (planned == null) initialPlan(hostList);
+        decisions++;
+
+        int id = (int) vm.getId();
+        int h = (id >= 0 && id < planned.length) ? planned[id] : -1;
+        Host result = null;
+        if (h >= 0 && h < hostList.size() && hostList.get(h).isSuitableForVm(vm)) {
+            result = hostList.get(h);
+        } else {
+            fallbacks++;
+            result = firstFit(hostList, vm);
+        }
+        decisionNanos += System.nanoTime() - t0;
+        return Optional.ofNullable(result);
+    }
+
+    private void initialPlan(List<Host> hostList) {
+        if (hostList.size() != layout.size()) {
+            throw new IllegalStateException("datacenter has " + hostList.size() + " hosts but layout has "
+                    + layout.size());
+        }
+        residual = new long[DIMS][hostList.size()];
+        for (int h = 0; h < hostList.size(); h++) syncResidual(hostList, h);
+
+        List<TrafficSimulationCore.VmInfo> vms = new ArrayList<>(workload.values());
+        vms.sort(Comparator.comparingInt(v -> v.id));
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> pm =
+                algorithm.place(core.copyHosts(layout), vms, traffic, topo);
+        planned = toPlan(pm);
+        plannedVms = new BitSet();
+        for (TrafficSimulationCore.VmInfo v : vms) plannedVms.set(v.id);
+    }
+
+    /** mirror 에서 first-fit 후보를 찾고 실제 host 로 검증 (안 맞으면 그 host 만 다시 읽고 다음 후보) */
+    private Host firstFit(List<Host> hostList, Vm vm) {
+        demand[0] = vm.getRam().getCapacity();
+        demand[1] = vm.getBw().getCapacity();
+        demand[2] = vm.getStorage().getCapacity();
+        demand[3] = (long) Math.ceil(vm.getTotalMipsCapacity());
+        int n = hostList.size();
+        // cursor 부터 한 바퀴 (앞쪽 host 가 꽉 찬 뒤에도 매번 처음부터 훑지 않도록)
+        for (int pass = 0; pass < 2; pass++) {
+            int from = (pass == 0) ? cursor : 0;
+            int to = (pass == 0) ? n : cursor;
+            int h = FitKernel.INSTANCE.firstFit(residual, from, to, demand);
+            while (h >= 0) {
+                Host host = hostList.get(h);
+                if (host.isSuitableForVm(vm)) {
+                    cursor = h;
+                    return host;
+                }
+                syncResidual(hostList, h);
+                h = (h + 1 < to) ? FitKernel.INSTANCE.firstFit(residual, h + 1, to, demand) : -1;
+            }
+        }
+        return null;
+    }
+
+    private void syncResidual(List<Host> hostList, int h) {
+        Host host = hostList.get(h);
+        residual[0][h] = host.getRam().getAvailableResource();
+        residual[1][h] = host.getBw().getAvailableResource();
+        residual[2][h] = host.getAvailableStorage();
+        residual[3][h] = (long) host.getTotalAvailableMips();
+    }
+
+    @Override
+    public HostSuitability allocateHostForVm(Vm vm, Host host) {
+        HostSuitability s = super.allocateHostForVm(vm, host);
+        if (residual != null && s.fully()) syncResidual(getHostList(), indexOf(host));
+        return s;
+    }
+
+    @Override
+    public void deallocateHostForVm(Vm vm) {
+        Host host = vm.getHost();
+        super.deallocateHostForVm(vm);
+        if (residual != null && host != null && host != Host.NULL) syncResidual(getHostList(), indexOf(host));
+    }
+
+    private int indexOf(Host host) {
+        int h = (int) host.getId();
+        if (h < 0 || h >= layout.size() || getHostList().get(h) != host) {
+            throw new IllegalStateException("host " + host.getId() + " is not at its id position in the host list");
+        }
+        return h;
+    }
+
+    // ==========================================================
+    //  통합 트리거
+    // ==========================================================
+
+    @Override
+    public boolean isVmMigrationSupported() {
+        return true;
+    }
+
+    @Override
+    public Map<Vm, Host> getOptimizedAllocationMap(List<? extends Vm> vmList) {
+        double now = getDatacenter().getSimulation().clock();
+        if (planned == null || now < nextConsolidation) return Collections.emptyMap();
+        // datacenter 갱신 시각이 조금씩 밀려도 interval 격자에 맞춰 트리거한다
+        nextConsolidation = (Math.floor(now / consolidationInterval) + 1) * consolidationInterval;
+
+        // 진행 중인 migration 이 있으면 끝난 뒤 다음 트리거에서 본다
+        // (Host.hasMigratingVms 는 실패한 migration 이 남아 true 로 굳을 수 있어서 VM 쪽만 본다)
+        long t0 = System.nanoTime();
+        List<Host> hostList = getHostList();
+        for (Vm vm : vmList) {
+            if (vm.isInMigration()) return Collections.emptyMap();
+        }
+        consolidations++;
+
+        // 현재 배치를 core 모델로
+        List<TrafficSimulationCore.HostInfo> hosts = core.copyHosts(layout);
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> before = new HashMap<>();
+        Map<Integer, Vm> liveById = new HashMap<>();
+        List<TrafficSimulationCore.VmInfo> live = new ArrayList<>();
+        BitSet liveIds = new BitSet();
+        for (Vm vm : vmList) {
+            Host host = vm.getHost();
+            TrafficSimulationCore.VmInfo info = workload.get((int) vm.getId());
+            if (info == null || host == null || host == Host.NULL || !vm.isCreated()) continue;
+            TrafficSimulationCore.HostInfo hi = hosts.get(indexOf(host));
+            hi.remainingRam -= info.ram;
+            hi.remainingMips -= info.mips;
+            before.put(info, hi);
+            live.add(info);
+            liveIds.set(info.id);
+            liveById.put(info.id, vm);
+        }
+
+        // 살아 있는 VM 집합이 바뀌었을 때만 알고리즘을 다시 돌린다
+        if (!liveIds.equals(plannedVms)) {
+            replans++;
+            live.sort(Comparator.comparingInt(v -> v.id));
+            planned = toPlan(algorithm.place(core.copyHosts(layout), live, traffic, topo));
+            plannedVms = liveIds;
+        }
+
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> after = new HashMap<>();
+        for (TrafficSimulationCore.VmInfo v : live) {
+            int h = planned[v.id];
+            after.put(v, h >= 0 ? hosts.get(h) : before.get(v));
+        }
+
+        // 같은 wave 에서 한 host 로 여러 VM 이 들어가면 요청 시점 잔여량에서 차례로 뺀다.
+        // 이번 wave 에서 VM 이 나가는 host 로는 넣지 않는다: 나가는 VM 은 migration 동안 출발 host 에서
+        // CPU overhead 를 더 쓰므로, 요청 시점에 맞던 VM 이 migration 시작 때 PE 부족으로 실패하고 사라진다
+        Map<Vm, Host> moves = new LinkedHashMap<>();
+        Map<Host, long[]> reserved = new HashMap<>();
+        MigrationPlanner.MigrationSchedule schedule = planner.plan(hosts, before, after, topo);
+        BitSet leaving = new BitSet();
+        for (MigrationPlanner.Migration m : schedule.migrations) {
+            if (m.wave == 0) leaving.set(m.fromHostId);
+        }
+        for (MigrationPlanner.Migration m : schedule.migrations) {
+            if (m.wave != 0 || leaving.get(m.toHostId)) continue;
+            Vm vm = liveById.get(m.vm.id);
+            Host target = hostList.get(m.toHostId);
+            if (vm == null || !target.isSuitableForVm(vm)) continue;
+            long[] r = reserved.computeIfAbsent(target, t -> new long[3]);
+            long ram = vm.getRam().getCapacity();
+            long mips = (long) Math.ceil(vm.getTotalMipsCapacity());
+            long pes = vm.getNumberOfPes();
+            if (target.getRam().getAvailableResource() - r[0] < ram
+                    || (long) target.getTotalAvailableMips() - r[1] < mips
+                    || target.getFreePesNumber() - r[2] < pes) continue;
+            r[0] += ram;
+            r[1] += mips;
+            r[2] += pes;
+            moves.put(vm, target);
+        }
+        migrationsRequested += moves.size();
+        consolidationNanos += System.nanoTime() - t0;
+        return moves;
+    }
+
+    private int[] toPlan(Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> pm) {
+        int[] plan = new int[traffic.size()];
+        Arrays.fill(plan, -1);
+        for (Map.Entry<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> e : pm.entrySet()) {
+            plan[e.getKey().id] = e.getValue().id;
+        }
+        return plan;
+    }
+
+    // ==========================================================
+    //  통계
+    // ==========================================================
+
+    public long getDecisions() { return decisions; }
+    public long getFallbacks() { return fallbacks; }
+    public int getConsolidations() { return consolidations; }
+    public int getReplans() { return replans; }
+    public long getMigrationsRequested() { return migrationsRequested; }
+
+    /** VM 생성 결정 + 통합 트리거에 쓴 wall-clock 시간 (초) */
+    public double getPolicySeconds() {
+        return (decisionNanos + consolidationNanos) / 1e9;
+    }
+}
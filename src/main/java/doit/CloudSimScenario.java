@@ -0,0 +1,280 @@
+package doit;
+
+import org.cloudbus.cloudsim.brokers.DatacenterBroker;
+import org.cloudbus.cloudsim.brokers.DatacenterBrokerSimple;
+import org.cloudbus.cloudsim.cloudlets.network.CloudletExecutionTask;
+import org.cloudbus.cloudsim.cloudlets.network.CloudletReceiveTask;
+import org.cloudbus.cloudsim.cloudlets.network.CloudletSendTask;
+import org.cloudbus.cloudsim.cloudlets.network.NetworkCloudlet;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.datacenters.network.NetworkDatacenter;
+import org.cloudbus.cloudsim.hosts.network.NetworkHost;
+import org.cloudbus.cloudsim.network.switches.AggregateSwitch;
+import org.cloudbus.cloudsim.network.switches.EdgeSwitch;
+import org.cloudbus.cloudsim.network.switches.RootSwitch;
+import org.cloudbus.cloudsim.resources.Pe;
+import org.cloudbus.cloudsim.resources.PeSimple;
+import org.cloudbus.cloudsim.schedulers.vm.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.vms.network.NetworkVm;
+
+import java.util.*;
+
+/**
+ * core 의 host / VM / traffic 모델을 CloudSim Plus NetworkDatacenter 시뮬레이션으로 옮긴 시나리오.
+ *
+ *  - 네트워크 : rack 마다 EdgeSwitch, pod 마다 AggregateSwitch, RootSwitch 하나
+ *               (rack / pod 는 createHostList 의 layout 그대로)
+ *  - host     : NetworkHost, PE 1개 = PE_MIPS. HostInfo.totalMips / PE_MIPS 개 (time-shared)
+ *  - VM       : NetworkVm, id = VmInfo.id = TrafficMatrix 인덱스, MIPS 는 PE 단위로 올림
+ *  - cloudlet : VM 마다 NetworkCloudlet 하나. 실행 task 다음에 traffic 상위 flowsPerVm 개 상대에게
+ *               패킷을 보내고 (traffic 값에 비례한 크기), 자기에게 오는 패킷을 받은 뒤 끝난다.
+ *               cloudlet 길이가 VM 마다 달라서 VM 이 순서대로 사라지고, 그때 통합 트리거가 다시 배치한다.
+ *
+ * run() 한 번 = 시뮬레이션 한 번. 처리한 event 수 / wall-clock / policy 결정 시간을 돌려준다.
+ */
+public class CloudSimScenario {
+
+    public static final long PE_MIPS = 1_000;
+    private static final long HOST_BW = 100_000;
+    private static final long HOST_STORAGE = 1_000_000;
+    private static final long VM_BW = 1_000;
+    private static final long VM_STORAGE = 10_000;
+    private static final long BYTES_PER_TRAFFIC_UNIT = 1_000;
+    /** cloudlet 실행 길이는 consolidationInterval 의 1 ~ MAX_LENGTH_INTERVALS 배 */
+    private static final int MAX_LENGTH_INTERVALS = 20;
+    /**
+     * 시뮬레이션을 끊는 시각 (가장 긴 cloudlet 의 배수).
+     * CloudSim Plus 는 migration 한 VM 으로 가는 패킷을 옛 host 로 보내 잃어버리므로,
+     * 그 패킷을 기다리는 cloudlet 은 끝나지 않고 scheduling interval event 만 계속 돈다
+     */
+    private static final int HORIZON_FACTOR = 2;
+
+    private final TrafficSimulationCore core;
+    private final List<TrafficSimulationCore.HostInfo> layout;
+    private final List<TrafficSimulationCore.VmInfo> vms;
+    private final TrafficMatrix traffic;
+    private final TrafficSimulationCore.Topology topo;
+    private final int flowsPerVm;
+    private final double consolidationInterval;
+    private final long seed;
+
+    /** VM id → traffic 상위 상대 VM id */
+    private final int[][] partners;
+
+    public CloudSimScenario(TrafficSimulationCore core,
+                            List<TrafficSimulationCore.HostInfo> layout,
+                            List<TrafficSimulationCore.VmInfo> vms,
+                            TrafficMatrix traffic,
+                            TrafficSimulationCore.Topology topo,
+                            int flowsPerVm,
+                            double consolidationInterval,
+                            long seed) {
+        if (flowsPerVm < 0) throw new IllegalArgumentException("flowsPerVm must be >= 0");
+        this.core = core;
+        this.layout = core.copyHosts(layout);
+        // CloudSim 에서는 PE 단위로만 잡히므로 core 쪽 MIPS 도 PE 단위로 맞춘다
+        this.vms = new ArrayList<>();
+        for (TrafficSimulationCore.VmInfo v : vms) {
+            this.vms.add(new TrafficSimulationCore.VmInfo(v.id, v.ram, pesOf(v) * PE_MIPS, v.extraDemand));
+        }
+        this.traffic = traffic;
+        this.topo = topo;
+        this.flowsPerVm = flowsPerVm;
+        this.consolidationInterval = consolidationInterval;
+        this.seed = seed;
+        this.partners = topPartners();
+    }
+
+    private static int pesOf(TrafficSimulationCore.VmInfo v) {
+        return (int) Math.max(1, (v.mips + PE_MIPS - 1) / PE_MIPS);
+    }
+
+    /** VM 마다 traffic 이 큰 상대 flowsPerVm 개 (row 한 번 훑기, 작은 heap) */
+    private int[][] topPartners() {
+        int n = traffic.size();
+        int[] present = new int[n];
+        Arrays.fill(present, -1);
+        for (TrafficSimulationCore.VmInfo v : vms) present[v.id] = v.id;
+
+        int[][] out = new int[n][];
+        PriorityQueue<int[]> heap = new PriorityQueue<>(Comparator.comparingDouble(e -> traffic.get(e[0], e[1])));
+        for (TrafficSimulationCore.VmInfo v : vms) {
+            heap.clear();
+            for (int j = 0; j < n && flowsPerVm > 0; j++) {
+                if (j == v.id || present[j] < 0 || traffic.get(v.id, j) <= 0.0) continue;
+                if (heap.size() < flowsPerVm) {
+                    heap.add(new int[]{v.id, j});
+                } else if (traffic.get(v.id, j) > traffic.get(v.id, heap.peek()[1])) {
+                    heap.poll();
+                    heap.add(new int[]{v.id, j});
+                }
+            }
+            int[] p = new int[heap.size()];
+            for (int i = 0; i < p.length; i++) p[i] = heap.poll()[1];
+            out[v.id] = p;
+        }
+        return out;
+    }
+
+    /** 시뮬레이션 한 번의 결과 */
+    public static class Result {
+        public final String algorithm;
+        public final int hosts;
+        public final int vms;
+        public final long events;
+        public final double wallSeconds;
+        public final double simulatedSeconds;
+        public final double policySeconds;
+        public final long decisions;
+        public final long fallbacks;
+        public final int consolidations;
+        public final int replans;
+        public final long migrations;
+        public final int finishedCloudlets;
+
+        Result(String algorithm, int hosts, int vms, long events, double wallSeconds, double simulatedSeconds,
+               CloudSimConsolidationPolicy policy, int finishedCloudlets) {
+            this.algorithm = algorithm;
+            this.hosts = hosts;
+            this.vms = vms;
+            this.events = events;
+            this.wallSeconds = wallSeconds;
+            this.simulatedSeconds = simulatedSeconds;
+            this.policySeconds = policy.getPolicySeconds();
+            this.decisions = policy.getDecisions();
+            this.fallbacks = policy.getFallbacks();
+            this.consolidations = policy.getConsolidations();
+            this.replans = policy.getReplans();
+            this.migrations = policy.getMigrationsRequested();
+            this.finishedCloudlets = finishedCloudlets;
+        }
+
+        public double eventsPerSecond() {
+            return wallSeconds > 0 ? events / wallSeconds : 0.0;
+        }
+
+        /** 전체 wall-clock 중 policy 결정에 쓴 비율 */
+        public double policyShare() {
+            return wallSeconds > 0 ? policySeconds / wallSeconds : 0.0;
+        }
+    }
+
+    public Result run(PlacementAlgorithm algorithm) {
+        CloudSim simulation = new CloudSim();
+        long[] events = {0};
+        simulation.addOnEventProcessingListener(e -> events[0]++);
+
+        CloudSimConsolidationPolicy policy = new CloudSimConsolidationPolicy(
+                core, algorithm, layout, vms, traffic, topo, consolidationInterval);
+        NetworkDatacenter dc = new NetworkDatacenter(simulation, createHosts(), policy);
+        dc.setSchedulingInterval(consolidationInterval);
+        dc.enableMigrations();
+        createNetwork(simulation, dc);
+
+        DatacenterBroker broker = new DatacenterBrokerSimple(simulation);
+        // cloudlet 이 끝난 VM 은 곧바로 내린다 (살아 있는 VM 집합이 바뀌어야 통합 트리거가 다시 배치함)
+        broker.setVmDestructionDelay(1.0);
+        Map<Integer, NetworkVm> vmById = new HashMap<>();
+        List<NetworkVm> vmList = new ArrayList<>();
+        for (TrafficSimulationCore.VmInfo v : vms) {
+            NetworkVm vm = new NetworkVm(v.id, PE_MIPS, (int) (v.mips / PE_MIPS));
+            vm.setRam(v.ram).setBw(VM_BW).setSize(VM_STORAGE);
+            vmById.put(v.id, vm);
+            vmList.add(vm);
+        }
+        List<NetworkCloudlet> cloudlets = createCloudlets(vmById);
+        broker.submitVmList(vmList);
+        broker.submitCloudletList(cloudlets);
+
+        simulation.terminateAt(consolidationInterval * MAX_LENGTH_INTERVALS * HORIZON_FACTOR);
+        long t0 = System.nanoTime();
+        double simulated = simulation.start();
+        double wall = (System.nanoTime() - t0) / 1e9;
+
+        int finished = broker.getCloudletFinishedList().size();
+        return new Result(algorithm.name(), layout.size(), vms.size(), events[0], wall, simulated, policy, finished);
+    }
+
+    // ==========================================================
+    //  host / switch / cloudlet 생성
+    // ==========================================================
+
+    private List<NetworkHost> createHosts() {
+        List<NetworkHost> hosts = new ArrayList<>();
+        for (TrafficSimulationCore.HostInfo h : layout) {
+            int pes = (int) (h.totalMips / PE_MIPS);
+            List<Pe> peList = new ArrayList<>(pes);
+            for (int p = 0; p < pes; p++) peList.add(new PeSimple(PE_MIPS));
+            NetworkHost host = new NetworkHost(h.totalRam, HOST_BW, HOST_STORAGE, peList);
+            host.setVmScheduler(new VmSchedulerTimeShared());
+            host.setId(h.id);
+            hosts.add(host);
+        }
+        return hosts;
+    }
+
+    /** rack → EdgeSwitch, pod → AggregateSwitch, 그 위에 RootSwitch */
+    private void createNetwork(CloudSim simulation, NetworkDatacenter dc) {
+        RootSwitch root = new RootSwitch(simulation, dc);
+        dc.addSwitch(root);
+        Map<Integer, AggregateSwitch> aggByPod = new HashMap<>();
+        Map<Integer, EdgeSwitch> edgeByRack = new HashMap<>();
+        List<NetworkHost> hosts = dc.getHostList();
+        for (TrafficSimulationCore.HostInfo h : layout) {
+            AggregateSwitch agg = aggByPod.computeIfAbsent(h.podId, pod -> {
+                AggregateSwitch s = new AggregateSwitch(simulation, dc);
+                s.getUplinkSwitches().add(root);
+                root.getDownlinkSwitches().add(s);
+                dc.addSwitch(s);
+                return s;
+            });
+            EdgeSwitch edge = edgeByRack.computeIfAbsent(h.rackId, rack -> {
+                EdgeSwitch s = new EdgeSwitch(simulation, dc);
+                s.getUplinkSwitches().add(agg);
+                agg.getDownlinkSwitches().add(s);
+                dc.addSwitch(s);
+                return s;
+            });
+            edge.connectHost(hosts.get(h.id));
+        }
+    }
+
+    private List<NetworkCloudlet> createCloudlets(Map<Integer, NetworkVm> vmById) {
+        Random r = new Random(seed);
+        Map<Integer, NetworkCloudlet> byVm = new HashMap<>();
+        for (TrafficSimulationCore.VmInfo v : vms) {
+            int pes = (int) (v.mips / PE_MIPS);
+            // 길이를 VM 마다 다르게 해서 VM 이 서로 다른 시각에 끝나게 한다
+            long length = (long) (PE_MIPS * consolidationInterval * (1 + r.nextInt(MAX_LENGTH_INTERVALS)));
+            NetworkCloudlet c = new NetworkCloudlet(v.id, length, pes);
+            c.setVm(vmById.get(v.id));
+            c.addTask(new CloudletExecutionTask(0, length));
+            byVm.put(v.id, c);
+        }
+
+        // 보내는 쪽: 실행 task 다음 send task 하나에 상대별 패킷
+        Map<Integer, List<Integer>> sources = new HashMap<>();
+        for (TrafficSimulationCore.VmInfo v : vms) {
+            int[] p = partners[v.id];
+            if (p.length == 0) continue;
+            NetworkCloudlet c = byVm.get(v.id);
+            CloudletSendTask send = new CloudletSendTask(c.getTasks().size());
+            c.addTask(send);
+            for (int j : p) {
+                long bytes = Math.max(1, (long) (traffic.get(v.id, j) * BYTES_PER_TRAFFIC_UNIT));
+                send.addPacket(byVm.get(j), bytes);
+                sources.computeIfAbsent(j, k -> new ArrayList<>()).add(v.id);
+            }
+        }
+        // 받는 쪽: send 가 모두 먼저 나가므로 서로 기다리는 순환이 없다
+        for (Map.Entry<Integer, List<Integer>> e : sources.entrySet()) {
+            NetworkCloudlet c = byVm.get(e.getKey());
+            for (int src : e.getValue()) {
+                CloudletReceiveTask receive = new CloudletReceiveTask(c.getTasks().size(), vmById.get(src));
+                receive.setExpectedPacketsToReceive(1);
+                c.addTask(receive);
+            }
+        }
+        return new ArrayList<>(byVm.values());
+    }
+}
@@ -0,0 +1,51 @@
+package doit;
+
+/**
+ * 통합 파이프라인 계측용 registry 인터페이스.
+ * TrafficSimulationCore.setMetrics(...) 로 구현체를 끼워 넣는다 (기본값 NOOP).
+ */
+public interface ConsolidationMetrics {
+
+    /** placeVmsProposed 내부 단계 */
+    enum Phase {
+        /** Phase 0 초기 배치: first-fit (InitialPlacement.FIRST_FIT) */
+        PHASE0_FFD,
+        /** Phase 0 초기 배치: graph-growing (InitialPlacement.GRAPH_GROWING) */
+        PHASE0_GROWN,
+        CANDIDATE_SELECTION,
+        PARTITIONING,
+        FEASIBILITY_CHECK,
+        MIGRATION_SIMULATION,
+        COST_RECOMPUTE
+    }
+
+    /** 작업량 카운터 */
+    enum Counter {
+        PAIR_EVALUATIONS,
+        HOST_EVALUATIONS,
+        PARTITION_RETRIES,
+        RELEASES_ACCEPTED,
+        RELEASES_REJECTED,
+        RELEASE_CACHE_HITS,
+        BYTES_ALLOCATED,
+        /** 표본 추정만으로 reject 한 해제 시도 (setCostScreening) */
+        RELEASES_SCREENED,
+        /** 추정 구간이 reject 쪽이 아니어서 exact delta 로 판정한 해제 시도 */
+        SCREENING_FALLBACKS,
+        /** verifyShortlist 에서 shortlist 가 전체 scan 보다 비싼 host 를 고른 파티션 */
+        SHORTLIST_MISSES
+    }
+
+    void recordPhase(Phase phase, long nanos);
+
+    void increment(Counter counter, long delta);
+
+    /** 아무것도 기록하지 않는 기본 구현 */
+    ConsolidationMetrics NOOP = new ConsolidationMetrics() {
+        @Override
+        public void recordPhase(Phase phase, long nanos) { }
+
+        @Override
+        public void increment(Counter counter, long delta) { }
+    };
+}
@@ -0,0 +1,21 @@
+package doit;
+
+import java.util.Map;
+
+/** JMX 노출용 MXBean (InMemoryConsolidationMetrics.registerMBean 참고) */
+public interface ConsolidationMetricsMXBean {
+
+    /** counter 이름 → 누적값 */
+    Map<String, Long> getCounters();
+
+    /** phase 이름 → 호출 횟수 */
+    Map<String, Long> getPhaseCounts();
+
+    /** phase 이름 → 누적 시간 (ms) */
+    Map<String, Double> getPhaseTotalMillis();
+
+    /** phase 이름 → p99 지연 (ms, histogram bucket 상한 기준) */
+    Map<String, Double> getPhaseP99Millis();
+
+    void reset();
+}
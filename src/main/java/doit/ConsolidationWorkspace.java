@@ -0,0 +1,250 @@
+package doit;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 스레드별 재사용 scratch 버퍼.
+ *
+ * Core 의 반복 루프(calcTrafficCost, 파티셔닝, migratePartition, Sercon 정렬)가
+ * 매 호출마다 ArrayList / boolean[] / LinkedList 를 새로 만들지 않도록,
+ * 필요한 크기까지만 키워 가며 계속 재사용한다.
+ *
+ * host fit 검사용 ResidualIndex / FeasibilityOracle 과 NeighborShortlist, 혼잡용 LinkLoadEngine 도
+ * run 마다 새로 만들지 않고 여기 하나를 reset 해서 쓴다.
+ *
+ * 버퍼는 용도별로 나뉘어 있으므로, 같은 용도의 버퍼를 쓰는 메서드끼리 중첩 호출하지 않는다.
+ */
+final class ConsolidationWorkspace {
+
+    private static final ThreadLocal<ConsolidationWorkspace> LOCAL =
+            ThreadLocal.withInitial(ConsolidationWorkspace::new);
+
+    static ConsolidationWorkspace get() {
+        return LOCAL.get();
+    }
+
+    // calcTrafficCost / migratePartition 용: placement 를 배열로 펼친 것
+    int[] vmIds = new int[0];
+    TrafficSimulationCore.HostInfo[] vmHosts = new TrafficSimulationCore.HostInfo[0];
+
+    // 파티셔닝 용
+    double[] edges = new double[0];
+    int[] queue = new int[0];
+    int[] partIds = new int[0];
+
+    // CostKernel 용: VM id → host / rack / pod id (없는 VM 은 -1)
+    double[] idHost = new double[0];
+    double[] idRack = new double[0];
+    double[] idPod = new double[0];
+
+    // 정렬 용 (key + index + merge sort 임시 버퍼)
+    double[] keys = new double[0];
+    int[] order = new int[0];
+    int[] orderTmp = new int[0];
+
+    // Sercon 용: 비울 host 순서 (order 는 target 마다 다시 정렬하므로 따로 둔다), host index → 후보 순위
+    int[] hostOrder = new int[0];
+    int[] hostRank = new int[0];
+
+    // sortPartitionsBySize 용: order 대로 다시 넣을 원소
+    Object[] items = new Object[0];
+
+    // 파티션별 RAM / MIPS 합
+    long[] partRam = new long[0];
+    long[] partMips = new long[0];
+
+    // consolidateProposed / Sercon / single-release 용 rack / pod 잔여 집계
+    private final ResidualIndex residual = new ResidualIndex();
+    private final FeasibilityOracle oracle = new FeasibilityOracle();
+    private final NeighborShortlist shortlist = new NeighborShortlist();
+    private final LinkLoadEngine links = new LinkLoadEngine();
+
+    // consolidateProposed / single-release 용: VM id → 지금 host (없으면 null, VM 을 옮길 때마다 갱신),
+    // migratePartition 의 joint packing fallback 횟수
+    TrafficSimulationCore.HostInfo[] hostOfVm = new TrafficSimulationCore.HostInfo[0];
+    int packingFallbacks;
+
+    // consolidateProposed 의 표본 screening 용: 이번 시도에서 옮긴 VM id / 출발 host
+    int[] movedIds = new int[0];
+    TrafficSimulationCore.HostInfo[] movedFrom = new TrafficSimulationCore.HostInfo[0];
+
+    // VM id 기준 마킹 (stamp 방식이라 매번 지울 필요 없음)
+    private int[] mark = new int[0];
+    private int stamp = 0;
+
+    void ensurePlacement(int n) {
+        if (vmIds.length < n) {
+            int cap = grow(vmIds.length, n);
+            vmIds = new int[cap];
+            vmHosts = new TrafficSimulationCore.HostInfo[cap];
+        }
+    }
+
+    void ensureMoved(int n) {
+        if (movedIds.length < n) {
+            int cap = grow(movedIds.length, n);
+            movedIds = new int[cap];
+            movedFrom = new TrafficSimulationCore.HostInfo[cap];
+        }
+    }
+
+    void ensureEdges(int n) {
+        if (edges.length < n) edges = new double[grow(edges.length, n)];
+    }
+
+    void ensureVms(int n) {
+        if (queue.length < n) {
+            int cap = grow(queue.length, n);
+            queue = new int[cap];
+            partIds = new int[cap];
+        }
+    }
+
+    /** id [0, idBound) 의 host / rack / pod 를 모두 -1 (없음) 로 초기화 */
+    void resetIdKeys(int idBound) {
+        if (idHost.length < idBound) {
+            int cap = grow(idHost.length, idBound);
+            idHost = new double[cap];
+            idRack = new double[cap];
+            idPod = new double[cap];
+        }
+        Arrays.fill(idHost, 0, idBound, -1.0);
+        Arrays.fill(idRack, 0, idBound, -1.0);
+        Arrays.fill(idPod, 0, idBound, -1.0);
+    }
+
+    void setIdKey(int id, TrafficSimulationCore.HostInfo h) {
+        idHost[id] = h.id;
+        idRack[id] = h.rackId;
+        idPod[id] = h.podId;
+    }
+
+    void ensureSort(int n) {
+        if (keys.length < n) {
+            int cap = grow(keys.length, n);
+            keys = new double[cap];
+            order = new int[cap];
+            orderTmp = new int[cap];
+        }
+    }
+
+    void ensureHosts(int n) {
+        if (hostOrder.length < n) {
+            int cap = grow(hostOrder.length, n);
+            hostOrder = new int[cap];
+            hostRank = new int[cap];
+        }
+    }
+
+    /** hosts 의 지금 잔여 자원으로 reset 한 ResidualIndex (exclude 없음) */
+    ResidualIndex residualIndex(List<TrafficSimulationCore.HostInfo> hosts) {
+        residual.reset(hosts);
+        return residual;
+    }
+
+    /** placement 를 VM id → host 로 펼친 hostOfVm (id [0, idBound) 밖은 null) */
+    TrafficSimulationCore.HostInfo[] hostsById(
+            Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement, int idBound) {
+        for (TrafficSimulationCore.VmInfo v : placement.keySet()) idBound = Math.max(idBound, v.id + 1);
+        if (hostOfVm.length < idBound) hostOfVm = new TrafficSimulationCore.HostInfo[grow(hostOfVm.length, idBound)];
+        Arrays.fill(hostOfVm, null);
+        for (Map.Entry<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> e : placement.entrySet()) {
+            hostOfVm[e.getKey().id] = e.getValue();
+        }
+        return hostOfVm;
+    }
+
+    /** hosts / vmHost 로 reset 한 NeighborShortlist (exclude 없음) */
+    NeighborShortlist neighborShortlist(List<TrafficSimulationCore.HostInfo> hosts, NeighborIndex neighbors,
+                                        TrafficSimulationCore.HostInfo[] vmHost, TrafficSimulationCore.Topology topo) {
+        shortlist.reset(hosts, neighbors, vmHost, topo);
+        return shortlist;
+    }
+
+    /** hosts / 용량으로 reset 한 LinkLoadEngine (load 는 비어 있으므로 rebuild 를 불러야 한다) */
+    LinkLoadEngine linkLoadEngine(List<TrafficSimulationCore.HostInfo> hosts, TrafficSimulationCore.Topology topo,
+                                  double hostLinkCapacity, double rackOversubscription, double podOversubscription) {
+        links.reset(hosts, topo, hostLinkCapacity, rackOversubscription, podOversubscription);
+        return links;
+    }
+
+    /** hosts 의 지금 잔여 자원으로 reset 한 FeasibilityOracle (exclude 없음) */
+    FeasibilityOracle feasibilityOracle(List<TrafficSimulationCore.HostInfo> hosts) {
+        oracle.reset(hosts);
+        return oracle;
+    }
+
+    void ensureItems(int n) {
+        if (items.length < n) items = new Object[grow(items.length, n)];
+    }
+
+    void ensureParts(int n) {
+        if (partRam.length < n) {
+            int cap = grow(partRam.length, n);
+            partRam = new long[cap];
+            partMips = new long[cap];
+        }
+    }
+
+    /** 새 마킹 라운드 시작 (id 는 0 ≤ id < idBound) */
+    int newStamp(int idBound) {
+        if (mark.length < idBound) mark = new int[grow(mark.length, idBound)];
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(mark, 0);
+            stamp = 1;
+        }
+        return stamp;
+    }
+
+    void mark(int id) {
+        mark[id] = stamp;
+    }
+
+    boolean isMarked(int id) {
+        return id < mark.length && mark[id] == stamp;
+    }
+
+    /** order[0..len) 를 keys[order[i]] 기준으로 안정 정렬 (descending 이면 큰 값 먼저) */
+    void stableSortOrder(int len, boolean descending) {
+        mergeSort(0, len, descending);
+    }
+
+    private void mergeSort(int lo, int hi, boolean desc) {
+        if (hi - lo < 2) return;
+        if (hi - lo <= 16) {
+            // 작은 구간은 insertion sort (안정)
+            for (int i = lo + 1; i < hi; i++) {
+                int x = order[i];
+                int j = i - 1;
+                while (j >= lo && before(x, order[j], desc)) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = x;
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSort(lo, mid, desc);
+        mergeSort(mid, hi, desc);
+        int i = lo, j = mid, k = lo;
+        while (i < mid && j < hi) {
+            orderTmp[k++] = before(order[j], order[i], desc) ? order[j++] : order[i++];
+        }
+        while (i < mid) orderTmp[k++] = order[i++];
+        while (j < hi) orderTmp[k++] = order[j++];
+        System.arraycopy(orderTmp, lo, order, lo, hi - lo);
+    }
+
+    /** a 가 b 보다 엄격히 앞에 와야 하는가 */
+    private boolean before(int a, int b, boolean desc) {
+        int c = Double.compare(keys[a], keys[b]);
+        return desc ? c > 0 : c < 0;
+    }
+
+    private static int grow(int current, int needed) {
+        return Math.max(needed, Math.max(16, current + (current >> 1)));
+    }
+}
@@ -0,0 +1,41 @@
+package doit;
+
+/**
+ * 트래픽 비용 한 row 분량을 계산하는 kernel.
+ *
+ *   Σ_{j ∈ [from, to)} row[j] · dist(j)
+ *   dist(j) = 0      (host[j] == h)
+ *           = dRack  (rack[j] == r)
+ *           = dPod   (pod[j]  == p)
+ *           = dFar   (그 외)
+ *   host[j] < 0 이면 j 는 placement 에 없는 VM (또는 제외 대상) → 0
+ *
+ * host / rack / pod 는 VM id 로 인덱싱한 배열 (DenseTrafficMatrix row 와 같은 인덱스).
+ * id 를 double 로 들고 있는 이유는 vector 구현에서 row 와 같은 lane 폭으로 비교하기 위함
+ * (id 는 2^53 보다 작으므로 정확히 표현된다).
+ *
+ * 구현 선택은 FitKernel 과 같다 (ScalarCostKernel 기본, vector profile + incubator module 이면 VectorCostKernel).
+ */
+interface CostKernel {
+
+    double rowCost(double[] row, int from, int to,
+                   double[] host, double[] rack, double[] pod,
+                   double h, double r, double p,
+                   double dRack, double dPod, double dFar);
+
+    String name();
+
+    CostKernel INSTANCE = load();
+
+    private static CostKernel load() {
+        if (!"false".equalsIgnoreCase(System.getProperty("doit.vector"))) {
+            try {
+                Class<?> c = Class.forName("doit.VectorCostKernel");
+                return (CostKernel) c.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // vector profile 로 빌드하지 않았거나 incubator module 이 없음 → scalar
+            }
+        }
+        return new ScalarCostKernel();
+    }
+}
@@ -0,0 +1,26 @@
+package doit;
+
+/** double[n][n] 기반 구현 (기존 createTrafficMatrix 결과를 그대로 사용) */
+public class DenseTrafficMatrix implements TrafficMatrix {
+
+    private final double[][] m;
+
+    public DenseTrafficMatrix(double[][] m) {
+        this.m = m;
+    }
+
+    @Override
+    public int size() {
+        return m.length;
+    }
+
+    @Override
+    public double get(int a, int b) {
+        return m[a][b];
+    }
+
+    /** 내부 행렬 (row 단위로 직접 훑어야 하는 곳에서 사용) */
+    public double[][] raw() {
+        return m;
+    }
+}
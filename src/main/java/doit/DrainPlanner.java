@@ -0,0 +1,493 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * 유지보수용 drain: 지정한 host 들 (또는 rack 전체) 을 비우는 migration 계획.
+ *
+ * Proposed 의 해제 로직은 S_i 로 고른 host 하나, Sercon 은 load 순서에 묶여 있어서
+ * "이 host / 이 rack 을 비워라" 를 직접 줄 수가 없었다. 여기서는
+ *
+ *  1) 빠른 불가 판정 : drain 할 VM 합계 vs 남는 host 잔여 합계, 가장 큰 VM vs 가장 큰 잔여,
+ *                     마지막으로 VM 단위 first-fit decreasing (FeasibilityOracle) — 여기서 안 되면 바로 실패 반환
+ *  2) supernode 묶음 : drain 대상 VM 전체로 PartitionDendrogram 을 한 번 만든다. 용량 예산 (처음엔 가장 큰
+ *                     남는 host 잔여) 안에 드는 가장 굵은 cut 을 k 이분 탐색으로 찾고 (cut 은 k 가 늘수록 잘게 쪼개짐),
+ *                     예산을 넘는 supernode 는 VM 순서대로 예산 크기 조각으로 나눈다.
+ *                     묶음 전체가 함께 들어가지 않으면 예산을 절반씩 줄인다 (마지막엔 VM 단위).
+ *  3) 묶음 배치      : 큰 묶음부터, 묶음 밖 VM 과의 트래픽을 host / rack / pod 별로 합쳐 둔 값으로
+ *                     모든 후보 host 의 비용을 O(1) 에 계산해 가장 싼 host 로. 그 host 에 두면 남은 묶음이
+ *                     못 들어가면 다음으로 싼 host (migratePartition 과 같은 규칙).
+ *                     먼저 자리 잡은 묶음과의 트래픽은 그 묶음의 새 host 로 더해 간다.
+ *
+ * 입력 hosts / placement 는 바꾸지 않는다 (계획만). 실제 반영은 DrainPlan.applyTo.
+ * 용량은 RAM / MIPS 기준 (migratePartition 과 같음). rack 은 한 pod 안에 있어야 한다.
+ */
+public class DrainPlanner {
+
+    /** VM 하나의 이동 */
+    public static class Move {
+        public final TrafficSimulationCore.VmInfo vm;
+        public final TrafficSimulationCore.HostInfo from;
+        public final TrafficSimulationCore.HostInfo to;
+
+        Move(TrafficSimulationCore.VmInfo vm, TrafficSimulationCore.HostInfo from, TrafficSimulationCore.HostInfo to) {
+            this.vm = vm;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /** drain 계획 (불가면 feasible = false, reason 에 이유) */
+    public static class DrainPlan {
+        public final boolean feasible;
+        public final String reason;
+        public final List<Move> moves;
+        /** 옮긴 묶음 수 (VM 단위로 떨어졌으면 VM 수와 같음) */
+        public final int groups;
+        /** 트래픽 비용 변화 (calcTrafficCost 기준) */
+        public final double trafficDelta;
+        /** RAM × 거리 (core.migrationCost 와 같은 모델) */
+        public final double migrationCost;
+        public final double seconds;
+
+        private DrainPlan(boolean feasible, String reason, List<Move> moves, int groups,
+                          double trafficDelta, double migrationCost, double seconds) {
+            this.feasible = feasible;
+            this.reason = reason;
+            this.moves = moves;
+            this.groups = groups;
+            this.trafficDelta = trafficDelta;
+            this.migrationCost = migrationCost;
+            this.seconds = seconds;
+        }
+
+        static DrainPlan infeasible(String reason, long t0) {
+            return new DrainPlan(false, reason, Collections.emptyList(), 0, 0.0, 0.0, (System.nanoTime() - t0) / 1e9);
+        }
+
+        /** 계획대로 placement 와 host 잔여 자원을 바꾼다 (계획 이후 배치가 바뀌었으면 예외) */
+        public void applyTo(Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement) {
+            if (!feasible) throw new IllegalStateException("drain plan is infeasible: " + reason);
+            for (Move m : moves) {
+                if (placement.get(m.vm) != m.from) {
+                    throw new IllegalStateException("VM " + m.vm.id + " is no longer on host " + m.from.id);
+                }
+            }
+            for (Move m : moves) {
+                m.from.remainingRam += m.vm.ram;
+                m.from.remainingMips += m.vm.mips;
+                m.to.remainingRam -= m.vm.ram;
+                m.to.remainingMips -= m.vm.mips;
+                placement.put(m.vm, m.to);
+            }
+        }
+    }
+
+    /** affinity 누적 배열 (묶음 batch × host) 의 최대 칸 수 */
+    private static final int ACCUMULATOR_CELLS = 4_000_000;
+
+    private final double supernodePercentile;
+
+    public DrainPlanner(double supernodePercentile) {
+        if (supernodePercentile < 0 || supernodePercentile > 1) {
+            throw new IllegalArgumentException("supernodePercentile must be in [0, 1]");
+        }
+        this.supernodePercentile = supernodePercentile;
+    }
+
+    /** rackIds 에 속한 host 전부를 비운다 */
+    public DrainPlan drainRacks(List<TrafficSimulationCore.HostInfo> hosts,
+                                Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement,
+                                TrafficMatrix traffic, TrafficSimulationCore.Topology topo, Set<Integer> rackIds) {
+        Set<Integer> hostIds = new HashSet<>();
+        for (TrafficSimulationCore.HostInfo h : hosts) if (rackIds.contains(h.rackId)) hostIds.add(h.id);
+        if (hostIds.isEmpty()) throw new IllegalArgumentException("no host in racks " + rackIds);
+        return drainHosts(hosts, placement, traffic, topo, hostIds);
+    }
+
+    public DrainPlan drainHosts(List<TrafficSimulationCore.HostInfo> hosts,
+                                Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement,
+                                TrafficMatrix traffic, TrafficSimulationCore.Topology topo, Set<Integer> hostIds) {
+        TrafficSimulationCore.requireRamMipsOnly(placement.keySet(), "drain");
+        long t0 = System.nanoTime();
+        int hCount = hosts.size();
+        Map<Integer, Integer> hostIndex = new HashMap<>();
+        boolean[] drained = new boolean[hCount];
+        int[] rack = new int[hCount], pod = new int[hCount];
+        // rack / pod 는 0 부터 붙인 index 로 (affinity 누적 배열용)
+        Map<Integer, Integer> rackIndex = new HashMap<>(), podIndex = new HashMap<>();
+        Map<Integer, Integer> rackPod = new HashMap<>();
+        for (int h = 0; h < hCount; h++) {
+            TrafficSimulationCore.HostInfo hi = hosts.get(h);
+            hostIndex.put(hi.id, h);
+            drained[h] = hostIds.contains(hi.id);
+            rack[h] = rackIndex.computeIfAbsent(hi.rackId, k -> rackIndex.size());
+            pod[h] = podIndex.computeIfAbsent(hi.podId, k -> podIndex.size());
+            Integer p = rackPod.putIfAbsent(hi.rackId, hi.podId);
+            if (p != null && p != hi.podId) {
+                throw new IllegalArgumentException("rack " + hi.rackId + " spans pods " + p + " and " + hi.podId);
+            }
+        }
+        for (int id : hostIds) {
+            if (!hostIndex.containsKey(id)) throw new IllegalArgumentException("host " + id + " is not in the host list");
+        }
+
+        // 비울 VM / 남는 VM 을 배열로
+        List<TrafficSimulationCore.VmInfo> evac = new ArrayList<>();
+        IntArrayList evacFrom = new IntArrayList();
+        int n = placement.size();
+        int[] stayId = new int[n], stayHost = new int[n];
+        int stay = 0;
+        for (Map.Entry<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> e : placement.entrySet()) {
+            Integer h = hostIndex.get(e.getValue().id);
+            if (h == null) {
+                throw new IllegalArgumentException("VM " + e.getKey().id
+                        + " is placed on host " + e.getValue().id + " which is not in the host list");
+            }
+            if (drained[h]) {
+                evac.add(e.getKey());
+                evacFrom.add(h);
+            } else {
+                stayId[stay] = e.getKey().id;
+                stayHost[stay] = h;
+                stay++;
+            }
+        }
+        if (evac.isEmpty()) return new DrainPlan(true, null, Collections.emptyList(), 0, 0.0, 0.0,
+                (System.nanoTime() - t0) / 1e9);
+
+        // ------------------------------------------------------
+        // 1) 빠른 불가 판정 (합계 / 가장 큰 VM)
+        // ------------------------------------------------------
+        long needRam = 0, needMips = 0, bigRam = 0, bigMips = 0;
+        for (TrafficSimulationCore.VmInfo v : evac) {
+            needRam += v.ram;
+            needMips += v.mips;
+            bigRam = Math.max(bigRam, v.ram);
+            bigMips = Math.max(bigMips, v.mips);
+        }
+        long freeRam = 0, freeMips = 0, maxRam = 0, maxMips = 0;
+        for (int i = 0; i < hCount; i++) {
+            if (drained[i]) continue;
+            TrafficSimulationCore.HostInfo h = hosts.get(i);
+            freeRam += Math.max(0, h.remainingRam);
+            freeMips += Math.max(0, h.remainingMips);
+            maxRam = Math.max(maxRam, h.remainingRam);
+            maxMips = Math.max(maxMips, h.remainingMips);
+        }
+        if (needRam > freeRam || needMips > freeMips) {
+            return DrainPlan.infeasible(String.format("need RAM %d / MIPS %d but only %d / %d free on remaining hosts",
+                    needRam, needMips, freeRam, freeMips), t0);
+        }
+        if (bigRam > maxRam || bigMips > maxMips) {
+            return DrainPlan.infeasible(String.format("largest VM (RAM %d / MIPS %d) exceeds largest free host (%d / %d)",
+                    bigRam, bigMips, maxRam, maxMips), t0);
+        }
+
+        // 결과가 placement 의 순회 순서에 좌우되지 않도록 id 순
+        Integer[] evacOrder = new Integer[evac.size()];
+        for (int i = 0; i < evacOrder.length; i++) evacOrder[i] = i;
+        Arrays.sort(evacOrder, Comparator.comparingInt(i -> evac.get(i).id));
+        List<TrafficSimulationCore.VmInfo> vms = new ArrayList<>(evac.size());
+        int[] from = new int[evac.size()];
+        for (int i = 0; i < evacOrder.length; i++) {
+            vms.add(evac.get(evacOrder[i]));
+            from[i] = evacFrom.get(evacOrder[i]);
+        }
+        int m = vms.size();
+
+        // 남는 host (copy) 위에서 계획. targets[i] = 남는 host i 의 fleet index
+        List<TrafficSimulationCore.HostInfo> free = new ArrayList<>();
+        IntArrayList targetList = new IntArrayList();
+        for (int h = 0; h < hCount; h++) {
+            if (drained[h]) continue;
+            TrafficSimulationCore.HostInfo hi = hosts.get(h);
+            free.add(new TrafficSimulationCore.HostInfo(hi.id, hi.rackId, hi.podId, hi.totalRam, hi.totalMips));
+            free.get(free.size() - 1).remainingRam = hi.remainingRam;
+            free.get(free.size() - 1).remainingMips = hi.remainingMips;
+            targetList.add(h);
+        }
+        int[] targets = targetList.toArray();
+
+        // 합계로는 통과해도 VM 단위 first-fit decreasing 이 안 되면 불가
+        FeasibilityOracle oracle = new FeasibilityOracle(free, null);
+        List<List<TrafficSimulationCore.VmInfo>> singles = new ArrayList<>(m);
+        for (TrafficSimulationCore.VmInfo v : vms) singles.add(Collections.singletonList(v));
+        TrafficSimulationCore.sortPartitionsBySize(singles, free);
+        if (!oracle.canPack(ram(singles), mips(singles), 0, m, -1, 0, 0)) {
+            return DrainPlan.infeasible("remaining hosts cannot hold the " + m
+                    + " VMs (first-fit decreasing packing failed)", t0);
+        }
+
+        // ------------------------------------------------------
+        // 2) supernode 묶음: 예산 안에서 함께 옮길 수 있는 가장 굵은 cut
+        // ------------------------------------------------------
+        PartitionDendrogram dendrogram = new PartitionDendrogram(vms, traffic, supernodePercentile);
+        Map<TrafficSimulationCore.VmInfo, Integer> supernode = new IdentityHashMap<>();
+        List<List<TrafficSimulationCore.VmInfo>> supernodes = dendrogram.cut(dendrogram.supernodeCount());
+        for (int sn = 0; sn < supernodes.size(); sn++) for (TrafficSimulationCore.VmInfo v : supernodes.get(sn)) supernode.put(v, sn);
+
+        List<List<TrafficSimulationCore.VmInfo>> parts = singles;
+        for (long budgetRam = maxRam, budgetMips = maxMips; budgetRam >= bigRam && budgetMips >= bigMips;
+             budgetRam /= 2, budgetMips /= 2) {
+            List<List<TrafficSimulationCore.VmInfo>> cut = coarsestCut(dendrogram, supernode, budgetRam, budgetMips);
+            TrafficSimulationCore.sortPartitionsBySize(cut, free);
+            if (oracle.canPack(ram(cut), mips(cut), 0, cut.size(), -1, 0, 0)) {
+                parts = cut;
+                break;
+            }
+        }
+        int g = parts.size();
+        long[] partRam = ram(parts), partMips = mips(parts);
+
+        // VM (vms 인덱스) → 묶음
+        Map<TrafficSimulationCore.VmInfo, Integer> local = new IdentityHashMap<>();
+        for (int i = 0; i < m; i++) local.put(vms.get(i), i);
+        int[] groupOf = new int[m];
+        for (int p = 0; p < g; p++) for (TrafficSimulationCore.VmInfo v : parts.get(p)) groupOf[local.get(v)] = p;
+
+        // ------------------------------------------------------
+        // 3) 묶음별 affinity: 남는 VM 과의 트래픽 (stayAff) / 먼저 자리 잡은 묶음과의 트래픽 (placedAff)
+        //    남는 VM 과의 기존 비용 (fromCost) 은 같은 scan 에서
+        // ------------------------------------------------------
+        double[] lv = TrafficSimulationCore.distanceLevels(topo);
+        Affinity[] stayAff = new Affinity[g], placedAff = new Affinity[g];
+        for (int p = 0; p < g; p++) {
+            stayAff[p] = new Affinity();
+            placedAff[p] = new Affinity();
+        }
+        // VM id → drain 대상 index / 남는 VM 의 host (traffic.forEachPairWith 콜백용)
+        int idBound = traffic.size();
+        int[] localOf = new int[idBound], stayHostOf = new int[idBound];
+        Arrays.fill(localOf, -1);
+        Arrays.fill(stayHostOf, -1);
+        for (int i = 0; i < m; i++) localOf[vms.get(i).id] = i;
+        for (int u = 0; u < stay; u++) stayHostOf[stayId[u]] = stayHost[u];
+
+        // 묶음 batch 마다 한 번씩 행렬을 저장 순서대로 훑으며 host 별로 누적 (batch × host 배열),
+        // 끝나면 묶음마다 0 이 아닌 칸만 host / rack / pod map 으로 옮긴다
+        double[] fromCost = new double[1], pairFrom = new double[1];
+        double[][] between = new double[g][g];
+        int batch = Math.max(1, ACCUMULATOR_CELLS / Math.max(1, hCount));
+        double[] rackW = new double[rackIndex.size()], podW = new double[podIndex.size()];
+        for (int p0 = 0; p0 < g; p0 += batch) {
+            int first = p0, last = Math.min(g, p0 + batch);
+            double[][] hostW = new double[last - first][hCount];
+            IntArrayList batchIds = new IntArrayList();
+            for (int p = first; p < last; p++) for (TrafficSimulationCore.VmInfo v : parts.get(p)) batchIds.add(v.id);
+            int[] ids = batchIds.toArray();
+            Arrays.sort(ids);
+            traffic.forEachPairWith(ids, (a, b, t) -> {
+                int i = localOf[a];
+                int hb = stayHostOf[b];
+                if (hb >= 0) {
+                    hostW[groupOf[i] - first][hb] += t;
+                    fromCost[0] += t * dist(from[i], hb, rack, pod, lv);
+                    return;
+                }
+                int j = localOf[b];
+                if (j < 0 || a > b) return;   // drain 대상끼리는 (작은 id, 큰 id) 한 번만
+                int gi = groupOf[i], gj = groupOf[j];
+                if (gi != gj) {
+                    between[gi][gj] += t;
+                    between[gj][gi] += t;
+                }
+                pairFrom[0] += t * dist(from[i], from[j], rack, pod, lv);
+            });
+            for (int p = first; p < last; p++) stayAff[p].drain(hostW[p - first], rack, pod, rackW, podW);
+        }
+
+        int[] placedAt = new int[g];
+        Arrays.fill(placedAt, -1);
+        double[] cost = new double[targets.length];
+        double toCost = 0.0;
+        Integer[] byCost = new Integer[targets.length];
+        for (int p = 0; p < g; p++) {
+            int best = -1;
+            double bestCost = Double.MAX_VALUE;
+            for (int i = 0; i < targets.length; i++) {
+                TrafficSimulationCore.HostInfo h = free.get(i);
+                if (h.remainingRam < partRam[p] || h.remainingMips < partMips[p]) {
+                    cost[i] = Double.NaN;
+                    continue;
+                }
+                cost[i] = stayAff[p].costAt(targets[i], rack, pod, lv) + placedAff[p].costAt(targets[i], rack, pod, lv);
+                if (cost[i] < bestCost) {
+                    bestCost = cost[i];
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                return DrainPlan.infeasible("no remaining host fits group " + p + " of " + g, t0);
+            }
+            // 가장 싼 host 에 두면 남은 묶음이 못 들어가는 경우 → 비용 순으로 다음 후보
+            if (p + 1 < g && !oracle.canPack(partRam, partMips, p + 1, g, best, partRam[p], partMips[p])) {
+                int n2 = 0;
+                for (int i = 0; i < targets.length; i++) if (!Double.isNaN(cost[i])) byCost[n2++] = i;
+                Arrays.sort(byCost, 0, n2, Comparator.comparingDouble(i -> cost[i]));
+                for (int c = 0; c < n2; c++) {
+                    if (oracle.canPack(partRam, partMips, p + 1, g, byCost[c], partRam[p], partMips[p])) {
+                        best = byCost[c];
+                        break;
+                    }
+                }
+            }
+            TrafficSimulationCore.HostInfo target = free.get(best);
+            target.remainingRam -= partRam[p];
+            target.remainingMips -= partMips[p];
+            oracle.sync(best);
+            placedAt[p] = targets[best];
+            toCost += stayAff[p].costAt(targets[best], rack, pod, lv);
+            for (int q = p + 1; q < g; q++) {
+                if (between[q][p] != 0.0) placedAff[q].add(targets[best], rack, pod, between[q][p]);
+            }
+        }
+
+        // ------------------------------------------------------
+        // 4) 이동 목록 / 비용 변화
+        // ------------------------------------------------------
+        List<Move> moves = new ArrayList<>(m);
+        int[] to = new int[m];
+        double migration = 0.0;
+        for (int i = 0; i < m; i++) {
+            to[i] = placedAt[groupOf[i]];
+            TrafficSimulationCore.VmInfo v = vms.get(i);
+            moves.add(new Move(v, hosts.get(from[i]), hosts.get(to[i])));
+            migration += v.ram * dist(from[i], to[i], rack, pod, lv);
+        }
+        // 남는 VM 과의 비용 변화 + drain 대상 VM 끼리의 비용 변화 (같은 묶음 안은 옮긴 뒤 거리 0)
+        double delta = toCost - fromCost[0] - pairFrom[0];
+        for (int p = 0; p < g; p++) {
+            for (int q = p + 1; q < g; q++) {
+                if (between[p][q] != 0.0) delta += between[p][q] * dist(placedAt[p], placedAt[q], rack, pod, lv);
+            }
+        }
+        return new DrainPlan(true, null, moves, g, delta, migration, (System.nanoTime() - t0) / 1e9);
+    }
+
+    private static double dist(int a, int b, int[] rack, int[] pod, double[] lv) {
+        if (a == b) return 0.0;
+        if (rack[a] == rack[b]) return lv[0];
+        if (pod[a] == pod[b]) return lv[1];
+        return lv[2];
+    }
+
+    /**
+     * 예산 (budgetRam, budgetMips) 을 넘는 묶음이 supernode 하나뿐인 가장 작은 k 의 cut.
+     * cut(k+1) 은 cut(k) 를 쪼갠 것이라 조건이 k 에 대해 단조 → 이분 탐색.
+     * 예산을 넘는 supernode 는 VM 순서대로 예산 크기 조각으로 나눈다.
+     */
+    private static List<List<TrafficSimulationCore.VmInfo>> coarsestCut(
+            PartitionDendrogram dendrogram, Map<TrafficSimulationCore.VmInfo, Integer> supernode,
+            long budgetRam, long budgetMips) {
+        int lo = 1, hi = dendrogram.supernodeCount();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (withinBudget(dendrogram.cut(mid), supernode, budgetRam, budgetMips)) hi = mid;
+            else lo = mid + 1;
+        }
+        List<List<TrafficSimulationCore.VmInfo>> out = new ArrayList<>();
+        for (List<TrafficSimulationCore.VmInfo> part : dendrogram.cut(lo)) {
+            if (sumRam(part) <= budgetRam && sumMips(part) <= budgetMips) {
+                out.add(part);
+                continue;
+            }
+            List<TrafficSimulationCore.VmInfo> chunk = new ArrayList<>();
+            long r = 0, c = 0;
+            for (TrafficSimulationCore.VmInfo v : part) {
+                if (!chunk.isEmpty() && (r + v.ram > budgetRam || c + v.mips > budgetMips)) {
+                    out.add(chunk);
+                    chunk = new ArrayList<>();
+                    r = 0;
+                    c = 0;
+                }
+                chunk.add(v);
+                r += v.ram;
+                c += v.mips;
+            }
+            out.add(chunk);
+        }
+        return out;
+    }
+
+    private static boolean withinBudget(List<List<TrafficSimulationCore.VmInfo>> cut,
+                                        Map<TrafficSimulationCore.VmInfo, Integer> supernode,
+                                        long budgetRam, long budgetMips) {
+        for (List<TrafficSimulationCore.VmInfo> part : cut) {
+            if (sumRam(part) <= budgetRam && sumMips(part) <= budgetMips) continue;
+            int sn = supernode.get(part.get(0));
+            for (TrafficSimulationCore.VmInfo v : part) if (supernode.get(v) != sn) return false;
+        }
+        return true;
+    }
+
+    private static long sumRam(List<TrafficSimulationCore.VmInfo> part) {
+        long s = 0;
+        for (TrafficSimulationCore.VmInfo v : part) s += v.ram;
+        return s;
+    }
+
+    private static long sumMips(List<TrafficSimulationCore.VmInfo> part) {
+        long s = 0;
+        for (TrafficSimulationCore.VmInfo v : part) s += v.mips;
+        return s;
+    }
+
+    private static long[] ram(List<List<TrafficSimulationCore.VmInfo>> parts) {
+        long[] out = new long[parts.size()];
+        for (int p = 0; p < out.length; p++) out[p] = sumRam(parts.get(p));
+        return out;
+    }
+
+    private static long[] mips(List<List<TrafficSimulationCore.VmInfo>> parts) {
+        long[] out = new long[parts.size()];
+        for (int p = 0; p < out.length; p++) out[p] = sumMips(parts.get(p));
+        return out;
+    }
+
+    /**
+     * 묶음 하나와 (자리가 정해진) 나머지 VM 사이 트래픽을 host / rack / pod 별로 합친 것.
+     * cost(h) = dFar·W − (dFar−dPod)·W_pod(h) − (dPod−dRack)·W_rack(h) − dRack·W_host(h)
+     */
+    private static final class Affinity {
+        double total;
+        final IntDoubleHashMap byHost = new IntDoubleHashMap();
+        final IntDoubleHashMap byRack = new IntDoubleHashMap();
+        final IntDoubleHashMap byPod = new IntDoubleHashMap();
+
+        /** host 별 누적 배열의 0 이 아닌 칸을 host / rack / pod map 으로 옮긴다 (rackW / podW 는 빈 상태로 돌려줌) */
+        void drain(double[] hostW, int[] rack, int[] pod, double[] rackW, double[] podW) {
+            for (int h = 0; h < hostW.length; h++) {
+                if (hostW[h] == 0.0) continue;
+                byHost.add(h, hostW[h]);
+                rackW[rack[h]] += hostW[h];
+                podW[pod[h]] += hostW[h];
+                total += hostW[h];
+            }
+            for (int r = 0; r < rackW.length; r++) {
+                if (rackW[r] == 0.0) continue;
+                byRack.add(r, rackW[r]);
+                rackW[r] = 0.0;
+            }
+            for (int q = 0; q < podW.length; q++) {
+                if (podW[q] == 0.0) continue;
+                byPod.add(q, podW[q]);
+                podW[q] = 0.0;
+            }
+        }
+
+        void add(int h, int[] rack, int[] pod, double t) {
+            total += t;
+            byHost.add(h, t);
+            byRack.add(rack[h], t);
+            byPod.add(pod[h], t);
+        }
+
+        double costAt(int h, int[] rack, int[] pod, double[] lv) {
+            return lv[2] * total
+                    - (lv[2] - lv[1]) * byPod.get(pod[h])
+                    - (lv[1] - lv[0]) * byRack.get(rack[h])
+                    - lv[0] * byHost.get(h);
+        }
+    }
+}
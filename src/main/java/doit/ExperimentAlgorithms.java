@@ -16,14 +16,23 @@ public class ExperimentAlgorithms {
         List<TrafficSimulationCore.HostInfo> hostsBase = core.createHostList(hostCount);
         List<TrafficSimulationCore.VmInfo> vmsBase = core.createVmList(vmCount);
         double[][] traffic = core.createTrafficMatrix(vmCount);
+        TrafficMatrix trafficMatrix = TrafficMatrix.of(traffic);
+
+        // 세 알고리즘 모두 같은 registry / 같은 입력 복사본으로 실행
+        PlacementAlgorithms algorithms = new PlacementAlgorithms(core, supernodePercentile);
 
         Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> ffd =
-                core.placeVmsFFD(core.copyHosts(hostsBase), core.copyVms(vmsBase));
+                algorithms.get(PlacementAlgorithms.FFD).place(
+                        core.copyHosts(hostsBase), core.copyVms(vmsBase), trafficMatrix, topo);
         Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> sercon =
-                core.placeVmsSercon(core.copyHosts(hostsBase), core.copyVms(vmsBase));
+                algorithms.get(PlacementAlgorithms.SERCON).place(
+                        core.copyHosts(hostsBase), core.copyVms(vmsBase), trafficMatrix, topo);
+        InMemoryConsolidationMetrics metrics = new InMemoryConsolidationMetrics();
+        core.setMetrics(metrics);
         Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> proposed =
-                core.placeVmsProposed(core.copyHosts(hostsBase), core.copyVms(vmsBase),
-                        traffic, supernodePercentile, topo);
+                algorithms.get(PlacementAlgorithms.PROPOSED).place(
+                        core.copyHosts(hostsBase), core.copyVms(vmsBase), trafficMatrix, topo);
+        core.setMetrics(null);
 
         double tFfd = core.calcTrafficCost(ffd, traffic, topo);
         double tSercon = core.calcTrafficCost(sercon, traffic, topo);
@@ -53,5 +62,27 @@ public class ExperimentAlgorithms {
         System.out.printf("Sercon     | %12.2f   | %5d%n", tSercon, hSercon);
         System.out.printf("Proposed   | %12.2f   | %5d%n", tProp, hProp);
         System.out.println("---------------------------------------------\n");
+
+        // Proposed 결과에 local search 후처리 (FM gain bucket)
+        List<TrafficSimulationCore.HostInfo> refineHosts = core.copyHosts(hostsBase);
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> refineBase =
+                core.placeVmsProposed(refineHosts, core.copyVms(vmsBase), trafficMatrix,
+                        supernodePercentile, topo, 0.0);
+        LocalSearchRefiner.RefineResult refined =
+                new LocalSearchRefiner(200).refine(refineHosts, refineBase, trafficMatrix, topo);
+        System.out.println("[Proposed + Refine] " + refined);
+        System.out.println();
+
+        System.out.println("[Proposed 단계별 계측]");
+        System.out.println(metrics.snapshot());
+
+        // 통합 전(Phase 0 first-fit) → 통합 후 migration 스케줄
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> before =
+                core.placeVmsFirstFit(core.copyHosts(hostsBase), core.copyVms(vmsBase));
+        MigrationPlanner planner = new MigrationPlanner(core, 1_250.0, 2); // 10Gbps NIC, host당 2개 동시
+        System.out.println("[Migration 스케줄]");
+        System.out.println("Sercon   : " + planner.plan(hostsBase, before, sercon, topo));
+        System.out.println("Proposed : " + planner.plan(hostsBase, before, proposed, topo));
+        System.out.println();
     }
 }
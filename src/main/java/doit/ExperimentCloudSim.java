@@ -0,0 +1,77 @@
+package doit;
+
+import ch.qos.logback.classic.Level;
+import org.cloudsimplus.util.Log;
+
+import java.util.List;
+
+/**
+ * CloudSim Plus 시뮬레이션 처리량 (policy 별 simulated events / s).
+ *
+ * 같은 CloudSimScenario (host layout, VM, traffic, cloudlet) 를 ffd / sercon / proposed policy 로
+ * 각각 한 번씩 돌리고, event 처리량과 그중 policy 결정(최초 배치 + 통합 트리거)에 쓴 시간 비율을 본다.
+ * 실행: Main cloudsim [host 수 ...]   (기본 1000, 2000. VM 은 host 의 3 배)
+ *
+ * 측정 전에 policy 마다 WARMUP_HOSTS 크기 시나리오를 한 번 돌려 JIT / 클래스 로딩을 빼고,
+ * core 로그는 끈다 (Sercon / Proposed 의 host 해제 로그가 wall-clock 에 들어가지 않도록).
+ * cloudlet 이 interval 의 1 ~ 20 배 길이라 VM 이 interval 마다 빠지고, 트리거마다 재배치가 돈다
+ * (replan 열). CloudSim Plus 의 NetworkCloudlet 처리 자체가 무거워서 host 2000 대는 policy 당 수 분 걸린다.
+ */
+public class ExperimentCloudSim {
+
+    private static final int FLOWS_PER_VM = 4;
+    private static final double CONSOLIDATION_INTERVAL = 10.0;
+    private static final int WARMUP_HOSTS = 100;
+
+    private final TrafficSimulationCore core = new TrafficSimulationCore();
+
+    public ExperimentCloudSim() {
+        core.setVerbose(false);
+    }
+
+    public void run() {
+        run(new int[]{1_000, 2_000});
+    }
+
+    public void run(int[] hostCounts) {
+        String[] policies = {PlacementAlgorithms.FFD, PlacementAlgorithms.SERCON, PlacementAlgorithms.PROPOSED};
+        TrafficSimulationCore.Topology topo = TrafficSimulationCore.Topology.FAT_TREE;
+
+        // CloudSim 의 INFO 로그가 event 처리 시간을 덮지 않도록
+        Log.setLevel(Level.WARN);
+        PlacementAlgorithms algorithms = new PlacementAlgorithms(core, 0.95);
+
+        // policy 마다 작은 시나리오로 한 번 (측정 안 함)
+        CloudSimScenario warmup = scenario(WARMUP_HOSTS, topo);
+        for (String name : policies) warmup.run(algorithms.get(name));
+
+        System.out.println("=== CloudSim Plus 처리량 (" + topo + ", flows/VM = " + FLOWS_PER_VM
+                + ", interval = " + CONSOLIDATION_INTERVAL + " s) ===");
+        System.out.printf("%-9s | %6s | %6s | %10s | %8s | %12s | %8s | %7s | %7s | %6s | %10s%n",
+                "policy", "hosts", "VMs", "events", "wall(s)", "events/s", "policy(s)", "share", "trigger",
+                "replan", "migrations");
+
+        for (int hostCount : hostCounts) {
+            CloudSimScenario scenario = scenario(hostCount, topo);
+            for (String name : policies) {
+                CloudSimScenario.Result r = scenario.run(algorithms.get(name));
+                System.out.printf("%-9s | %6d | %6d | %10d | %8.2f | %12.0f | %8.2f | %6.1f%% | %7d | %6d | %10d%n",
+                        r.algorithm, r.hosts, r.vms, r.events, r.wallSeconds, r.eventsPerSecond(),
+                        r.policySeconds, r.policyShare() * 100.0, r.consolidations, r.replans, r.migrations);
+                if (r.finishedCloudlets != r.vms) {
+                    System.out.println("  [warn] finished cloudlets " + r.finishedCloudlets + " / " + r.vms
+                            + " (packets to migrated VMs are lost, run stopped at " + r.simulatedSeconds + " s)");
+                }
+            }
+        }
+    }
+
+    private CloudSimScenario scenario(int hostCount, TrafficSimulationCore.Topology topo) {
+        int vmCount = hostCount * 3;
+        WorkloadGenerator gen = new WorkloadGenerator(11);
+        List<TrafficSimulationCore.VmInfo> vms = gen.createVmList(vmCount);
+        TrafficMatrix traffic = TrafficMatrix.of(gen.createTrafficMatrix(vmCount, WorkloadGenerator.Shape.CLUSTERED));
+        return new CloudSimScenario(core, core.createHostList(hostCount), vms, traffic, topo,
+                FLOWS_PER_VM, CONSOLIDATION_INTERVAL, 5);
+    }
+}
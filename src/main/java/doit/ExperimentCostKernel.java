@@ -0,0 +1,106 @@
+package doit;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 트래픽 비용 kernel 처리량 비교 (dense 행렬, 전체 pair 비용 1회 = 1 op).
+ *
+ *   legacy : TrafficMatrix.get + dist() (switch / 분기) — DenseTrafficMatrix 가 아닌 경로
+ *   scalar : ScalarCostKernel (select 사슬, row 연속 접근)
+ *   active : CostKernel.INSTANCE (vector profile + add-modules 로 실행하면 VectorCostKernel)
+ *
+ * JMH 는 의존성에 없으므로 warm-up 후 System.nanoTime 으로 반복 측정한다.
+ * 실행: Main bench  (vector 비교는 mvn -Pvector 로 빌드 후 --add-modules jdk.incubator.vector)
+ */
+public class ExperimentCostKernel {
+
+    private static final int WARMUP = 5;
+    private static final int MEASURE = 10;
+
+    private final TrafficSimulationCore core = new TrafficSimulationCore();
+
+    public void run() {
+        int[] sizes = {1_000, 2_000, 4_000};
+        TrafficSimulationCore.Topology topo = TrafficSimulationCore.Topology.FAT_TREE;
+
+        System.out.println("=== Cost kernel 처리량 (" + topo + ", active = " + CostKernel.INSTANCE.name() + ") ===");
+        System.out.printf("%-8s | %14s | %14s | %14s | %8s%n",
+                "VMs", "legacy(Mpair/s)", "scalar(Mpair/s)", "active(Mpair/s)", "speedup");
+
+        for (int n : sizes) {
+            WorkloadGenerator gen = new WorkloadGenerator(7);
+            List<TrafficSimulationCore.VmInfo> vms = gen.createVmList(n);
+            double[][] raw = gen.createTrafficMatrix(n, WorkloadGenerator.Shape.CLUSTERED);
+            List<TrafficSimulationCore.HostInfo> hosts = core.createHostList(n / 3);
+            Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> pm = core.placeVmsFirstFit(hosts, vms);
+
+            TrafficMatrix dense = TrafficMatrix.of(raw);
+            // DenseTrafficMatrix 가 아니므로 calcTrafficCost 가 기존 get + dist 경로를 탄다
+            TrafficMatrix generic = new TrafficMatrix() {
+                @Override
+                public int size() {
+                    return raw.length;
+                }
+
+                @Override
+                public double get(int a, int b) {
+                    return raw[a][b];
+                }
+            };
+
+            double pairs = (double) pm.size() * (pm.size() - 1) / 2;
+            double legacy = measure(() -> core.calcTrafficCost(pm, generic, topo));
+            double scalar = measure(() -> kernelCost(new ScalarCostKernel(), pm, raw, topo));
+            double active = measure(() -> core.calcTrafficCost(pm, dense, topo));
+
+            // 같은 값을 내는지 확인 (덧셈 순서가 달라 상대 오차만 비교)
+            double a = core.calcTrafficCost(pm, generic, topo);
+            double b = core.calcTrafficCost(pm, dense, topo);
+            if (Math.abs(a - b) > 1e-9 * Math.max(1.0, Math.abs(a))) {
+                throw new IllegalStateException("kernel cost mismatch: " + a + " vs " + b);
+            }
+
+            System.out.printf("%-8d | %14.1f | %14.1f | %14.1f | %7.2fx%n",
+                    n, pairs / legacy / 1e6, pairs / scalar / 1e6, pairs / active / 1e6, legacy / active);
+        }
+    }
+
+    /** calcTrafficCost 의 dense 경로와 같은 계산을 주어진 kernel 로 */
+    private static double kernelCost(CostKernel kernel,
+                                     Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> pm,
+                                     double[][] rows, TrafficSimulationCore.Topology topo) {
+        int n = rows.length;
+        double[] host = new double[n], rack = new double[n], pod = new double[n];
+        java.util.Arrays.fill(host, -1.0);
+        for (Map.Entry<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> e : pm.entrySet()) {
+            int id = e.getKey().id;
+            host[id] = e.getValue().id;
+            rack[id] = e.getValue().rackId;
+            pod[id] = e.getValue().podId;
+        }
+        double[] lv = TrafficSimulationCore.distanceLevels(topo);
+        double total = 0.0;
+        for (int i = 0; i < n; i++) {
+            if (host[i] < 0) continue;
+            total += kernel.rowCost(rows[i], i + 1, n, host, rack, pod, host[i], rack[i], pod[i],
+                    lv[0], lv[1], lv[2]);
+        }
+        return total;
+    }
+
+    private interface Op {
+        double run();
+    }
+
+    /** 평균 1회 소요 시간 (초) */
+    private static double measure(Op op) {
+        double sink = 0;
+        for (int i = 0; i < WARMUP; i++) sink += op.run();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < MEASURE; i++) sink += op.run();
+        long elapsed = System.nanoTime() - t0;
+        if (sink == 42.0) System.out.print("");   // 결과를 쓰게 해서 dead-code 제거 방지
+        return elapsed / 1e9 / MEASURE;
+    }
+}
@@ -0,0 +1,62 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * DrainPlanner: host 10k (rack 당 40 대, pod 당 5 rack) / VM 20k (TIERED_APPS) 운영 배치에서 rack drain 계획 시간.
+ *
+ *   1) rack 하나 (40 host) drain 계획 → 적용 후 calcTrafficCost 로 trafficDelta 확인 (다른 rack 으로 한 번 더)
+ *   2) 남는 용량보다 큰 drain (rack 250 개 중 245 개) 이 바로 실패하는지
+ * 실행: Main drain
+ */
+public class ExperimentDrain {
+
+    private static final int HOSTS = 10_000;
+    private static final int HOSTS_PER_RACK = 40;
+    private static final int RACKS_PER_POD = 5;
+    private static final int VMS = 20_000;
+
+    private final TrafficSimulationCore core = new TrafficSimulationCore();
+
+    public void run() {
+        TrafficSimulationCore.Topology topo = TrafficSimulationCore.Topology.FAT_TREE;
+        List<TrafficSimulationCore.HostInfo> hosts = new ArrayList<>(HOSTS);
+        for (int i = 0; i < HOSTS; i++) {
+            int rack = i / HOSTS_PER_RACK;
+            hosts.add(new TrafficSimulationCore.HostInfo(i, rack, rack / RACKS_PER_POD, 64_000, 40_000));
+        }
+        WorkloadGenerator gen = new WorkloadGenerator(9);
+        List<TrafficSimulationCore.VmInfo> vms = gen.createVmList(VMS);
+        TrafficMatrix traffic = gen.createPackedTraffic(VMS, WorkloadGenerator.Shape.TIERED_APPS);
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> pm = new ResourceTable(hosts).placeFirstFit(vms);
+
+        System.out.println("=== Drain planner (" + topo + ", host " + HOSTS + " / VM " + pm.size() + ") ===");
+        DrainPlanner planner = new DrainPlanner(0.95);
+
+        // 1) rack 0 drain
+        DrainPlanner.DrainPlan plan = planner.drainRacks(hosts, pm, traffic, topo, Set.of(0));
+        System.out.printf("rack 0 (%d hosts): %d VMs in %d groups, plan %.1f ms, trafficDelta = %.2f, migration = %.0f%n",
+                HOSTS_PER_RACK, plan.moves.size(), plan.groups, plan.seconds * 1e3, plan.trafficDelta, plan.migrationCost);
+
+        double before = core.calcTrafficCost(pm, traffic, topo);
+        plan.applyTo(pm);
+        double after = core.calcTrafficCost(pm, traffic, topo);
+        for (TrafficSimulationCore.HostInfo h : hosts) {
+            if (h.remainingRam < 0 || h.remainingMips < 0) throw new IllegalStateException("host " + h.id + " overloaded");
+            if (h.rackId == 0 && h.remainingRam != h.totalRam) throw new IllegalStateException("host " + h.id + " not empty");
+        }
+        System.out.printf("applied: calcTrafficCost %.2f -> %.2f (delta %.2f)%n", before, after, after - before);
+
+        // 같은 planner 로 다른 rack 한 번 더 (JIT 이 끝난 뒤 시간)
+        DrainPlanner.DrainPlan next = planner.drainRacks(hosts, pm, traffic, topo, Set.of(1));
+        System.out.printf("rack 1 (%d hosts): %d VMs in %d groups, plan %.1f ms%n",
+                HOSTS_PER_RACK, next.moves.size(), next.groups, next.seconds * 1e3);
+
+        // 2) 불가능한 drain
+        Set<Integer> racks = new HashSet<>();
+        for (int r = 0; r < HOSTS / HOSTS_PER_RACK - 5; r++) racks.add(r);
+        DrainPlanner.DrainPlan bad = planner.drainRacks(hosts, pm, traffic, topo, racks);
+        System.out.printf("%d racks: feasible = %s in %.1f ms (%s)%n", racks.size(), bad.feasible, bad.seconds * 1e3,
+                bad.reason);
+    }
+}
@@ -0,0 +1,77 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * Phase 0 비교: first-fit vs graph-growing (GraphGrowingPlacement).
+ *
+ * host 300 / VM 3000 (FAT_TREE) 에서 shape 별로
+ *   1) Phase 0 만 했을 때의 트래픽 비용 / active host / 시간
+ *   2) 그 배치에서 시작한 Sercon, Proposed 의 최종 트래픽 비용 / 시간
+ * 을 출력한다. 시간은 JIT 이 돈 뒤의 두 번째 실행 기준.
+ * 실행: Main initial
+ */
+public class ExperimentInitialPlacement {
+
+    private static final int HOSTS = 300;
+    private static final int VMS = 3_000;
+
+    private final TrafficSimulationCore core = new TrafficSimulationCore();
+
+    public void run() {
+        TrafficSimulationCore.Topology topo = TrafficSimulationCore.Topology.FAT_TREE;
+        core.setVerbose(false);
+        WorkloadGenerator gen = new WorkloadGenerator(11);
+        List<TrafficSimulationCore.VmInfo> vms = gen.createVmList(VMS);
+        List<TrafficSimulationCore.HostInfo> hosts = core.createHostList(HOSTS);
+
+        System.out.println("=== Initial placement (" + topo + ", host " + HOSTS + " / VM " + VMS + ") ===");
+        for (WorkloadGenerator.Shape shape : new WorkloadGenerator.Shape[]{
+                WorkloadGenerator.Shape.CLUSTERED, WorkloadGenerator.Shape.TIERED_APPS}) {
+            TrafficMatrix traffic = TrafficMatrix.of(gen.createTrafficMatrix(VMS, shape));
+            System.out.println("--- " + shape);
+            System.out.println("Phase 0         |   phase0 cost  | hosts |  ms  ||  Sercon cost   |  ms  ||  Proposed cost |  ms");
+            for (TrafficSimulationCore.InitialPlacement init : TrafficSimulationCore.InitialPlacement.values()) {
+                core.setInitialPlacement(init);
+                Row row = null;
+                for (int rep = 0; rep < 2; rep++) row = measure(hosts, vms, traffic, topo);
+                System.out.printf("%-15s | %14.0f | %5d | %4.0f || %14.0f | %4.0f || %14.0f | %4.0f%n",
+                        init, row.phase0Cost, row.phase0Hosts, row.phase0Ms,
+                        row.serconCost, row.serconMs, row.proposedCost, row.proposedMs);
+            }
+        }
+        core.setInitialPlacement(TrafficSimulationCore.InitialPlacement.FIRST_FIT);
+    }
+
+    private static final class Row {
+        double phase0Cost, phase0Ms;
+        int phase0Hosts;
+        double serconCost, serconMs;
+        double proposedCost, proposedMs;
+    }
+
+    private Row measure(List<TrafficSimulationCore.HostInfo> hosts, List<TrafficSimulationCore.VmInfo> vms,
+                        TrafficMatrix traffic, TrafficSimulationCore.Topology topo) {
+        Row row = new Row();
+        List<TrafficSimulationCore.HostInfo> hs = core.copyHosts(hosts);
+        long t0 = System.nanoTime();
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> pm =
+                core.getInitialPlacement() == TrafficSimulationCore.InitialPlacement.GRAPH_GROWING
+                        ? new GraphGrowingPlacement().place(hs, vms, traffic, topo)
+                        : core.placeVmsFirstFit(hs, vms);
+        row.phase0Ms = (System.nanoTime() - t0) / 1e6;
+        row.phase0Cost = core.calcTrafficCost(pm, traffic, topo);
+        row.phase0Hosts = core.countActiveHosts(pm);
+
+        t0 = System.nanoTime();
+        pm = core.placeVmsSercon(core.copyHosts(hosts), vms, traffic, topo);
+        row.serconMs = (System.nanoTime() - t0) / 1e6;
+        row.serconCost = core.calcTrafficCost(pm, traffic, topo);
+
+        t0 = System.nanoTime();
+        pm = core.placeVmsProposed(core.copyHosts(hosts), vms, traffic, 0.95, topo, 0.0);
+        row.proposedMs = (System.nanoTime() - t0) / 1e6;
+        row.proposedCost = core.calcTrafficCost(pm, traffic, topo);
+        return row;
+    }
+}
@@ -0,0 +1,141 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * LinkLoadEngine: link 이용률 / hotspot, 증분 갱신 정확도와 시간, 혼잡 가중 Proposed.
+ *
+ * host 300 / VM 3000 (TIERED_APPS) 에서 토폴로지별로
+ *   1) first-fit 배치의 max link 이용률, 용량 초과 group 수, 가장 뜨거운 group 3 개
+ *      (host link 용량 = first-fit 에서 쓰이는 host 의 평균 host link load × 1.5, ToR 은 4:1 oversubscription)
+ *   2) 무작위 move 2000 번을 증분으로 반영한 값과 rebuild 값의 차이, move / rebuild 시간
+ *   3) consolidateProposed 를 congestionWeight 0 / dFar / 5·dFar 로 돌린 트래픽 비용, host 수, max 이용률, overload
+ *      (first-fit 이 쓰는 host + 5% 에서 VM 2% 를 여유 host 로 흩어 둔 배치에서 시작, 해제 시도가 실제로 일어나도록)
+ * 를 출력한다.
+ * 실행: Main links
+ */
+public class ExperimentLinkLoad {
+
+    private static final int HOSTS = 300;
+    private static final int VMS = 3_000;
+    private static final int MOVES = 2_000;
+    private static final double RACK_OVERSUBSCRIPTION = 4.0;
+
+    private final TrafficSimulationCore core = new TrafficSimulationCore();
+
+    public void run() {
+        core.setVerbose(false);
+        WorkloadGenerator gen = new WorkloadGenerator(13);
+        List<TrafficSimulationCore.VmInfo> vms = gen.createVmList(VMS);
+        List<TrafficSimulationCore.HostInfo> hosts = core.createHostList(HOSTS);
+        TrafficMatrix traffic = TrafficMatrix.of(gen.createTrafficMatrix(VMS, WorkloadGenerator.Shape.TIERED_APPS));
+
+        for (TrafficSimulationCore.Topology topo : TrafficSimulationCore.Topology.values()) {
+            System.out.println("=== Link load (" + topo + ", host " + HOSTS + " / VM " + VMS + ", TIERED_APPS) ===");
+
+            // 1) first-fit 배치
+            List<TrafficSimulationCore.HostInfo> hs = core.copyHosts(hosts);
+            Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> pm = core.placeVmsFirstFit(hs, vms);
+            double capacity = meanHostLoad(hs, pm, traffic, topo) * 1.5;
+            LinkLoadEngine links = new LinkLoadEngine(hs, topo, capacity, RACK_OVERSUBSCRIPTION, 1.0);
+            long t0 = System.nanoTime();
+            links.rebuild(pm, traffic);
+            double rebuildMs = (System.nanoTime() - t0) / 1e6;
+            System.out.printf("first-fit: host link capacity %.1f, max utilization %.3f (host %.3f / rack %.3f / pod %.3f), "
+                            + "overloaded groups %d%n",
+                    capacity, links.maxUtilization(),
+                    links.maxUtilization(LinkLoadEngine.Tier.HOST),
+                    links.maxUtilization(LinkLoadEngine.Tier.RACK_UPLINK),
+                    links.maxUtilization(LinkLoadEngine.Tier.POD_UPLINK),
+                    links.hotspots(1.0).size());
+            List<LinkLoadEngine.Hotspot> top = links.hotspots(0.0);
+            for (int i = 0; i < Math.min(3, top.size()); i++) System.out.println("  " + top.get(i));
+
+            // 2) 증분 move vs rebuild
+            List<TrafficSimulationCore.VmInfo> placed = new ArrayList<>(pm.keySet());
+            placed.sort(Comparator.comparingInt(v -> v.id));
+            Random r = new Random(5);
+            t0 = System.nanoTime();
+            for (int m = 0; m < MOVES; m++) {
+                TrafficSimulationCore.VmInfo v = placed.get(r.nextInt(placed.size()));
+                TrafficSimulationCore.HostInfo to = hs.get(r.nextInt(hs.size()));
+                links.move(v, to);
+                pm.put(v, to);   // 용량은 무시 (부하 계산만 본다)
+            }
+            double moveUs = (System.nanoTime() - t0) / 1e3 / MOVES;
+            double incOverload = links.overload(), incMax = links.maxUtilization();
+            links.rebuild(pm, traffic);
+            System.out.printf("incremental: %d moves, %.1f us/move vs rebuild %.0f ms | "
+                            + "overload diff %.2e, max utilization diff %.2e%n",
+                    MOVES, moveUs, rebuildMs,
+                    Math.abs(incOverload - links.overload()) / Math.max(1.0, links.overload()),
+                    Math.abs(incMax - links.maxUtilization()));
+
+            // 3) 혼잡 가중 Proposed
+            double dFar = TrafficSimulationCore.distanceLevels(topo)[2];
+            core.setLinkCapacity(capacity, RACK_OVERSUBSCRIPTION, 1.0);
+            int used = core.countActiveHosts(core.placeVmsFirstFit(core.copyHosts(hosts), vms));
+            List<TrafficSimulationCore.HostInfo> wide = new ArrayList<>(hosts.subList(0,
+                    Math.min(hosts.size(), used + used / 20)));
+            System.out.println("congestion w |   traffic cost  | hosts | max util | overload | overloaded | accepted |   ms");
+            for (double w : new double[]{0.0, dFar, 5 * dFar}) {
+                core.setCongestionWeight(w);
+                core.getReleaseCache().clear();
+                List<TrafficSimulationCore.HostInfo> ph = core.copyHosts(wide);
+                Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> start = scattered(ph, vms);
+                InMemoryConsolidationMetrics metrics = new InMemoryConsolidationMetrics();
+                core.setMetrics(metrics);
+                t0 = System.nanoTime();
+                Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> out =
+                        core.consolidateProposed(ph, start, traffic, 0.95, topo, 0.0);
+                double ms = (System.nanoTime() - t0) / 1e6;
+                LinkLoadEngine after = new LinkLoadEngine(ph, topo, capacity, RACK_OVERSUBSCRIPTION, 1.0);
+                after.rebuild(out, traffic);
+                System.out.printf("%12.1f | %15.2f | %5d | %8.3f | %8.1f | %10d | %8d | %5.0f%n",
+                        w, core.calcTrafficCost(out, traffic, topo), core.countActiveHosts(out),
+                        after.maxUtilization(), after.overload(), after.hotspots(1.0).size(),
+                        metrics.getCounters().get("RELEASES_ACCEPTED"), ms);
+            }
+            core.setCongestionWeight(0.0);
+            core.setMetrics(null);
+            System.out.println();
+        }
+    }
+
+    /** first-fit 후 VM 2% 를 first-fit 이 안 쓴 host 로 옮긴 배치 */
+    private Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> scattered(
+            List<TrafficSimulationCore.HostInfo> hosts, List<TrafficSimulationCore.VmInfo> vms) {
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> pm = core.placeVmsFirstFit(hosts, vms);
+        List<TrafficSimulationCore.HostInfo> empty = new ArrayList<>();
+        for (TrafficSimulationCore.HostInfo h : hosts) if (h.usedRam() == 0) empty.add(h);
+        if (empty.isEmpty()) return pm;
+        Random r = new Random(3);
+        for (TrafficSimulationCore.VmInfo v : vms) {
+            if (r.nextDouble() >= 0.02 || !pm.containsKey(v)) continue;
+            TrafficSimulationCore.HostInfo to = empty.get(r.nextInt(empty.size()));
+            if (to.remainingRam < v.ram || to.remainingMips < v.mips) continue;
+            TrafficSimulationCore.HostInfo from = pm.put(v, to);
+            from.remainingRam += v.ram;
+            from.remainingMips += v.mips;
+            to.remainingRam -= v.ram;
+            to.remainingMips -= v.mips;
+        }
+        return pm;
+    }
+
+    /** VM 이 있는 host 의 host link 평균 load */
+    private double meanHostLoad(List<TrafficSimulationCore.HostInfo> hosts,
+                                Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> pm,
+                                TrafficMatrix traffic, TrafficSimulationCore.Topology topo) {
+        LinkLoadEngine probe = new LinkLoadEngine(hosts, topo, 1.0);
+        probe.rebuild(pm, traffic);
+        double sum = 0.0;
+        int used = 0;
+        for (LinkLoadEngine.Hotspot h : probe.hotspots(0.0)) {
+            if (h.tier != LinkLoadEngine.Tier.HOST || h.load == 0.0) continue;
+            sum += h.load;
+            used++;
+        }
+        return used == 0 ? 1.0 : sum / used;
+    }
+}
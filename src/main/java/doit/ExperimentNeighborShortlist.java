@@ -0,0 +1,96 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * migratePartition 후보 host: 전체 scan vs NeighborIndex shortlist.
+ *
+ * VM 10000 (PackedTrafficStore), FAT_TREE 에서 shape 별로 first-fit 배치 (host 5% 여유, VM 2% 를 여유 host 로
+ * 흩어 둠) 에서 consolidateProposed 를 돌려
+ *   full scan / shortlist (k = 8, 32) / shortlist + verify
+ * 의 최종 트래픽 비용, 전체 시간, migration 단계 (migratePartitions) 시간, HOST_EVALUATIONS, SHORTLIST_MISSES 를
+ * 출력한다. 전체 시간은 해제 시도마다의 calcTrafficCost 가 대부분이라 차이는 migration 단계에서 본다.
+ * 실행: Main shortlist
+ */
+public class ExperimentNeighborShortlist {
+
+    private static final int VMS = 10_000;
+
+    private final TrafficSimulationCore core = new TrafficSimulationCore();
+
+    public void run() {
+        TrafficSimulationCore.Topology topo = TrafficSimulationCore.Topology.FAT_TREE;
+        core.setVerbose(false);
+        WorkloadGenerator gen = new WorkloadGenerator(7);
+        List<TrafficSimulationCore.VmInfo> vms = gen.createVmList(VMS);
+        List<TrafficSimulationCore.HostInfo> fleet = core.createHostList(VMS / 3);
+        int used = core.countActiveHosts(core.placeVmsFirstFit(core.copyHosts(fleet), vms));
+        List<TrafficSimulationCore.HostInfo> hosts = new ArrayList<>(fleet.subList(0,
+                Math.min(fleet.size(), used + used / 20)));
+
+        System.out.println("=== Neighbor shortlist (" + topo + ", host " + hosts.size() + " / VM " + VMS + ", packed) ===");
+        for (WorkloadGenerator.Shape shape : new WorkloadGenerator.Shape[]{
+                WorkloadGenerator.Shape.CLUSTERED, WorkloadGenerator.Shape.TIERED_APPS}) {
+            TrafficMatrix traffic = gen.createPackedTraffic(VMS, shape);
+            System.out.println("--- " + shape);
+            System.out.println("mode            |      final cost   |   ms   | migrate ms | accepted | host evals | misses");
+            run("full scan", hosts, vms, traffic, topo, null, false);
+            for (int k : new int[]{8, 32}) {
+                long t0 = System.nanoTime();
+                NeighborIndex index = new NeighborIndex(traffic, k);
+                double buildMs = (System.nanoTime() - t0) / 1e6;
+                double coverage = 0.0;
+                for (int v = 0; v < VMS; v++) coverage += index.coverage(v);
+                System.out.printf("  (k = %d: build %.0f ms, mean coverage %.3f)%n", k, buildMs, coverage / VMS);
+                run("shortlist k=" + k, hosts, vms, traffic, topo, index, false);
+                run("  + verify", hosts, vms, traffic, topo, index, true);
+            }
+        }
+        core.setNeighborIndex(null);
+        core.setVerifyShortlist(false);
+        core.setMetrics(null);
+    }
+
+    private void run(String label, List<TrafficSimulationCore.HostInfo> hosts,
+                     List<TrafficSimulationCore.VmInfo> vms, TrafficMatrix traffic,
+                     TrafficSimulationCore.Topology topo, NeighborIndex index, boolean verify) {
+        List<TrafficSimulationCore.HostInfo> hs = core.copyHosts(hosts);
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> start = scattered(hs, vms);
+        core.getReleaseCache().clear();   // full scan run 끼리도 앞 run 의 판정을 재사용하지 않도록
+        core.setNeighborIndex(index);
+        core.setVerifyShortlist(verify);
+        InMemoryConsolidationMetrics metrics = new InMemoryConsolidationMetrics();
+        core.setMetrics(metrics);
+        long t0 = System.nanoTime();
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> out =
+                core.consolidateProposed(hs, start, traffic, 0.95, topo, 0.0);
+        double ms = (System.nanoTime() - t0) / 1e6;
+        Map<String, Long> c = metrics.getCounters();
+        InMemoryConsolidationMetrics.PhaseStats migrate =
+                metrics.snapshot().phases.get(ConsolidationMetrics.Phase.MIGRATION_SIMULATION);
+        System.out.printf("%-15s | %17.2f | %6.0f | %10.1f | %8d | %10d | %6d%n",
+                label, core.calcTrafficCost(out, traffic, topo), ms, migrate.totalNanos / 1e6,
+                c.get("RELEASES_ACCEPTED"), c.get("HOST_EVALUATIONS"), c.get("SHORTLIST_MISSES"));
+    }
+
+    /** first-fit 후 VM 2% 를 first-fit 이 안 쓴 host 로 옮긴 배치 */
+    private Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> scattered(
+            List<TrafficSimulationCore.HostInfo> hosts, List<TrafficSimulationCore.VmInfo> vms) {
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> pm = core.placeVmsFirstFit(hosts, vms);
+        List<TrafficSimulationCore.HostInfo> empty = new ArrayList<>();
+        for (TrafficSimulationCore.HostInfo h : hosts) if (h.usedRam() == 0) empty.add(h);
+        if (empty.isEmpty()) return pm;
+        Random r = new Random(3);
+        for (TrafficSimulationCore.VmInfo v : vms) {
+            if (r.nextDouble() >= 0.02 || !pm.containsKey(v)) continue;
+            TrafficSimulationCore.HostInfo to = empty.get(r.nextInt(empty.size()));
+            if (to.remainingRam < v.ram || to.remainingMips < v.mips) continue;
+            TrafficSimulationCore.HostInfo from = pm.put(v, to);
+            from.remainingRam += v.ram;
+            from.remainingMips += v.mips;
+            to.remainingRam -= v.ram;
+            to.remainingMips -= v.mips;
+        }
+        return pm;
+    }
+}
@@ -0,0 +1,135 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * SampledCostEstimator 정확도 / 시간.
+ *
+ * VM 10000 (TIERED_APPS, PackedTrafficStore), FAT_TREE, graph-growing 배치 (쓰인 host 만) 에서
+ *   1) 전체 비용: calcTrafficCost vs estimateTotal (구간이 exact 를 포함한 비율)
+ *   2) VM 10 개를 무작위 host 로 옮긴 delta: exactDelta vs estimateDelta (포함 비율)
+ *   3) consolidateProposed: exact 판정 vs setCostScreening (결과 비용, 판정 방식별 횟수)
+ * 실행: Main estimate
+ */
+public class ExperimentSampledCost {
+
+    private static final int VMS = 10_000;
+    private static final int TOTAL_RUNS = 20;
+    private static final int TOTAL_SAMPLES = 20_000;
+    private static final int DELTA_RUNS = 200;
+
+    private final TrafficSimulationCore core = new TrafficSimulationCore();
+
+    public void run() {
+        TrafficSimulationCore.Topology topo = TrafficSimulationCore.Topology.FAT_TREE;
+        core.setVerbose(false);
+        WorkloadGenerator gen = new WorkloadGenerator(5);
+        List<TrafficSimulationCore.VmInfo> vms = gen.createVmList(VMS);
+        TrafficMatrix traffic = gen.createPackedTraffic(VMS, WorkloadGenerator.Shape.TIERED_APPS);
+        // graph-growing 이 실제로 쓰는 host 만 남긴다 (빈 host 를 해제 후보로 고르지 않도록)
+        List<TrafficSimulationCore.HostInfo> fleet = core.createHostList(VMS / 3);
+        Set<Integer> used = new HashSet<>();
+        for (TrafficSimulationCore.HostInfo h :
+                new GraphGrowingPlacement().place(core.copyHosts(fleet), vms, traffic, topo).values()) {
+            used.add(h.id);
+        }
+        List<TrafficSimulationCore.HostInfo> base = new ArrayList<>();
+        for (TrafficSimulationCore.HostInfo h : fleet) if (used.contains(h.id)) base.add(h);
+        List<TrafficSimulationCore.HostInfo> hosts = core.copyHosts(base);
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> pm =
+                new GraphGrowingPlacement().place(hosts, vms, traffic, topo);
+
+        System.out.println("=== Sampled cost estimator (" + topo + ", host " + hosts.size() + " / VM " + VMS
+                + ", TIERED_APPS packed) ===");
+        long t0 = System.nanoTime();
+        SampledCostEstimator est = new SampledCostEstimator(traffic);
+        System.out.printf("estimator build: %.0f ms%n", (System.nanoTime() - t0) / 1e6);
+
+        // 1) 전체 비용
+        t0 = System.nanoTime();
+        double exact = core.calcTrafficCost(pm, traffic, topo);
+        double exactMs = (System.nanoTime() - t0) / 1e6;
+        int covered = 0;
+        SampledCostEstimator.Estimate last = null;
+        t0 = System.nanoTime();
+        for (int r = 0; r < TOTAL_RUNS; r++) {
+            last = est.estimateTotal(pm, topo, TOTAL_SAMPLES);
+            if (exact >= last.lower() && exact <= last.upper()) covered++;
+        }
+        double estMs = (System.nanoTime() - t0) / 1e6 / TOTAL_RUNS;
+        System.out.printf("total : exact %.2f (%.0f ms) | estimate %s (%.1f ms), covered %d/%d%n",
+                exact, exactMs, last, estMs, covered, TOTAL_RUNS);
+
+        // 2) delta
+        List<TrafficSimulationCore.VmInfo> placed = new ArrayList<>(pm.keySet());
+        placed.sort(Comparator.comparingInt(v -> v.id));
+        Random r = new Random(3);
+        covered = 0;
+        long estNanos = 0, exactNanos = 0;
+        double relWidth = 0.0;
+        for (int run = 0; run < DELTA_RUNS; run++) {
+            Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> movedFrom = new HashMap<>();
+            Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> after = new HashMap<>(pm);
+            for (int k = 0; k < 10; k++) {
+                TrafficSimulationCore.VmInfo v = placed.get(r.nextInt(placed.size()));
+                if (movedFrom.containsKey(v)) continue;
+                movedFrom.put(v, pm.get(v));
+                after.put(v, hosts.get(r.nextInt(hosts.size())));
+            }
+            t0 = System.nanoTime();
+            SampledCostEstimator.Estimate d = est.estimateDelta(after, movedFrom, topo);
+            estNanos += System.nanoTime() - t0;
+            t0 = System.nanoTime();
+            double x = est.exactDelta(after, movedFrom, topo);
+            exactNanos += System.nanoTime() - t0;
+            if (x >= d.lower() && x <= d.upper()) covered++;
+            relWidth += d.halfWidth / Math.max(1e-9, Math.abs(x));
+        }
+        System.out.printf("delta : exactDelta %.2f ms | estimate %.2f ms, covered %d/%d, mean halfWidth/|delta| = %.3f%n",
+                exactNanos / 1e6 / DELTA_RUNS, estNanos / 1e6 / DELTA_RUNS, covered, DELTA_RUNS, relWidth / DELTA_RUNS);
+
+        // 3) Proposed 판정: host 를 5% 더 두고 VM 2% 를 그쪽으로 흩어 둔 first-fit 배치에서 시작
+        //    (빈 host 가 없어야 해제 시도가 실제 migration 까지 간다)
+        List<TrafficSimulationCore.HostInfo> wide = new ArrayList<>(fleet.subList(0,
+                Math.min(fleet.size(), base.size() + base.size() / 20)));
+        for (boolean screening : new boolean[]{false, true}) {
+            List<TrafficSimulationCore.HostInfo> hs = core.copyHosts(wide);
+            Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> start = scattered(hs, vms);
+            InMemoryConsolidationMetrics metrics = new InMemoryConsolidationMetrics();
+            core.setMetrics(metrics);
+            core.setCostScreening(screening ? est : null);
+            t0 = System.nanoTime();
+            Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> out =
+                    core.consolidateProposed(hs, start, traffic, 0.95, topo, 0.0);
+            double ms = (System.nanoTime() - t0) / 1e6;
+            Map<String, Long> c = metrics.getCounters();
+            System.out.printf("proposed (%s): cost %.2f, %.0f ms, accepted %d, rejected %d, screened %d, fallbacks %d%n",
+                    screening ? "screening" : "exact", core.calcTrafficCost(out, traffic, topo), ms,
+                    c.get("RELEASES_ACCEPTED"), c.get("RELEASES_REJECTED"),
+                    c.get("RELEASES_SCREENED"), c.get("SCREENING_FALLBACKS"));
+        }
+        core.setCostScreening(null);
+        core.setMetrics(null);
+    }
+
+    /** first-fit 후 VM 2% 를 뒤쪽 (first-fit 이 안 쓴) host 로 옮긴 배치 */
+    private Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> scattered(
+            List<TrafficSimulationCore.HostInfo> hosts, List<TrafficSimulationCore.VmInfo> vms) {
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> pm = core.placeVmsFirstFit(hosts, vms);
+        List<TrafficSimulationCore.HostInfo> empty = new ArrayList<>();
+        for (TrafficSimulationCore.HostInfo h : hosts) if (h.usedRam() == 0) empty.add(h);
+        if (empty.isEmpty()) return pm;
+        Random r = new Random(3);
+        for (TrafficSimulationCore.VmInfo v : vms) {
+            if (r.nextDouble() >= 0.02 || !pm.containsKey(v)) continue;
+            TrafficSimulationCore.HostInfo to = empty.get(r.nextInt(empty.size()));
+            if (to.remainingRam < v.ram || to.remainingMips < v.mips) continue;
+            TrafficSimulationCore.HostInfo from = pm.put(v, to);
+            from.remainingRam += v.ram;
+            from.remainingMips += v.mips;
+            to.remainingRam -= v.ram;
+            to.remainingMips -= v.mips;
+        }
+        return pm;
+    }
+}
@@ -0,0 +1,82 @@
+package doit;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PlacementSnapshot 쓰기 / mmap 읽기 시간과, 불러온 배치에서 바로 통합을 이어가는 경로 확인.
+ *
+ *   1) 대규모 (host 10k / VM 100k) first-fit 배치를 snapshot 으로 쓰고 다시 읽는 시간
+ *   2) 실험 1 환경의 Phase 0 배치를 snapshot 으로 남긴 뒤, 불러와서 consolidateProposed 로 이어가면
+ *      placeVmsProposed 를 처음부터 돌린 것과 같은 결과가 나오는지 (다르면 MISMATCH 를 찍고 실패)
+ * 실행: Main snapshot
+ */
+public class ExperimentSnapshot {
+
+    private final TrafficSimulationCore core = new TrafficSimulationCore();
+
+    public void run() throws Exception {
+        Path dir = Files.createTempDirectory("doit-snapshot");
+        Path file = dir.resolve("placement.snap");
+
+        System.out.println("=== Placement snapshot ===");
+
+        // 1) 대규모 쓰기 / 읽기
+        WorkloadGenerator gen = new WorkloadGenerator(3);
+        List<TrafficSimulationCore.HostInfo> hosts = core.createHostList(10_000);
+        List<TrafficSimulationCore.VmInfo> vms = gen.createVmList(100_000);
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> pm = new ResourceTable(hosts).placeFirstFit(vms);
+
+        long t0 = System.nanoTime();
+        PlacementSnapshot.write(file, hosts, vms, pm, null);
+        double writeMs = (System.nanoTime() - t0) / 1e6;
+        t0 = System.nanoTime();
+        PlacementSnapshot loaded = PlacementSnapshot.load(file);
+        double loadMs = (System.nanoTime() - t0) / 1e6;
+        System.out.printf("host %d / VM %d (placed %d): %,d bytes, write %.1f ms, load %.1f ms%n",
+                hosts.size(), vms.size(), pm.size(), Files.size(file), writeMs, loadMs);
+        if (loaded.placement.size() != pm.size() || loaded.hosts.get(123).remainingRam != hosts.get(123).remainingRam) {
+            throw new IllegalStateException("snapshot round trip mismatch");
+        }
+
+        // 2) Phase 0 배치에서 이어서 통합
+        TrafficSimulationCore.Topology topo = TrafficSimulationCore.Topology.TREE;
+        List<TrafficSimulationCore.HostInfo> hostsBase = core.createHostList(20);
+        List<TrafficSimulationCore.VmInfo> vmsBase = core.createVmList(60);
+        TrafficMatrix traffic = TrafficMatrix.of(core.createTrafficMatrix(60));
+
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> freshPm = core.placeVmsProposed(
+                core.copyHosts(hostsBase), core.copyVms(vmsBase), traffic, 0.95, topo, 0.0);
+        double fresh = core.calcTrafficCost(freshPm, traffic, topo);
+
+        List<TrafficSimulationCore.HostInfo> phase0Hosts = core.copyHosts(hostsBase);
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> phase0 =
+                core.placeVmsFirstFit(phase0Hosts, vmsBase);
+        PlacementSnapshot.write(file, phase0Hosts, vmsBase, phase0,
+                PlacementSnapshot.TrafficRef.of("generated:createTrafficMatrix(60)", traffic));
+
+        // 처음부터 돌린 run 의 해제 결과를 캐시에서 그대로 꺼내 쓰지 않도록 비운다
+        core.getReleaseCache().clear();
+        t0 = System.nanoTime();
+        PlacementSnapshot resume = PlacementSnapshot.load(file);
+        if (!resume.traffic.matches(traffic)) throw new IllegalStateException("traffic fingerprint mismatch");
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> resumedPm = core.consolidateProposed(
+                resume.hosts, resume.placement, traffic, 0.95, topo, 0.0);
+        double resumed = core.calcTrafficCost(resumedPm, traffic, topo);
+        double resumeMs = (System.nanoTime() - t0) / 1e6;
+
+        // 비용은 placement HashMap 순회 순서에 따라 마지막 자리만 달라질 수 있다
+        int freshHosts = core.countActiveHosts(freshPm), resumedHosts = core.countActiveHosts(resumedPm);
+        boolean same = freshHosts == resumedHosts
+                && Math.abs(fresh - resumed) <= 1e-9 * Math.max(1.0, Math.abs(fresh));
+        System.out.printf("%s 처음부터 Proposed = %.2f (%d hosts), snapshot 에서 이어서 = %.2f (%d hosts)"
+                        + " (load + 통합 %.1f ms)%n",
+                same ? "OK" : "MISMATCH", fresh, freshHosts, resumed, resumedHosts, resumeMs);
+
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir);
+        if (!same) throw new IllegalStateException("resumed consolidation differs from a fresh Proposed run");
+    }
+}
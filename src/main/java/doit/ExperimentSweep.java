@@ -0,0 +1,50 @@
+package doit;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 실험 2 (VM 수 변화) + 실험 4 (토폴로지) grid 를 SweepCoordinator 로 여러 JVM 에 나눠 실행.
+ *
+ * 실행: Main sweep [workers] [worker heap] [VM 수 ...]
+ *   VM 수를 주면 실험 2 grid 를 그 VM 수들로 (host = VM / 3), 없으면 기존 20/60, 40/120, 60/180.
+ *   결과는 target/sweep/merged.tsv, worker 로그는 target/sweep/shard-*.log
+ */
+public class ExperimentSweep {
+
+    private static final int MAX_ATTEMPTS = 3;
+    /** point 하나가 이보다 오래 결과를 안 내면 worker 를 죽인다 */
+    private static final long POINT_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+    public void run(int workers, String heap, int[] vmCounts) throws Exception {
+        int[][] configs;
+        if (vmCounts.length == 0) {
+            configs = new int[][]{{20, 60}, {40, 120}, {60, 180}};
+        } else {
+            configs = new int[vmCounts.length][];
+            for (int i = 0; i < vmCounts.length; i++) configs[i] = new int[]{Math.max(1, vmCounts[i] / 3), vmCounts[i]};
+        }
+
+        List<SweepCoordinator.Point> grid = new ArrayList<>(
+                SweepCoordinator.vmScalingGrid(configs, TrafficSimulationCore.Topology.TREE, 0.85));
+        grid.addAll(SweepCoordinator.topologyGrid(grid.size(), 20, 60, 0.85));
+
+        Path workDir = Paths.get("target", "sweep");
+        System.out.println("=== Sweep: " + grid.size() + " point(s), workers = " + workers + ", heap = " + heap + " ===");
+        long t0 = System.nanoTime();
+        SweepCoordinator.SweepResult r = new SweepCoordinator(workers, heap, null, MAX_ATTEMPTS, POINT_TIMEOUT_MILLIS,
+                workDir).run(grid);
+
+        System.out.println("\nkind       | Host/VM        | topo     | Proposed 트래픽 | activeHosts");
+        System.out.println("----------------------------------------------------------------------");
+        for (SweepCoordinator.PointResult p : r.results) {
+            System.out.printf("%-10s | %6d / %-6d | %-8s | %15.2f | %d%n", p.point.kind, p.point.hostCount,
+                    p.point.vmCount, p.point.topo, p.trafficCost, p.activeHosts);
+        }
+        System.out.println("----------------------------------------------------------------------");
+        System.out.printf("launches = %d (retries %d, timeouts %d), failed points = %d, wall = %.1fs → %s%n",
+                r.launches, r.retries, r.timeouts, r.failed.size(), (System.nanoTime() - t0) / 1e9, r.mergedFile);
+    }
+}
@@ -0,0 +1,29 @@
+package doit;
+
+import java.util.Map;
+
+/**
+ * supernodePercentile / S_i 가중치 자동 튜닝 (토폴로지별 최적 설정).
+ *
+ * 실행: Main tune [host 수] [VM 수]   (기본 100 host, 300 VM, CLUSTERED 트래픽)
+ * train 열은 설정을 고른 인스턴스, held-out 열은 학습에 쓰지 않은 seed 들의 평균 (wins = best 가 기본값보다 나은 seed 수).
+ */
+public class ExperimentTuner {
+
+    public void run(int hostCount, int vmCount) {
+        ParameterTuner tuner = new ParameterTuner(hostCount, vmCount);
+        System.out.println("=== 파라미터 튜닝 (Hyperband, host = " + hostCount + ", VM = " + vmCount + ") ===");
+        System.out.printf("%-9s | %-34s | %14s | %14s | %7s | %14s | %14s | %7s | %5s | %6s | %8s%n",
+                "topology", "best", "train cost", "train default", "gain", "held-out cost", "held-out dflt",
+                "gain", "wins", "evals", "time(s)");
+
+        Map<TrafficSimulationCore.Topology, ParameterTuner.Result> results = tuner.tuneAll();
+        for (ParameterTuner.Result r : results.values()) {
+            System.out.printf("%-9s | %-34s | %14.2f | %14.2f | %6.2f%% | %14.2f | %14.2f | %6.2f%%"
+                            + " | %2d/%-2d | %6d | %8.2f%n",
+                    r.topo, r.best, r.bestCost, r.baselineCost, r.improvementPercent(),
+                    r.heldOutBestCost(), r.heldOutBaselineCost(), r.heldOutImprovementPercent(),
+                    r.heldOutWins(), r.heldOutBestCosts.length, r.evaluations, r.seconds);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * WhatIfEvaluator batch 평가 시간과 정확도.
+ *
+ * Proposed 배치 (host 1000 / VM 3000, CLUSTERED) 위에서
+ *   1) 단일 move 500 개, 2) move 5 개짜리 set 100 개 를 batch 로 평가하고,
+ * 일부 시나리오는 기존 방식 (host / placement 복사 + calcTrafficCost) 으로도 계산해 delta 와 용량 판정을 비교한다.
+ * 실행: Main whatif
+ */
+public class ExperimentWhatIf {
+
+    private static final int CHECKED = 20;
+
+    private final TrafficSimulationCore core = new TrafficSimulationCore();
+
+    public void run() {
+        TrafficSimulationCore.Topology topo = TrafficSimulationCore.Topology.FAT_TREE;
+        WorkloadGenerator gen = new WorkloadGenerator(5);
+        List<TrafficSimulationCore.HostInfo> hosts = core.createHostList(1_000);
+        List<TrafficSimulationCore.VmInfo> vms = gen.createVmList(3_000);
+        TrafficMatrix traffic = TrafficMatrix.of(gen.createTrafficMatrix(3_000, WorkloadGenerator.Shape.CLUSTERED));
+        core.setVerbose(false);
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> pm =
+                core.placeVmsProposed(hosts, vms, traffic, 0.95, topo, 0.0);
+        List<TrafficSimulationCore.VmInfo> placed = new ArrayList<>(pm.keySet());
+        placed.sort(Comparator.comparingInt(v -> v.id));
+
+        Random r = new Random(7);
+        List<WhatIfEvaluator.Move> single = new ArrayList<>();
+        for (int i = 0; i < 500; i++) single.add(randomMove(r, placed, hosts));
+        List<List<WhatIfEvaluator.Move>> sets = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            List<WhatIfEvaluator.Move> set = new ArrayList<>();
+            for (int k = 0; k < 5; k++) set.add(randomMove(r, placed, hosts));
+            sets.add(set);
+        }
+
+        System.out.println("=== What-if batch 평가 (" + topo + ", host " + hosts.size() + " / VM " + pm.size() + ") ===");
+        long t0 = System.nanoTime();
+        WhatIfEvaluator eval = new WhatIfEvaluator(hosts, pm, traffic, topo);
+        List<WhatIfEvaluator.Outcome> singleOut = eval.evaluateMoves(single);
+        double singleMs = (System.nanoTime() - t0) / 1e6;
+        t0 = System.nanoTime();
+        List<WhatIfEvaluator.Outcome> setOut = eval.evaluateSets(sets);
+        double setMs = (System.nanoTime() - t0) / 1e6;
+
+        long feasible = singleOut.stream().filter(o -> o.feasible).count();
+        System.out.printf("moves : %d scenarios in %.1f ms (feasible %d)%n", single.size(), singleMs, feasible);
+        System.out.printf("sets  : %d scenarios in %.1f ms (feasible %d)%n", sets.size(), setMs,
+                setOut.stream().filter(o -> o.feasible).count());
+
+        // 기존 방식과 비교
+        double baseCost = core.calcTrafficCost(pm, traffic, topo);
+        double maxErr = 0.0;
+        t0 = System.nanoTime();
+        for (int i = 0; i < CHECKED; i++) {
+            maxErr = Math.max(maxErr, check(sets.get(i), setOut.get(i), hosts, pm, traffic, topo, baseCost));
+            maxErr = Math.max(maxErr, check(List.of(single.get(i)), singleOut.get(i), hosts, pm, traffic, topo, baseCost));
+        }
+        double naiveMs = (System.nanoTime() - t0) / 1e6 / (2 * CHECKED);
+        System.out.printf("copy + calcTrafficCost: %.1f ms / scenario, max |delta error| = %.3e%n", naiveMs, maxErr);
+    }
+
+    private static WhatIfEvaluator.Move randomMove(Random r, List<TrafficSimulationCore.VmInfo> placed,
+                                                   List<TrafficSimulationCore.HostInfo> hosts) {
+        return new WhatIfEvaluator.Move(placed.get(r.nextInt(placed.size())).id, hosts.get(r.nextInt(hosts.size())).id);
+    }
+
+    /** set 을 실제로 적용한 복사본과 비교, delta 의 상대 오차를 돌려준다 */
+    private double check(List<WhatIfEvaluator.Move> set, WhatIfEvaluator.Outcome o,
+                         List<TrafficSimulationCore.HostInfo> hosts,
+                         Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> pm,
+                         TrafficMatrix traffic, TrafficSimulationCore.Topology topo, double baseCost) {
+        List<TrafficSimulationCore.HostInfo> copy = core.copyHosts(hosts);
+        Map<Integer, TrafficSimulationCore.HostInfo> byId = new HashMap<>();
+        for (TrafficSimulationCore.HostInfo h : copy) byId.put(h.id, h);
+        Map<Integer, TrafficSimulationCore.VmInfo> vmById = new HashMap<>();
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> after = new HashMap<>();
+        for (Map.Entry<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> e : pm.entrySet()) {
+            vmById.put(e.getKey().id, e.getKey());
+            after.put(e.getKey(), byId.get(e.getValue().id));
+        }
+        for (WhatIfEvaluator.Move m : set) {
+            TrafficSimulationCore.VmInfo v = vmById.get(m.vmId);
+            TrafficSimulationCore.HostInfo from = after.get(v), to = byId.get(m.targetHostId);
+            from.remainingRam += v.ram;
+            from.remainingMips += v.mips;
+            to.remainingRam -= v.ram;
+            to.remainingMips -= v.mips;
+            after.put(v, to);
+        }
+        boolean feasible = true;
+        for (TrafficSimulationCore.HostInfo h : copy) {
+            TrafficSimulationCore.HostInfo orig = hosts.get(h.id);
+            boolean worse = h.remainingRam < orig.remainingRam || h.remainingMips < orig.remainingMips;
+            if (worse && (h.remainingRam < 0 || h.remainingMips < 0)) feasible = false;
+        }
+        double delta = core.calcTrafficCost(after, traffic, topo) - baseCost;
+        if (feasible != o.feasible) {
+            throw new IllegalStateException("feasibility mismatch: batch " + o.feasible + ", naive " + feasible);
+        }
+        return Math.abs(delta - o.costDelta) / Math.max(1.0, baseCost);
+    }
+}
@@ -0,0 +1,177 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * 여러 파티션을 "동시에" 옮길 수 있는지 판단하는 joint feasibility oracle.
+ *
+ * 파티션마다 "들어갈 host 가 하나라도 있는지" 만 따로 보면, 두 파티션이 같은 host 하나에
+ * 각각은 들어가지만 함께는 안 들어가는 경우를 놓친다 (migratePartition 이 VM 을 남기고 끝남).
+ * 여기서는 파티션 전체를 크기 내림차순 first-fit 으로 실제로 채워 본다.
+ *
+ *  - host 잔여 RAM / MIPS 는 segment tree (node 마다 두 값의 max) 로 관리
+ *    → "RAM, MIPS 모두 들어가는 가장 앞 host" 를 가지치기 하며 찾음 (보통 O(log H))
+ *  - 시작 전에 lower bound 검사 (합계 > 전체 잔여, 가장 큰 파티션 > 가장 큰 잔여) → 즉시 불가
+ *  - 채워 본 뒤에는 바꾼 leaf 만 되돌리므로 같은 oracle 을 계속 재사용할 수 있다
+ *  - consolidation run 동안에는 ConsolidationWorkspace 의 하나를 reset 해서 쓰고,
+ *    해제 후보가 바뀌면 setExclude 로 그 두 leaf 만 바꾼다
+ *
+ * first-fit decreasing 은 휴리스틱이라 "가능" 은 확실하지만 "불가" 는 보수적인 판단이다.
+ * host 순서는 hosts 리스트 순서 그대로 (기존 first-fit 과 같은 우선순위).
+ */
+final class FeasibilityOracle {
+
+    private List<TrafficSimulationCore.HostInfo> hosts;
+    private int exclude = -1;
+    private int size;
+    private long[] maxRam = new long[0];
+    private long[] maxMips = new long[0];
+    private long sumRam, sumMips;
+
+    // pack 중 바꾼 leaf 되돌리기용
+    private final IntArrayList touched = new IntArrayList();
+    private long[] savedRam = new long[8];
+    private long[] savedMips = new long[8];
+
+    long nodeVisits;
+
+    /** 비어 있는 oracle (reset 으로 hosts 를 채운다) */
+    FeasibilityOracle() {
+    }
+
+    FeasibilityOracle(List<TrafficSimulationCore.HostInfo> hosts, TrafficSimulationCore.HostInfo exclude) {
+        reset(hosts);
+        setExclude(hosts.indexOf(exclude));
+    }
+
+    /** hosts 의 지금 잔여 자원으로 다시 채우고 exclude 를 푼다 (host 수가 같으면 배열 재사용) */
+    void reset(List<TrafficSimulationCore.HostInfo> hosts) {
+        this.hosts = hosts;
+        this.exclude = -1;
+        int h = hosts.size();
+        int s = 1;
+        while (s < Math.max(1, h)) s <<= 1;
+        if (s != size) {
+            this.size = s;
+            this.maxRam = new long[2 * s];
+            this.maxMips = new long[2 * s];
+        }
+        Arrays.fill(maxRam, Long.MIN_VALUE);
+        Arrays.fill(maxMips, Long.MIN_VALUE);
+        sumRam = 0;
+        sumMips = 0;
+        for (int i = 0; i < h; i++) {
+            TrafficSimulationCore.HostInfo hi = hosts.get(i);
+            maxRam[s + i] = hi.remainingRam;
+            maxMips[s + i] = hi.remainingMips;
+            sumRam += Math.max(0, hi.remainingRam);
+            sumMips += Math.max(0, hi.remainingMips);
+        }
+        for (int i = s - 1; i >= 1; i--) pull(i);
+    }
+
+    /** 빼 둘 host 를 바꾼다 (-1 이면 없음). 예전 host 는 실제 잔여로 되돌린다 */
+    void setExclude(int i) {
+        int old = exclude;
+        if (old == i) return;
+        exclude = -1;
+        if (old >= 0) sync(old);
+        if (i >= 0) {
+            sumRam -= Math.max(0, maxRam[size + i]);
+            sumMips -= Math.max(0, maxMips[size + i]);
+            setLeaf(i, Long.MIN_VALUE, Long.MIN_VALUE);
+        }
+        exclude = i;
+    }
+
+    /** host i 의 실제 잔여 자원이 바뀐 뒤 호출 (migration 반영) */
+    void sync(int i) {
+        if (i == exclude) return;
+        TrafficSimulationCore.HostInfo hi = hosts.get(i);
+        sumRam += Math.max(0, hi.remainingRam) - Math.max(0, maxRam[size + i]);
+        sumMips += Math.max(0, hi.remainingMips) - Math.max(0, maxMips[size + i]);
+        setLeaf(i, hi.remainingRam, hi.remainingMips);
+    }
+
+    /** ram, mips 가 모두 들어가는 가장 앞 host index (없으면 -1) */
+    int firstFit(long ram, long mips) {
+        if (maxRam[1] < ram || maxMips[1] < mips) return -1;
+        return descend(1, ram, mips);
+    }
+
+    private int descend(int node, long ram, long mips) {
+        nodeVisits++;
+        if (maxRam[node] < ram || maxMips[node] < mips) return -1;
+        if (node >= size) return node - size;
+        int r = descend(2 * node, ram, mips);
+        return (r >= 0) ? r : descend(2 * node + 1, ram, mips);
+    }
+
+    /**
+     * 파티션 (parts[from..]) 을 모두 함께 옮길 수 있는가.
+     * pendingHost >= 0 이면 그 host 에 pendingRam / pendingMips 를 먼저 올려 둔 상태로 판단
+     * (migratePartition 이 host 를 고를 때 "이걸 여기 두면 나머지가 들어가나" 확인용).
+     * parts 는 크기 내림차순으로 정렬되어 있어야 한다.
+     */
+    boolean canPack(long[] partRam, long[] partMips, int from, int to,
+                    int pendingHost, long pendingRam, long pendingMips) {
+        long needRam = 0, needMips = 0;
+        for (int p = from; p < to; p++) {
+            needRam += partRam[p];
+            needMips += partMips[p];
+        }
+        if (pendingHost >= 0) {
+            needRam += pendingRam;
+            needMips += pendingMips;
+        }
+        // lower bound: 합계가 전체 잔여를 넘으면 packing 해 볼 필요도 없음
+        if (needRam > sumRam || needMips > sumMips) return false;
+
+        touched.clear();
+        boolean ok = true;
+        if (pendingHost >= 0) {
+            if (maxRam[size + pendingHost] < pendingRam || maxMips[size + pendingHost] < pendingMips) {
+                return false;
+            }
+            take(pendingHost, pendingRam, pendingMips);
+        }
+        for (int p = from; p < to && ok; p++) {
+            int h = firstFit(partRam[p], partMips[p]);
+            if (h < 0) ok = false;
+            else take(h, partRam[p], partMips[p]);
+        }
+        rollback();
+        return ok;
+    }
+
+    private void take(int i, long ram, long mips) {
+        int k = touched.size();
+        if (k == savedRam.length) {
+            savedRam = Arrays.copyOf(savedRam, k * 2);
+            savedMips = Arrays.copyOf(savedMips, k * 2);
+        }
+        touched.add(i);
+        savedRam[k] = maxRam[size + i];
+        savedMips[k] = maxMips[size + i];
+        setLeaf(i, maxRam[size + i] - ram, maxMips[size + i] - mips);
+    }
+
+    private void rollback() {
+        for (int k = touched.size() - 1; k >= 0; k--) {
+            setLeaf(touched.get(k), savedRam[k], savedMips[k]);
+        }
+        touched.clear();
+    }
+
+    private void setLeaf(int i, long ram, long mips) {
+        int node = size + i;
+        maxRam[node] = ram;
+        maxMips[node] = mips;
+        for (node >>= 1; node >= 1; node >>= 1) pull(node);
+    }
+
+    private void pull(int node) {
+        maxRam[node] = Math.max(maxRam[2 * node], maxRam[2 * node + 1]);
+        maxMips[node] = Math.max(maxMips[2 * node], maxMips[2 * node + 1]);
+    }
+}
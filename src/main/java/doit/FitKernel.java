@@ -0,0 +1,37 @@
+package doit;
+
+/**
+ * "어느 host 에 이 요구량이 들어가는가" 를 host 여러 개 단위로 한 번에 판정하는 kernel.
+ *
+ * residual[d][h] 는 ResourceTable 의 struct-of-arrays (차원 d, host h).
+ * 구현:
+ *   ScalarFitKernel : 64 host 단위 bit mask (기본)
+ *   VectorFitKernel : jdk.incubator.vector (Maven profile "vector" 로 빌드하고
+ *                     --add-modules jdk.incubator.vector 로 실행했을 때만 사용)
+ *
+ * -Ddoit.vector=false 이면 vector 구현이 있어도 scalar 를 쓴다.
+ */
+interface FitKernel {
+
+    /** demand 가 들어가는 host index 를 오름차순으로 out 에 쓰고 개수를 돌려준다 */
+    int collectFitting(long[][] residual, int hostCount, long[] demand, int[] out);
+
+    /** from 이상에서 demand 가 들어가는 첫 host index (없으면 -1) */
+    int firstFit(long[][] residual, int from, int hostCount, long[] demand);
+
+    String name();
+
+    FitKernel INSTANCE = load();
+
+    private static FitKernel load() {
+        if (!"false".equalsIgnoreCase(System.getProperty("doit.vector"))) {
+            try {
+                Class<?> c = Class.forName("doit.VectorFitKernel");
+                return (FitKernel) c.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // vector profile 로 빌드하지 않았거나 incubator module 이 없음 → scalar
+            }
+        }
+        return new ScalarFitKernel();
+    }
+}
@@ -0,0 +1,175 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * 트래픽을 보는 greedy graph-growing 초기 배치 (Phase 0 의 first-fit 대체용).
+ *
+ * first-fit 은 VM 리스트 순서대로 채우므로 어떤 VM 이 같은 host 에 모이는지가 트래픽과 무관하고,
+ * consolidation 단계가 그 배치를 되돌리는 데 대부분의 시간을 쓴다. 여기서는
+ *
+ *  1) host 를 pod → rack 단위로 묶은 순서로 하나씩 연다 (같은 rack 의 host 를 연달아 채움)
+ *  2) host 마다 "이미 놓인 VM 과의 트래픽 절감량" (gain) 이 가장 큰, 들어가는 VM 을 하나씩 추가
+ *       gain(u) = dFar·W_host + (dFar−dRack)·W_rack' + (dFar−dPod)·W_pod'
+ *     (W_* 는 u 와 지금 host / rack / pod 에 놓인 VM 사이 트래픽 합, ' 는 안쪽 단계를 뺀 나머지)
+ *  3) gain 이 모두 0 이면 (pod 의 첫 host 등) 전체 트래픽이 가장 큰 VM 을 seed 로 쓴다
+ *  4) 어떤 VM 도 더 안 들어가면 다음 host. host 가 바뀌면 W_host, rack 이 바뀌면 W_rack 등을 0 으로
+ *
+ * 트래픽 행렬이 dense 라 VM 하나를 놓을 때마다 남은 VM 전부의 gain 이 바뀐다.
+ * 그래서 gain 갱신 scan 안에서 다음 후보 (들어가는 VM 중 gain 최대) 도 같이 찾는다
+ * (heap 을 쓰면 매번 n log n 으로 재정렬하는 셈). 전체 O(n²) 로 calcTrafficCost 한 번과 같은 규모.
+ *
+ * 용량은 first-fit 과 같이 RAM / MIPS 만 보고, 어디에도 안 들어가는 VM 은 배치에서 빠진다.
+ */
+public class GraphGrowingPlacement implements PlacementAlgorithm {
+
+    @Override
+    public String name() {
+        return PlacementAlgorithms.GRAPH_GROWING;
+    }
+
+    @Override
+    public Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> place(
+            List<TrafficSimulationCore.HostInfo> hosts,
+            List<TrafficSimulationCore.VmInfo> vms,
+            TrafficMatrix traffic,
+            TrafficSimulationCore.Topology topo) {
+        TrafficSimulationCore.requireRamMipsOnly(vms, name());
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement = new HashMap<>();
+        int n = vms.size();
+        if (n == 0 || hosts.isEmpty()) return placement;
+
+        double[] lv = TrafficSimulationCore.distanceLevels(topo);
+
+        // VmInfo 객체를 scan 마다 따라가지 않도록 id / 자원을 배열로 펼쳐 둔다
+        TrafficSimulationCore.VmInfo[] vm = vms.toArray(new TrafficSimulationCore.VmInfo[0]);
+        Grower g = new Grower(vm, traffic, lv);
+
+        int prevRack = -1, prevPod = -1;
+        for (TrafficSimulationCore.HostInfo h : growOrder(hosts)) {
+            if (g.left == 0) break;
+            g.open(h.rackId != prevRack || h.podId != prevPod, h.podId != prevPod);
+            prevRack = h.rackId;
+            prevPod = h.podId;
+
+            int v = g.select(-1, h.remainingRam, h.remainingMips);
+            while (v >= 0) {
+                placement.put(vm[v], h);
+                h.remainingRam -= vm[v].ram;
+                h.remainingMips -= vm[v].mips;
+                v = g.select(v, h.remainingRam, h.remainingMips);
+            }
+        }
+        return placement;
+    }
+
+    /** 남은 VM 과 그 VM 들의 host / rack / pod 트래픽 누적 */
+    private static final class Grower {
+        final TrafficMatrix traffic;
+        final int[] id;
+        final long[] ram;
+        final long[] mips;
+        final double[] degree;
+        final double hostGain, rackGain, podGain;
+
+        /** 아직 안 놓인 VM index (오름차순 유지 → row 를 순서대로 읽음) */
+        final int[] remaining;
+        int left;
+
+        final double[] wHost, wRack, wPod;
+
+        Grower(TrafficSimulationCore.VmInfo[] vm, TrafficMatrix traffic, double[] lv) {
+            int n = vm.length;
+            this.traffic = traffic;
+            this.id = new int[n];
+            this.ram = new long[n];
+            this.mips = new long[n];
+            for (int i = 0; i < n; i++) {
+                id[i] = vm[i].id;
+                ram[i] = vm[i].ram;
+                mips[i] = vm[i].mips;
+            }
+            this.degree = degrees(id, traffic);
+            this.hostGain = lv[2];
+            this.rackGain = lv[2] - lv[0];
+            this.podGain = lv[2] - lv[1];
+            this.remaining = new int[n];
+            for (int i = 0; i < n; i++) remaining[i] = i;
+            this.left = n;
+            this.wHost = new double[n];
+            this.wRack = new double[n];
+            this.wPod = new double[n];
+        }
+
+        /** 새 host 를 연다 (rack / pod 가 바뀌었으면 그 누적도 비움) */
+        void open(boolean newRack, boolean newPod) {
+            Arrays.fill(wHost, 0.0);
+            if (newRack) Arrays.fill(wRack, 0.0);
+            if (newPod) Arrays.fill(wPod, 0.0);
+        }
+
+        /**
+         * placed >= 0 이면 그 VM 을 remaining 에서 빼고 나머지 VM 의 W 에 그 VM 과의 트래픽을 더한다.
+         * 같은 scan 에서 (freeRam, freeMips) 에 들어가는 VM 중 gain 이 가장 큰 VM index 를 돌려준다
+         * (동률이면 degree 큰 것, 그다음 index 작은 것. 없으면 -1).
+         */
+        int select(int placed, long freeRam, long freeMips) {
+            int placedId = placed >= 0 ? id[placed] : -1;
+            int best = -1;
+            double bestGain = 0.0, bestDegree = 0.0;
+            int kept = 0;
+            for (int k = 0; k < left; k++) {
+                int u = remaining[k];
+                if (u == placed) continue;
+                remaining[kept++] = u;
+                if (placed >= 0) {
+                    double t = traffic.get(placedId, id[u]);
+                    if (t != 0.0) {
+                        wHost[u] += t;
+                        wRack[u] += t;
+                        wPod[u] += t;
+                    }
+                }
+                if (ram[u] > freeRam || mips[u] > freeMips) continue;
+                double gain = hostGain * wHost[u]
+                        + rackGain * (wRack[u] - wHost[u])
+                        + podGain * (wPod[u] - wRack[u]);
+                if (best < 0 || gain > bestGain || (gain == bestGain && degree[u] > bestDegree)) {
+                    best = u;
+                    bestGain = gain;
+                    bestDegree = degree[u];
+                }
+            }
+            left = kept;
+            return best;
+        }
+    }
+
+    /** VM 마다 나머지 VM 과의 트래픽 합 */
+    private static double[] degrees(int[] id, TrafficMatrix traffic) {
+        double[] degree = new double[id.length];
+        for (int a = 0; a < id.length; a++) {
+            for (int b = a + 1; b < id.length; b++) {
+                double t = traffic.get(id[a], id[b]);
+                degree[a] += t;
+                degree[b] += t;
+            }
+        }
+        return degree;
+    }
+
+    /** pod, rack 이 처음 나온 순서대로 묶은 host 순서 (묶음 안에서는 리스트 순서) */
+    private static List<TrafficSimulationCore.HostInfo> growOrder(List<TrafficSimulationCore.HostInfo> hosts) {
+        Map<Integer, Map<Integer, List<TrafficSimulationCore.HostInfo>>> byPod = new LinkedHashMap<>();
+        for (TrafficSimulationCore.HostInfo h : hosts) {
+            byPod.computeIfAbsent(h.podId, k -> new LinkedHashMap<>())
+                    .computeIfAbsent(h.rackId, k -> new ArrayList<>())
+                    .add(h);
+        }
+        List<TrafficSimulationCore.HostInfo> out = new ArrayList<>(hosts.size());
+        for (Map<Integer, List<TrafficSimulationCore.HostInfo>> racks : byPod.values()) {
+            for (List<TrafficSimulationCore.HostInfo> rack : racks.values()) out.addAll(rack);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,467 @@
+package doit;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * pod → rack → host 계층 분할 배치.
+ *
+ * 기존 알고리즘은 host 를 평면 리스트로 보고 VM 하나마다 H 개 host 를 모두 훑는다.
+ * 여기서는 HostInfo 의 podId / rackId 를 이용해 단계별로 좁혀 간다.
+ *
+ *  1) VM community: percentile 이상 강한 edge 를 무거운 순서로 union (rack 용량 상한)
+ *  2) pod 배정   : community 를 pod 집계 용량 안에서, 이미 그 pod 에 있는 community 와의
+ *                  트래픽이 가장 큰 pod 로 (동률이면 host 리스트 순서상 앞 pod → first-fit)
+ *  3) rack 배정  : pod 마다 병렬로, 같은 규칙을 pod 안의 rack 에 적용
+ *  4) host 배정  : rack 마다 병렬로, rack 안 VM 끼리의 트래픽이 가장 큰 host 로
+ *  5) 남은 VM    : 집계 용량은 맞아도 bin packing 에서 떨어진 VM → 같은 pod 우선 first-fit
+ *
+ * 결정 하나의 탐색 범위가 H 에서 (pod 수 | pod 당 rack 수 | rack 당 host 수) 로 줄어든다.
+ * 트래픽 행렬 전체 scan (community 구성, community 간 트래픽 집계) 만 O(n^2) 이고 병렬.
+ */
+public class HierarchicalPlacement implements PlacementAlgorithm {
+
+    /** 집계 용량 중 실제로 채울 비율 (host 단위 bin packing 손실 여유) */
+    private static final double FILL = 0.95;
+    /** community 구성 시 VM 하나당 고려하는 강한 edge 수 */
+    private static final int TOP_EDGES = 8;
+    /** percentile 추정에 쓰는 최대 표본 수 */
+    private static final int THRESHOLD_SAMPLES = 1 << 20;
+
+    private final double supernodePercentile;
+    private final int parallelism;
+
+    public HierarchicalPlacement(double supernodePercentile) {
+        this(supernodePercentile, Runtime.getRuntime().availableProcessors());
+    }
+
+    public HierarchicalPlacement(double supernodePercentile, int parallelism) {
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be > 0");
+        this.supernodePercentile = supernodePercentile;
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public String name() {
+        return PlacementAlgorithms.HIERARCHICAL;
+    }
+
+    @Override
+    public Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> place(
+            List<TrafficSimulationCore.HostInfo> hosts,
+            List<TrafficSimulationCore.VmInfo> vms,
+            TrafficMatrix traffic,
+            TrafficSimulationCore.Topology topo) {
+        TrafficSimulationCore.requireRamMipsOnly(vms, name());
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement = new HashMap<>();
+        if (vms.isEmpty() || hosts.isEmpty()) return placement;
+
+        Fleet fleet = new Fleet(hosts);
+        TrafficSimulationCore.VmInfo[] vmArr = vms.toArray(new TrafficSimulationCore.VmInfo[0]);
+        int n = vmArr.length;
+
+        // 1) community
+        long capRam = (long) (fleet.avgRackRam() * FILL);
+        long capMips = (long) (fleet.avgRackMips() * FILL);
+        int[] comm = buildCommunities(vmArr, traffic, capRam, capMips);
+        int commCount = 0;
+        for (int c : comm) commCount = Math.max(commCount, c + 1);
+
+        long[] commRam = new long[commCount];
+        long[] commMips = new long[commCount];
+        IntArrayList[] members = new IntArrayList[commCount];
+        for (int c = 0; c < commCount; c++) members[c] = new IntArrayList();
+        for (int v = 0; v < n; v++) {
+            commRam[comm[v]] += vmArr[v].ram;
+            commMips[comm[v]] += vmArr[v].mips;
+            members[comm[v]].add(v);
+        }
+        IntDoubleHashMap[] commTraffic = communityTraffic(vmArr, traffic, comm, members);
+
+        // 큰 community 먼저
+        Integer[] byRam = new Integer[commCount];
+        for (int c = 0; c < commCount; c++) byRam[c] = c;
+        Arrays.sort(byRam, (a, b) -> commRam[a] != commRam[b]
+                ? Long.compare(commRam[b], commRam[a]) : Integer.compare(a, b));
+        int[] order = new int[commCount];
+        for (int i = 0; i < commCount; i++) order[i] = byRam[i];
+
+        // 2) pod 배정
+        int[] commPod = new int[commCount];
+        Arrays.fill(commPod, -1);
+        int podCount = fleet.pods.size();
+        long[] podRam = new long[podCount], podMips = new long[podCount];
+        for (int p = 0; p < podCount; p++) {
+            podRam[p] = (long) (fleet.pods.get(p).ram * FILL);
+            podMips[p] = (long) (fleet.pods.get(p).mips * FILL);
+        }
+        assign(order, commRam, commMips, commTraffic, null, -1, commPod, podRam, podMips);
+
+        // 3) rack 배정 (pod 별 병렬)
+        int[] commRack = new int[commCount];
+        Arrays.fill(commRack, -1);
+        IntArrayList[] podComms = new IntArrayList[podCount];
+        for (int p = 0; p < podCount; p++) podComms[p] = new IntArrayList();
+        for (int c : order) {
+            if (commPod[c] >= 0) podComms[commPod[c]].add(c);
+        }
+        ParallelRunner.runParallel(parallelism, () -> IntStream.range(0, podCount).parallel().forEach(p -> {
+            Pod pod = fleet.pods.get(p);
+            int racks = pod.racks.size();
+            long[] rackRam = new long[racks], rackMips = new long[racks];
+            for (int r = 0; r < racks; r++) {
+                rackRam[r] = (long) (pod.racks.get(r).ram * FILL);
+                rackMips[r] = (long) (pod.racks.get(r).mips * FILL);
+            }
+            assign(podComms[p].toArray(), commRam, commMips, commTraffic, commPod, p, commRack, rackRam, rackMips);
+        }));
+
+        // 4) host 배정 (rack 별 병렬)
+        int[] vmHost = new int[n];
+        Arrays.fill(vmHost, -1);
+        List<Rack> allRacks = new ArrayList<>();
+        for (Pod pod : fleet.pods) allRacks.addAll(pod.racks);
+        Map<Rack, IntArrayList> rackVms = new IdentityHashMap<>();
+        for (Rack rack : allRacks) rackVms.put(rack, new IntArrayList());
+        for (int c : order) {
+            if (commRack[c] < 0) continue;
+            Rack rack = fleet.pods.get(commPod[c]).racks.get(commRack[c]);
+            IntArrayList list = rackVms.get(rack);
+            for (int i = 0; i < members[c].size(); i++) list.add(members[c].get(i));
+        }
+        ParallelRunner.runParallel(parallelism, () -> allRacks.parallelStream().forEach(rack ->
+                placeInRack(rack, rackVms.get(rack).toArray(), vmArr, traffic, hosts, vmHost)));
+
+        // 5) 남은 VM: 배정된 pod 의 host 우선, 그 다음 전체 first-fit
+        for (int c : order) {
+            for (int i = 0; i < members[c].size(); i++) {
+                int v = members[c].get(i);
+                if (vmHost[v] >= 0) continue;
+                TrafficSimulationCore.VmInfo vm = vmArr[v];
+                int h = (commPod[c] >= 0) ? firstFit(fleet.pods.get(commPod[c]).hostIdx, hosts, vm) : -1;
+                if (h < 0) h = firstFit(fleet.allHostIdx, hosts, vm);
+                if (h < 0) continue;   // 어디에도 안 들어감 → FFD 와 같이 미배치
+                take(hosts.get(h), vm);
+                vmHost[v] = h;
+            }
+        }
+
+        for (int v = 0; v < n; v++) {
+            if (vmHost[v] >= 0) placement.put(vmArr[v], hosts.get(vmHost[v]));
+        }
+        return placement;
+    }
+
+    // ==========================================================
+    //  1) community 구성
+    // ==========================================================
+
+    /**
+     * VM 마다 threshold 이상인 edge 중 가장 무거운 TOP_EDGES 개만 모아
+     * 무거운 순서로 union (합친 크기가 cap 을 넘으면 skip). 반환값은 0..C-1 community id.
+     */
+    private int[] buildCommunities(TrafficSimulationCore.VmInfo[] vms, TrafficMatrix traffic,
+                                   long capRam, long capMips) {
+        int n = vms.length;
+        double threshold = sampledThreshold(vms, traffic);
+
+        int[][] topNb = new int[n][];
+        double[][] topW = new double[n][];
+        ParallelRunner.runParallel(parallelism, () -> IntStream.range(0, n).parallel().forEach(i -> {
+            int[] nb = new int[TOP_EDGES];
+            double[] w = new double[TOP_EDGES];
+            int cnt = 0;
+            int id = vms[i].id;
+            for (int j = 0; j < n; j++) {
+                if (j == i) continue;
+                double t = traffic.get(id, vms[j].id);
+                if (t <= 0.0 || t < threshold) continue;
+                if (cnt == TOP_EDGES && t <= w[cnt - 1]) continue;
+                // 내림차순 삽입
+                int pos = (cnt < TOP_EDGES) ? cnt++ : cnt - 1;
+                while (pos > 0 && w[pos - 1] < t) {
+                    w[pos] = w[pos - 1];
+                    nb[pos] = nb[pos - 1];
+                    pos--;
+                }
+                w[pos] = t;
+                nb[pos] = j;
+            }
+            topNb[i] = Arrays.copyOf(nb, cnt);
+            topW[i] = Arrays.copyOf(w, cnt);
+        }));
+
+        int edgeCount = 0;
+        for (int[] nb : topNb) edgeCount += nb.length;
+        int[] ea = new int[edgeCount], eb = new int[edgeCount];
+        double[] ew = new double[edgeCount];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            for (int e = 0; e < topNb[i].length; e++) {
+                ea[k] = i;
+                eb[k] = topNb[i][e];
+                ew[k] = topW[i][e];
+                k++;
+            }
+        }
+        Integer[] edgeOrder = new Integer[edgeCount];
+        for (int e = 0; e < edgeCount; e++) edgeOrder[e] = e;
+        Arrays.sort(edgeOrder, (x, y) -> Double.compare(ew[y], ew[x]));
+
+        int[] parent = new int[n];
+        long[] ram = new long[n], mips = new long[n];
+        for (int v = 0; v < n; v++) {
+            parent[v] = v;
+            ram[v] = vms[v].ram;
+            mips[v] = vms[v].mips;
+        }
+        for (int e : edgeOrder) {
+            int ra = find(parent, ea[e]), rb = find(parent, eb[e]);
+            if (ra == rb) continue;
+            if (ram[ra] + ram[rb] > capRam || mips[ra] + mips[rb] > capMips) continue;
+            parent[rb] = ra;
+            ram[ra] += ram[rb];
+            mips[ra] += mips[rb];
+        }
+
+        int[] comm = new int[n];
+        int[] idOfRoot = new int[n];
+        Arrays.fill(idOfRoot, -1);
+        int next = 0;
+        for (int v = 0; v < n; v++) {
+            int r = find(parent, v);
+            if (idOfRoot[r] < 0) idOfRoot[r] = next++;
+            comm[v] = idOfRoot[r];
+        }
+        return comm;
+    }
+
+    /** 양수 edge 의 supernodePercentile 분위수 (쌍이 많으면 고정 seed 표본으로 추정) */
+    private double sampledThreshold(TrafficSimulationCore.VmInfo[] vms, TrafficMatrix traffic) {
+        int n = vms.length;
+        long pairs = (long) n * (n - 1) / 2;
+        double[] w;
+        int cnt = 0;
+        if (pairs <= THRESHOLD_SAMPLES) {
+            w = new double[(int) pairs];
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    double t = traffic.get(vms[i].id, vms[j].id);
+                    if (t > 0.0) w[cnt++] = t;
+                }
+            }
+        } else {
+            w = new double[THRESHOLD_SAMPLES];
+            SplittableRandom rnd = new SplittableRandom(n);
+            for (int s = 0; s < THRESHOLD_SAMPLES; s++) {
+                int i = rnd.nextInt(n), j = rnd.nextInt(n);
+                if (i == j) continue;
+                double t = traffic.get(vms[i].id, vms[j].id);
+                if (t > 0.0) w[cnt++] = t;
+            }
+        }
+        if (cnt == 0) return Double.POSITIVE_INFINITY;
+        Arrays.sort(w, 0, cnt);
+        int idx = (int) Math.floor(supernodePercentile * (cnt - 1));
+        return w[Math.max(0, Math.min(cnt - 1, idx))];
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    /** community 간 트래픽 합 (community 별 병렬, 각 task 는 자기 map 만 씀) */
+    private IntDoubleHashMap[] communityTraffic(TrafficSimulationCore.VmInfo[] vms, TrafficMatrix traffic,
+                                                int[] comm, IntArrayList[] members) {
+        int n = vms.length;
+        IntDoubleHashMap[] out = new IntDoubleHashMap[members.length];
+        ParallelRunner.runParallel(parallelism, () -> IntStream.range(0, members.length).parallel().forEach(c -> {
+            IntDoubleHashMap m = new IntDoubleHashMap();
+            for (int i = 0; i < members[c].size(); i++) {
+                int id = vms[members[c].get(i)].id;
+                for (int u = 0; u < n; u++) {
+                    if (comm[u] == c) continue;
+                    double t = traffic.get(id, vms[u].id);
+                    if (t != 0.0) m.add(comm[u], t);
+                }
+            }
+            out[c] = m;
+        }));
+        return out;
+    }
+
+    // ==========================================================
+    //  2), 3) community → bin (pod 또는 rack)
+    // ==========================================================
+
+    /**
+     * items 를 순서대로 bins 에 배정. 집계 용량이 맞는 bin 중
+     * 이미 배정된 이웃 community 와의 트래픽이 가장 큰 곳, 동률이면 앞 bin.
+     *
+     * scope / scopeId: rack 단계에서는 같은 pod (scope[nb] == scopeId) 의 이웃만 본다.
+     */
+    private static void assign(int[] items, long[] itemRam, long[] itemMips, IntDoubleHashMap[] itemTraffic,
+                               int[] scope, int scopeId, int[] itemBin, long[] binRam, long[] binMips) {
+        int bins = binRam.length;
+        double[] aff = new double[bins];
+        for (int c : items) {
+            Arrays.fill(aff, 0.0);
+            IntDoubleHashMap nbs = itemTraffic[c];
+            for (int s = 0; s < nbs.capacity(); s++) {
+                int nb = nbs.keyAt(s);
+                if (nb < 0) continue;
+                if (scope != null && scope[nb] != scopeId) continue;
+                int b = itemBin[nb];
+                if (b >= 0) aff[b] += nbs.valueAt(s);
+            }
+            int best = -1;
+            for (int b = 0; b < bins; b++) {
+                if (binRam[b] < itemRam[c] || binMips[b] < itemMips[c]) continue;
+                if (best < 0 || aff[b] > aff[best]) best = b;
+            }
+            if (best < 0) continue;   // host 단계 이후 남은 VM 처리로 넘어감
+            itemBin[c] = best;
+            binRam[best] -= itemRam[c];
+            binMips[best] -= itemMips[c];
+        }
+    }
+
+    // ==========================================================
+    //  4) rack 안에서 host 배정
+    // ==========================================================
+
+    /** rack 에 배정된 VM 을 (community 순서 그대로) rack 안 host 로: 같은 host 트래픽 최대, 동률이면 first-fit */
+    private static void placeInRack(Rack rack, int[] rackVms, TrafficSimulationCore.VmInfo[] vms,
+                                    TrafficMatrix traffic, List<TrafficSimulationCore.HostInfo> hosts,
+                                    int[] vmHost) {
+        int[] hostIdx = rack.hostIdx;
+        double[] aff = new double[hostIdx.length];
+        for (int i = 0; i < rackVms.length; i++) {
+            int v = rackVms[i];
+            TrafficSimulationCore.VmInfo vm = vms[v];
+            Arrays.fill(aff, 0.0);
+            for (int j = 0; j < i; j++) {
+                int u = rackVms[j];
+                int h = vmHost[u];
+                if (h < 0) continue;
+                double t = traffic.get(vm.id, vms[u].id);
+                if (t != 0.0) aff[rack.localIndex(h)] += t;
+            }
+            int best = -1;
+            for (int k = 0; k < hostIdx.length; k++) {
+                TrafficSimulationCore.HostInfo h = hosts.get(hostIdx[k]);
+                if (h.remainingRam < vm.ram || h.remainingMips < vm.mips) continue;
+                if (best < 0 || aff[k] > aff[best]) best = k;
+            }
+            if (best < 0) continue;
+            take(hosts.get(hostIdx[best]), vm);
+            vmHost[v] = hostIdx[best];
+        }
+    }
+
+    private static int firstFit(int[] hostIdx, List<TrafficSimulationCore.HostInfo> hosts,
+                                TrafficSimulationCore.VmInfo vm) {
+        for (int h : hostIdx) {
+            TrafficSimulationCore.HostInfo hi = hosts.get(h);
+            if (hi.remainingRam >= vm.ram && hi.remainingMips >= vm.mips) return h;
+        }
+        return -1;
+    }
+
+    private static void take(TrafficSimulationCore.HostInfo h, TrafficSimulationCore.VmInfo vm) {
+        h.remainingRam -= vm.ram;
+        h.remainingMips -= vm.mips;
+    }
+
+    // ==========================================================
+    //  host 계층 (pod → rack → host index)
+    // ==========================================================
+
+    private static final class Rack {
+        final int[] hostIdx;
+        final Map<Integer, Integer> local = new HashMap<>();
+        final long ram, mips;
+
+        Rack(int[] hostIdx, List<TrafficSimulationCore.HostInfo> hosts) {
+            this.hostIdx = hostIdx;
+            long r = 0, m = 0;
+            for (int k = 0; k < hostIdx.length; k++) {
+                local.put(hostIdx[k], k);
+                r += hosts.get(hostIdx[k]).remainingRam;
+                m += hosts.get(hostIdx[k]).remainingMips;
+            }
+            this.ram = r;
+            this.mips = m;
+        }
+
+        int localIndex(int hostIndex) {
+            return local.get(hostIndex);
+        }
+    }
+
+    private static final class Pod {
+        final List<Rack> racks = new ArrayList<>();
+        int[] hostIdx;
+        long ram, mips;
+    }
+
+    /** host 리스트 순서를 유지한 pod / rack 묶음 (처음 등장한 순서) */
+    private static final class Fleet {
+        final List<Pod> pods = new ArrayList<>();
+        final int[] allHostIdx;
+
+        Fleet(List<TrafficSimulationCore.HostInfo> hosts) {
+            Map<Integer, Map<Integer, IntArrayList>> byPod = new LinkedHashMap<>();
+            allHostIdx = new int[hosts.size()];
+            for (int h = 0; h < hosts.size(); h++) {
+                TrafficSimulationCore.HostInfo hi = hosts.get(h);
+                byPod.computeIfAbsent(hi.podId, k -> new LinkedHashMap<>())
+                        .computeIfAbsent(hi.rackId, k -> new IntArrayList()).add(h);
+                allHostIdx[h] = h;
+            }
+            for (Map<Integer, IntArrayList> racks : byPod.values()) {
+                Pod pod = new Pod();
+                IntArrayList podHosts = new IntArrayList();
+                for (IntArrayList rackHosts : racks.values()) {
+                    Rack rack = new Rack(rackHosts.toArray(), hosts);
+                    pod.racks.add(rack);
+                    pod.ram += rack.ram;
+                    pod.mips += rack.mips;
+                    for (int h : rack.hostIdx) podHosts.add(h);
+                }
+                // pod 안 first-fit 도 원래 host 리스트 순서로
+                pod.hostIdx = podHosts.toArray();
+                Arrays.sort(pod.hostIdx);
+                pods.add(pod);
+            }
+        }
+
+        double avgRackRam() {
+            long sum = 0;
+            int cnt = 0;
+            for (Pod p : pods) {
+                for (Rack r : p.racks) {
+                    sum += r.ram;
+                    cnt++;
+                }
+            }
+            return (double) sum / Math.max(1, cnt);
+        }
+
+        double avgRackMips() {
+            long sum = 0;
+            int cnt = 0;
+            for (Pod p : pods) {
+                for (Rack r : p.racks) {
+                    sum += r.mips;
+                    cnt++;
+                }
+            }
+            return (double) sum / Math.max(1, cnt);
+        }
+    }
+}
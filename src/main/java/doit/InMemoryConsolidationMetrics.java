@@ -0,0 +1,219 @@
+package doit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 메모리 내 metrics registry.
+ *
+ *  - counter : LongAdder
+ *  - phase   : log2(ns) bucket histogram (bucket k = [2^k, 2^(k+1)) ns) + count / sum / max
+ *
+ * snapshot() 으로 한 시점의 값을 복사해 보거나, registerMBean() 으로 JMX 에 노출한다.
+ */
+public class InMemoryConsolidationMetrics implements ConsolidationMetrics, ConsolidationMetricsMXBean {
+
+    private static final int BUCKETS = 64;
+
+    private final EnumMap<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+    private final EnumMap<Phase, PhaseHistogram> phases = new EnumMap<>(Phase.class);
+
+    public InMemoryConsolidationMetrics() {
+        for (Counter c : Counter.values()) counters.put(c, new LongAdder());
+        for (Phase p : Phase.values()) phases.put(p, new PhaseHistogram());
+    }
+
+    private static class PhaseHistogram {
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        final LongAdder count = new LongAdder();
+        final LongAdder sumNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+        final LongAccumulator minNanos = new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+        void record(long nanos) {
+            long v = Math.max(1L, nanos);
+            buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(v));
+            count.increment();
+            sumNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            minNanos.accumulate(nanos);
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+            count.reset();
+            sumNanos.reset();
+            maxNanos.reset();
+            minNanos.reset();
+        }
+    }
+
+    @Override
+    public void recordPhase(Phase phase, long nanos) {
+        phases.get(phase).record(nanos);
+    }
+
+    @Override
+    public void increment(Counter counter, long delta) {
+        counters.get(counter).add(delta);
+    }
+
+    // ==========================================================
+    //  Snapshot
+    // ==========================================================
+
+    /** 한 phase 의 지연 통계 (시간 단위 ns) */
+    public static class PhaseStats {
+        public final long count;
+        public final long totalNanos;
+        public final long maxNanos;
+        public final long p50Nanos;
+        public final long p90Nanos;
+        public final long p99Nanos;
+
+        PhaseStats(long count, long totalNanos, long maxNanos, long p50Nanos, long p90Nanos, long p99Nanos) {
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.p50Nanos = p50Nanos;
+            this.p90Nanos = p90Nanos;
+            this.p99Nanos = p99Nanos;
+        }
+
+        public double meanNanos() {
+            return count == 0 ? 0.0 : (double) totalNanos / count;
+        }
+    }
+
+    /** 특정 시점의 counter / phase 통계 복사본 */
+    public static class MetricsSnapshot {
+        public final Map<Counter, Long> counters;
+        public final Map<Phase, PhaseStats> phases;
+
+        MetricsSnapshot(Map<Counter, Long> counters, Map<Phase, PhaseStats> phases) {
+            this.counters = counters;
+            this.phases = phases;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%-22s %8s %12s %10s %10s %10s%n",
+                    "phase", "count", "total(ms)", "p50(ms)", "p99(ms)", "max(ms)"));
+            for (Map.Entry<Phase, PhaseStats> e : phases.entrySet()) {
+                PhaseStats s = e.getValue();
+                sb.append(String.format("%-22s %8d %12.3f %10.3f %10.3f %10.3f%n",
+                        e.getKey(), s.count, s.totalNanos / 1e6,
+                        s.p50Nanos / 1e6, s.p99Nanos / 1e6, s.maxNanos / 1e6));
+            }
+            for (Map.Entry<Counter, Long> e : counters.entrySet()) {
+                sb.append(String.format("%-22s %,d%n", e.getKey(), e.getValue()));
+            }
+            return sb.toString();
+        }
+    }
+
+    public MetricsSnapshot snapshot() {
+        Map<Counter, Long> c = new EnumMap<>(Counter.class);
+        for (Map.Entry<Counter, LongAdder> e : counters.entrySet()) {
+            c.put(e.getKey(), e.getValue().sum());
+        }
+        Map<Phase, PhaseStats> p = new EnumMap<>(Phase.class);
+        for (Map.Entry<Phase, PhaseHistogram> e : phases.entrySet()) {
+            PhaseHistogram h = e.getValue();
+            long[] b = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                b[i] = h.buckets.get(i);
+                total += b[i];
+            }
+            long min = h.minNanos.get(), max = h.maxNanos.get();
+            p.put(e.getKey(), new PhaseStats(h.count.sum(), h.sumNanos.sum(), max,
+                    quantile(b, total, 0.50, min, max), quantile(b, total, 0.90, min, max),
+                    quantile(b, total, 0.99, min, max)));
+        }
+        return new MetricsSnapshot(c, p);
+    }
+
+    /**
+     * bucket 상한값 기준 quantile (최대 2배 과대추정).
+     * 관측된 [min, max] 로 자르므로 p50 이 max 보다 크게 나오지 않는다.
+     */
+    private static long quantile(long[] buckets, long total, double q, long min, long max) {
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(q * total);
+        long acc = 0;
+        long upper = Long.MAX_VALUE;
+        for (int i = 0; i < BUCKETS; i++) {
+            acc += buckets[i];
+            if (acc >= rank) {
+                upper = (i >= 62) ? Long.MAX_VALUE : (1L << (i + 1));
+                break;
+            }
+        }
+        return Math.max(min, Math.min(upper, max));
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder a : counters.values()) a.reset();
+        for (PhaseHistogram h : phases.values()) h.reset();
+    }
+
+    // ==========================================================
+    //  JMX
+    // ==========================================================
+
+    /** platform MBeanServer 에 "doit:type=ConsolidationMetrics,name=<name>" 로 등록 */
+    public ObjectName registerMBean(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("doit:type=ConsolidationMetrics,name=" + ObjectName.quote(name));
+        if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+        server.registerMBean(this, objectName);
+        return objectName;
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> m = new LinkedHashMap<>();
+        for (Map.Entry<Counter, Long> e : snapshot().counters.entrySet()) {
+            m.put(e.getKey().name(), e.getValue());
+        }
+        return m;
+    }
+
+    @Override
+    public Map<String, Long> getPhaseCounts() {
+        Map<String, Long> m = new LinkedHashMap<>();
+        for (Map.Entry<Phase, PhaseStats> e : snapshot().phases.entrySet()) {
+            m.put(e.getKey().name(), e.getValue().count);
+        }
+        return m;
+    }
+
+    @Override
+    public Map<String, Double> getPhaseTotalMillis() {
+        Map<String, Double> m = new LinkedHashMap<>();
+        for (Map.Entry<Phase, PhaseStats> e : snapshot().phases.entrySet()) {
+            m.put(e.getKey().name(), e.getValue().totalNanos / 1e6);
+        }
+        return m;
+    }
+
+    @Override
+    public Map<String, Double> getPhaseP99Millis() {
+        Map<String, Double> m = new LinkedHashMap<>();
+        for (Map.Entry<Phase, PhaseStats> e : snapshot().phases.entrySet()) {
+            m.put(e.getKey().name(), e.getValue().p99Nanos / 1e6);
+        }
+        return m;
+    }
+}
@@ -0,0 +1,55 @@
+package doit;
+
+import java.util.Arrays;
+
+/** boxing 없는 int 리스트 */
+public final class IntArrayList {
+
+    private int[] data;
+    private int size;
+
+    public IntArrayList() {
+        this(8);
+    }
+
+    public IntArrayList(int capacity) {
+        data = new int[Math.max(1, capacity)];
+    }
+
+    public void add(int value) {
+        if (size == data.length) data = Arrays.copyOf(data, data.length << 1);
+        data[size++] = value;
+    }
+
+    public int get(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException(index + " >= " + size);
+        return data[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /** value 하나를 찾아 지운다 (순서는 유지하지 않음: 마지막 원소로 채움) */
+    public boolean removeValue(int value) {
+        for (int i = 0; i < size; i++) {
+            if (data[i] == value) {
+                data[i] = data[--size];
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+}
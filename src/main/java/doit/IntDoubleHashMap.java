@@ -0,0 +1,87 @@
+package doit;
+
+import java.util.Arrays;
+
+/** boxing 없는 int → double 맵 (open addressing). 음수 키는 지원하지 않음, 없는 키는 0.0 */
+public final class IntDoubleHashMap {
+
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private double[] values;
+    private int size;
+
+    public IntDoubleHashMap() {
+        this(8);
+    }
+
+    public IntDoubleHashMap(int expected) {
+        int cap = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        keys = new int[cap];
+        values = new double[cap];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public double get(int key) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) return values[i];
+            i = (i + 1) & mask;
+        }
+        return 0.0;
+    }
+
+    /** key 의 값에 delta 를 더한다 (없으면 0 에서 시작) */
+    public void add(int key, double delta) {
+        if (key < 0) throw new IllegalArgumentException("negative key: " + key);
+        if ((size + 1) * 2 > keys.length) rehash(keys.length << 1);
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                values[i] += delta;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = delta;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** 내부 slot 수 (keyAt / valueAt 으로 순회할 때 사용) */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /** slot i 의 키 (비어 있으면 -1) */
+    public int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    public double valueAt(int slot) {
+        return values[slot];
+    }
+
+    private void rehash(int newCap) {
+        int[] oldKeys = keys;
+        double[] oldValues = values;
+        keys = new int[newCap];
+        values = new double[newCap];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) add(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
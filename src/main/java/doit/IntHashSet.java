@@ -0,0 +1,71 @@
+package doit;
+
+import java.util.Arrays;
+
+/** boxing 없는 int 집합 (open addressing, linear probing). 음수 키는 지원하지 않음. */
+public final class IntHashSet {
+
+    private static final int EMPTY = -1;
+
+    private int[] table;
+    private int size;
+
+    public IntHashSet() {
+        this(16);
+    }
+
+    public IntHashSet(int expected) {
+        int cap = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        table = new int[cap];
+        Arrays.fill(table, EMPTY);
+    }
+
+    public boolean add(int key) {
+        if (key < 0) throw new IllegalArgumentException("negative key: " + key);
+        if ((size + 1) * 2 > table.length) rehash(table.length << 1);
+        int mask = table.length - 1;
+        int i = mix(key) & mask;
+        while (table[i] != EMPTY) {
+            if (table[i] == key) return false;
+            i = (i + 1) & mask;
+        }
+        table[i] = key;
+        size++;
+        return true;
+    }
+
+    public boolean contains(int key) {
+        if (key < 0) return false;
+        int mask = table.length - 1;
+        int i = mix(key) & mask;
+        while (table[i] != EMPTY) {
+            if (table[i] == key) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        size = 0;
+    }
+
+    private void rehash(int newCap) {
+        int[] old = table;
+        table = new int[newCap];
+        Arrays.fill(table, EMPTY);
+        size = 0;
+        for (int k : old) {
+            if (k != EMPTY) add(k);
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,342 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * link 단위 부하 / 혼잡 모델 (ECMP).
+ *
+ * Topology 의 거리 3 단계만으로는 "어느 ToR uplink 가 넘치는지" 를 알 수 없다. 여기서는 host 배치
+ * (rackId, podId) 위에 switch 계층을 두고 VM 쌍 트래픽을 link 에 싣는다.
+ *
+ *  - HOST        : host ↔ ToR link 하나
+ *  - RACK_UPLINK : ToR → 위 계층. TREE 는 core 로 1 개, FAT_TREE 는 pod 의 aggregation switch 마다 1 개
+ *                  (rack 수만큼), VL2 는 aggregation 2 개 (dual-homed)
+ *  - POD_UPLINK  : aggregation → core / intermediate. FAT_TREE 는 pod 를 벗어나는 트래픽만,
+ *                  VL2 (Valiant load balancing) 는 rack 을 벗어나는 트래픽 전부가 intermediate 를 거친다.
+ *                  TREE 는 없음 (ToR uplink 가 바로 core)
+ *
+ * 경로는 거리 모델과 같은 규칙 (같은 rackId → ToR 에서 꺾임, FAT_TREE 같은 podId → aggregation 에서 꺾임).
+ * ECMP 는 트래픽을 같은 비용 경로에 고르게 나누므로 (fluid) 한 group 의 link 는 모두 같은 load 를 가진다.
+ * 그래서 load 는 group (host / rack / pod) 마다 하나만 들고, link 하나의 이용률 = group load / group 용량.
+ * 트래픽 행렬이 대칭이라 link 의 위 / 아래 방향 load 가 같으므로 한 방향만 센다.
+ *
+ * 용량: host link = hostLinkCapacity, group 용량 = 그 아래 host link 용량 합 / oversubscription.
+ * rebuild 는 O(n²), move 는 옮긴 VM 의 row 하나 O(n) 이라 통합 loop 안 (해제 시도마다) 에서 쓸 수 있다.
+ * overload() (용량을 넘친 트래픽 합) 도 move 마다 O(1) 로 같이 갱신한다.
+ * reset 으로 다른 host 목록에 다시 쓸 수 있다 (배열은 커지기만 하므로 데운 뒤에는 할당이 없다).
+ */
+public class LinkLoadEngine {
+
+    public enum Tier { HOST, RACK_UPLINK, POD_UPLINK }
+
+    /** 이용률이 높은 link group 하나 */
+    public static class Hotspot {
+        public final Tier tier;
+        /** host id / rackId / podId */
+        public final int id;
+        /** group 안 ECMP link 수 */
+        public final int links;
+        public final double load;
+        public final double capacity;
+
+        Hotspot(Tier tier, int id, int links, double load, double capacity) {
+            this.tier = tier;
+            this.id = id;
+            this.links = links;
+            this.load = load;
+            this.capacity = capacity;
+        }
+
+        public double utilization() {
+            return load / capacity;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %d (x%d): %.1f / %.1f = %.1f%%",
+                    tier, id, links, load, capacity, 100.0 * utilization());
+        }
+    }
+
+    private TrafficSimulationCore.Topology topo;
+    private List<TrafficSimulationCore.HostInfo> hosts;
+
+    /** host 수, rackId / podId 상한 (배열은 이보다 길 수 있다) */
+    private int hostCount, rackBound, podBound;
+
+    /** host id → hosts index */
+    private int[] hostIndex = new int[0];
+    private int[] hostRack = new int[0];
+    private int[] hostPod = new int[0];
+
+    private double[] hostLoad = new double[0], rackLoad = new double[0], podLoad = new double[0];
+    private double[] hostCap = new double[0], rackCap = new double[0], podCap = new double[0];
+    private int[] rackLinks = new int[0], podLinks = new int[0];
+    /** reset 용: rack 이 처음 나온 pod (-1 이면 없음), pod 별 rack 수 */
+    private int[] rackPod = new int[0], podRacks = new int[0];
+
+    /** VM id → host index (-1 이면 배치 안 됨) */
+    private int[] vmHost = new int[0];
+    private TrafficMatrix traffic;
+    /** 배치된 VM id (move 의 row scan 용, 순서 무관) */
+    private final IntArrayList placed = new IntArrayList();
+    private double overload;
+
+    public LinkLoadEngine(List<TrafficSimulationCore.HostInfo> hosts, TrafficSimulationCore.Topology topo,
+                          double hostLinkCapacity, double rackOversubscription, double podOversubscription) {
+        reset(hosts, topo, hostLinkCapacity, rackOversubscription, podOversubscription);
+    }
+
+    /** 토폴로지 기본 oversubscription: TREE 는 ToR 4:1, FAT_TREE / VL2 는 1:1 (non-blocking) */
+    public LinkLoadEngine(List<TrafficSimulationCore.HostInfo> hosts, TrafficSimulationCore.Topology topo,
+                          double hostLinkCapacity) {
+        this(hosts, topo, hostLinkCapacity, defaultRackOversubscription(topo), 1.0);
+    }
+
+    /** reset 전에는 쓸 수 없는 빈 engine (ConsolidationWorkspace 가 run 마다 reset 해서 재사용) */
+    LinkLoadEngine() {
+    }
+
+    static double defaultRackOversubscription(TrafficSimulationCore.Topology topo) {
+        return topo == TrafficSimulationCore.Topology.TREE ? 4.0 : 1.0;
+    }
+
+    /** hosts / 용량으로 link group 을 다시 잡는다. load 는 비워지므로 rebuild 를 다시 불러야 한다 */
+    void reset(List<TrafficSimulationCore.HostInfo> hosts, TrafficSimulationCore.Topology topo,
+               double hostLinkCapacity, double rackOversubscription, double podOversubscription) {
+        if (!(hostLinkCapacity > 0)) throw new IllegalArgumentException("hostLinkCapacity must be > 0");
+        if (!(rackOversubscription > 0) || !(podOversubscription > 0)) {
+            throw new IllegalArgumentException("oversubscription must be > 0");
+        }
+        this.topo = topo;
+        this.hosts = hosts;
+        this.traffic = null;
+        int n = hosts.size();
+        int maxHost = -1, maxRack = -1, maxPod = -1;
+        for (int i = 0; i < n; i++) {
+            TrafficSimulationCore.HostInfo h = hosts.get(i);
+            maxHost = Math.max(maxHost, h.id);
+            maxRack = Math.max(maxRack, h.rackId);
+            maxPod = Math.max(maxPod, h.podId);
+        }
+        hostCount = n;
+        rackBound = maxRack + 1;
+        podBound = maxPod + 1;
+        if (hostIndex.length < maxHost + 1) hostIndex = new int[maxHost + 1];
+        if (hostRack.length < n) {
+            hostRack = new int[n];
+            hostPod = new int[n];
+            hostLoad = new double[n];
+            hostCap = new double[n];
+        }
+        if (rackLoad.length < rackBound) {
+            rackLoad = new double[rackBound];
+            rackCap = new double[rackBound];
+            rackLinks = new int[rackBound];
+            rackPod = new int[rackBound];
+        }
+        if (podLoad.length < podBound) {
+            podLoad = new double[podBound];
+            podCap = new double[podBound];
+            podLinks = new int[podBound];
+            podRacks = new int[podBound];
+        }
+        Arrays.fill(hostIndex, -1);
+        Arrays.fill(hostLoad, 0, n, 0.0);
+        Arrays.fill(rackLoad, 0, rackBound, 0.0);
+        Arrays.fill(rackCap, 0, rackBound, 0.0);
+        Arrays.fill(rackLinks, 0, rackBound, 0);
+        Arrays.fill(rackPod, 0, rackBound, -1);
+        Arrays.fill(podLoad, 0, podBound, 0.0);
+        Arrays.fill(podCap, 0, podBound, 0.0);
+        Arrays.fill(podLinks, 0, podBound, 0);
+        Arrays.fill(podRacks, 0, podBound, 0);
+        overload = 0.0;
+        placed.clear();
+
+        // pod 별 rack 수 (FAT_TREE 의 aggregation switch 수)
+        int pods = 0;
+        for (int i = 0; i < n; i++) {
+            TrafficSimulationCore.HostInfo h = hosts.get(i);
+            if (hostIndex[h.id] >= 0) throw new IllegalArgumentException("duplicate host id " + h.id);
+            hostIndex[h.id] = i;
+            hostRack[i] = h.rackId;
+            hostPod[i] = h.podId;
+            hostCap[i] = hostLinkCapacity;
+            rackCap[h.rackId] += hostLinkCapacity / rackOversubscription;
+            podCap[h.podId] += hostLinkCapacity / podOversubscription;
+            if (rackPod[h.rackId] < 0) {
+                rackPod[h.rackId] = h.podId;
+                if (podRacks[h.podId]++ == 0) pods++;
+            }
+        }
+        for (int r = 0; r < rackBound; r++) {
+            if (rackPod[r] < 0) continue;
+            int aggs = podRacks[rackPod[r]];
+            rackLinks[r] = topo == TrafficSimulationCore.Topology.TREE ? 1
+                    : topo == TrafficSimulationCore.Topology.VL2 ? 2 : aggs;
+        }
+        for (int p = 0; p < podBound; p++) {
+            int aggs = podRacks[p];
+            if (aggs == 0) continue;
+            // FAT_TREE: aggregation 마다 core 로 aggs 개, VL2: aggregation 2 개가 intermediate 전부로
+            podLinks[p] = topo == TrafficSimulationCore.Topology.TREE ? 0
+                    : topo == TrafficSimulationCore.Topology.VL2 ? 2 * Math.max(2, pods) : aggs * aggs;
+        }
+    }
+
+    // ==========================================================
+    //  부하 갱신
+    // ==========================================================
+
+    /** placement 전체로 load 를 다시 계산 (O(n²)) */
+    public void rebuild(Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement,
+                        TrafficMatrix traffic) {
+        this.traffic = traffic;
+        if (vmHost.length < traffic.size()) vmHost = new int[traffic.size()];
+        Arrays.fill(vmHost, -1);
+        Arrays.fill(hostLoad, 0, hostCount, 0.0);
+        Arrays.fill(rackLoad, 0, rackBound, 0.0);
+        Arrays.fill(podLoad, 0, podBound, 0.0);
+        overload = 0.0;
+        placed.clear();
+        for (Map.Entry<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> e : placement.entrySet()) {
+            int id = e.getKey().id;
+            if (id < 0 || id >= traffic.size()) {
+                throw new IllegalArgumentException("VM id " + id + " outside traffic matrix of size " + traffic.size());
+            }
+            vmHost[id] = indexOf(e.getValue());
+            placed.add(id);
+        }
+        for (int a = 0; a < placed.size(); a++) {
+            int u = placed.get(a);
+            for (int b = a + 1; b < placed.size(); b++) {
+                int v = placed.get(b);
+                double t = traffic.get(u, v);
+                if (t != 0.0) route(vmHost[u], vmHost[v], t);
+            }
+        }
+        overload = computeOverload();
+    }
+
+    /** VM v 를 to 로 옮긴다 (v 의 row 만 다시 싣는다, O(n)). rebuild 뒤에만 쓸 수 있다 */
+    public void move(TrafficSimulationCore.VmInfo v, TrafficSimulationCore.HostInfo to) {
+        if (traffic == null) throw new IllegalStateException("rebuild must be called first");
+        int from = vmHost[v.id];
+        int dest = indexOf(to);
+        if (from == dest) return;
+        if (from < 0) placed.add(v.id);
+        for (int a = 0; a < placed.size(); a++) {
+            int u = placed.get(a);
+            if (u == v.id || vmHost[u] < 0) continue;
+            double t = traffic.get(v.id, u);
+            if (t == 0.0) continue;
+            if (from >= 0) route(from, vmHost[u], -t);
+            route(dest, vmHost[u], t);
+        }
+        vmHost[v.id] = dest;
+    }
+
+    /** host a ↔ b 트래픽 t 를 경로의 link group 에 더한다 (t < 0 이면 뺀다) */
+    private void route(int a, int b, double t) {
+        if (a == b) return;
+        add(hostLoad, hostCap, a, t);
+        add(hostLoad, hostCap, b, t);
+        int ra = hostRack[a], rb = hostRack[b];
+        if (ra == rb) return;
+        add(rackLoad, rackCap, ra, t);
+        add(rackLoad, rackCap, rb, t);
+        switch (topo) {
+            case FAT_TREE:
+                if (hostPod[a] == hostPod[b]) return;
+                add(podLoad, podCap, hostPod[a], t);
+                add(podLoad, podCap, hostPod[b], t);
+                return;
+            case VL2:
+                // 같은 pod 라도 intermediate 를 거쳐 되돌아온다 (같은 group 에 두 번)
+                add(podLoad, podCap, hostPod[a], t);
+                add(podLoad, podCap, hostPod[b], t);
+                return;
+            default:
+        }
+    }
+
+    private void add(double[] load, double[] cap, int g, double t) {
+        double before = load[g];
+        double after = before + t;
+        load[g] = after;
+        overload += Math.max(0.0, after - cap[g]) - Math.max(0.0, before - cap[g]);
+    }
+
+    private int indexOf(TrafficSimulationCore.HostInfo h) {
+        int i = h.id < hostIndex.length ? hostIndex[h.id] : -1;
+        if (i < 0 || hosts.get(i) != h) throw new IllegalArgumentException("unknown host " + h.id);
+        return i;
+    }
+
+    // ==========================================================
+    //  조회
+    // ==========================================================
+
+    /** 용량을 넘친 트래픽 합 Σ max(0, load − capacity) (move 마다 증분 갱신) */
+    public double overload() {
+        return Math.max(0.0, overload);
+    }
+
+    private double computeOverload() {
+        double sum = 0.0;
+        for (int i = 0; i < hostCount; i++) sum += Math.max(0.0, hostLoad[i] - hostCap[i]);
+        for (int r = 0; r < rackBound; r++) if (rackLinks[r] > 0) sum += Math.max(0.0, rackLoad[r] - rackCap[r]);
+        for (int p = 0; p < podBound; p++) if (podLinks[p] > 0) sum += Math.max(0.0, podLoad[p] - podCap[p]);
+        return sum;
+    }
+
+    /** 가장 높은 link 이용률 (1 을 넘으면 혼잡) */
+    public double maxUtilization() {
+        double max = 0.0;
+        for (int i = 0; i < hostCount; i++) max = Math.max(max, hostLoad[i] / hostCap[i]);
+        for (int r = 0; r < rackBound; r++) if (rackLinks[r] > 0) max = Math.max(max, rackLoad[r] / rackCap[r]);
+        for (int p = 0; p < podBound; p++) if (podLinks[p] > 0) max = Math.max(max, podLoad[p] / podCap[p]);
+        return max;
+    }
+
+    /** tier 별 가장 높은 이용률 */
+    public double maxUtilization(Tier tier) {
+        double max = 0.0;
+        for (Hotspot h : groups(tier)) max = Math.max(max, h.utilization());
+        return max;
+    }
+
+    /** 이용률이 threshold 이상인 link group (이용률 내림차순) */
+    public List<Hotspot> hotspots(double threshold) {
+        List<Hotspot> out = new ArrayList<>();
+        for (Tier tier : Tier.values()) {
+            for (Hotspot h : groups(tier)) if (h.utilization() >= threshold) out.add(h);
+        }
+        out.sort(Comparator.comparingDouble(Hotspot::utilization).reversed());
+        return out;
+    }
+
+    private List<Hotspot> groups(Tier tier) {
+        List<Hotspot> out = new ArrayList<>();
+        switch (tier) {
+            case HOST:
+                for (int i = 0; i < hostCount; i++) {
+                    out.add(new Hotspot(tier, hosts.get(i).id, 1, hostLoad[i], hostCap[i]));
+                }
+                break;
+            case RACK_UPLINK:
+                for (int r = 0; r < rackBound; r++) {
+                    if (rackLinks[r] > 0) out.add(new Hotspot(tier, r, rackLinks[r], rackLoad[r], rackCap[r]));
+                }
+                break;
+            case POD_UPLINK:
+                for (int p = 0; p < podBound; p++) {
+                    if (podLinks[p] > 0) out.add(new Hotspot(tier, p, podLinks[p], podLoad[p], podCap[p]));
+                }
+                break;
+            default:
+        }
+        return out;
+    }
+}
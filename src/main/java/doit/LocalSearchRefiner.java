@@ -0,0 +1,359 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * 통합 후 배치 개선 단계 (Kernighan–Lin / Fiduccia–Mattheyses 스타일 local search).
+ *
+ *  - 이동 : VM 하나를 용량이 되는 다른 host 로 옮김
+ *  - 교환 : 목표 host 에 자리가 없으면 그 host 의 VM 과 맞바꿈 (양쪽 용량 확인)
+ *
+ * VM 마다 "이웃 VM 들이 host / rack / pod 별로 얼마나 있는지" (affinity) 를 들고 있어서
+ * 이동 gain 을 O(1) 로 계산한다:
+ *
+ *   cost(v @ h) = dRack·(R - A) + dPod·(P - R) + dFar·(T - P)
+ *     A = h 위의 이웃 트래픽 합, R = h 의 rack, P = h 의 pod, T = 전체
+ *
+ * gain 은 bucket(양자화된 gain → 이중 연결 리스트) 에 넣어 두고 가장 큰 bucket 에서
+ * 꺼내므로 best-move 조회는 O(1), VM 하나를 옮기면 그 이웃들만 O(degree) 로 갱신한다.
+ * bucket 값은 근사치라서 꺼낼 때 정확한 gain 을 다시 계산하고, 낮아졌으면 다시 넣는다.
+ *
+ * 개선(gain > 0) 이동만 하므로 비용은 단조 감소하고, timeBudget 이 지나면 멈춘다.
+ */
+public class LocalSearchRefiner {
+
+    private static final int BUCKETS = 1024;
+    private static final double EPS = 1e-9;
+
+    private final long timeBudgetNanos;
+    private final double minEdgeWeight;
+
+    public LocalSearchRefiner(long timeBudgetMillis) {
+        this(timeBudgetMillis, 0.0);
+    }
+
+    /**
+     * @param minEdgeWeight 이 값 이하의 트래픽 edge 는 이웃으로 보지 않음
+     *                      (dense 행렬에서 약한 edge 를 버려 degree 를 줄이는 용도, 0 이면 전부 사용)
+     */
+    public LocalSearchRefiner(long timeBudgetMillis, double minEdgeWeight) {
+        if (timeBudgetMillis <= 0) throw new IllegalArgumentException("timeBudgetMillis must be > 0");
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+        this.minEdgeWeight = Math.max(0.0, minEdgeWeight);
+    }
+
+    /** refine 결과 */
+    public static class RefineResult {
+        public final Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement;
+        public final double costBefore;
+        public final double costAfter;
+        public final int moves;
+        public final int swaps;
+        public final double elapsedMillis;
+
+        RefineResult(Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement,
+                     double costBefore, double costAfter, int moves, int swaps, double elapsedMillis) {
+            this.placement = placement;
+            this.costBefore = costBefore;
+            this.costAfter = costAfter;
+            this.moves = moves;
+            this.swaps = swaps;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            double red = costBefore == 0 ? 0.0 : (costBefore - costAfter) / costBefore * 100.0;
+            return String.format("cost %.2f -> %.2f (%.2f%%), moves=%d, swaps=%d, %.1f ms",
+                    costBefore, costAfter, red, moves, swaps, elapsedMillis);
+        }
+    }
+
+    /**
+     * hosts 의 잔여 자원을 갱신하고 개선된 배치를 돌려준다.
+     * placement 의 host 들은 hosts 리스트 안에 있어야 한다.
+     */
+    public RefineResult refine(List<TrafficSimulationCore.HostInfo> hosts,
+                               Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement,
+                               TrafficMatrix traffic,
+                               TrafficSimulationCore.Topology topo) {
+        TrafficSimulationCore.requireRamMipsOnly(placement.keySet(), "local search");
+        long start = System.nanoTime();
+        PlacementState st = new PlacementState(hosts, placement, traffic, topo);
+        double before = st.totalCost();
+
+        Run run = new Run(st, start + timeBudgetNanos);
+        run.optimize();
+
+        double after = st.totalCost();
+        return new RefineResult(st.applyToHosts(), before, after, run.moves, run.swaps,
+                (System.nanoTime() - start) / 1e6);
+    }
+
+    // ==========================================================
+    //  한 번의 refine 실행 상태
+    // ==========================================================
+
+    private final class Run {
+        final PlacementState st;
+        final long deadline;
+        final int n;
+
+        final int[][] nbr;
+        final double[][] wt;
+        final IntDoubleHashMap[] hostAff, rackAff, podAff;
+        final double[] total;
+        final IntArrayList[] members;
+
+        // gain bucket (이중 연결 리스트)
+        final int[] head = new int[BUCKETS];
+        final int[] next, prev, bucketOf;
+        final int[] cachedTarget;
+        int maxBucket = -1;
+        double unit;
+
+        int moves, swaps;
+
+        Run(PlacementState st, long deadline) {
+            this.st = st;
+            this.deadline = deadline;
+            this.n = st.vmCount();
+
+            nbr = new int[n][];
+            wt = new double[n][];
+            hostAff = new IntDoubleHashMap[n];
+            rackAff = new IntDoubleHashMap[n];
+            podAff = new IntDoubleHashMap[n];
+            total = new double[n];
+            members = new IntArrayList[st.hostCount()];
+            for (int h = 0; h < members.length; h++) members[h] = new IntArrayList();
+
+            next = new int[n];
+            prev = new int[n];
+            bucketOf = new int[n];
+            cachedTarget = new int[n];
+            Arrays.fill(head, -1);
+            Arrays.fill(bucketOf, -1);
+            Arrays.fill(cachedTarget, -1);
+
+            buildAdjacency();
+        }
+
+        private void buildAdjacency() {
+            IntArrayList idx = new IntArrayList();
+            double maxBound = 0.0;
+            for (int v = 0; v < n; v++) {
+                idx.clear();
+                for (int u = 0; u < n; u++) {
+                    if (u != v && st.traffic.get(st.vmId[v], st.vmId[u]) > minEdgeWeight) idx.add(u);
+                }
+                nbr[v] = idx.toArray();
+                wt[v] = new double[nbr[v].length];
+                hostAff[v] = new IntDoubleHashMap();
+                rackAff[v] = new IntDoubleHashMap();
+                podAff[v] = new IntDoubleHashMap();
+                for (int k = 0; k < nbr[v].length; k++) {
+                    int u = nbr[v][k];
+                    double w = st.traffic.get(st.vmId[v], st.vmId[u]);
+                    wt[v][k] = w;
+                    int hu = st.vmHost[u];
+                    hostAff[v].add(hu, w);
+                    rackAff[v].add(st.hostRack[hu], w);
+                    podAff[v].add(st.hostPod[hu], w);
+                    total[v] += w;
+                }
+                members[st.vmHost[v]].add(v);
+                maxBound = Math.max(maxBound, st.dFar * total[v]);
+            }
+            unit = maxBound / BUCKETS;
+        }
+
+        double costAt(int v, int h) {
+            double a = hostAff[v].get(h);
+            double r = rackAff[v].get(st.hostRack[h]);
+            double p = podAff[v].get(st.hostPod[h]);
+            return st.dRack * (r - a) + st.dPod * (p - r) + st.dFar * (total[v] - p);
+        }
+
+        double gain(int v, int h) {
+            return costAt(v, st.vmHost[v]) - costAt(v, h);
+        }
+
+        // ------------------------------------------------------
+        //  메인 루프
+        // ------------------------------------------------------
+
+        void optimize() {
+            if (unit <= 0) return;
+            for (int v = 0; v < n; v++) refresh(v);
+
+            int iter = 0;
+            while (maxBucket >= 0) {
+                if ((++iter & 63) == 0 && System.nanoTime() > deadline) break;
+
+                int v = head[maxBucket];
+                int popped = maxBucket;
+                unlink(v);
+
+                // bucket 값은 근사 → 정확히 다시 계산
+                double bestAny = -Double.MAX_VALUE, bestFeasible = -Double.MAX_VALUE;
+                int anyTarget = -1, feasibleTarget = -1;
+                IntDoubleHashMap aff = hostAff[v];
+                int cur = st.vmHost[v];
+                double curCost = costAt(v, cur);
+                for (int s = 0; s < aff.capacity(); s++) {
+                    int h = aff.keyAt(s);
+                    if (h < 0 || h == cur) continue;
+                    double g = curCost - costAt(v, h);
+                    if (g > bestAny) {
+                        bestAny = g;
+                        anyTarget = h;
+                    }
+                    if (g > bestFeasible && st.fits(v, h)) {
+                        bestFeasible = g;
+                        feasibleTarget = h;
+                    }
+                }
+
+                int key = bucketKey(bestAny);
+                if (key >= 0 && key < popped) {
+                    // 생각보다 gain 이 작아짐 → 제 자리에 다시 넣고 다음 후보
+                    link(v, key, anyTarget);
+                    continue;
+                }
+
+                if (feasibleTarget >= 0 && bestFeasible > EPS) {
+                    apply(v, feasibleTarget);
+                    moves++;
+                    refresh(v);
+                } else if (anyTarget >= 0 && bestAny > EPS && trySwap(v, anyTarget)) {
+                    swaps++;
+                }
+                // 둘 다 안 되면 v 는 이웃이 움직일 때까지 bucket 밖에서 대기
+            }
+        }
+
+        /** target host 위의 VM 중 맞바꿨을 때 gain 이 가장 큰 것과 교환 */
+        boolean trySwap(int v, int target) {
+            int hv = st.vmHost[v];
+            double gv = gain(v, target);
+            int best = -1;
+            double bestGain = EPS;
+            IntArrayList on = members[target];
+            for (int i = 0; i < on.size(); i++) {
+                int u = on.get(i);
+                if (!st.swapFits(v, u)) continue;
+                double t = st.traffic.get(st.vmId[v], st.vmId[u]);
+                double g = gv + gain(u, hv) - 2 * t * st.dist(hv, target);
+                if (g > bestGain) {
+                    bestGain = g;
+                    best = u;
+                }
+            }
+            if (best < 0) return false;
+
+            // swapFits 로 최종 상태의 용량은 확인됨 (중간에 잠깐 음수가 되는 건 배열 값일 뿐)
+            apply(v, target);
+            apply(best, hv);
+            refresh(v);
+            refresh(best);
+            return true;
+        }
+
+        /** v 를 h 로 옮기고 이웃들의 affinity / bucket 을 갱신 (O(degree)) */
+        void apply(int v, int h) {
+            int from = st.vmHost[v];
+            st.move(v, h);
+            members[from].removeValue(v);
+            members[h].add(v);
+
+            int rFrom = st.hostRack[from], rTo = st.hostRack[h];
+            int pFrom = st.hostPod[from], pTo = st.hostPod[h];
+            int[] nv = nbr[v];
+            double[] wv = wt[v];
+            for (int k = 0; k < nv.length; k++) {
+                int u = nv[k];
+                double w = wv[k];
+                hostAff[u].add(from, -w);
+                hostAff[u].add(h, w);
+                if (rFrom != rTo) {
+                    rackAff[u].add(rFrom, -w);
+                    rackAff[u].add(rTo, w);
+                }
+                if (pFrom != pTo) {
+                    podAff[u].add(pFrom, -w);
+                    podAff[u].add(pTo, w);
+                }
+
+                // u 의 후보: 기존 best target 과 방금 v 가 들어간 host 중 나은 쪽
+                int hu = st.vmHost[u];
+                double g = -Double.MAX_VALUE;
+                int t = -1;
+                int ct = cachedTarget[u];
+                if (ct >= 0 && ct != hu) {
+                    g = gain(u, ct);
+                    t = ct;
+                }
+                if (h != hu) {
+                    double g2 = gain(u, h);
+                    if (g2 > g) {
+                        g = g2;
+                        t = h;
+                    }
+                }
+                if (bucketOf[u] >= 0) unlink(u);
+                if (t >= 0) link(u, bucketKey(g), t);
+            }
+        }
+
+        /** v 의 best target 을 처음부터 다시 계산해서 bucket 에 넣음 */
+        void refresh(int v) {
+            if (bucketOf[v] >= 0) unlink(v);
+            int cur = st.vmHost[v];
+            double curCost = costAt(v, cur);
+            double best = -Double.MAX_VALUE;
+            int target = -1;
+            IntDoubleHashMap aff = hostAff[v];
+            for (int s = 0; s < aff.capacity(); s++) {
+                int h = aff.keyAt(s);
+                if (h < 0 || h == cur) continue;
+                double g = curCost - costAt(v, h);
+                if (g > best) {
+                    best = g;
+                    target = h;
+                }
+            }
+            if (target >= 0) link(v, bucketKey(best), target);
+            else cachedTarget[v] = -1;
+        }
+
+        // ------------------------------------------------------
+        //  bucket 연산
+        // ------------------------------------------------------
+
+        int bucketKey(double gain) {
+            if (gain <= EPS) return -1;
+            return (int) Math.min(BUCKETS - 1, gain / unit);
+        }
+
+        void link(int v, int key, int target) {
+            cachedTarget[v] = target;
+            if (key < 0) return;
+            bucketOf[v] = key;
+            prev[v] = -1;
+            next[v] = head[key];
+            if (head[key] >= 0) prev[head[key]] = v;
+            head[key] = v;
+            if (key > maxBucket) maxBucket = key;
+        }
+
+        void unlink(int v) {
+            int key = bucketOf[v];
+            if (prev[v] >= 0) next[prev[v]] = next[v];
+            else head[key] = next[v];
+            if (next[v] >= 0) prev[next[v]] = prev[v];
+            bucketOf[v] = -1;
+            while (maxBucket >= 0 && head[maxBucket] < 0) maxBucket--;
+        }
+    }
+}
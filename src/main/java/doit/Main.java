@@ -1,7 +1,61 @@
 package doit;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+
+        if (args.length > 0 && args[0].equals("bench")) {
+            new ExperimentCostKernel().run();        // cost kernel 처리량 (scalar vs vector)
+            return;
+        }
+        if (args.length > 0 && args[0].equals("sweep")) {
+            int workers = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+            String heap = args.length > 2 ? args[2] : "1g";
+            int[] vmCounts = new int[Math.max(0, args.length - 3)];
+            for (int i = 3; i < args.length; i++) vmCounts[i - 3] = Integer.parseInt(args[i]);
+            new ExperimentSweep().run(workers, heap, vmCounts);   // 여러 worker JVM 으로 실험 2 / 4 grid
+            return;
+        }
+        if (args.length > 0 && args[0].equals("snapshot")) {
+            new ExperimentSnapshot().run();          // placement snapshot 쓰기 / 읽기 / 이어서 통합
+            return;
+        }
+        if (args.length > 0 && args[0].equals("tune")) {
+            int hosts = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+            int vms = args.length > 2 ? Integer.parseInt(args[2]) : hosts * 3;
+            new ExperimentTuner().run(hosts, vms);   // 토폴로지별 supernodePercentile / S_i 가중치 튜닝
+            return;
+        }
+        if (args.length > 0 && args[0].equals("whatif")) {
+            new ExperimentWhatIf().run();            // move / move set batch what-if 평가
+            return;
+        }
+        if (args.length > 0 && args[0].equals("drain")) {
+            new ExperimentDrain().run();             // host / rack drain 계획
+            return;
+        }
+        if (args.length > 0 && args[0].equals("initial")) {
+            new ExperimentInitialPlacement().run();  // Phase 0: first-fit vs graph-growing
+            return;
+        }
+        if (args.length > 0 && args[0].equals("estimate")) {
+            new ExperimentSampledCost().run();       // 표본 추정 비용 + 신뢰구간, Proposed screening
+            return;
+        }
+        if (args.length > 0 && args[0].equals("shortlist")) {
+            new ExperimentNeighborShortlist().run(); // migratePartition 후보: 전체 scan vs neighbor shortlist
+            return;
+        }
+        if (args.length > 0 && args[0].equals("links")) {
+            new ExperimentLinkLoad().run();          // link 이용률 / hotspot, 혼잡 가중 Proposed
+            return;
+        }
+        if (args.length > 0 && args[0].equals("cloudsim")) {
+            int[] hostCounts = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) hostCounts[i - 1] = Integer.parseInt(args[i]);
+            if (hostCounts.length == 0) new ExperimentCloudSim().run();   // CloudSim Plus 안에서 policy 별 events/s
+            else new ExperimentCloudSim().run(hostCounts);
+            return;
+        }
 
         System.out.println("=============================================");
         new ExperimentAlgorithms().run();            // 실험 1: 기존 알고리즘 vs Proposed
@@ -0,0 +1,256 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * 통합 전(before) / 통합 후(after) 배치를 실제로 실행 가능한 migration 스케줄로 변환.
+ *
+ *  - 대역폭 제한 : host마다 동시에 나가는/들어오는 migration 수는 maxConcurrentPerHost 이하,
+ *                  migration 하나는 host NIC 대역폭(bandwidthMBps)을 그 wave 에서 같이 도는 migration 수로
+ *                  나눠 쓴다 (출발 / 도착 host 중 더 붐비는 쪽 기준, 혼자면 전부)
+ *  - 의존성 안전 : 도착 host에 "지금" 자리가 있을 때만 시작 (출발 host의 자원은 wave가 끝나야 반납)
+ *  - 순환 의존   : 아무것도 시작 못 하면 여유 있는 staging host를 경유해서 풀어줌
+ *
+ * 출력: wave 단위 순서, 총 이동 바이트, makespan(초)
+ */
+public class MigrationPlanner {
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    private final TrafficSimulationCore core;
+    private final double bandwidthMBps;
+    private final int maxConcurrentPerHost;
+
+    public MigrationPlanner(TrafficSimulationCore core, double bandwidthMBps, int maxConcurrentPerHost) {
+        if (bandwidthMBps <= 0) throw new IllegalArgumentException("bandwidthMBps must be > 0");
+        if (maxConcurrentPerHost <= 0) throw new IllegalArgumentException("maxConcurrentPerHost must be > 0");
+        this.core = core;
+        this.bandwidthMBps = bandwidthMBps;
+        this.maxConcurrentPerHost = maxConcurrentPerHost;
+    }
+
+    /** migration 한 건 */
+    public static class Migration {
+        public final TrafficSimulationCore.VmInfo vm;
+        public final int fromHostId;
+        public final int toHostId;
+        public final int wave;
+        public final double startSec;
+        public final double durationSec;
+        public final long bytes;
+        public final double cost;     // RAM × 거리
+
+        Migration(TrafficSimulationCore.VmInfo vm, int fromHostId, int toHostId, int wave,
+                  double startSec, double durationSec, long bytes, double cost) {
+            this.vm = vm;
+            this.fromHostId = fromHostId;
+            this.toHostId = toHostId;
+            this.wave = wave;
+            this.startSec = startSec;
+            this.durationSec = durationSec;
+            this.bytes = bytes;
+            this.cost = cost;
+        }
+    }
+
+    /** 스케줄 결과 */
+    public static class MigrationSchedule {
+        public final List<Migration> migrations = new ArrayList<>();
+        /** 스케줄할 수 없었던 VM (staging host도 없는 순환 의존, 또는 staging 을 거쳐도 도착 host 가 안 비는 after 배치) */
+        public final List<TrafficSimulationCore.VmInfo> unresolved = new ArrayList<>();
+        public int waves;
+        public int movedVms;
+        public long totalBytes;
+        public double totalCost;
+        public double makespanSec;
+
+        @Override
+        public String toString() {
+            return String.format("movedVms=%d, migrations=%d, waves=%d, bytes=%.2f GB, cost=%.0f, makespan=%.1f s%s",
+                    movedVms, migrations.size(), waves, totalBytes / (double) (1024L * BYTES_PER_MB),
+                    totalCost, makespanSec,
+                    unresolved.isEmpty() ? "" : ", unresolved=" + unresolved.size());
+        }
+    }
+
+    private static class Pending {
+        final TrafficSimulationCore.VmInfo vm;
+        int from;
+        final int to;
+        /** staging host 를 이미 한 번 거친 VM (다시 staging 하면 같은 자리를 맴돌 수 있음) */
+        boolean staged;
+
+        Pending(TrafficSimulationCore.VmInfo vm, int from, int to) {
+            this.vm = vm;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * @param hosts  전체 host 목록 (총 용량 / rack / pod 정보, staging 후보로 사용)
+     * @param before 통합 전 배치
+     * @param after  통합 후 배치
+     */
+    public MigrationSchedule plan(List<TrafficSimulationCore.HostInfo> hosts,
+                                  Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> before,
+                                  Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> after,
+                                  TrafficSimulationCore.Topology topo) {
+
+        TrafficSimulationCore.requireRamMipsOnly(after.keySet(), "migration planning");
+
+        // host id → 정보 / 현재 잔여 자원 (before 기준으로 다시 계산)
+        Map<Integer, TrafficSimulationCore.HostInfo> byId = new HashMap<>();
+        for (TrafficSimulationCore.HostInfo h : hosts) byId.put(h.id, h);
+        for (TrafficSimulationCore.HostInfo h : before.values()) byId.putIfAbsent(h.id, h);
+        for (TrafficSimulationCore.HostInfo h : after.values()) byId.putIfAbsent(h.id, h);
+
+        Map<Integer, long[]> residual = new HashMap<>();
+        for (TrafficSimulationCore.HostInfo h : byId.values()) {
+            residual.put(h.id, new long[]{h.totalRam, h.totalMips});
+        }
+        for (Map.Entry<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> e : before.entrySet()) {
+            long[] r = residual.get(e.getValue().id);
+            r[0] -= e.getKey().ram;
+            r[1] -= e.getKey().mips;
+        }
+
+        Map<Integer, TrafficSimulationCore.HostInfo> origin = new HashMap<>();
+        for (Map.Entry<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> e : before.entrySet()) {
+            origin.put(e.getKey().id, e.getValue());
+        }
+
+        List<Pending> pending = new ArrayList<>();
+        for (Map.Entry<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> e : after.entrySet()) {
+            TrafficSimulationCore.HostInfo from = origin.get(e.getKey().id);
+            if (from == null || from.id == e.getValue().id) continue;
+            pending.add(new Pending(e.getKey(), from.id, e.getValue().id));
+        }
+        // 큰 VM 먼저 (긴 migration을 앞 wave에 배치)
+        pending.sort((a, b) -> {
+            int c = Long.compare(b.vm.ram, a.vm.ram);
+            return c != 0 ? c : Integer.compare(a.vm.id, b.vm.id);
+        });
+
+        MigrationSchedule schedule = new MigrationSchedule();
+        schedule.movedVms = pending.size();
+
+        double clock = 0.0;
+        int wave = 0;
+
+        while (!pending.isEmpty()) {
+            Map<Integer, Integer> outCount = new HashMap<>();
+            Map<Integer, Integer> inCount = new HashMap<>();
+            List<Pending> started = new ArrayList<>();
+            double waveDuration = 0.0;
+
+            for (Pending p : pending) {
+                if (outCount.getOrDefault(p.from, 0) >= maxConcurrentPerHost) continue;
+                if (inCount.getOrDefault(p.to, 0) >= maxConcurrentPerHost) continue;
+                long[] dst = residual.get(p.to);
+                if (dst[0] < p.vm.ram || dst[1] < p.vm.mips) continue;
+
+                // 도착 host 자원은 시작 시점에 예약
+                dst[0] -= p.vm.ram;
+                dst[1] -= p.vm.mips;
+                outCount.merge(p.from, 1, Integer::sum);
+                inCount.merge(p.to, 1, Integer::sum);
+                started.add(p);
+            }
+
+            // 동시 전송 수는 wave 구성이 끝나야 알 수 있으므로 시간은 여기서 계산
+            for (Pending p : started) {
+                int concurrent = Math.max(outCount.get(p.from), inCount.get(p.to));
+                double duration = transferSec(p.vm, concurrent);
+                waveDuration = Math.max(waveDuration, duration);
+                record(schedule, p, wave, clock, duration, byId, topo);
+            }
+
+            if (started.isEmpty()) {
+                // 순환 의존 (A→B, B→A 가 서로 자리를 기다림) → staging host 경유
+                // 이미 staging 을 거친 VM 은 건너뛴다 (도착 host 가 끝내 안 비는 after 배치에서 무한 반복 방지)
+                Pending stuck = null;
+                for (Pending p : pending) {
+                    if (!p.staged) {
+                        stuck = p;
+                        break;
+                    }
+                }
+                if (stuck == null) {
+                    for (Pending p : pending) schedule.unresolved.add(p.vm);
+                    pending.clear();
+                    continue;
+                }
+                Integer staging = findStagingHost(stuck, residual, byId);
+                if (staging == null) {
+                    schedule.unresolved.add(stuck.vm);
+                    pending.remove(stuck);
+                    continue;
+                }
+                long[] st = residual.get(staging);
+                st[0] -= stuck.vm.ram;
+                st[1] -= stuck.vm.mips;
+                double duration = transferSec(stuck.vm, 1);   // staging 은 혼자 도는 wave
+                record(schedule, new Pending(stuck.vm, stuck.from, staging), wave, clock, duration, byId, topo);
+
+                long[] src = residual.get(stuck.from);
+                src[0] += stuck.vm.ram;
+                src[1] += stuck.vm.mips;
+                stuck.from = staging;
+                stuck.staged = true;
+
+                clock += duration;
+                wave++;
+                continue;
+            }
+
+            // wave 종료 → 출발 host 자원 반납
+            for (Pending p : started) {
+                long[] src = residual.get(p.from);
+                src[0] += p.vm.ram;
+                src[1] += p.vm.mips;
+            }
+            pending.removeAll(started);
+
+            clock += waveDuration;
+            wave++;
+        }
+
+        schedule.waves = wave;
+        schedule.makespanSec = clock;
+        return schedule;
+    }
+
+    /** concurrent 개가 같은 NIC 를 나눠 쓸 때 vm 하나의 전송 시간 */
+    private double transferSec(TrafficSimulationCore.VmInfo vm, int concurrent) {
+        return vm.ram / (bandwidthMBps / concurrent);
+    }
+
+    private void record(MigrationSchedule schedule, Pending p, int wave, double clock, double duration,
+                        Map<Integer, TrafficSimulationCore.HostInfo> byId,
+                        TrafficSimulationCore.Topology topo) {
+        long bytes = p.vm.ram * BYTES_PER_MB;
+        double cost = core.migrationCost(p.vm, byId.get(p.from), byId.get(p.to), topo);
+        schedule.migrations.add(new Migration(p.vm, p.from, p.to, wave, clock, duration, bytes, cost));
+        schedule.totalBytes += bytes;
+        schedule.totalCost += cost;
+    }
+
+    private Integer findStagingHost(Pending p, Map<Integer, long[]> residual,
+                                    Map<Integer, TrafficSimulationCore.HostInfo> byId) {
+        Integer best = null;
+        long bestFree = -1;
+        for (TrafficSimulationCore.HostInfo h : byId.values()) {
+            if (h.id == p.from || h.id == p.to) continue;
+            long[] r = residual.get(h.id);
+            if (r[0] < p.vm.ram || r[1] < p.vm.mips) continue;
+            // 같은 rack 우선, 그 다음 여유 RAM 큰 host
+            long free = r[0] + (h.rackId == byId.get(p.to).rackId ? Long.MAX_VALUE / 2 : 0);
+            if (free > bestFree) {
+                bestFree = free;
+                best = h.id;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,102 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * VM 별 heavy neighbor 인접 목록 (트래픽 내림차순, 상위 k 개만).
+ *
+ * migratePartition 은 파티션마다 fleet 의 모든 host 에 비용을 매긴다. 그런데 파티션을 어느 host 에
+ * 두든 "그 밖" 거리로 가는 트래픽은 같으므로, 비용이 달라지는 건 파티션의 트래픽 상대가 이미 있는
+ * host / rack / pod 뿐이다. 여기서 VM 마다 트래픽이 큰 상대 k 개를 들고 있다가
+ * TrafficSimulationCore.setNeighborIndex 로 끼우면, migratePartition 이 그 상대들의 host 와 rack
+ * (+ 용량 기준 fallback 몇 개) 만 후보로 본다 (NeighborShortlist).
+ *
+ * 전처리는 행렬마다 한 번 O(n²) (모든 i < j 를 읽어 양쪽 row 의 top-k heap 에 넣음).
+ * coverage(v) 는 VM v 의 전체 트래픽 중 목록에 든 비율로, k 를 고를 때 본다.
+ */
+public class NeighborIndex {
+
+    final TrafficMatrix traffic;
+    private final int k;
+
+    // row 별 neighbor (CSR, row 안에서는 weight 내림차순)
+    private final int[] start;
+    private final int[] neighbor;
+    private final double[] weight;
+    private final double[] rowSum;
+
+    public NeighborIndex(TrafficMatrix traffic, int k) {
+        if (k < 1) throw new IllegalArgumentException("k must be >= 1");
+        this.traffic = traffic;
+        int size = traffic.size();
+        this.k = k;
+
+        int kk = Math.min(k, Math.max(0, size - 1));
+        double[] hw = new double[size * kk];
+        int[] hc = new int[size * kk];
+        int[] hn = new int[size];
+        this.rowSum = new double[size];
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                double t = traffic.get(i, j);
+                if (t == 0.0) continue;
+                rowSum[i] += t;
+                rowSum[j] += t;
+                if (kk > 0) {
+                    SampledCostEstimator.offer(hw, hc, hn, i, kk, j, t);
+                    SampledCostEstimator.offer(hw, hc, hn, j, kk, i, t);
+                }
+            }
+        }
+
+        this.start = new int[size + 1];
+        for (int i = 0; i < size; i++) start[i + 1] = start[i] + hn[i];
+        this.neighbor = new int[start[size]];
+        this.weight = new double[start[size]];
+        Integer[] order = new Integer[kk];
+        for (int i = 0; i < size; i++) {
+            int base = i * kk, n = hn[i];
+            for (int a = 0; a < n; a++) order[a] = a;
+            // weight 내림차순, 같으면 id 오름차순
+            Arrays.sort(order, 0, n, (a, b) -> {
+                int c = Double.compare(hw[base + b], hw[base + a]);
+                return c != 0 ? c : Integer.compare(hc[base + a], hc[base + b]);
+            });
+            for (int a = 0; a < n; a++) {
+                neighbor[start[i] + a] = hc[base + order[a]];
+                weight[start[i] + a] = hw[base + order[a]];
+            }
+        }
+    }
+
+    /** VM 당 neighbor 32 개 */
+    public NeighborIndex(TrafficMatrix traffic) {
+        this(traffic, 32);
+    }
+
+    public int k() {
+        return k;
+    }
+
+    /** VM v 의 neighbor 수 (≤ k) */
+    public int degree(int v) {
+        return start[v + 1] - start[v];
+    }
+
+    /** VM v 의 i 번째 neighbor id (0 이 트래픽 최대) */
+    public int neighbor(int v, int i) {
+        return neighbor[start[v] + i];
+    }
+
+    public double weight(int v, int i) {
+        return weight[start[v] + i];
+    }
+
+    /** VM v 의 전체 트래픽 중 목록에 든 비율 (트래픽이 없으면 1) */
+    public double coverage(int v) {
+        if (rowSum[v] == 0.0) return 1.0;
+        double kept = 0.0;
+        for (int e = start[v]; e < start[v + 1]; e++) kept += weight[e];
+        return kept / rowSum[v];
+    }
+}
@@ -0,0 +1,216 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * migratePartition 후보 host shortlist (NeighborIndex 기반).
+ *
+ * 파티션 P 를 host h 에 두는 트래픽 비용은
+ *     Σ_{v∈P, u∉P} t(v,u)·dFar − gain(h)
+ *     gain(h) = dFar·W_host + (dFar−dRack)·(W_rack − W_host) + (dFar−dPod)·(W_pod − W_rack)
+ * 이고 (W_* 는 h / h 의 rack / pod 에 있는 P 의 상대와의 트래픽 합) 앞 항은 h 와 무관하다.
+ * 그래서 P 의 heavy neighbor 를 따라가며 W 를 host / rack / pod 별로 쌓고,
+ *
+ *  - neighbor 가 있는 host, 그 host 들의 rack 전체, released host 의 rack (migration 비용이 가장 작음)
+ *  - 위에서 들어가는 host 가 FALLBACKS 개보다 적으면 잔여 RAM 이 가장 작은 (best-fit) host 로 채움
+ *
+ * 만 후보로 돌려준다. 점수는 −gain(h) 로, 후보 수 + neighbor edge 수에 비례한다 (host 당 O(n) 이 아님).
+ * k 개로 자른 neighbor 만 보므로 근사이며, setVerifyShortlist 로 전체 scan 과 비교할 수 있다.
+ * rack 은 한 pod 안에 있다고 본다 (createHostList 배치).
+ *
+ * ConsolidationWorkspace 에 하나 두고 run 마다 reset, 해제 시도마다 setExclude 한다.
+ * VM 위치는 복사하지 않고 reset 으로 받은 vmHost (VM id → 지금 host) 를 읽으므로,
+ * 호출하는 쪽이 VM 을 옮길 때 (migration / undo / 캐시 replay) 그 배열을 같이 갱신해야 한다.
+ * 배열은 필요한 크기까지만 키워 가며 재사용한다.
+ */
+final class NeighborShortlist {
+
+    /** 들어가는 후보가 이보다 적으면 best-fit host 로 채운다 */
+    static final int FALLBACKS = 4;
+
+    private List<TrafficSimulationCore.HostInfo> hosts;
+    private NeighborIndex neighbors;
+    private int exclude = -1;
+    private int excludeRack = -1;
+    private double hostGain, rackGain, podGain;
+
+    /** VM id → 지금 host (없으면 null), 호출하는 쪽 소유 */
+    private TrafficSimulationCore.HostInfo[] vmHost;
+    /** host id → hosts index (-1 이면 리스트에 없음) */
+    private int[] hostIndex = new int[0];
+    /** rackId → host index (오름차순), rackMembers[r] 의 앞 rackSize[r] 개 */
+    private int[][] rackMembers = new int[0][];
+    private int[] rackSize = new int[0];
+
+    // 파티션마다 쌓는 W (건드린 것만 기록했다가 지움)
+    private double[] wHost = new double[0], wRack = new double[0], wPod = new double[0];
+    private final IntArrayList touchedHosts = new IntArrayList();
+    private final IntArrayList touchedRacks = new IntArrayList();
+    private final IntArrayList touchedPods = new IntArrayList();
+
+    // 후보 중복 제거 (stamp) / fallback 검색 버퍼
+    private int[] seen = new int[0];
+    private int stamp;
+    private int[] fits = new int[0];
+
+    /** 읽은 neighbor edge 수 (PAIR_EVALUATIONS 집계용) */
+    long edges;
+
+    /** run 시작 때 호출. vmHost 는 neighbors.traffic.size() 이상 길이여야 한다 */
+    void reset(List<TrafficSimulationCore.HostInfo> hosts, NeighborIndex neighbors,
+               TrafficSimulationCore.HostInfo[] vmHost, TrafficSimulationCore.Topology topo) {
+        int size = neighbors.traffic.size();
+        if (vmHost.length < size) {
+            throw new IllegalArgumentException("vmHost has " + vmHost.length + " slots for " + size + " VMs");
+        }
+        this.hosts = hosts;
+        this.neighbors = neighbors;
+        this.vmHost = vmHost;
+        double[] lv = TrafficSimulationCore.distanceLevels(topo);
+        this.hostGain = lv[2];
+        this.rackGain = lv[2] - lv[0];
+        this.podGain = lv[2] - lv[1];
+        this.exclude = -1;
+        this.excludeRack = -1;
+        clear();
+
+        int maxHost = 0, maxRack = 0, maxPod = 0;
+        for (TrafficSimulationCore.HostInfo h : hosts) {
+            maxHost = Math.max(maxHost, h.id);
+            maxRack = Math.max(maxRack, h.rackId);
+            maxPod = Math.max(maxPod, h.podId);
+        }
+        // 리스트 밖 host 에 있는 VM 도 rack / pod 집계에는 들어가야 한다
+        for (int u = 0; u < size; u++) {
+            TrafficSimulationCore.HostInfo h = vmHost[u];
+            if (h == null) continue;
+            maxRack = Math.max(maxRack, h.rackId);
+            maxPod = Math.max(maxPod, h.podId);
+        }
+        int n = hosts.size();
+        if (hostIndex.length < maxHost + 1) hostIndex = new int[maxHost + 1];
+        Arrays.fill(hostIndex, -1);
+        if (rackSize.length < maxRack + 1) {
+            rackSize = new int[maxRack + 1];
+            rackMembers = Arrays.copyOf(rackMembers, maxRack + 1);
+        }
+        Arrays.fill(rackSize, 0);
+        for (int i = 0; i < n; i++) {
+            TrafficSimulationCore.HostInfo h = hosts.get(i);
+            hostIndex[h.id] = i;
+            rackSize[h.rackId]++;
+        }
+        for (int r = 0; r < rackSize.length; r++) {
+            if (rackMembers[r] == null || rackMembers[r].length < rackSize[r]) rackMembers[r] = new int[rackSize[r]];
+        }
+        Arrays.fill(rackSize, 0);
+        for (int i = 0; i < n; i++) {
+            int r = hosts.get(i).rackId;
+            rackMembers[r][rackSize[r]++] = i;
+        }
+
+        if (wHost.length < n) {
+            wHost = new double[n];
+            seen = new int[n];
+            fits = new int[n];
+        }
+        if (wRack.length < maxRack + 1) wRack = new double[maxRack + 1];
+        if (wPod.length < maxPod + 1) wPod = new double[maxPod + 1];
+    }
+
+    /** 이번 해제 시도의 released host (후보에서 빼고, 그 rack 은 후보에 넣음) */
+    void setExclude(TrafficSimulationCore.HostInfo h) {
+        int i = h != null && h.id < hostIndex.length ? hostIndex[h.id] : -1;
+        this.exclude = (i >= 0 && hosts.get(i) == h) ? i : -1;
+        this.excludeRack = (h != null && h.rackId < rackSize.length) ? h.rackId : -1;
+    }
+
+    /**
+     * part (ram, mips) 의 후보 host index 를 out 에 오름차순으로 채우고 개수를 돌려준다.
+     * part 의 VM id 는 ws 에 마킹된 상태여야 한다 (part 안쪽 트래픽은 위치와 무관).
+     * 이후 gain(hi) 로 후보의 점수를 읽는다.
+     */
+    int collect(List<TrafficSimulationCore.VmInfo> part, long ram, long mips,
+                ConsolidationWorkspace ws, ResidualIndex index, int[] out) {
+        clear();
+        for (TrafficSimulationCore.VmInfo v : part) {
+            int deg = neighbors.degree(v.id);
+            edges += deg;
+            for (int e = 0; e < deg; e++) {
+                int u = neighbors.neighbor(v.id, e);
+                if (ws.isMarked(u)) continue;
+                TrafficSimulationCore.HostInfo h = vmHost[u];
+                if (h == null) continue;
+                double w = neighbors.weight(v.id, e);
+                int hi = h.id < hostIndex.length ? hostIndex[h.id] : -1;
+                if (hi >= 0) {
+                    if (wHost[hi] == 0.0) touchedHosts.add(hi);
+                    wHost[hi] += w;
+                }
+                if (wRack[h.rackId] == 0.0) touchedRacks.add(h.rackId);
+                wRack[h.rackId] += w;
+                if (wPod[h.podId] == 0.0) touchedPods.add(h.podId);
+                wPod[h.podId] += w;
+            }
+        }
+
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            stamp = 1;
+        }
+        int count = 0;
+        for (int t = 0; t < touchedHosts.size(); t++) count = offer(touchedHosts.get(t), ram, mips, out, count);
+        for (int t = 0; t < touchedRacks.size(); t++) count = offerRack(touchedRacks.get(t), ram, mips, out, count);
+        if (excludeRack >= 0) count = offerRack(excludeRack, ram, mips, out, count);
+
+        if (count < FALLBACKS) {
+            int n = index.collectFits(ram, mips, fits);
+            // 잔여 RAM 이 작은 순으로 FALLBACKS 개까지 (같으면 index 순)
+            for (int f = 0; f < FALLBACKS && count < FALLBACKS && f < n; f++) {
+                int pick = f;
+                for (int j = f + 1; j < n; j++) {
+                    if (hosts.get(fits[j]).remainingRam < hosts.get(fits[pick]).remainingRam) pick = j;
+                }
+                int tmp = fits[f];
+                fits[f] = fits[pick];
+                fits[pick] = tmp;
+                count = offer(fits[f], ram, mips, out, count);
+            }
+        }
+        Arrays.sort(out, 0, count);
+        return count;
+    }
+
+    /** collect 로 고른 후보 hi 의 트래픽 절감량 (클수록 좋음) */
+    double gain(int hi) {
+        TrafficSimulationCore.HostInfo h = hosts.get(hi);
+        double host = wHost[hi];
+        double rack = h.rackId < wRack.length ? wRack[h.rackId] : 0.0;
+        double pod = h.podId < wPod.length ? wPod[h.podId] : 0.0;
+        return hostGain * host + rackGain * (rack - host) + podGain * (pod - rack);
+    }
+
+    private int offerRack(int r, long ram, long mips, int[] out, int count) {
+        int[] members = rackMembers[r];
+        for (int m = 0; m < rackSize[r]; m++) count = offer(members[m], ram, mips, out, count);
+        return count;
+    }
+
+    private int offer(int hi, long ram, long mips, int[] out, int count) {
+        if (hi == exclude || seen[hi] == stamp) return count;
+        seen[hi] = stamp;
+        TrafficSimulationCore.HostInfo h = hosts.get(hi);
+        if (h.remainingRam < ram || h.remainingMips < mips) return count;
+        out[count] = hi;
+        return count + 1;
+    }
+
+    private void clear() {
+        for (int t = 0; t < touchedHosts.size(); t++) wHost[touchedHosts.get(t)] = 0.0;
+        for (int t = 0; t < touchedRacks.size(); t++) wRack[touchedRacks.get(t)] = 0.0;
+        for (int t = 0; t < touchedPods.size(); t++) wPod[touchedPods.get(t)] = 0.0;
+        touchedHosts.clear();
+        touchedRacks.clear();
+        touchedPods.clear();
+    }
+}
@@ -0,0 +1,119 @@
+package doit;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Off-heap, 상삼각(upper triangle) float32 트래픽 저장소.
+ *
+ *  - (i, j), i < j 만 저장 → m[i][j] / m[j][i] 중복 제거
+ *  - double(8B) 대신 float(4B)
+ *  - GC heap이 아닌 direct ByteBuffer 에 저장 → GC 스캔 대상에서 제외
+ *
+ * 원소 위치: rowOffset(i) + (j - i - 1),  rowOffset(i) = i * (2n - i - 1) / 2
+ *
+ * ByteBuffer 하나는 2GB(int index) 까지만 되므로, 원소가 CHUNK_FLOATS 개를 넘으면
+ * (대략 n > 23,000) 같은 규칙으로 여러 chunk 에 나눠 담는다.
+ */
+public class PackedTrafficStore implements TrafficMatrix {
+
+    private static final int CHUNK_SHIFT = 28;                 // chunk당 2^28 floats = 1GB
+    private static final long CHUNK_FLOATS = 1L << CHUNK_SHIFT;
+    private static final long CHUNK_MASK = CHUNK_FLOATS - 1;
+
+    private final int n;
+    private final long elements;
+    private final ByteBuffer[] chunks;
+
+    public PackedTrafficStore(int n) {
+        if (n < 0) throw new IllegalArgumentException("n must be >= 0");
+        this.n = n;
+        this.elements = (long) n * (n - 1) / 2;
+
+        int chunkCount = (int) ((elements + CHUNK_FLOATS - 1) >>> CHUNK_SHIFT);
+        this.chunks = new ByteBuffer[Math.max(1, chunkCount)];
+        long left = elements;
+        for (int c = 0; c < chunks.length; c++) {
+            long floats = Math.min(left, CHUNK_FLOATS);
+            chunks[c] = ByteBuffer.allocateDirect((int) (floats * Float.BYTES))
+                    .order(ByteOrder.nativeOrder());
+            left -= floats;
+        }
+    }
+
+    /** 기존 double[n][n] 행렬을 packed 형태로 복사 */
+    public static PackedTrafficStore fromDense(double[][] m) {
+        PackedTrafficStore s = new PackedTrafficStore(m.length);
+        for (int i = 0; i < m.length; i++) {
+            for (int j = i + 1; j < m.length; j++) {
+                s.set(i, j, m[i][j]);
+            }
+        }
+        return s;
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public double get(int a, int b) {
+        if (a == b) return 0.0;
+        long k = (a < b) ? index(a, b) : index(b, a);
+        return chunks[(int) (k >>> CHUNK_SHIFT)].getFloat((int) (k & CHUNK_MASK) << 2);
+    }
+
+    /** (a, b) 와 (b, a) 를 동시에 설정 (대각선은 무시) */
+    public void set(int a, int b, double value) {
+        if (a == b) return;
+        long k = (a < b) ? index(a, b) : index(b, a);
+        chunks[(int) (k >>> CHUNK_SHIFT)].putFloat((int) (k & CHUNK_MASK) << 2, (float) value);
+    }
+
+    /**
+     * 저장 순서 (row 0, 1, ...) 대로 한 번만 훑는다.
+     * ids 의 row 는 통째로 순차 읽기, 나머지 row r 은 r 보다 큰 ids 칸만 (주소가 계속 증가하는 방향).
+     * VM 하나씩 get(a, *) 로 읽으면 a 보다 작은 쪽이 row 마다 흩어진 column 읽기가 된다.
+     */
+    @Override
+    public void forEachPairWith(int[] ids, PairVisitor visitor) {
+        boolean[] in = new boolean[n];
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0 && ids[i] <= ids[i - 1]) throw new IllegalArgumentException("ids must be strictly ascending");
+            in[ids[i]] = true;
+        }
+        int next = 0;   // ids[next..] 가 현재 row 보다 큰 id
+        for (int r = 0; r < n; r++) {
+            while (next < ids.length && ids[next] <= r) next++;
+            long k = rowOffset(r);
+            if (in[r]) {
+                for (int b = r + 1; b < n; b++, k++) {
+                    float t = chunks[(int) (k >>> CHUNK_SHIFT)].getFloat((int) (k & CHUNK_MASK) << 2);
+                    if (t == 0f) continue;
+                    visitor.visit(r, b, t);
+                    if (in[b]) visitor.visit(b, r, t);
+                }
+            } else {
+                for (int i = next; i < ids.length; i++) {
+                    long e = k + (ids[i] - r - 1);
+                    float t = chunks[(int) (e >>> CHUNK_SHIFT)].getFloat((int) (e & CHUNK_MASK) << 2);
+                    if (t != 0f) visitor.visit(ids[i], r, t);
+                }
+            }
+        }
+    }
+
+    /** 실제 사용 중인 off-heap 바이트 수 */
+    public long offHeapBytes() {
+        return elements * Float.BYTES;
+    }
+
+    private long index(int i, int j) {
+        return rowOffset(i) + (j - i - 1);
+    }
+
+    private long rowOffset(int i) {
+        return (long) i * (2L * n - i - 1) / 2;
+    }
+}
@@ -0,0 +1,25 @@
+package doit;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * parallel stream 을 common pool 이 아닌 전용 ForkJoinPool 에서 돌리는 공용 helper.
+ *
+ * WorkloadGenerator / HierarchicalPlacement / WhatIfEvaluator / ParameterTuner 가 같은 방식으로
+ * parallelism 크기의 pool 을 만들고, task 를 submit 해서 끝날 때까지 기다린 뒤 pool 을 닫는다.
+ * task 안의 parallel stream 은 이 pool 의 worker 로 나뉘어 돈다. task 의 예외는 join 에서 그대로 던져진다.
+ */
+final class ParallelRunner {
+
+    private ParallelRunner() {
+    }
+
+    static void runParallel(int parallelism, Runnable task) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(task).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package doit;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Parallel tempering (replica exchange simulated annealing) 배치 최적화.
+ *
+ *  - replica 마다 서로 다른 온도 T_0 < T_1 < ... (기하급수 간격), core 하나씩 사용
+ *  - 각 replica 는 exchangeInterval 번씩 이동/교환을 Metropolis 규칙으로 시도
+ *      이동: VM 하나를 (주로) 이웃 VM 이 있는 host 로, 교환: 다른 host 의 VM 과 맞바꿈
+ *      비용 변화는 PlacementState.moveDelta / swapDelta 로 O(n) 증분 계산
+ *  - 라운드가 끝나면 인접 온도끼리 상태를 교환 (확률 min(1, exp(ΔE·Δβ)))
+ *  - wall-clock 예산이 끝나면 전체에서 가장 좋았던 배치를 돌려줌
+ *
+ * 시작 배치는 어떤 알고리즘 결과든 상관없음 (FFD, Sercon, Proposed ...).
+ * 용량을 넘는 이동은 절대 받지 않으므로 결과는 항상 feasible.
+ * 목적 함수는 트래픽 비용뿐이므로, 이동 대상은 시작 배치에서 VM 이 있는 host 로 한정한다
+ * (Proposed 가 비운 host 를 다시 켜지 않음 → 결과의 active host 수는 시작 배치 이하).
+ */
+public class ParallelTemperingOptimizer {
+
+    private final int replicas;
+    private final long budgetNanos;
+    private final int exchangeInterval;
+    private final long seed;
+
+    public ParallelTemperingOptimizer(long budgetMillis) {
+        this(Math.max(2, Runtime.getRuntime().availableProcessors()), budgetMillis, 2_000, 42L);
+    }
+
+    public ParallelTemperingOptimizer(int replicas, long budgetMillis, int exchangeInterval, long seed) {
+        if (replicas < 1) throw new IllegalArgumentException("replicas must be >= 1");
+        if (budgetMillis <= 0) throw new IllegalArgumentException("budgetMillis must be > 0");
+        if (exchangeInterval < 1) throw new IllegalArgumentException("exchangeInterval must be >= 1");
+        this.replicas = replicas;
+        this.budgetNanos = budgetMillis * 1_000_000L;
+        this.exchangeInterval = exchangeInterval;
+        this.seed = seed;
+    }
+
+    /** 최적화 결과 */
+    public static class Result {
+        public final Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement;
+        public final double seedCost;
+        public final double bestCost;
+        public final int rounds;
+        public final long movesTried;
+        public final int exchangesAccepted;
+
+        Result(Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement,
+               double seedCost, double bestCost, int rounds, long movesTried, int exchangesAccepted) {
+            this.placement = placement;
+            this.seedCost = seedCost;
+            this.bestCost = bestCost;
+            this.rounds = rounds;
+            this.movesTried = movesTried;
+            this.exchangesAccepted = exchangesAccepted;
+        }
+
+        @Override
+        public String toString() {
+            double red = seedCost == 0 ? 0.0 : (seedCost - bestCost) / seedCost * 100.0;
+            return String.format("cost %.2f -> %.2f (%.2f%%), rounds=%d, moves=%,d, exchanges=%d",
+                    seedCost, bestCost, red, rounds, movesTried, exchangesAccepted);
+        }
+    }
+
+    /**
+     * seed 배치에서 출발해 최적화. hosts 의 잔여 자원은 최종(best) 배치 기준으로 갱신된다.
+     */
+    public Result optimize(List<TrafficSimulationCore.HostInfo> hosts,
+                           Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> seedPlacement,
+                           TrafficMatrix traffic,
+                           TrafficSimulationCore.Topology topo) {
+        TrafficSimulationCore.requireRamMipsOnly(seedPlacement.keySet(), "parallel tempering");
+        long deadline = System.nanoTime() + budgetNanos;
+        PlacementState base = new PlacementState(hosts, seedPlacement, traffic, topo);
+        double seedCost = base.totalCost();
+        int[] active = activeHosts(base.vmHost, base.hostCount());
+        if (base.vmCount() < 2 || active.length < 2) {
+            return new Result(base.applyToHosts(), seedCost, seedCost, 0, 0, 0);
+        }
+
+        // 온도 사다리: 무작위 이동 |delta| 평균을 기준으로 T_max = 평균, T_min = 평균 / 1000
+        double scale = typicalDelta(base, active, new SplittableRandom(seed));
+        double tMax = Math.max(scale, 1e-6), tMin = tMax / 1_000.0;
+
+        Replica[] ladder = new Replica[replicas];
+        for (int i = 0; i < replicas; i++) {
+            double temp = (replicas == 1) ? tMin
+                    : tMin * Math.pow(tMax / tMin, (double) i / (replicas - 1));
+            ladder[i] = new Replica(base.copy(), active, seedCost, temp, new SplittableRandom(seed + 31L * (i + 1)));
+        }
+
+        int[] globalBest = base.vmHost.clone();
+        double globalBestCost = seedCost;
+        int rounds = 0, exchanges = 0;
+        SplittableRandom exchangeRng = new SplittableRandom(seed ^ 0x5DEECE66DL);
+
+        ExecutorService pool = Executors.newFixedThreadPool(replicas, r -> {
+            Thread t = new Thread(r, "pt-replica");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            while (System.nanoTime() < deadline) {
+                List<Callable<Void>> tasks = new ArrayList<>(replicas);
+                for (Replica rep : ladder) {
+                    tasks.add(() -> {
+                        rep.sweep(exchangeInterval, deadline);
+                        return null;
+                    });
+                }
+                for (Future<Void> f : pool.invokeAll(tasks)) f.get();
+                rounds++;
+
+                for (Replica rep : ladder) {
+                    if (rep.bestCost < globalBestCost) {
+                        globalBestCost = rep.bestCost;
+                        globalBest = rep.best.clone();
+                    }
+                }
+
+                // 인접 온도끼리 상태 교환 (짝수/홀수 라운드 번갈아)
+                for (int i = rounds & 1; i + 1 < ladder.length; i += 2) {
+                    Replica a = ladder[i], b = ladder[i + 1];
+                    double logP = (a.cost - b.cost) * (1.0 / a.temp - 1.0 / b.temp);
+                    if (logP >= 0 || exchangeRng.nextDouble() < Math.exp(logP)) {
+                        a.exchangeWith(b);
+                        exchanges++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("parallel tempering replica failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long moves = 0;
+        for (Replica rep : ladder) moves += rep.tried;
+
+        base.restore(globalBest);
+        int used = activeHosts(base.vmHost, base.hostCount()).length;
+        if (used > active.length) {
+            throw new IllegalStateException("parallel tempering used " + used
+                    + " active hosts, seed placement had " + active.length);
+        }
+        // 누적 오차 없이 정확한 값으로 보고
+        double bestCost = base.totalCost();
+        return new Result(base.applyToHosts(), seedCost, bestCost, rounds, moves, exchanges);
+    }
+
+    /** VM 이 하나라도 있는 host index (오름차순) */
+    private static int[] activeHosts(int[] vmHost, int hostCount) {
+        boolean[] used = new boolean[hostCount];
+        int count = 0;
+        for (int h : vmHost) {
+            if (h >= 0 && !used[h]) {
+                used[h] = true;
+                count++;
+            }
+        }
+        int[] out = new int[count];
+        count = 0;
+        for (int h = 0; h < hostCount; h++) if (used[h]) out[count++] = h;
+        return out;
+    }
+
+    /** 무작위 feasible 이동 몇 개의 |delta| 평균 (active host 안에서) */
+    private static double typicalDelta(PlacementState st, int[] active, SplittableRandom rnd) {
+        double sum = 0;
+        int cnt = 0;
+        for (int i = 0; i < 200; i++) {
+            int v = rnd.nextInt(st.vmCount());
+            int h = active[rnd.nextInt(active.length)];
+            if (h == st.vmHost[v] || !st.fits(v, h)) continue;
+            sum += Math.abs(st.moveDelta(v, h));
+            cnt++;
+        }
+        return cnt == 0 ? 1.0 : sum / cnt;
+    }
+
+    // ==========================================================
+    //  Replica
+    // ==========================================================
+
+    private static final class Replica {
+        PlacementState st;
+        /** 이동 대상 host (시작 배치의 active host) */
+        final int[] active;
+        double cost;
+        final double temp;
+        final SplittableRandom rnd;
+
+        int[] best;
+        double bestCost;
+        long tried;
+
+        Replica(PlacementState st, int[] active, double cost, double temp, SplittableRandom rnd) {
+            this.st = st;
+            this.active = active;
+            this.cost = cost;
+            this.temp = temp;
+            this.rnd = rnd;
+            this.best = st.vmHost.clone();
+            this.bestCost = cost;
+        }
+
+        void sweep(int steps, long deadline) {
+            int n = st.vmCount();
+            for (int s = 0; s < steps; s++) {
+                if ((s & 255) == 0 && System.nanoTime() > deadline) break;
+                tried++;
+                int v = rnd.nextInt(n);
+
+                if (rnd.nextInt(5) == 0) {
+                    // 교환
+                    int u = rnd.nextInt(n);
+                    if (st.vmHost[u] == st.vmHost[v] || !st.swapFits(v, u)) continue;
+                    double d = st.swapDelta(v, u);
+                    if (accept(d)) {
+                        int hv = st.vmHost[v], hu = st.vmHost[u];
+                        st.move(v, hu);
+                        st.move(u, hv);
+                        cost += d;
+                        if (cost < bestCost) saveBest();
+                    }
+                } else {
+                    // 이동: 80% 는 임의 VM 이 있는 host (트래픽 상대 쪽), 20% 는 임의 active host
+                    int h = (rnd.nextInt(5) != 0) ? st.vmHost[rnd.nextInt(n)] : active[rnd.nextInt(active.length)];
+                    if (h == st.vmHost[v] || !st.fits(v, h)) continue;
+                    double d = st.moveDelta(v, h);
+                    if (accept(d)) {
+                        st.move(v, h);
+                        cost += d;
+                        if (cost < bestCost) saveBest();
+                    }
+                }
+            }
+        }
+
+        /** 이동 delta 도 O(n) 이므로 best 갱신 때의 O(n) 복사는 부담이 아님 */
+        private void saveBest() {
+            bestCost = cost;
+            System.arraycopy(st.vmHost, 0, best, 0, best.length);
+        }
+
+        private boolean accept(double delta) {
+            return delta <= 0 || rnd.nextDouble() < Math.exp(-delta / temp);
+        }
+
+        /** 온도는 그대로 두고 상태(배치, 비용)만 맞바꿈 */
+        void exchangeWith(Replica o) {
+            PlacementState s = st;
+            st = o.st;
+            o.st = s;
+            double c = cost;
+            cost = o.cost;
+            o.cost = c;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * Proposed 의 supernodePercentile 과 S_i 가중치 (wU, wB, wR) 를 Hyperband 로 찾는다.
+ *
+ *  - fidelity : VM 수. full 인스턴스의 VM 을 고정된 무작위 순서로 앞에서부터 잘라 쓴 축소 인스턴스
+ *               (size = full / eta^k, host 수도 같은 비율). 작은 인스턴스는 큰 인스턴스의 부분집합이다.
+ *  - bracket  : s = sMax .. 0. 설정 n 개를 가장 낮은 fidelity 에서 평가하고
+ *               상위 1/eta 만 다음 fidelity 로 올리는 successive halving 을 반복한다.
+ *  - 평가     : 한 rung 의 설정들을 core 를 따로 만들어 병렬로 (dedicated ForkJoinPool).
+ *               같은 (설정, fidelity) 는 한 번만 평가한다.
+ *  - 결과     : full fidelity 에서 트래픽 비용이 가장 낮은 설정. 기본값 (0.95, 0.5/0.3/0.2) 은
+ *               가장 넓은 bracket 에 항상 넣고 full 에서도 따로 평가해 비교 기준으로 쓴다.
+ *  - held-out : 선택은 seed 하나의 인스턴스 위에서 이뤄지므로 그 인스턴스에 과적합될 수 있다.
+ *               고른 설정과 기본값을 학습에 쓰지 않은 seed (seed+1 .. seed+heldOutSeeds) 의 full 인스턴스에서
+ *               다시 평가해 평균 비용을 같이 보고한다.
+ */
+public class ParameterTuner {
+
+    /** 이보다 작은 축소 인스턴스는 만들지 않는다 */
+    private static final int MIN_VMS = 30;
+
+    /** 탐색 대상 설정 하나 */
+    public static class Config {
+        public final double percentile;
+        public final double weightU;
+        public final double weightB;
+        public final double weightR;
+
+        public Config(double percentile, double weightU, double weightB, double weightR) {
+            this.percentile = percentile;
+            this.weightU = weightU;
+            this.weightB = weightB;
+            this.weightR = weightR;
+        }
+
+        /** core 에 S_i 가중치를 적용 */
+        public void applyTo(TrafficSimulationCore core) {
+            core.setReleaseScoreWeights(weightU, weightB, weightR);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("p=%.3f, S=%.2fU+%.2fB+%.2fR", percentile, weightU, weightB, weightR);
+        }
+    }
+
+    /** 토폴로지 하나의 튜닝 결과 */
+    public static class Result {
+        public final TrafficSimulationCore.Topology topo;
+        public final Config best;
+        public final double bestCost;
+        public final Config baseline;
+        public final double baselineCost;
+        /** held-out seed 마다의 비용 (best / 기본값, 같은 index 가 같은 seed) */
+        public final double[] heldOutBestCosts;
+        public final double[] heldOutBaselineCosts;
+        public final int evaluations;
+        public final int fullEvaluations;
+        public final double seconds;
+
+        Result(TrafficSimulationCore.Topology topo, Config best, double bestCost, Config baseline,
+               double baselineCost, double[] heldOutBestCosts, double[] heldOutBaselineCosts,
+               int evaluations, int fullEvaluations, double seconds) {
+            this.topo = topo;
+            this.best = best;
+            this.bestCost = bestCost;
+            this.baseline = baseline;
+            this.baselineCost = baselineCost;
+            this.heldOutBestCosts = heldOutBestCosts;
+            this.heldOutBaselineCosts = heldOutBaselineCosts;
+            this.evaluations = evaluations;
+            this.fullEvaluations = fullEvaluations;
+            this.seconds = seconds;
+        }
+
+        /** 기본값 대비 비용 감소율 (%, 학습 인스턴스) */
+        public double improvementPercent() {
+            return baselineCost > 0 ? (baselineCost - bestCost) / baselineCost * 100.0 : 0.0;
+        }
+
+        public double heldOutBestCost() {
+            return mean(heldOutBestCosts);
+        }
+
+        public double heldOutBaselineCost() {
+            return mean(heldOutBaselineCosts);
+        }
+
+        /** 기본값 대비 held-out 평균 비용 감소율 (%, held-out seed 가 없으면 NaN) */
+        public double heldOutImprovementPercent() {
+            double base = heldOutBaselineCost();
+            return base > 0 ? (base - heldOutBestCost()) / base * 100.0 : Double.NaN;
+        }
+
+        /** best 가 기본값보다 낮은 비용을 낸 held-out seed 수 */
+        public int heldOutWins() {
+            int wins = 0;
+            for (int i = 0; i < heldOutBestCosts.length; i++) {
+                if (heldOutBestCosts[i] < heldOutBaselineCosts[i]) wins++;
+            }
+            return wins;
+        }
+
+        private static double mean(double[] a) {
+            if (a.length == 0) return Double.NaN;
+            double sum = 0.0;
+            for (double x : a) sum += x;
+            return sum / a.length;
+        }
+    }
+
+    public static final Config DEFAULT = new Config(0.95, 0.5, 0.3, 0.2);
+
+    private final int fullHosts;
+    private final int fullVms;
+    private final WorkloadGenerator.Shape shape;
+    private final int eta;
+    private final int parallelism;
+    private final long seed;
+    private final int heldOutSeeds;
+
+    public ParameterTuner(int fullHosts, int fullVms, WorkloadGenerator.Shape shape,
+                          int eta, int parallelism, long seed, int heldOutSeeds) {
+        if (fullHosts <= 0 || fullVms < MIN_VMS) {
+            throw new IllegalArgumentException("need at least 1 host and " + MIN_VMS + " VMs");
+        }
+        if (eta < 2) throw new IllegalArgumentException("eta must be >= 2");
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be > 0");
+        if (heldOutSeeds < 0) throw new IllegalArgumentException("heldOutSeeds must be >= 0");
+        this.fullHosts = fullHosts;
+        this.fullVms = fullVms;
+        this.shape = shape;
+        this.eta = eta;
+        this.parallelism = parallelism;
+        this.seed = seed;
+        this.heldOutSeeds = heldOutSeeds;
+    }
+
+    public ParameterTuner(int fullHosts, int fullVms) {
+        this(fullHosts, fullVms, WorkloadGenerator.Shape.CLUSTERED, 3,
+                Runtime.getRuntime().availableProcessors(), 17, 5);
+    }
+
+    // ==========================================================
+    //  축소 인스턴스
+    // ==========================================================
+
+    /** fidelity level 하나의 인스턴스 */
+    private static final class Instance {
+        final List<TrafficSimulationCore.HostInfo> hosts;
+        final List<TrafficSimulationCore.VmInfo> vms;
+        final TrafficMatrix traffic;
+
+        Instance(List<TrafficSimulationCore.HostInfo> hosts, List<TrafficSimulationCore.VmInfo> vms,
+                 TrafficMatrix traffic) {
+            this.hosts = hosts;
+            this.vms = vms;
+            this.traffic = traffic;
+        }
+    }
+
+    /** 학습에 쓰지 않은 seed 의 full 인스턴스 (VM / 트래픽 / host 수는 학습 인스턴스와 같은 설정) */
+    private Instance heldOutInstance(long instanceSeed) {
+        TrafficSimulationCore core = new TrafficSimulationCore();
+        WorkloadGenerator gen = new WorkloadGenerator(instanceSeed, parallelism);
+        return new Instance(core.createHostList(fullHosts), gen.createVmList(fullVms),
+                TrafficMatrix.of(gen.createTrafficMatrix(fullVms, shape)));
+    }
+
+    private List<Instance> buildLevels(int levels) {
+        TrafficSimulationCore core = new TrafficSimulationCore();
+        WorkloadGenerator gen = new WorkloadGenerator(seed, parallelism);
+        List<TrafficSimulationCore.VmInfo> vms = gen.createVmList(fullVms);
+        double[][] full = gen.createTrafficMatrix(fullVms, shape);
+
+        // 모든 level 이 같은 순서의 앞부분을 쓰도록 한 번만 섞는다
+        int[] order = new int[fullVms];
+        for (int i = 0; i < fullVms; i++) order[i] = i;
+        Random r = new Random(seed);
+        for (int i = fullVms - 1; i > 0; i--) {
+            int j = r.nextInt(i + 1);
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+
+        List<Instance> out = new ArrayList<>();
+        for (int level = 0; level < levels; level++) {
+            int m = sizeOf(level, levels);
+            if (m == fullVms) {
+                out.add(new Instance(core.createHostList(fullHosts), vms, TrafficMatrix.of(full)));
+                continue;
+            }
+            List<TrafficSimulationCore.VmInfo> sub = new ArrayList<>(m);
+            double[][] t = new double[m][m];
+            for (int a = 0; a < m; a++) {
+                TrafficSimulationCore.VmInfo v = vms.get(order[a]);
+                sub.add(new TrafficSimulationCore.VmInfo(a, v.ram, v.mips, v.extraDemand));
+                for (int b = 0; b < m; b++) t[a][b] = full[order[a]][order[b]];
+            }
+            int hosts = (int) Math.max(2, Math.round((double) fullHosts * m / fullVms));
+            out.add(new Instance(core.createHostList(hosts), sub, TrafficMatrix.of(t)));
+        }
+        return out;
+    }
+
+    /** level 0 이 가장 작고 levels-1 이 full */
+    private int sizeOf(int level, int levels) {
+        double div = Math.pow(eta, levels - 1 - level);
+        return (int) Math.max(MIN_VMS, Math.round(fullVms / div));
+    }
+
+    private int maxBracket() {
+        int s = 0;
+        while (fullVms / Math.pow(eta, s + 1) >= MIN_VMS) s++;
+        return s;
+    }
+
+    // ==========================================================
+    //  Hyperband
+    // ==========================================================
+
+    public Map<TrafficSimulationCore.Topology, Result> tuneAll() {
+        Map<TrafficSimulationCore.Topology, Result> out = new EnumMap<>(TrafficSimulationCore.Topology.class);
+        for (TrafficSimulationCore.Topology topo : TrafficSimulationCore.Topology.values()) out.put(topo, tune(topo));
+        return out;
+    }
+
+    public Result tune(TrafficSimulationCore.Topology topo) {
+        long t0 = System.nanoTime();
+        int sMax = maxBracket();
+        int levels = sMax + 1;
+        List<Instance> instances = buildLevels(levels);
+        Random rng = new Random(seed ^ topo.ordinal());
+
+        // (설정, level) → 비용
+        Map<Config, double[]> scores = new IdentityHashMap<>();
+        int[] evaluations = {0};
+
+        Config best = null;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (int s = sMax; s >= 0; s--) {
+            int n = (int) Math.ceil((double) levels / (s + 1) * Math.pow(eta, s));
+            List<Config> configs = new ArrayList<>(n);
+            if (s == sMax) configs.add(DEFAULT);
+            while (configs.size() < n) configs.add(sample(rng));
+
+            for (int i = 0; i <= s; i++) {
+                int level = sMax - s + i;
+                evaluate(configs, level, instances.get(level), topo, scores, levels, evaluations);
+                configs.sort(Comparator.comparingDouble(c -> scores.get(c)[level]));
+                if (level == sMax) {
+                    Config top = configs.get(0);
+                    if (scores.get(top)[level] < bestCost) {
+                        bestCost = scores.get(top)[level];
+                        best = top;
+                    }
+                    break;
+                }
+                int keep = Math.max(1, (int) Math.floor(configs.size() / (double) eta));
+                configs = new ArrayList<>(configs.subList(0, keep));
+            }
+        }
+
+        // 기본값은 full 에서 꼭 한 번 평가 (탈락했더라도 비교 기준)
+        evaluate(List.of(DEFAULT), sMax, instances.get(sMax), topo, scores, levels, evaluations);
+        double baselineCost = scores.get(DEFAULT)[sMax];
+        if (baselineCost <= bestCost) {
+            best = DEFAULT;
+            bestCost = baselineCost;
+        }
+
+        int full = 0;
+        for (double[] sc : scores.values()) if (!Double.isNaN(sc[sMax])) full++;
+
+        // 고른 설정과 기본값을 held-out seed 에서 다시 평가 (선택에는 쓰지 않는다)
+        double[] heldOutBest = new double[heldOutSeeds];
+        double[] heldOutBaseline = new double[heldOutSeeds];
+        Config chosen = best;
+        ParallelRunner.runParallel(parallelism, () -> java.util.stream.IntStream.range(0, heldOutSeeds).parallel()
+                .forEach(k -> {
+                    Instance inst = heldOutInstance(seed + 1 + k);
+                    heldOutBaseline[k] = cost(DEFAULT, inst, topo);
+                    heldOutBest[k] = chosen == DEFAULT ? heldOutBaseline[k] : cost(chosen, inst, topo);
+                }));
+        evaluations[0] += heldOutSeeds * (best == DEFAULT ? 1 : 2);
+
+        return new Result(topo, best, bestCost, DEFAULT, baselineCost, heldOutBest, heldOutBaseline,
+                evaluations[0], full, (System.nanoTime() - t0) / 1e9);
+    }
+
+    private void evaluate(List<Config> configs, int level, Instance inst, TrafficSimulationCore.Topology topo,
+                          Map<Config, double[]> scores, int levels, int[] evaluations) {
+        List<Config> todo = new ArrayList<>();
+        for (Config c : configs) {
+            double[] sc = scores.computeIfAbsent(c, k -> {
+                double[] a = new double[levels];
+                Arrays.fill(a, Double.NaN);
+                return a;
+            });
+            if (Double.isNaN(sc[level])) todo.add(c);
+        }
+        double[] cost = new double[todo.size()];
+        ParallelRunner.runParallel(parallelism, () -> java.util.stream.IntStream.range(0, todo.size()).parallel()
+                .forEach(i -> cost[i] = cost(todo.get(i), inst, topo)));
+        for (int i = 0; i < todo.size(); i++) scores.get(todo.get(i))[level] = cost[i];
+        evaluations[0] += todo.size();
+    }
+
+    /** 평가 한 번: 설정을 넣은 새 core 로 Proposed 를 돌린 트래픽 비용 */
+    static double cost(Config c, Instance inst, TrafficSimulationCore.Topology topo) {
+        TrafficSimulationCore core = new TrafficSimulationCore();
+        core.setVerbose(false);
+        c.applyTo(core);
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> pm = core.placeVmsProposed(
+                core.copyHosts(inst.hosts), inst.vms, inst.traffic, c.percentile, topo, 0.0);
+        return core.calcTrafficCost(pm, inst.traffic, topo);
+    }
+
+    /** percentile ~ U[0.60, 0.99], 가중치 ~ Dirichlet(1, 1, 1) */
+    private static Config sample(Random r) {
+        double p = 0.60 + r.nextDouble() * 0.39;
+        double u = -Math.log(1 - r.nextDouble());
+        double b = -Math.log(1 - r.nextDouble());
+        double w = -Math.log(1 - r.nextDouble());
+        double sum = u + b + w;
+        return new Config(p, u / sum, b / sum, w / sum);
+    }
+}
@@ -0,0 +1,166 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * candidate host VM 들의 single-linkage dendrogram.
+ *
+ *  1) supernode: percentile threshold 이상 edge 로 연결된 component (기존 BFS 와 같은 규칙)
+ *  2) supernode 사이 linkage = 두 supernode 사이 가장 무거운 VM 쌍 트래픽
+ *  3) linkage 그래프의 maximum spanning tree (Prim, O(C^2)) → edge 를 무거운 순서로 정렬
+ *
+ * k 개 파티션 = MST edge 중 무거운 (C - k) 개만 union 한 결과 (single-linkage cut).
+ * 그래서 k 를 바꿔 가며 여러 번 잘라도 threshold 정렬 / BFS 는 한 번만 한다.
+ * k >= C 이면 항상 supernode 그대로이므로 feasibility 탐색은 k = C 에서 멈추면 된다.
+ */
+final class PartitionDendrogram {
+
+    private final List<TrafficSimulationCore.VmInfo> vms;
+    /** VM index → supernode (처음 발견된 순서) */
+    private final int[] supernodeOf;
+    private final int supernodeCount;
+    /** MST edge (supernode a, b), linkage 내림차순 */
+    private final int[] mstA;
+    private final int[] mstB;
+
+    PartitionDendrogram(List<TrafficSimulationCore.VmInfo> vms, TrafficMatrix traffic, double percentile) {
+        this.vms = vms;
+        int n = vms.size();
+        ConsolidationWorkspace ws = ConsolidationWorkspace.get();
+        ws.ensureVms(n);
+        int[] ids = ws.partIds;
+        for (int i = 0; i < n; i++) ids[i] = vms.get(i).id;
+
+        // threshold (partitionCandidateHostVms 와 같은 정의)
+        int pairs = n * (n - 1) / 2;
+        ws.ensureEdges(pairs);
+        double[] edges = ws.edges;
+        int idx = 0;
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++)
+                edges[idx++] = traffic.get(ids[i], ids[j]);
+        Arrays.sort(edges, 0, idx);
+        int thrIdx = (int) (idx * percentile);
+        double threshold = (thrIdx < idx) ? edges[thrIdx] : 0.0;
+
+        // supernode (BFS)
+        supernodeOf = new int[n];
+        int c = 0;
+        ws.newStamp(n);
+        int[] q = ws.queue;
+        for (int i = 0; i < n; i++) {
+            if (ws.isMarked(i)) continue;
+            int head = 0, tail = 0;
+            q[tail++] = i;
+            ws.mark(i);
+            while (head < tail) {
+                int x = q[head++];
+                supernodeOf[x] = c;
+                for (int y = 0; y < n; y++) {
+                    if (!ws.isMarked(y) && traffic.get(ids[x], ids[y]) >= threshold) {
+                        ws.mark(y);
+                        q[tail++] = y;
+                    }
+                }
+            }
+            c++;
+        }
+        supernodeCount = c;
+
+        // supernode 간 linkage (가장 무거운 VM 쌍)
+        double[][] link = new double[c][c];
+        for (int i = 0; i < n; i++) {
+            int si = supernodeOf[i];
+            for (int j = i + 1; j < n; j++) {
+                int sj = supernodeOf[j];
+                if (si == sj) continue;
+                double t = traffic.get(ids[i], ids[j]);
+                if (t > link[si][sj]) {
+                    link[si][sj] = t;
+                    link[sj][si] = t;
+                }
+            }
+        }
+
+        // maximum spanning tree (Prim, 동률이면 작은 index)
+        int edgeCount = Math.max(0, c - 1);
+        int[] a = new int[edgeCount], b = new int[edgeCount];
+        double[] w = new double[edgeCount];
+        if (c > 1) {
+            boolean[] inTree = new boolean[c];
+            double[] best = new double[c];
+            int[] from = new int[c];
+            Arrays.fill(best, -1.0);
+            inTree[0] = true;
+            for (int s = 1; s < c; s++) {
+                best[s] = link[0][s];
+                from[s] = 0;
+            }
+            for (int e = 0; e < edgeCount; e++) {
+                int pick = -1;
+                for (int s = 0; s < c; s++) {
+                    if (!inTree[s] && (pick < 0 || best[s] > best[pick])) pick = s;
+                }
+                inTree[pick] = true;
+                a[e] = from[pick];
+                b[e] = pick;
+                w[e] = best[pick];
+                for (int s = 0; s < c; s++) {
+                    if (!inTree[s] && link[pick][s] > best[s]) {
+                        best[s] = link[pick][s];
+                        from[s] = pick;
+                    }
+                }
+            }
+        }
+        Integer[] order = new Integer[edgeCount];
+        for (int e = 0; e < edgeCount; e++) order[e] = e;
+        Arrays.sort(order, (x, y) -> Double.compare(w[y], w[x]));
+        mstA = new int[edgeCount];
+        mstB = new int[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            mstA[e] = a[order[e]];
+            mstB[e] = b[order[e]];
+        }
+    }
+
+    int supernodeCount() {
+        return supernodeCount;
+    }
+
+    /**
+     * k 개 (supernode 수가 k 보다 적으면 supernode 수만큼) 파티션.
+     * 파티션 순서는 파티션 안 첫 VM 의 순서.
+     */
+    List<List<TrafficSimulationCore.VmInfo>> cut(int k) {
+        int c = supernodeCount;
+        int[] parent = new int[c];
+        for (int s = 0; s < c; s++) parent[s] = s;
+        int merges = Math.max(0, c - Math.max(1, k));
+        for (int e = 0; e < merges; e++) {
+            int ra = find(parent, mstA[e]), rb = find(parent, mstB[e]);
+            if (ra != rb) parent[Math.max(ra, rb)] = Math.min(ra, rb);
+        }
+
+        int[] partOfRoot = new int[c];
+        Arrays.fill(partOfRoot, -1);
+        List<List<TrafficSimulationCore.VmInfo>> parts = new ArrayList<>();
+        for (int i = 0; i < vms.size(); i++) {
+            int r = find(parent, supernodeOf[i]);
+            if (partOfRoot[r] < 0) {
+                partOfRoot[r] = parts.size();
+                parts.add(new ArrayList<>());
+            }
+            parts.get(partOfRoot[r]).add(vms.get(i));
+        }
+        return parts;
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+}
@@ -0,0 +1,23 @@
+package doit;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 배치 / 통합 알고리즘 공통 인터페이스.
+ * 모든 구현은 TrafficSimulationCore 의 같은 상태(HostInfo / VmInfo / TrafficMatrix)와
+ * 같은 비용 모델(dist, calcTrafficCost)을 사용한다.
+ *
+ * hosts 의 잔여 자원은 place 호출 중에 변경된다 (호출 측에서 copyHosts 로 넘길 것).
+ */
+public interface PlacementAlgorithm {
+
+    /** registry 에 등록되는 이름 (예: "ffd", "proposed") */
+    String name();
+
+    Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> place(
+            List<TrafficSimulationCore.HostInfo> hosts,
+            List<TrafficSimulationCore.VmInfo> vms,
+            TrafficMatrix traffic,
+            TrafficSimulationCore.Topology topo);
+}
@@ -0,0 +1,125 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * PlacementAlgorithm registry.
+ *
+ * 기본 등록:
+ *   ffd            : First-Fit Decreasing (MIPS 큰 VM 먼저)
+ *   sercon         : Sercon (부하 낮은 host 부터 비우기)
+ *   single-release : S_i 후보 host 하나만 파티셔닝 후 해제 (초기 제안 기법)
+ *   proposed       : 여러 host 를 순차 해제, 비용이 나빠지면 reject
+ *   proposed-refined : proposed 결과를 LocalSearchRefiner 로 후처리
+ *   proposed-tempering : proposed 결과에서 출발하는 ParallelTemperingOptimizer
+ *   hierarchical   : pod → rack → host 계층 분할 배치 (HierarchicalPlacement)
+ *   first-fit-nd   : RAM / MIPS / NIC / IOPS / accelerator 를 모두 보는 first-fit (ResourceTable)
+ *   graph-growing  : 트래픽 gain 기준 greedy graph-growing 초기 배치 (GraphGrowingPlacement)
+ *   sercon-grown   : graph-growing 에서 시작하는 Sercon
+ *   proposed-grown : graph-growing 에서 시작하는 proposed
+ */
+public class PlacementAlgorithms {
+
+    public static final String FFD = "ffd";
+    public static final String SERCON = "sercon";
+    public static final String SINGLE_RELEASE = "single-release";
+    public static final String PROPOSED = "proposed";
+    public static final String PROPOSED_REFINED = "proposed-refined";
+    public static final String PROPOSED_TEMPERING = "proposed-tempering";
+    public static final String HIERARCHICAL = "hierarchical";
+    public static final String FIRST_FIT_ND = "first-fit-nd";
+    public static final String GRAPH_GROWING = "graph-growing";
+    public static final String SERCON_GROWN = "sercon-grown";
+    public static final String PROPOSED_GROWN = "proposed-grown";
+
+    /** proposed-refined 의 refine 시간 예산 */
+    private static final long REFINE_BUDGET_MILLIS = 200;
+    /** proposed-tempering 의 탐색 시간 예산 */
+    private static final long TEMPERING_BUDGET_MILLIS = 1_000;
+
+    private final Map<String, PlacementAlgorithm> algorithms = new LinkedHashMap<>();
+
+    public PlacementAlgorithms(TrafficSimulationCore core, double supernodePercentile) {
+        register(of(FFD, (hosts, vms, traffic, topo) -> core.placeVmsFFD(hosts, vms)));
+        register(of(SERCON, (hosts, vms, traffic, topo) -> core.placeVmsSercon(hosts, vms)));
+        register(of(SINGLE_RELEASE, (hosts, vms, traffic, topo) ->
+                core.placeVmsSingleRelease(hosts, vms, traffic, supernodePercentile, topo)));
+        register(of(PROPOSED, (hosts, vms, traffic, topo) ->
+                core.placeVmsProposed(hosts, vms, traffic, supernodePercentile, topo, 0.0)));
+        register(of(PROPOSED_REFINED, (hosts, vms, traffic, topo) -> {
+            Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement =
+                    core.placeVmsProposed(hosts, vms, traffic, supernodePercentile, topo, 0.0);
+            return new LocalSearchRefiner(REFINE_BUDGET_MILLIS)
+                    .refine(hosts, placement, traffic, topo).placement;
+        }));
+        register(of(PROPOSED_TEMPERING, (hosts, vms, traffic, topo) -> {
+            Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement =
+                    core.placeVmsProposed(hosts, vms, traffic, supernodePercentile, topo, 0.0);
+            return new ParallelTemperingOptimizer(TEMPERING_BUDGET_MILLIS)
+                    .optimize(hosts, placement, traffic, topo).placement;
+        }));
+        register(new HierarchicalPlacement(supernodePercentile));
+        register(of(FIRST_FIT_ND, (hosts, vms, traffic, topo) -> new ResourceTable(hosts).placeFirstFit(vms)));
+        GraphGrowingPlacement grown = new GraphGrowingPlacement();
+        register(grown);
+        register(of(SERCON_GROWN, (hosts, vms, traffic, topo) ->
+                core.consolidateSercon(hosts, grown.place(hosts, vms, traffic, topo))));
+        register(of(PROPOSED_GROWN, (hosts, vms, traffic, topo) ->
+                core.consolidateProposed(hosts, grown.place(hosts, vms, traffic, topo),
+                        traffic, supernodePercentile, topo, 0.0)));
+    }
+
+    /** 같은 이름이 있으면 교체 */
+    public void register(PlacementAlgorithm algorithm) {
+        algorithms.put(algorithm.name(), algorithm);
+    }
+
+    public PlacementAlgorithm get(String name) {
+        PlacementAlgorithm a = algorithms.get(name);
+        if (a == null) {
+            throw new IllegalArgumentException("unknown placement algorithm: " + name
+                    + " (registered: " + algorithms.keySet() + ")");
+        }
+        return a;
+    }
+
+    public Set<String> names() {
+        return Collections.unmodifiableSet(algorithms.keySet());
+    }
+
+    public Collection<PlacementAlgorithm> all() {
+        return Collections.unmodifiableCollection(algorithms.values());
+    }
+
+    /** 람다 하나로 PlacementAlgorithm 만들기 */
+    public interface PlaceFunction {
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> place(
+                List<TrafficSimulationCore.HostInfo> hosts,
+                List<TrafficSimulationCore.VmInfo> vms,
+                TrafficMatrix traffic,
+                TrafficSimulationCore.Topology topo);
+    }
+
+    public static PlacementAlgorithm of(String name, PlaceFunction fn) {
+        return new PlacementAlgorithm() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> place(
+                    List<TrafficSimulationCore.HostInfo> hosts,
+                    List<TrafficSimulationCore.VmInfo> vms,
+                    TrafficMatrix traffic,
+                    TrafficSimulationCore.Topology topo) {
+                return fn.place(hosts, vms, traffic, topo);
+            }
+
+            @Override
+            public String toString() {
+                return name;
+            }
+        };
+    }
+}
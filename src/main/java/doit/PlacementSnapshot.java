@@ -0,0 +1,307 @@
+package doit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * host 상태 (용량 + 잔여) / VM / vm→host 배치를 담는 binary snapshot.
+ *
+ * 파일 구조 (little-endian):
+ *   header  : magic "DPSN" | version(int) | flags(int) | createdMillis(long) | hostCount(int) | vmCount(int)
+ *   hosts   : id rack pod (int×3) | totalRam totalMips remainingRam remainingMips (long×4)
+ *             | extraLen(int) | extraCapacity[extraLen] | remainingExtra[extraLen] (long)
+ *   vms     : id(int) | ram mips (long×2) | extraLen(int) | extraDemand[extraLen] (long) | hostId(int, -1 = 미배치)
+ *   traffic : (flags & HAS_TRAFFIC) 일 때만. location(UTF-8, int 길이 + bytes) | size(int) | fingerprint(long)
+ *   trailer : CRC32(header ~ traffic)(long)
+ *
+ * 쓰기는 direct buffer 를 채워 FileChannel 로 순차 기록하고, 임시 파일에 다 쓴 뒤 rename 한다
+ * (쓰는 도중 죽어도 이전 snapshot 은 그대로). 읽기는 파일 전체를 mmap 해서 CRC 확인 후 파싱한다.
+ * 트래픽 행렬 자체는 넣지 않고 어디 있는지 / 같은 행렬인지 확인할 지문만 남긴다.
+ */
+public class PlacementSnapshot {
+
+    public static final int MAGIC = 0x4E535044;   // "DPSN" (little-endian)
+    public static final int VERSION = 1;
+
+    private static final int HAS_TRAFFIC = 1;
+    private static final int WRITE_BUFFER = 1 << 20;
+    /** fingerprint 에 쓰는 표본 pair 수 */
+    private static final int FINGERPRINT_SAMPLES = 4_096;
+
+    /** 트래픽 행렬 참조 (위치 + 크기 + 표본 지문) */
+    public static class TrafficRef {
+        public final String location;
+        public final int size;
+        public final long fingerprint;
+
+        public TrafficRef(String location, int size, long fingerprint) {
+            this.location = Objects.requireNonNull(location, "location");
+            this.size = size;
+            this.fingerprint = fingerprint;
+        }
+
+        public static TrafficRef of(String location, TrafficMatrix traffic) {
+            return new TrafficRef(location, traffic.size(), fingerprint(traffic));
+        }
+
+        /** 불러온 행렬이 snapshot 을 만들 때와 같은지 (크기 + 지문) */
+        public boolean matches(TrafficMatrix traffic) {
+            return traffic.size() == size && fingerprint(traffic) == fingerprint;
+        }
+    }
+
+    public final List<TrafficSimulationCore.HostInfo> hosts;
+    public final List<TrafficSimulationCore.VmInfo> vms;
+    /** 배치된 VM 만 (미배치 VM 은 vms 에만 있음) */
+    public final Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement;
+    /** 없으면 null */
+    public final TrafficRef traffic;
+    public final long createdMillis;
+
+    private PlacementSnapshot(List<TrafficSimulationCore.HostInfo> hosts, List<TrafficSimulationCore.VmInfo> vms,
+                              Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement,
+                              TrafficRef traffic, long createdMillis) {
+        this.hosts = hosts;
+        this.vms = vms;
+        this.placement = placement;
+        this.traffic = traffic;
+        this.createdMillis = createdMillis;
+    }
+
+    // ==========================================================
+    //  쓰기
+    // ==========================================================
+
+    /**
+     * @param hosts     잔여 자원까지 그대로 기록
+     * @param vms       전체 VM (배치 안 된 VM 포함)
+     * @param placement vm → host (host 는 hosts 안에 있어야 함)
+     * @param traffic   null 이면 트래픽 참조 없음
+     */
+    public static void write(Path file,
+                             List<TrafficSimulationCore.HostInfo> hosts,
+                             List<TrafficSimulationCore.VmInfo> vms,
+                             Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement,
+                             TrafficRef traffic) throws IOException {
+        Set<Integer> hostIds = new HashSet<>();
+        for (TrafficSimulationCore.HostInfo h : hosts) {
+            if (!hostIds.add(h.id)) throw new IllegalArgumentException("duplicate host id " + h.id);
+        }
+        for (Map.Entry<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> e : placement.entrySet()) {
+            if (!hostIds.contains(e.getValue().id)) {
+                throw new IllegalArgumentException("VM " + e.getKey().id + " is placed on host " + e.getValue().id
+                        + " which is not in the host list");
+            }
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer w = new Writer(ch);
+            w.putInt(MAGIC);
+            w.putInt(VERSION);
+            w.putInt(traffic != null ? HAS_TRAFFIC : 0);
+            w.putLong(System.currentTimeMillis());
+            w.putInt(hosts.size());
+            w.putInt(vms.size());
+
+            for (TrafficSimulationCore.HostInfo h : hosts) {
+                w.putInt(h.id);
+                w.putInt(h.rackId);
+                w.putInt(h.podId);
+                w.putLong(h.totalRam);
+                w.putLong(h.totalMips);
+                w.putLong(h.remainingRam);
+                w.putLong(h.remainingMips);
+                w.putInt(h.extraCapacity.length);
+                for (long v : h.extraCapacity) w.putLong(v);
+                for (long v : h.remainingExtra) w.putLong(v);
+            }
+            for (TrafficSimulationCore.VmInfo v : vms) {
+                w.putInt(v.id);
+                w.putLong(v.ram);
+                w.putLong(v.mips);
+                w.putInt(v.extraDemand.length);
+                for (long d : v.extraDemand) w.putLong(d);
+                TrafficSimulationCore.HostInfo h = placement.get(v);
+                w.putInt(h != null ? h.id : -1);
+            }
+            if (traffic != null) {
+                byte[] loc = traffic.location.getBytes(StandardCharsets.UTF_8);
+                w.putInt(loc.length);
+                w.putBytes(loc);
+                w.putInt(traffic.size);
+                w.putLong(traffic.fingerprint);
+            }
+            w.finish();
+            ch.force(false);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** direct buffer 에 모았다가 꽉 차면 channel 로 내보내는 순차 writer (CRC 는 내보낼 때 갱신) */
+    private static final class Writer {
+        final FileChannel ch;
+        final ByteBuffer buf = ByteBuffer.allocateDirect(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        final CRC32 crc = new CRC32();
+
+        Writer(FileChannel ch) {
+            this.ch = ch;
+        }
+
+        void putInt(int v) throws IOException {
+            ensure(Integer.BYTES);
+            buf.putInt(v);
+        }
+
+        void putLong(long v) throws IOException {
+            ensure(Long.BYTES);
+            buf.putLong(v);
+        }
+
+        void putBytes(byte[] b) throws IOException {
+            for (int off = 0; off < b.length; ) {
+                ensure(1);
+                int n = Math.min(buf.remaining(), b.length - off);
+                buf.put(b, off, n);
+                off += n;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buf.remaining() < bytes) drain();
+        }
+
+        /** 버퍼 내용을 CRC 에 반영하고 파일로 */
+        private void drain() throws IOException {
+            buf.flip();
+            crc.update(buf.duplicate());
+            while (buf.hasRemaining()) ch.write(buf);
+            buf.clear();
+        }
+
+        /** 남은 본문을 내보내고 CRC trailer 를 붙인다 */
+        void finish() throws IOException {
+            drain();
+            buf.putLong(crc.getValue());
+            buf.flip();
+            while (buf.hasRemaining()) ch.write(buf);
+            buf.clear();
+        }
+    }
+
+    // ==========================================================
+    //  읽기
+    // ==========================================================
+
+    public static PlacementSnapshot load(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("snapshot too large to map: " + size + " bytes");
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (size < 32 + Long.BYTES) throw new IOException(file + ": truncated snapshot (" + size + " bytes)");
+
+            if (map.getInt(0) != MAGIC) throw new IOException(file + ": not a placement snapshot");
+            int version = map.getInt(4);
+            if (version != VERSION) {
+                throw new IOException(file + ": unsupported snapshot version " + version + " (expected " + VERSION + ")");
+            }
+            ByteBuffer body = map.duplicate();
+            body.limit((int) size - Long.BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if (crc.getValue() != map.getLong((int) size - Long.BYTES)) {
+                throw new IOException(file + ": snapshot checksum mismatch");
+            }
+
+            try {
+                return parse(map);
+            } catch (java.nio.BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException(file + ": corrupt snapshot", e);
+            }
+        }
+    }
+
+    private static PlacementSnapshot parse(ByteBuffer map) {
+        map.position(8);
+        int flags = map.getInt();
+        long created = map.getLong();
+        int hostCount = map.getInt();
+        int vmCount = map.getInt();
+
+        List<TrafficSimulationCore.HostInfo> hosts = new ArrayList<>(hostCount);
+        Map<Integer, TrafficSimulationCore.HostInfo> byId = new HashMap<>(hostCount * 2);
+        for (int i = 0; i < hostCount; i++) {
+            int id = map.getInt(), rack = map.getInt(), pod = map.getInt();
+            long totalRam = map.getLong(), totalMips = map.getLong();
+            long remRam = map.getLong(), remMips = map.getLong();
+            long[] extra = readLongs(map, map.getInt());
+            TrafficSimulationCore.HostInfo h = new TrafficSimulationCore.HostInfo(id, rack, pod, totalRam, totalMips, extra);
+            h.remainingRam = remRam;
+            h.remainingMips = remMips;
+            for (int d = 0; d < extra.length; d++) h.remainingExtra[d] = map.getLong();
+            hosts.add(h);
+            byId.put(id, h);
+        }
+
+        List<TrafficSimulationCore.VmInfo> vms = new ArrayList<>(vmCount);
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement = new HashMap<>(vmCount * 2);
+        for (int i = 0; i < vmCount; i++) {
+            int id = map.getInt();
+            long ram = map.getLong(), mips = map.getLong();
+            long[] extra = readLongs(map, map.getInt());
+            TrafficSimulationCore.VmInfo v = new TrafficSimulationCore.VmInfo(id, ram, mips, extra);
+            vms.add(v);
+            int hostId = map.getInt();
+            if (hostId < 0) continue;
+            TrafficSimulationCore.HostInfo h = byId.get(hostId);
+            if (h == null) throw new IllegalArgumentException("VM " + id + " refers to unknown host " + hostId);
+            placement.put(v, h);
+        }
+
+        TrafficRef traffic = null;
+        if ((flags & HAS_TRAFFIC) != 0) {
+            byte[] loc = new byte[map.getInt()];
+            map.get(loc);
+            traffic = new TrafficRef(new String(loc, StandardCharsets.UTF_8), map.getInt(), map.getLong());
+        }
+        return new PlacementSnapshot(hosts, vms, placement, traffic, created);
+    }
+
+    private static long[] readLongs(ByteBuffer map, int n) {
+        if (n < 0) throw new IllegalArgumentException("negative array length " + n);
+        long[] a = new long[n];
+        for (int i = 0; i < n; i++) a[i] = map.getLong();
+        return a;
+    }
+
+    // ==========================================================
+    //  트래픽 지문
+    // ==========================================================
+
+    /**
+     * 크기 + 고정된 표본 pair 값으로 만든 지문 (행렬 전체를 훑지 않는다).
+     * 표본 위치는 size 로만 정해지므로 같은 행렬이면 항상 같은 값.
+     */
+    public static long fingerprint(TrafficMatrix traffic) {
+        int n = traffic.size();
+        long h = 0xcbf29ce484222325L ^ n;
+        if (n < 2) return h;
+        SplittableRandom r = new SplittableRandom(n);
+        for (int s = 0; s < FINGERPRINT_SAMPLES; s++) {
+            int a = r.nextInt(n), b = r.nextInt(n);
+            // float 로 저장하는 PackedTrafficStore 와 dense 가 같은 지문을 내도록 float 정밀도로
+            h ^= Float.floatToIntBits((float) traffic.get(a, b));
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,232 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * 배열 기반 배치 상태 (Map<VmInfo, HostInfo> 의 인덱스 버전).
+ *
+ *  - VM  : 0..n-1 (placement 에 들어있는 VM 순서), traffic 조회는 vmId[v]
+ *  - Host: 0..H-1 (hosts 리스트 순서), rack / pod / 잔여 자원은 배열
+ *
+ * 후처리(refine), 메타휴리스틱, what-if 평가처럼 VM 하나를 옮길 때의
+ * 비용 변화(delta)를 반복해서 계산하는 곳에서 공통으로 쓴다.
+ * 거리는 TrafficSimulationCore.dist 와 같은 값 (distanceLevels).
+ */
+public class PlacementState {
+
+    final TrafficMatrix traffic;
+    final TrafficSimulationCore.Topology topo;
+    final double dRack, dPod, dFar;
+
+    // host
+    final TrafficSimulationCore.HostInfo[] hosts;
+    final int[] hostRack;
+    final int[] hostPod;
+    final long[] residRam;
+    final long[] residMips;
+
+    // vm
+    final TrafficSimulationCore.VmInfo[] vms;
+    final int[] vmId;
+    final long[] vmRam;
+    final long[] vmMips;
+    final int[] vmHost;
+
+    private PlacementState(PlacementState o) {
+        this.traffic = o.traffic;
+        this.topo = o.topo;
+        this.dRack = o.dRack;
+        this.dPod = o.dPod;
+        this.dFar = o.dFar;
+        this.hosts = o.hosts;
+        this.hostRack = o.hostRack;
+        this.hostPod = o.hostPod;
+        this.residRam = o.residRam.clone();
+        this.residMips = o.residMips.clone();
+        this.vms = o.vms;
+        this.vmId = o.vmId;
+        this.vmRam = o.vmRam;
+        this.vmMips = o.vmMips;
+        this.vmHost = o.vmHost.clone();
+    }
+
+    public PlacementState(List<TrafficSimulationCore.HostInfo> hostList,
+                          Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement,
+                          TrafficMatrix traffic,
+                          TrafficSimulationCore.Topology topo) {
+        this.traffic = traffic;
+        this.topo = topo;
+        double[] lv = TrafficSimulationCore.distanceLevels(topo);
+        this.dRack = lv[0];
+        this.dPod = lv[1];
+        this.dFar = lv[2];
+
+        int hCount = hostList.size();
+        this.hosts = hostList.toArray(new TrafficSimulationCore.HostInfo[0]);
+        this.hostRack = new int[hCount];
+        this.hostPod = new int[hCount];
+        this.residRam = new long[hCount];
+        this.residMips = new long[hCount];
+        Map<Integer, Integer> hostIndex = new HashMap<>();
+        for (int h = 0; h < hCount; h++) {
+            TrafficSimulationCore.HostInfo hi = hosts[h];
+            hostIndex.put(hi.id, h);
+            hostRack[h] = hi.rackId;
+            hostPod[h] = hi.podId;
+            residRam[h] = hi.remainingRam;
+            residMips[h] = hi.remainingMips;
+        }
+
+        int n = placement.size();
+        this.vms = new TrafficSimulationCore.VmInfo[n];
+        this.vmId = new int[n];
+        this.vmRam = new long[n];
+        this.vmMips = new long[n];
+        this.vmHost = new int[n];
+        int v = 0;
+        for (Map.Entry<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> e : placement.entrySet()) {
+            Integer h = hostIndex.get(e.getValue().id);
+            if (h == null) {
+                throw new IllegalArgumentException("VM " + e.getKey().id
+                        + " is placed on host " + e.getValue().id + " which is not in the host list");
+            }
+            vms[v] = e.getKey();
+            vmId[v] = e.getKey().id;
+            vmRam[v] = e.getKey().ram;
+            vmMips[v] = e.getKey().mips;
+            vmHost[v] = h;
+            v++;
+        }
+        // 같은 입력이면 항상 같은 VM 순서가 되도록 id 순으로 정렬
+        sortByVmId();
+    }
+
+    /** 잔여 자원 / 배치만 독립적으로 복사 (host, vm 정의와 traffic 은 공유) */
+    public PlacementState copy() {
+        return new PlacementState(this);
+    }
+
+    public int vmCount() { return vms.length; }
+    public int hostCount() { return hosts.length; }
+
+    // ==========================================================
+    //  거리 / 비용
+    // ==========================================================
+
+    double dist(int ha, int hb) {
+        if (ha == hb) return 0.0;
+        if (hostRack[ha] == hostRack[hb]) return dRack;
+        if (hostPod[ha] == hostPod[hb]) return dPod;
+        return dFar;
+    }
+
+    /** VM v 가 host h 에 있다고 할 때 v 와 나머지 VM 사이의 비용 (O(n) row scan) */
+    double costAt(int v, int h) {
+        double c = 0.0;
+        int id = vmId[v];
+        for (int u = 0; u < vmId.length; u++) {
+            if (u == v) continue;
+            double t = traffic.get(id, vmId[u]);
+            if (t != 0.0) c += t * dist(h, vmHost[u]);
+        }
+        return c;
+    }
+
+    /** v 를 h 로 옮겼을 때 전체 비용 변화 (음수면 개선) */
+    double moveDelta(int v, int h) {
+        if (vmHost[v] == h) return 0.0;
+        return costAt(v, h) - costAt(v, vmHost[v]);
+    }
+
+    /** v ↔ u 를 맞바꿨을 때 전체 비용 변화 */
+    double swapDelta(int v, int u) {
+        int hv = vmHost[v], hu = vmHost[u];
+        if (hv == hu) return 0.0;
+        double t = traffic.get(vmId[v], vmId[u]);
+        // v→hu, u→hv 를 각각 계산하면 (v,u) 쌍이 두 번 "같은 host" 로 잘못 잡히므로 보정
+        return moveDelta(v, hu) + moveDelta(u, hv) + 2 * t * dist(hv, hu);
+    }
+
+    public double totalCost() {
+        double total = 0.0;
+        int n = vmId.length;
+        for (int a = 0; a < n; a++) {
+            for (int b = a + 1; b < n; b++) {
+                double t = traffic.get(vmId[a], vmId[b]);
+                if (t != 0.0) total += t * dist(vmHost[a], vmHost[b]);
+            }
+        }
+        return total;
+    }
+
+    // ==========================================================
+    //  자원 / 이동
+    // ==========================================================
+
+    boolean fits(int v, int h) {
+        return residRam[h] >= vmRam[v] && residMips[h] >= vmMips[v];
+    }
+
+    /** v ↔ u 맞바꾸기가 용량상 가능한가 */
+    boolean swapFits(int v, int u) {
+        int hv = vmHost[v], hu = vmHost[u];
+        return residRam[hu] + vmRam[u] >= vmRam[v] && residMips[hu] + vmMips[u] >= vmMips[v]
+                && residRam[hv] + vmRam[v] >= vmRam[u] && residMips[hv] + vmMips[v] >= vmMips[u];
+    }
+
+    void move(int v, int h) {
+        int from = vmHost[v];
+        if (from == h) return;
+        residRam[from] += vmRam[v];
+        residMips[from] += vmMips[v];
+        residRam[h] -= vmRam[v];
+        residMips[h] -= vmMips[v];
+        vmHost[v] = h;
+    }
+
+    /** 배치를 통째로 바꾼다 (다른 replica 의 vmHost 스냅샷 복원용, 잔여 자원도 함께 갱신) */
+    void restore(int[] snapshot) {
+        for (int v = 0; v < vmHost.length; v++) {
+            if (vmHost[v] != snapshot[v]) move(v, snapshot[v]);
+        }
+    }
+
+    /**
+     * 현재 상태를 HostInfo 의 잔여 자원에 반영하고 VmInfo → HostInfo 배치를 돌려준다.
+     * (hosts 는 생성자에 넘긴 그 객체들)
+     */
+    public Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> applyToHosts() {
+        for (int h = 0; h < hosts.length; h++) {
+            hosts[h].remainingRam = residRam[h];
+            hosts[h].remainingMips = residMips[h];
+        }
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement = new HashMap<>();
+        for (int v = 0; v < vms.length; v++) {
+            placement.put(vms[v], hosts[vmHost[v]]);
+        }
+        return placement;
+    }
+
+    private void sortByVmId() {
+        int n = vms.length;
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingInt(i -> vmId[i]));
+        TrafficSimulationCore.VmInfo[] v2 = new TrafficSimulationCore.VmInfo[n];
+        int[] id2 = new int[n], h2 = new int[n];
+        long[] r2 = new long[n], m2 = new long[n];
+        for (int i = 0; i < n; i++) {
+            int o = order[i];
+            v2[i] = vms[o];
+            id2[i] = vmId[o];
+            h2[i] = vmHost[o];
+            r2[i] = vmRam[o];
+            m2[i] = vmMips[o];
+        }
+        System.arraycopy(v2, 0, vms, 0, n);
+        System.arraycopy(id2, 0, vmId, 0, n);
+        System.arraycopy(h2, 0, vmHost, 0, n);
+        System.arraycopy(r2, 0, vmRam, 0, n);
+        System.arraycopy(m2, 0, vmMips, 0, n);
+    }
+}
@@ -0,0 +1,379 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * placeVmsProposed 의 host 해제 시도 결과 캐시.
+ *
+ * key 는 candidate host id, 그 위의 VM 집합 (id / RAM / MIPS), supernodePercentile, migrationWeight, topology.
+ * 결과마다 그 결과가 기대는 상태 (Dependencies) 를 판정 직전 값으로 같이 저장하고, 조회 때 지금 값과 같을 때만 쓴다.
+ *
+ *  - 파티션 밖 트래픽 상대 VM 의 위치: 이동 비용 / accept 판정이 이것으로 정해진다
+ *  - candidate 와 실제로 옮겨 간 host 의 잔여 자원 (그대로여야 같은 이동을 다시 할 수 있음)
+ *  - candidate, 상대 VM, 옮겨 간 host 가 있는 pod 의 나머지 host: 잔여가 늘지 않았어야 한다.
+ *    늘면 전에 안 들어가던 더 싼 host 가 생길 수 있고, 줄어든 host 는 원래 고르지 않았으므로 상관없다.
+ *    이 pod 밖의 host 는 모든 상대와 candidate 로부터 "먼" 거리라 비용이 같다
+ *  - 용량 때문에 안 된 단계가 있던 시도 (INFEASIBLE, k 재시도, joint packing fallback) 만 전체 host 잔여 (StateStamp)
+ *    이 pod 들의 host 가 전체의 절반을 넘을 때도 (dense 트래픽) host 별 값 대신 StateStamp 로 비교한다
+ *
+ * 그래서 한 host 의 해제가 accept 되어도 그 이동과 관계없는 candidate 의 결과는 살아 남는다.
+ * 살아 남은 accept 는 기록된 target 이 그대로라 그대로 옮길 수 있고 비용 변화도 같다.
+ * (먼 pod 에서 새로 빈 host 가 있으면 다시 시뮬레이션했을 때 같은 비용의 다른 먼 host 를 고를 수는 있다.)
+ * 비용은 절대값이 아니라 시도 전 대비 변화로 저장한다.
+ *
+ * traffic 은 인스턴스 기준으로 구분한다. 같은 TrafficMatrix 객체의 값을 바꿨다면 clear() 를 호출할 것.
+ */
+public class ReleaseAttemptCache {
+
+    public enum Outcome {
+        /** 용량 때문에 모든 파티션을 옮길 수 없음 */
+        INFEASIBLE,
+        /** 옮길 수는 있지만 비용이 나빠짐 */
+        REJECTED,
+        /** 비용 개선 → 반영됨 */
+        ACCEPTED
+    }
+
+    /** 캐시된 결과 */
+    public static class Result {
+        public final Outcome outcome;
+        /** REJECTED / ACCEPTED: 시도 전 비용 대비 변화 (migration 비용 포함) */
+        public final double costDelta;
+        /** ACCEPTED: 트래픽 비용 변화 (migration 비용 제외) */
+        public final double trafficDelta;
+        /** ACCEPTED: candidate VM id → 옮겨 간 host id */
+        final int[] movedVmIds;
+        final int[] movedToHostIds;
+
+        Result(Outcome outcome, double costDelta, double trafficDelta, int[] movedVmIds, int[] movedToHostIds) {
+            this.outcome = outcome;
+            this.costDelta = costDelta;
+            this.trafficDelta = trafficDelta;
+            this.movedVmIds = movedVmIds;
+            this.movedToHostIds = movedToHostIds;
+        }
+    }
+
+    private static final int DEFAULT_CAPACITY = 4_096;
+
+    private final int capacity;
+    private final Map<Key, Entry> entries;
+    private TrafficMatrix traffic;
+    private long hits, misses;
+
+    public ReleaseAttemptCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ReleaseAttemptCache(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0");
+        this.capacity = capacity;
+        // access-order LRU
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > ReleaseAttemptCache.this.capacity;
+            }
+        };
+    }
+
+    // ==========================================================
+    //  key
+    // ==========================================================
+
+    /** 전체 host 잔여 자원의 지문 (host 순서 포함 64bit × 2 hash). accept 때만 다시 계산하면 된다 */
+    static final class StateStamp {
+        final long a, b;
+
+        private StateStamp(long a, long b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        static StateStamp of(List<TrafficSimulationCore.HostInfo> hosts) {
+            // host: 순서가 의미 있음 (first-fit / tie-break) → 순서 반영 hash
+            long a = 17, b = 31;
+            for (TrafficSimulationCore.HostInfo h : hosts) {
+                long e = mix(mix(h.id) ^ (h.remainingRam * 0x9E3779B97F4A7C15L) ^ h.remainingMips);
+                long f = mix(e ^ h.totalRam ^ (h.totalMips << 21));
+                a = a * 0x100000001B3L + e;
+                b = b * 0xC2B2AE3D27D4EB4FL + f;
+            }
+            return new StateStamp(a, b);
+        }
+
+        boolean same(StateStamp o) {
+            return o != null && a == o.a && b == o.b;
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+
+    /**
+     * 결과 하나가 기대는 상태 (판정 직전 값).
+     *  - 상대 VM 위치는 (VM id, host id) 쌍의 128bit hash 만 저장하고, 조회 때 key 의 VM 과 traffic 으로 상대를 다시 찾는다
+     *  - host 는 hosts 리스트 index + id + 잔여로 비교한다. 의존 host 가 전체의 절반을 넘으면 전체 잔여 지문으로 대신한다
+     *    (트래픽이 dense 하면 어차피 거의 모든 host 가 들어가므로, 저장 크기가 host 수에 비례하지 않도록)
+     */
+    static final class Dependencies {
+        final int[] hostIndex;
+        final int[] hostId;
+        final long[] ram, mips;
+        /** true 면 잔여가 같아야 하고 (candidate, target), false 면 늘지만 않으면 된다 */
+        final boolean[] exact;
+        /** false 면 상대 VM 위치와 무관 (INFEASIBLE) */
+        final boolean partners;
+        final long partnerA, partnerB;
+        /** null 이면 전체 잔여 자원과 무관 */
+        final StateStamp capacity;
+
+        private Dependencies(int[] hostIndex, int[] hostId, long[] ram, long[] mips, boolean[] exact,
+                             boolean partners, long partnerA, long partnerB, StateStamp capacity) {
+            this.hostIndex = hostIndex;
+            this.hostId = hostId;
+            this.ram = ram;
+            this.mips = mips;
+            this.exact = exact;
+            this.partners = partners;
+            this.partnerA = partnerA;
+            this.partnerB = partnerB;
+            this.capacity = capacity;
+        }
+
+        /** 전체 잔여 자원만 보는 결과 (INFEASIBLE) */
+        static Dependencies capacityOnly(StateStamp capacity) {
+            return new Dependencies(new int[0], new int[0], new long[0], new long[0], new boolean[0],
+                    false, 0, 0, capacity);
+        }
+
+        /**
+         * 시뮬레이션이 끝난 (undo 전) 상태에서 만든다. candidate VM 이 옮겨 간 host 의 잔여는 시도 전 값으로 되돌려 기록.
+         * vmHost 는 VM id → 지금 host (candidate VM 칸은 읽지 않음), stamp 는 시도 전 전체 잔여 지문,
+         * capacityBound 는 용량 때문에 안 된 단계가 있었는지.
+         */
+        static Dependencies of(Key key, List<TrafficSimulationCore.HostInfo> hosts,
+                               TrafficSimulationCore.HostInfo candidate,
+                               List<TrafficSimulationCore.VmInfo> candidateVms,
+                               Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement,
+                               TrafficSimulationCore.HostInfo[] vmHost, TrafficMatrix traffic,
+                               StateStamp stamp, boolean capacityBound) {
+            IntHashSet pods = new IntHashSet();
+            pods.add(candidate.podId);
+            long[] hash = scanPartners(key.vmIds, vmHost, traffic, pods);
+
+            // candidate VM 이 들어간 host 와 candidate 의 잔여 변화 (시도 전 = 지금 − 변화)
+            int m = candidateVms.size();
+            TrafficSimulationCore.HostInfo[] touched = new TrafficSimulationCore.HostInfo[m + 1];
+            long[] dRam = new long[m + 1], dMips = new long[m + 1];
+            touched[0] = candidate;
+            int t = 1;
+            for (TrafficSimulationCore.VmInfo v : candidateVms) {
+                TrafficSimulationCore.HostInfo to = placement.get(v);
+                if (to == null || to == candidate) continue;
+                pods.add(to.podId);
+                int j = 1;
+                while (j < t && touched[j] != to) j++;
+                if (j == t) touched[t++] = to;
+                dRam[j] -= v.ram;
+                dMips[j] -= v.mips;
+                dRam[0] += v.ram;
+                dMips[0] += v.mips;
+            }
+
+            int n = 0;
+            for (TrafficSimulationCore.HostInfo h : hosts) if (pods.contains(h.podId)) n++;
+            if (capacityBound || 2 * n > hosts.size()) {
+                return new Dependencies(new int[0], new int[0], new long[0], new long[0], new boolean[0],
+                        true, hash[0], hash[1], stamp);
+            }
+            int[] hostIndex = new int[n];
+            int[] hostId = new int[n];
+            long[] ram = new long[n], mips = new long[n];
+            boolean[] exact = new boolean[n];
+            n = 0;
+            for (int i = 0; i < hosts.size(); i++) {
+                TrafficSimulationCore.HostInfo h = hosts.get(i);
+                if (!pods.contains(h.podId)) continue;
+                int j = 0;
+                while (j < t && touched[j] != h) j++;
+                hostIndex[n] = i;
+                hostId[n] = h.id;
+                ram[n] = h.remainingRam - (j < t ? dRam[j] : 0);
+                mips[n] = h.remainingMips - (j < t ? dMips[j] : 0);
+                exact[n++] = j < t;
+            }
+            return new Dependencies(hostIndex, hostId, ram, mips, exact, true, hash[0], hash[1], null);
+        }
+
+        /** 지금 상태가 기록과 같은가 */
+        boolean holds(Key key, List<TrafficSimulationCore.HostInfo> hosts, TrafficSimulationCore.HostInfo[] vmHost,
+                      TrafficMatrix traffic, StateStamp current) {
+            if (capacity != null && !capacity.same(current)) return false;
+            for (int j = 0; j < hostIndex.length; j++) {
+                int i = hostIndex[j];
+                if (i >= hosts.size()) return false;
+                TrafficSimulationCore.HostInfo h = hosts.get(i);
+                if (h.id != hostId[j]) return false;
+                if (exact[j] ? (h.remainingRam != ram[j] || h.remainingMips != mips[j])
+                             : (h.remainingRam > ram[j] || h.remainingMips > mips[j])) return false;
+            }
+            if (!partners) return true;
+            long[] hash = scanPartners(key.vmIds, vmHost, traffic, null);
+            return hash[0] == partnerA && hash[1] == partnerB;
+        }
+
+        /**
+         * own (정렬된 VM id) 밖의 트래픽 상대 위치 hash. 배치 안 된 상대도 넣는다 (나중에 배치되면 비용이 바뀜).
+         * pods 가 있으면 상대가 있는 pod 를 넣는다.
+         */
+        private static long[] scanPartners(int[] own, TrafficSimulationCore.HostInfo[] vmHost, TrafficMatrix traffic,
+                                           IntHashSet pods) {
+            long a = 0, b = 0;
+            int size = traffic.size();
+            for (int v : own) {
+                for (int u = 0; u < size; u++) {
+                    if (traffic.get(v, u) == 0.0 || Arrays.binarySearch(own, u) >= 0) continue;
+                    TrafficSimulationCore.HostInfo h = u < vmHost.length ? vmHost[u] : null;
+                    long e = StateStamp.mix(((long) u << 32) ^ (h == null ? 0xffffffffL : h.id & 0xffffffffL));
+                    a += e;
+                    b += StateStamp.mix(e ^ 0x9E3779B97F4A7C15L);
+                    if (pods != null && h != null) pods.add(h.podId);
+                }
+            }
+            return new long[]{a, b};
+        }
+    }
+
+    private static final class Entry {
+        final Result result;
+        final Dependencies deps;
+
+        Entry(Result result, Dependencies deps) {
+            this.result = result;
+            this.deps = deps;
+        }
+    }
+
+    static final class Key {
+        final int hostId;
+        final int[] vmIds;
+        final long[] vmRam, vmMips;
+        final double percentile;
+        final double migrationWeight;
+        final TrafficSimulationCore.Topology topo;
+        private final int hash;
+
+        Key(int hostId, List<TrafficSimulationCore.VmInfo> vms, double percentile, double migrationWeight,
+            TrafficSimulationCore.Topology topo) {
+            this.hostId = hostId;
+            TrafficSimulationCore.VmInfo[] sorted = vms.toArray(new TrafficSimulationCore.VmInfo[0]);
+            Arrays.sort(sorted, Comparator.comparingInt(v -> v.id));
+            this.vmIds = new int[sorted.length];
+            this.vmRam = new long[sorted.length];
+            this.vmMips = new long[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                vmIds[i] = sorted[i].id;
+                vmRam[i] = sorted[i].ram;
+                vmMips[i] = sorted[i].mips;
+            }
+            this.percentile = percentile;
+            this.migrationWeight = migrationWeight;
+            this.topo = topo;
+            int h = Integer.hashCode(hostId);
+            h = 31 * h + Arrays.hashCode(vmIds);
+            h = 31 * h + Double.hashCode(percentile);
+            h = 31 * h + Double.hashCode(migrationWeight);
+            h = 31 * h + topo.hashCode();
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return hostId == k.hostId
+                    && Double.compare(percentile, k.percentile) == 0
+                    && Double.compare(migrationWeight, k.migrationWeight) == 0
+                    && topo == k.topo
+                    && Arrays.equals(vmIds, k.vmIds)
+                    && Arrays.equals(vmRam, k.vmRam)
+                    && Arrays.equals(vmMips, k.vmMips);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    // ==========================================================
+    //  조회 / 저장
+    // ==========================================================
+
+    /**
+     * key 의 결과 중 기록한 Dependencies 가 지금 상태 (hosts, VM id → host, 전체 잔여 지문) 와 같은 것.
+     * 없거나 상태가 바뀌었으면 null.
+     */
+    synchronized Result lookup(TrafficMatrix traffic, Key key, List<TrafficSimulationCore.HostInfo> hosts,
+                               TrafficSimulationCore.HostInfo[] vmHost, StateStamp capacity) {
+        if (this.traffic != traffic) {
+            // 다른 traffic 으로 바뀌면 이전 결과는 모두 무의미
+            entries.clear();
+            this.traffic = traffic;
+        }
+        Entry e = entries.get(key);
+        if (e == null || !e.deps.holds(key, hosts, vmHost, traffic, capacity)) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return e.result;
+    }
+
+    synchronized void store(Key key, Result result, Dependencies deps) {
+        entries.put(key, new Entry(result, deps));
+    }
+
+    static Result infeasible() {
+        return new Result(Outcome.INFEASIBLE, Double.NaN, Double.NaN, null, null);
+    }
+
+    static Result rejected(double costDelta) {
+        return new Result(Outcome.REJECTED, costDelta, Double.NaN, null, null);
+    }
+
+    static Result accepted(double costDelta, double trafficDelta,
+                           List<TrafficSimulationCore.VmInfo> candidateVms,
+                           Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement) {
+        int[] vmIds = new int[candidateVms.size()];
+        int[] hostIds = new int[vmIds.length];
+        for (int i = 0; i < vmIds.length; i++) {
+            TrafficSimulationCore.VmInfo v = candidateVms.get(i);
+            vmIds[i] = v.id;
+            hostIds[i] = placement.get(v).id;
+        }
+        return new Result(Outcome.ACCEPTED, costDelta, trafficDelta, vmIds, hostIds);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        traffic = null;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+}
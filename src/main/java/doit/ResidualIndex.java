@@ -0,0 +1,247 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * rack / pod 단위 max-residual 집계 (host fit 검사 가지치기용).
+ *
+ * migratePartition / Sercon 은 "이 demand 가 들어가는 host" 를 찾으려고 host 를 전부 하나씩 본다.
+ * fleet 이 꽉 차 갈수록 대부분 host 가 안 들어가는데도 그렇다.
+ * 여기서는 rack 과 pod 마다 host 잔여 RAM / MIPS 의 max 를 들고 있다가
+ *
+ *  - pod max 가 demand 보다 작으면 그 pod 전체를, rack max 가 작으면 그 rack 전체를 건너뛴다
+ *  - migration 으로 host 잔여가 바뀌면 sync(h) 로 그 host 의 rack, pod 집계만 다시 계산한다
+ *
+ * rack 은 (podId, rackId) 쌍으로 묶으므로 rack 이 pod 를 걸쳐 있어도 올바르게 동작한다.
+ * exclude host 는 집계에서 빠진다 (FeasibilityOracle 과 같은 규칙).
+ *
+ * 한 consolidation run 동안 하나를 계속 쓴다 (ConsolidationWorkspace.residualIndex).
+ * 해제 후보가 바뀌면 setExclude 로 그 두 host 의 rack / pod 만 다시 계산하고,
+ * reset 은 host 배치 (id / rack / pod) 가 지난번과 같으면 배열을 새로 만들지 않고 집계만 다시 한다.
+ */
+final class ResidualIndex {
+
+    private List<TrafficSimulationCore.HostInfo> hosts;
+    private int exclude = -1;
+
+    // reset 때 배치가 같은지 비교하는 host 별 id / rackId / podId
+    private int[] layoutId = new int[0];
+    private int[] layoutRack = new int[0];
+    private int[] layoutPod = new int[0];
+    /** host id → host index (-1 이면 리스트에 없음) */
+    private int[] slot = new int[0];
+
+    /** rack group → host index (오름차순) */
+    private int[][] rackHosts = new int[0][];
+    /** pod → rack group */
+    private int[][] podRacks = new int[0][];
+    private int[] hostRack = new int[0];
+    private int[] rackPod = new int[0];
+
+    private long[] rackRam = new long[0], rackMips = new long[0];
+    private long[] podRam = new long[0], podMips = new long[0];
+
+    // firstFitRanked 용: host 순위, rack 별 최소 순위, 최소 순위 오름차순 rack 목록 (정렬 key 는 순위 << 32 | rack)
+    private int[] rank;
+    private int[] rackMinRank = new int[0];
+    private int[] rackOrder = new int[0];
+    private long[] rackKeys = new long[0];
+
+    /** 검사한 pod + rack + host 수 (HOST_EVALUATIONS 집계용) */
+    long visits;
+
+    /**
+     * hosts 의 지금 잔여 자원으로 집계를 다시 만들고 exclude 를 푼다.
+     * host 배치가 지난 reset 과 같으면 rack / pod 묶음은 그대로 쓴다.
+     */
+    void reset(List<TrafficSimulationCore.HostInfo> hosts) {
+        this.hosts = hosts;
+        this.exclude = -1;
+        this.rank = null;
+        if (!sameLayout(hosts)) build(hosts);
+        for (int r = 0; r < rackHosts.length; r++) pullRack(r);
+        for (int p = 0; p < podRacks.length; p++) pullPod(p);
+    }
+
+    private boolean sameLayout(List<TrafficSimulationCore.HostInfo> hosts) {
+        if (hosts.size() != layoutId.length) return false;
+        for (int i = 0; i < layoutId.length; i++) {
+            TrafficSimulationCore.HostInfo h = hosts.get(i);
+            if (h.id != layoutId[i] || h.rackId != layoutRack[i] || h.podId != layoutPod[i]) return false;
+        }
+        return true;
+    }
+
+    private void build(List<TrafficSimulationCore.HostInfo> hosts) {
+        int n = hosts.size();
+        this.layoutId = new int[n];
+        this.layoutRack = new int[n];
+        this.layoutPod = new int[n];
+        this.hostRack = new int[n];
+
+        Map<Integer, Integer> podIndex = new HashMap<>();
+        Map<Long, Integer> rackIndex = new HashMap<>();
+        IntArrayList rackPodList = new IntArrayList();
+        int maxId = -1;
+        for (int i = 0; i < n; i++) {
+            TrafficSimulationCore.HostInfo h = hosts.get(i);
+            layoutId[i] = h.id;
+            layoutRack[i] = h.rackId;
+            layoutPod[i] = h.podId;
+            maxId = Math.max(maxId, h.id);
+            int pod = podIndex.computeIfAbsent(h.podId, k -> podIndex.size());
+            long key = ((long) h.podId << 32) | (h.rackId & 0xffffffffL);
+            Integer rack = rackIndex.get(key);
+            if (rack == null) {
+                rack = rackIndex.size();
+                rackIndex.put(key, rack);
+                rackPodList.add(pod);
+            }
+            hostRack[i] = rack;
+        }
+        this.slot = new int[maxId + 1];
+        Arrays.fill(slot, -1);
+        for (int i = 0; i < n; i++) if (layoutId[i] >= 0) slot[layoutId[i]] = i;
+
+        int racks = rackIndex.size();
+        int pods = podIndex.size();
+        this.rackPod = rackPodList.toArray();
+        this.rackHosts = group(hostRack, racks);
+        this.podRacks = group(rackPod, pods);
+        this.rackRam = new long[racks];
+        this.rackMips = new long[racks];
+        this.podRam = new long[pods];
+        this.podMips = new long[pods];
+        this.rackMinRank = new int[racks];
+        this.rackOrder = new int[racks];
+        this.rackKeys = new long[racks];
+    }
+
+    /** owner[i] 를 기준으로 i 를 묶은 목록 (각 목록은 오름차순) */
+    private static int[][] group(int[] owner, int groups) {
+        int[] count = new int[groups];
+        for (int g : owner) count[g]++;
+        int[][] out = new int[groups][];
+        for (int g = 0; g < groups; g++) out[g] = new int[count[g]];
+        Arrays.fill(count, 0);
+        for (int i = 0; i < owner.length; i++) out[owner[i]][count[owner[i]]++] = i;
+        return out;
+    }
+
+    /** host h 의 실제 잔여 자원이 바뀐 뒤 호출 */
+    void sync(int h) {
+        int r = hostRack[h];
+        pullRack(r);
+        pullPod(rackPod[r]);
+    }
+
+    /** hosts 안에서 h 의 index (없으면 -1) */
+    int indexOf(TrafficSimulationCore.HostInfo h) {
+        if (h == null || h.id < 0 || h.id >= slot.length) return -1;
+        int i = slot[h.id];
+        return (i >= 0 && hosts.get(i) == h) ? i : -1;
+    }
+
+    /** 집계에서 뺄 host 를 바꾼다 (-1 이면 없음). 예전 / 새 host 의 rack, pod 만 다시 계산 */
+    void setExclude(int h) {
+        int old = exclude;
+        if (old == h) return;
+        exclude = h;
+        if (old >= 0) sync(old);
+        if (h >= 0) sync(h);
+    }
+
+    private void pullRack(int r) {
+        long ram = Long.MIN_VALUE, mips = Long.MIN_VALUE;
+        for (int h : rackHosts[r]) {
+            if (h == exclude) continue;
+            TrafficSimulationCore.HostInfo hi = hosts.get(h);
+            ram = Math.max(ram, hi.remainingRam);
+            mips = Math.max(mips, hi.remainingMips);
+        }
+        rackRam[r] = ram;
+        rackMips[r] = mips;
+    }
+
+    private void pullPod(int p) {
+        long ram = Long.MIN_VALUE, mips = Long.MIN_VALUE;
+        for (int r : podRacks[p]) {
+            ram = Math.max(ram, rackRam[r]);
+            mips = Math.max(mips, rackMips[r]);
+        }
+        podRam[p] = ram;
+        podMips[p] = mips;
+    }
+
+    // ==========================================================
+    //  검색
+    // ==========================================================
+
+    /**
+     * ram, mips 가 모두 들어가는 host index 를 out 에 오름차순으로 채우고 개수를 돌려준다
+     * (exclude 제외). out 은 host 수 이상이어야 한다.
+     */
+    int collectFits(long ram, long mips, int[] out) {
+        int count = 0;
+        for (int p = 0; p < podRacks.length; p++) {
+            visits++;
+            if (podRam[p] < ram || podMips[p] < mips) continue;
+            for (int r : podRacks[p]) {
+                visits++;
+                if (rackRam[r] < ram || rackMips[r] < mips) continue;
+                for (int h : rackHosts[r]) {
+                    if (h == exclude) continue;
+                    visits++;
+                    TrafficSimulationCore.HostInfo hi = hosts.get(h);
+                    if (hi.remainingRam >= ram && hi.remainingMips >= mips) out[count++] = h;
+                }
+            }
+        }
+        Arrays.sort(out, 0, count);
+        return count;
+    }
+
+    /**
+     * firstFitRanked 가 쓸 host 우선순위를 정한다 (작을수록 먼저, Integer.MAX_VALUE 는 후보 아님).
+     * rank 배열은 복사하지 않으므로 firstFitRanked 를 부르는 동안 바꾸면 안 된다.
+     */
+    void rankHosts(int[] rank) {
+        this.rank = rank;
+        for (int r = 0; r < rackHosts.length; r++) {
+            int min = Integer.MAX_VALUE;
+            for (int h : rackHosts[r]) if (h != exclude) min = Math.min(min, rank[h]);
+            rackMinRank[r] = min;
+            rackKeys[r] = ((long) min << 32) | r;
+        }
+        // 가장 앞 순위 host 가 있는 rack 부터 본다 (같으면 rack 순서)
+        Arrays.sort(rackKeys, 0, rackHosts.length);
+        for (int r = 0; r < rackHosts.length; r++) rackOrder[r] = (int) rackKeys[r];
+    }
+
+    /**
+     * ram, mips 가 모두 들어가는 host 중 rankHosts 순위가 가장 앞인 host index (없으면 -1).
+     * 순위 목록을 앞에서부터 first-fit 한 것과 같은 결과다.
+     */
+    int firstFitRanked(long ram, long mips) {
+        int best = -1;
+        int bestRank = Integer.MAX_VALUE;
+        for (int r : rackOrder) {
+            // 남은 rack 은 모두 지금 찾은 host 보다 순위가 뒤
+            if (rackMinRank[r] >= bestRank) break;
+            visits++;
+            int p = rackPod[r];
+            if (podRam[p] < ram || podMips[p] < mips) continue;
+            if (rackRam[r] < ram || rackMips[r] < mips) continue;
+            for (int h : rackHosts[r]) {
+                if (h == exclude || rank[h] >= bestRank) continue;
+                visits++;
+                TrafficSimulationCore.HostInfo hi = hosts.get(h);
+                if (hi.remainingRam >= ram && hi.remainingMips >= mips) {
+                    best = h;
+                    bestRank = rank[h];
+                }
+            }
+        }
+        return best;
+    }
+}
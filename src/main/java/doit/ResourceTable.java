@@ -0,0 +1,139 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * d 차원 자원 용량 테이블 (host 축 struct-of-arrays).
+ *
+ *   residual[d][h] : host h 의 차원 d 잔여량
+ *   차원 순서      : RAM, MIPS, 그 다음 HostInfo.extraCapacity 순서 (NIC_BANDWIDTH, DISK_IOPS, ...)
+ *
+ * HostInfo / VmInfo 의 ram, mips 필드를 쓰는 기존 2차원 경로는 그대로 두고,
+ * NIC / 디스크 / accelerator 까지 봐야 하는 배치에서 이 테이블을 쓴다.
+ * fit 판정은 FitKernel (scalar bit mask 또는 Vector API) 이 host 여러 개씩 처리한다.
+ */
+public class ResourceTable {
+
+    public enum Dimension {
+        RAM, MIPS, NIC_BANDWIDTH, DISK_IOPS, ACCELERATOR_SLOTS
+    }
+
+    private final TrafficSimulationCore.HostInfo[] hosts;
+    private final int dims;
+    final long[][] residual;
+    private final FitKernel kernel;
+
+    public ResourceTable(List<TrafficSimulationCore.HostInfo> hostList) {
+        this(hostList, FitKernel.INSTANCE);
+    }
+
+    ResourceTable(List<TrafficSimulationCore.HostInfo> hostList, FitKernel kernel) {
+        this.hosts = hostList.toArray(new TrafficSimulationCore.HostInfo[0]);
+        this.kernel = kernel;
+        int extra = 0;
+        for (TrafficSimulationCore.HostInfo h : hosts) extra = Math.max(extra, h.extraCapacity.length);
+        if (2 + extra > Dimension.values().length) {
+            throw new IllegalArgumentException("at most " + (Dimension.values().length - 2)
+                    + " extra resource dimensions are supported, got " + extra);
+        }
+        this.dims = 2 + extra;
+        this.residual = new long[dims][hosts.length];
+        for (int h = 0; h < hosts.length; h++) {
+            TrafficSimulationCore.HostInfo hi = hosts[h];
+            residual[0][h] = hi.remainingRam;
+            residual[1][h] = hi.remainingMips;
+            // extra 차원이 없는 host 는 0 (그 차원을 요구하는 VM 은 못 들어감)
+            for (int d = 0; d < hi.remainingExtra.length; d++) residual[2 + d][h] = hi.remainingExtra[d];
+        }
+    }
+
+    public int dimensions() {
+        return dims;
+    }
+
+    public int hostCount() {
+        return hosts.length;
+    }
+
+    public String kernelName() {
+        return kernel.name();
+    }
+
+    public long residual(int host, Dimension dim) {
+        return dim.ordinal() < dims ? residual[dim.ordinal()][host] : 0L;
+    }
+
+    /** VM 요구량을 이 테이블의 차원 수에 맞춘 벡터로 (없는 차원은 0) */
+    public long[] demandOf(TrafficSimulationCore.VmInfo vm) {
+        if (vm.extraDemand.length > dims - 2) {
+            throw new IllegalArgumentException("VM " + vm.id + " demands " + (2 + vm.extraDemand.length)
+                    + " resource dimensions but hosts only provide " + dims);
+        }
+        long[] demand = new long[dims];
+        demand[0] = vm.ram;
+        demand[1] = vm.mips;
+        System.arraycopy(vm.extraDemand, 0, demand, 2, vm.extraDemand.length);
+        return demand;
+    }
+
+    // ==========================================================
+    //  fit 판정
+    // ==========================================================
+
+    public boolean fits(int host, long[] demand) {
+        for (int d = 0; d < dims; d++) {
+            if (residual[d][host] < demand[d]) return false;
+        }
+        return true;
+    }
+
+    /** demand 가 들어가는 host index 를 out 에 (오름차순), 개수 반환. out 길이는 hostCount 이상 */
+    public int collectFitting(long[] demand, int[] out) {
+        return kernel.collectFitting(residual, hosts.length, demand, out);
+    }
+
+    /** 리스트 순서상 첫 번째로 들어가는 host (없으면 -1) */
+    public int firstFit(long[] demand) {
+        return kernel.firstFit(residual, 0, hosts.length, demand);
+    }
+
+    public void take(int host, long[] demand) {
+        for (int d = 0; d < dims; d++) residual[d][host] -= demand[d];
+    }
+
+    public void give(int host, long[] demand) {
+        for (int d = 0; d < dims; d++) residual[d][host] += demand[d];
+    }
+
+    // ==========================================================
+    //  배치
+    // ==========================================================
+
+    /**
+     * placeVmsFirstFit 의 d 차원 버전 (VM 리스트 순서, 모든 차원이 들어가는 첫 host).
+     * 결과는 HostInfo 의 잔여 자원에도 반영된다.
+     */
+    public Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placeFirstFit(
+            List<TrafficSimulationCore.VmInfo> vms) {
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement = new HashMap<>();
+        for (TrafficSimulationCore.VmInfo v : vms) {
+            long[] demand = demandOf(v);
+            int h = firstFit(demand);
+            if (h < 0) continue;   // FFD 와 같이 못 들어가면 미배치
+            take(h, demand);
+            placement.put(v, hosts[h]);
+        }
+        applyToHosts();
+        return placement;
+    }
+
+    /** 현재 잔여량을 HostInfo 에 되돌려 쓴다 */
+    public void applyToHosts() {
+        for (int h = 0; h < hosts.length; h++) {
+            TrafficSimulationCore.HostInfo hi = hosts[h];
+            hi.remainingRam = residual[0][h];
+            hi.remainingMips = residual[1][h];
+            for (int d = 0; d < hi.remainingExtra.length; d++) hi.remainingExtra[d] = residual[2 + d][h];
+        }
+    }
+}
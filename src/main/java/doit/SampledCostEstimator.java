@@ -0,0 +1,396 @@
+package doit;
+
+import java.util.*;
+
+/**
+ * 토폴로지 가중 트래픽 비용 (전체, 또는 VM 몇 개를 옮긴 delta) 의 표본 추정 + 신뢰구간.
+ *
+ * calcTrafficCost 는 O(n²) 이라 아주 큰 인스턴스에서 해제 시도마다 부르기엔 비싸다.
+ * 여기서는 트래픽 행렬마다 한 번 (O(n²)) 전처리를 해 두고, 이후 추정은 표본 수에만 비례한다.
+ *
+ *  - 층화: VM row 마다 weight 상위 heavyPerRow 개 edge 는 "heavy" 층으로 따로 저장해 항상 정확히 더하고
+ *          (분산 0), 나머지 "light" 층만 표본을 뽑는다. 트래픽 대부분이 heavy 층에 있으므로 분산이 작다.
+ *  - 가중: light 층 안에서도 edge 를 트래픽에 비례해 뽑는다 (균등 column + 기각, 상한 = 가장 작은 heavy).
+ *          기각이 너무 잦을 row (light 트래픽이 몇 개 edge 에 몰린 경우) 만 균등 추출로 바꾼다.
+ *          전체 추정은 row 도 light 트래픽 합에 비례해 고르고,
+ *          delta 추정은 옮긴 VM 하나가 한 층이며 표본은 그 VM 의 light 트래픽 합에 비례해 나눈다.
+ *  - 구간: 층별 표본 분산을 합쳐 value ± z·SE. z = 1.96 이면 약 95% 구간.
+ *
+ * 같은 행렬을 쓰는 한 여러 배치 / 여러 번의 추정에 재사용할 수 있다 (thread-safe 하지 않음).
+ * 거리는 TrafficSimulationCore.distanceLevels 와 같은 모델 (같은 host 0, 같은 rack, 같은 pod, 그 밖).
+ */
+public class SampledCostEstimator {
+
+    /** 트래픽 비례 추출에서 기대 시도 수가 이보다 크면 그 row 는 균등 추출 */
+    private static final double MAX_TRIALS = 32.0;
+
+    /** 추정값 하나와 신뢰구간 반폭 */
+    public static class Estimate {
+        public final double value;
+        public final double halfWidth;
+        /** 실제로 뽑은 표본 수 (heavy 층은 세지 않음) */
+        public final int samples;
+
+        Estimate(double value, double halfWidth, int samples) {
+            this.value = value;
+            this.halfWidth = halfWidth;
+            this.samples = samples;
+        }
+
+        public double lower() {
+            return value - halfWidth;
+        }
+
+        public double upper() {
+            return value + halfWidth;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.2f +/- %.2f (%d samples)", value, halfWidth, samples);
+        }
+    }
+
+    final TrafficMatrix traffic;
+    private final int size;
+    private final double z;
+    private final int samplesPerVm;
+    private final SplittableRandom rng;
+
+    // row 별 heavy edge (CSR, row 안에서는 column 오름차순)
+    private final int[] heavyStart;
+    private final int[] heavyCol;
+    private final double[] heavyWeight;
+    // row 별 light 층: edge 수 (자기 자신, heavy 제외), 트래픽 합
+    private final int[] lightCount;
+    private final double[] lightSum;
+    /** light edge weight 의 상한 (row 의 가장 작은 heavy), 0 이면 균등 추출 row */
+    private final double[] lightBound;
+    /** lightSum 누적합 (전체 추정의 row 추출용) */
+    private final double[] lightPrefix;
+
+    // delta 추정 중 "옮긴 VM" 표시
+    private final int[] movedSlot;
+
+    public SampledCostEstimator(TrafficMatrix traffic, int heavyPerRow, int samplesPerVm, double z, long seed) {
+        if (heavyPerRow < 0) throw new IllegalArgumentException("heavyPerRow must be >= 0");
+        if (samplesPerVm < 2) throw new IllegalArgumentException("samplesPerVm must be >= 2");
+        if (!(z > 0)) throw new IllegalArgumentException("z must be > 0");
+        this.traffic = traffic;
+        this.size = traffic.size();
+        this.z = z;
+        this.samplesPerVm = samplesPerVm;
+        this.rng = new SplittableRandom(seed);
+
+        // 모든 (i < j) 를 한 번씩 읽으면서 양쪽 row 의 top-k heap 에 넣는다
+        int k = Math.min(heavyPerRow, Math.max(0, size - 1));
+        double[] hw = new double[size * k];
+        int[] hc = new int[size * k];
+        int[] hn = new int[size];
+        double[] rowSum = new double[size];
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                double t = traffic.get(i, j);
+                if (t == 0.0) continue;
+                rowSum[i] += t;
+                rowSum[j] += t;
+                if (k > 0) {
+                    offer(hw, hc, hn, i, k, j, t);
+                    offer(hw, hc, hn, j, k, i, t);
+                }
+            }
+        }
+
+        this.heavyStart = new int[size + 1];
+        for (int i = 0; i < size; i++) heavyStart[i + 1] = heavyStart[i] + hn[i];
+        this.heavyCol = new int[heavyStart[size]];
+        this.heavyWeight = new double[heavyStart[size]];
+        this.lightCount = new int[size];
+        this.lightSum = new double[size];
+        this.lightBound = new double[size];
+        this.lightPrefix = new double[size + 1];
+        Integer[] order = new Integer[k];
+        for (int i = 0; i < size; i++) {
+            int base = i * k, n = hn[i];
+            for (int a = 0; a < n; a++) order[a] = a;
+            Arrays.sort(order, 0, n, Comparator.comparingInt(a -> hc[base + a]));
+            double heavy = 0.0;
+            for (int a = 0; a < n; a++) {
+                heavyCol[heavyStart[i] + a] = hc[base + order[a]];
+                heavyWeight[heavyStart[i] + a] = hw[base + order[a]];
+                heavy += hw[base + order[a]];
+            }
+            lightCount[i] = size - 1 - n;
+            lightSum[i] = Math.max(0.0, rowSum[i] - heavy);
+            // heap 이 다 찼으면 root (가장 작은 heavy) 가 light weight 의 상한
+            if (n == k && k > 0 && lightSum[i] > 0
+                    && hw[base] * lightCount[i] / lightSum[i] <= MAX_TRIALS) {
+                lightBound[i] = hw[base];
+            }
+            lightPrefix[i + 1] = lightPrefix[i] + lightSum[i];
+        }
+        this.movedSlot = new int[size];
+        Arrays.fill(movedSlot, -1);
+    }
+
+    /** heavy 32 개 / VM 당 표본 64 개 / 95% 구간 */
+    public SampledCostEstimator(TrafficMatrix traffic) {
+        this(traffic, 32, 64, 1.96, 1);
+    }
+
+    /** row 의 top-k min-heap 에 (col, t) 를 넣는다 (NeighborIndex 도 같은 방식으로 만든다) */
+    static void offer(double[] hw, int[] hc, int[] hn, int row, int k, int col, double t) {
+        int base = row * k;
+        int n = hn[row];
+        if (n < k) {
+            // sift up
+            int c = n;
+            while (c > 0) {
+                int p = (c - 1) >> 1;
+                if (hw[base + p] <= t) break;
+                hw[base + c] = hw[base + p];
+                hc[base + c] = hc[base + p];
+                c = p;
+            }
+            hw[base + c] = t;
+            hc[base + c] = col;
+            hn[row] = n + 1;
+            return;
+        }
+        if (t <= hw[base]) return;
+        // root 교체 후 sift down
+        int c = 0;
+        while (true) {
+            int l = 2 * c + 1;
+            if (l >= k) break;
+            int m = (l + 1 < k && hw[base + l + 1] < hw[base + l]) ? l + 1 : l;
+            if (hw[base + m] >= t) break;
+            hw[base + c] = hw[base + m];
+            hc[base + c] = hc[base + m];
+            c = m;
+        }
+        hw[base + c] = t;
+        hc[base + c] = col;
+    }
+
+    // ==========================================================
+    //  전체 비용
+    // ==========================================================
+
+    /** calcTrafficCost(placement) 의 추정 (samples = light 층 표본 수) */
+    public Estimate estimateTotal(Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement,
+                                  TrafficSimulationCore.Topology topo, int samples) {
+        return estimateTotal(hostById(placement), topo, samples);
+    }
+
+    Estimate estimateTotal(TrafficSimulationCore.HostInfo[] host, TrafficSimulationCore.Topology topo, int samples) {
+        if (samples < 2) throw new IllegalArgumentException("samples must be >= 2");
+        double[] lv = TrafficSimulationCore.distanceLevels(topo);
+
+        // heavy 층: 그대로 더함 (각 쌍이 양쪽 row 에서 한 번씩 → 마지막에 1/2)
+        double heavy = 0.0;
+        for (int i = 0; i < size; i++) {
+            if (host[i] == null) continue;
+            for (int e = heavyStart[i]; e < heavyStart[i + 1]; e++) {
+                heavy += heavyWeight[e] * dist(host[i], host[heavyCol[e]], lv);
+            }
+        }
+
+        // light 층: row 는 lightSum 에 비례해 고르고, row 안의 표본을 row 선택 확률로 나눔
+        double total = lightPrefix[size];
+        double sum = 0.0, sumSq = 0.0;
+        int drawn = 0;
+        if (total > 0) {
+            for (int s = 0; s < samples; s++) {
+                int i = sampleRow(rng.nextDouble() * total);
+                int j = sampleLight(i);
+                double y = host[i] == null ? 0.0
+                        : lightValue(i, j, dist(host[i], host[j], lv)) * total / lightSum[i];
+                sum += y;
+                sumSq += y * y;
+                drawn++;
+            }
+        }
+        double mean = drawn > 0 ? sum / drawn : 0.0;
+        double var = drawn > 1 ? Math.max(0.0, (sumSq - drawn * mean * mean) / (drawn - 1)) / drawn : 0.0;
+        return new Estimate(0.5 * (heavy + mean), 0.5 * z * Math.sqrt(var), drawn);
+    }
+
+    // ==========================================================
+    //  delta (VM 몇 개를 옮겼을 때)
+    // ==========================================================
+
+    /**
+     * movedFrom 의 VM 들이 (movedFrom 의 host → placement 의 host) 로 옮겨졌을 때의 트래픽 비용 변화 추정.
+     * placement 는 옮긴 뒤 상태.
+     */
+    public Estimate estimateDelta(Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement,
+                                  Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> movedFrom,
+                                  TrafficSimulationCore.Topology topo) {
+        int[] ids = new int[movedFrom.size()];
+        TrafficSimulationCore.HostInfo[] from = new TrafficSimulationCore.HostInfo[ids.length];
+        int m = 0;
+        for (Map.Entry<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> e : movedFrom.entrySet()) {
+            ids[m] = e.getKey().id;
+            from[m++] = e.getValue();
+        }
+        return estimateDelta(hostById(placement), ids, from, ids.length, topo);
+    }
+
+    /** exact 버전 (옮긴 VM 의 row 만 다시 더함, O(옮긴 VM 수 × n)) */
+    public double exactDelta(Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement,
+                             Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> movedFrom,
+                             TrafficSimulationCore.Topology topo) {
+        int[] ids = new int[movedFrom.size()];
+        TrafficSimulationCore.HostInfo[] from = new TrafficSimulationCore.HostInfo[ids.length];
+        int m = 0;
+        for (Map.Entry<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> e : movedFrom.entrySet()) {
+            ids[m] = e.getKey().id;
+            from[m++] = e.getValue();
+        }
+        return exactDelta(hostById(placement), ids, from, ids.length, topo);
+    }
+
+    /**
+     * host[id] = 옮긴 뒤 host, ids[k] 는 from[k] 에서 옮겨 온 VM (k < count).
+     * 배열은 count 보다 길어도 된다 (호출하는 쪽의 재사용 버퍼).
+     */
+    Estimate estimateDelta(TrafficSimulationCore.HostInfo[] host, int[] ids, TrafficSimulationCore.HostInfo[] from,
+                           int count, TrafficSimulationCore.Topology topo) {
+        double[] lv = TrafficSimulationCore.distanceLevels(topo);
+        markMoved(ids, count);
+        try {
+            // 층 (옮긴 VM) 마다 표본 수는 light 트래픽 합에 비례, 최소 2
+            double lightTotal = 0.0;
+            for (int k = 0; k < count; k++) lightTotal += lightSum[ids[k]];
+            int budget = samplesPerVm * count;
+
+            double value = 0.0, var = 0.0;
+            int drawn = 0;
+            for (int k = 0; k < count; k++) {
+                int v = ids[k];
+                for (int e = heavyStart[v]; e < heavyStart[v + 1]; e++) {
+                    value += heavyWeight[e] * change(v, from[k], heavyCol[e], host, from, lv);
+                }
+                if (lightSum[v] == 0.0 || lightCount[v] == 0) continue;
+                int n = Math.max(2, (int) Math.round(budget * lightSum[v] / lightTotal));
+                double sum = 0.0, sumSq = 0.0;
+                for (int s = 0; s < n; s++) {
+                    int j = sampleLight(v);
+                    double y = lightValue(v, j, change(v, from[k], j, host, from, lv));
+                    sum += y;
+                    sumSq += y * y;
+                }
+                double mean = sum / n;
+                double s2 = Math.max(0.0, (sumSq - n * mean * mean) / (n - 1));
+                value += mean;
+                var += s2 / n;
+                drawn += n;
+            }
+            return new Estimate(value, z * Math.sqrt(var), drawn);
+        } finally {
+            unmarkMoved(ids, count);
+        }
+    }
+
+    double exactDelta(TrafficSimulationCore.HostInfo[] host, int[] ids, TrafficSimulationCore.HostInfo[] from,
+                      int count, TrafficSimulationCore.Topology topo) {
+        double[] lv = TrafficSimulationCore.distanceLevels(topo);
+        markMoved(ids, count);
+        try {
+            double value = 0.0;
+            for (int k = 0; k < count; k++) {
+                int v = ids[k];
+                for (int j = 0; j < size; j++) {
+                    if (j == v) continue;
+                    double t = traffic.get(v, j);
+                    if (t != 0.0) value += t * change(v, from[k], j, host, from, lv);
+                }
+            }
+            return value;
+        } finally {
+            unmarkMoved(ids, count);
+        }
+    }
+
+    /**
+     * (v, j) 쌍의 거리 변화. j 도 옮긴 VM 이면 그 쌍은 j 의 row 에서 한 번 더 세므로 절반만.
+     * 배치에 없는 VM 과의 쌍은 calcTrafficCost 처럼 0.
+     */
+    private double change(int v, TrafficSimulationCore.HostInfo vFrom, int j,
+                          TrafficSimulationCore.HostInfo[] host, TrafficSimulationCore.HostInfo[] from,
+                          double[] lv) {
+        TrafficSimulationCore.HostInfo vTo = host[v], jTo = host[j];
+        if (vTo == null || jTo == null) return 0.0;
+        int slot = movedSlot[j];
+        if (slot < 0) return dist(vTo, jTo, lv) - dist(vFrom, jTo, lv);
+        return 0.5 * (dist(vTo, jTo, lv) - dist(vFrom, from[slot], lv));
+    }
+
+    private void markMoved(int[] ids, int count) {
+        for (int k = 0; k < count; k++) {
+            if (movedSlot[ids[k]] >= 0) throw new IllegalArgumentException("VM " + ids[k] + " moved twice");
+            movedSlot[ids[k]] = k;
+        }
+    }
+
+    private void unmarkMoved(int[] ids, int count) {
+        for (int k = 0; k < count; k++) movedSlot[ids[k]] = -1;
+    }
+
+    // ==========================================================
+    //  추출 / 거리
+    // ==========================================================
+
+    /** lightPrefix 에서 x 가 떨어지는 row */
+    private int sampleRow(double x) {
+        int lo = 0, hi = size - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (lightPrefix[mid + 1] <= x) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * row i 의 light column 하나. lightBound[i] > 0 이면 트래픽에 비례 (기각 추출), 아니면 균등.
+     * lightSum[i] > 0 인 row 에만 부른다.
+     */
+    private int sampleLight(int i) {
+        int from = heavyStart[i], to = heavyStart[i + 1];
+        double bound = lightBound[i];
+        while (true) {
+            int j = rng.nextInt(size);
+            if (j == i) continue;
+            if (to > from && Arrays.binarySearch(heavyCol, from, to, j) >= 0) continue;
+            if (bound > 0 && rng.nextDouble() * bound >= traffic.get(i, j)) continue;
+            return j;
+        }
+    }
+
+    /** sampleLight(i) 로 뽑은 j 하나로 만든 "row i 의 Σ_light t·x" 표본 (x = 그 쌍의 거리 또는 거리 변화) */
+    private double lightValue(int i, int j, double x) {
+        if (lightBound[i] > 0) return lightSum[i] * x;
+        return lightCount[i] * traffic.get(i, j) * x;
+    }
+
+    private static double dist(TrafficSimulationCore.HostInfo a, TrafficSimulationCore.HostInfo b, double[] lv) {
+        if (a == null || b == null) return 0.0;
+        if (a.id == b.id) return 0.0;
+        if (a.rackId == b.rackId) return lv[0];
+        if (a.podId == b.podId) return lv[1];
+        return lv[2];
+    }
+
+    private TrafficSimulationCore.HostInfo[] hostById(
+            Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement) {
+        TrafficSimulationCore.HostInfo[] host = new TrafficSimulationCore.HostInfo[size];
+        for (Map.Entry<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> e : placement.entrySet()) {
+            int id = e.getKey().id;
+            if (id < 0 || id >= size) throw new IllegalArgumentException("VM " + id + " is outside the traffic matrix");
+            host[id] = e.getValue();
+        }
+        return host;
+    }
+}
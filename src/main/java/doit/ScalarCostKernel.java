@@ -0,0 +1,39 @@
+package doit;
+
+/**
+ * CostKernel 의 scalar 구현.
+ *
+ * dist() 의 switch / early return 대신 vector 구현과 같은 select 사슬로 거리를 만든다.
+ *   d = dFar → (같은 pod) dPod → (같은 rack) dRack → (같은 host 또는 없는 VM) 0
+ * 조건 분기가 아니라 값 선택이라 JIT 가 cmov 로 내리기 쉽고, 누적 변수 두 개로
+ * 덧셈 의존성 사슬을 나눈다.
+ */
+final class ScalarCostKernel implements CostKernel {
+
+    @Override
+    public double rowCost(double[] row, int from, int to,
+                          double[] host, double[] rack, double[] pod,
+                          double h, double r, double p,
+                          double dRack, double dPod, double dFar) {
+        double acc0 = 0.0, acc1 = 0.0;
+        int j = from;
+        for (; j + 1 < to; j += 2) {
+            acc0 += row[j] * select(host[j], rack[j], pod[j], h, r, p, dRack, dPod, dFar);
+            acc1 += row[j + 1] * select(host[j + 1], rack[j + 1], pod[j + 1], h, r, p, dRack, dPod, dFar);
+        }
+        if (j < to) acc0 += row[j] * select(host[j], rack[j], pod[j], h, r, p, dRack, dPod, dFar);
+        return acc0 + acc1;
+    }
+
+    private static double select(double hj, double rj, double pj, double h, double r, double p,
+                                 double dRack, double dPod, double dFar) {
+        double d = (pj == p) ? dPod : dFar;
+        d = (rj == r) ? dRack : d;
+        return (hj == h || hj < 0) ? 0.0 : d;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,54 @@
+package doit;
+
+/**
+ * FitKernel 의 scalar 구현.
+ *
+ * host 64 개를 하나의 long bit mask 로 보고 차원마다 한 번씩 (연속 메모리) 훑으며
+ * 안 맞는 bit 를 지운다. 차원 d 의 배열만 순서대로 읽으므로 host 마다 d 개 배열을
+ * 왔다 갔다 하는 것보다 cache 에 유리하고, 비교는 부호 bit 연산이라 분기가 없다.
+ */
+final class ScalarFitKernel implements FitKernel {
+
+    @Override
+    public int collectFitting(long[][] residual, int hostCount, long[] demand, int[] out) {
+        int cnt = 0;
+        for (int base = 0; base < hostCount; base += 64) {
+            long bits = blockMask(residual, base, Math.min(64, hostCount - base), demand);
+            while (bits != 0) {
+                out[cnt++] = base + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return cnt;
+    }
+
+    @Override
+    public int firstFit(long[][] residual, int from, int hostCount, long[] demand) {
+        for (int base = from; base < hostCount; base += 64) {
+            long bits = blockMask(residual, base, Math.min(64, hostCount - base), demand);
+            if (bits != 0) return base + Long.numberOfTrailingZeros(bits);
+        }
+        return -1;
+    }
+
+    /** host [base, base+len) 중 demand 가 들어가는 것의 bit mask */
+    private static long blockMask(long[][] residual, int base, int len, long[] demand) {
+        long bits = (len == 64) ? -1L : (1L << len) - 1;
+        for (int d = 0; d < demand.length && bits != 0; d++) {
+            long[] r = residual[d];
+            long need = demand[d];
+            long fail = 0;
+            for (int i = 0; i < len; i++) {
+                // r < need 이면 (r - need) 의 부호 bit 가 1 (용량 값은 음수 / overflow 범위가 아님)
+                fail |= ((r[base + i] - need) >>> 63) << i;
+            }
+            bits &= ~fail;
+        }
+        return bits;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
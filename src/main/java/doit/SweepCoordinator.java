@@ -0,0 +1,307 @@
+package doit;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * 실험 sweep (VM 수 / 토폴로지 grid) 을 여러 worker JVM 으로 나눠 돌리고 결과를 하나로 합친다.
+ *
+ *  - shard   : grid point 를 round-robin 으로 workers 개 shard 에 나눔 (큰 point 가 한 shard 에 몰리지 않게)
+ *  - worker  : shard 마다 별도 JVM (SweepWorker), worker 마다 -Xmx / off-heap 상한을 따로 준다
+ *  - 통신    : workDir 아래 파일. 입력은 point 목록, 출력은 point 하나 끝날 때마다 한 줄씩 append
+ *              (worker stdout / stderr 는 shard 별 log 파일)
+ *  - 스트리밍 : 실행 중인 shard 의 결과 파일을 주기적으로 읽어 끝난 point 를 바로 출력
+ *  - 재시도  : worker 가 비정상 종료하면 아직 결과가 없는 point 만 모아 다시 띄운다.
+ *              worker 는 point 를 순서대로 돌므로 결과가 없는 첫 point 가 죽을 때 돌던 point 다.
+ *              그 point 는 맨 뒤로 보내 나머지를 먼저 끝내고, maxAttempts 번 죽게 만들면 failed 로 뺀다
+ *              (죽는 point 하나가 shard 전체를 막지 않도록)
+ *  - timeout : 한 point 가 pointTimeoutMillis 넘게 결과를 안 내면 worker 를 죽이고 위와 같이 처리
+ *  - 병합    : grid 순서대로 정렬해서 merged.tsv 로
+ *
+ * 한 JVM 의 큰 heap 하나 대신 적당한 heap 여러 개로 나눠서 GC 부담을 줄이는 용도.
+ */
+public class SweepCoordinator {
+
+    private static final long POLL_MILLIS = 500;
+
+    /** grid 한 칸 */
+    public static class Point {
+        public enum Kind {
+            VM_SCALING, TOPOLOGY
+        }
+
+        public final int index;
+        public final Kind kind;
+        public final int hostCount;
+        public final int vmCount;
+        public final TrafficSimulationCore.Topology topo;
+        public final double supernodePercentile;
+
+        public Point(int index, Kind kind, int hostCount, int vmCount,
+                     TrafficSimulationCore.Topology topo, double supernodePercentile) {
+            if (hostCount <= 0 || vmCount <= 0) throw new IllegalArgumentException("hostCount / vmCount must be > 0");
+            this.index = index;
+            this.kind = kind;
+            this.hostCount = hostCount;
+            this.vmCount = vmCount;
+            this.topo = topo;
+            this.supernodePercentile = supernodePercentile;
+        }
+
+        String toLine() {
+            return index + "\t" + kind + "\t" + hostCount + "\t" + vmCount + "\t" + topo + "\t" + supernodePercentile;
+        }
+
+        static Point parse(String line) {
+            String[] f = line.split("\t");
+            if (f.length < 6) throw new IllegalArgumentException("bad sweep point line: " + line);
+            return new Point(Integer.parseInt(f[0]), Kind.valueOf(f[1]), Integer.parseInt(f[2]),
+                    Integer.parseInt(f[3]), TrafficSimulationCore.Topology.valueOf(f[4]), Double.parseDouble(f[5]));
+        }
+    }
+
+    /** point 하나의 결과 (worker 결과 파일 한 줄) */
+    public static class PointResult {
+        public final Point point;
+        public final double trafficCost;
+        public final int activeHosts;
+        public final double seconds;
+
+        public PointResult(Point point, double trafficCost, int activeHosts, double seconds) {
+            this.point = point;
+            this.trafficCost = trafficCost;
+            this.activeHosts = activeHosts;
+            this.seconds = seconds;
+        }
+
+        String toLine() {
+            return point.toLine() + "\t" + trafficCost + "\t" + activeHosts + "\t" + seconds;
+        }
+
+        static PointResult parse(String line) {
+            String[] f = line.split("\t");
+            if (f.length < 9) throw new IllegalArgumentException("bad sweep result line: " + line);
+            return new PointResult(Point.parse(line), Double.parseDouble(f[6]), Integer.parseInt(f[7]),
+                    Double.parseDouble(f[8]));
+        }
+    }
+
+    /** sweep 전체 결과 */
+    public static class SweepResult {
+        /** grid 순서 */
+        public final List<PointResult> results = new ArrayList<>();
+        /** 재시도를 다 써도 결과가 없는 point */
+        public final List<Point> failed = new ArrayList<>();
+        public int launches;
+        public int retries;
+        /** 결과가 없어 worker 를 죽인 횟수 */
+        public int timeouts;
+        public Path mergedFile;
+    }
+
+    private final int workers;
+    private final String heap;
+    private final String directMemory;
+    private final int maxAttempts;
+    private final long pointTimeoutMillis;
+    private final Path workDir;
+
+    /**
+     * @param heap               worker 당 -Xmx (예: "32g")
+     * @param directMemory       worker 당 -XX:MaxDirectMemorySize (PackedTrafficStore 용, null 이면 JVM 기본값)
+     * @param maxAttempts        point 하나가 worker 를 죽게 해도 되는 횟수 (1 = 재시도 없음)
+     * @param pointTimeoutMillis point 하나에 줄 최대 시간 (0 = 제한 없음)
+     */
+    public SweepCoordinator(int workers, String heap, String directMemory, int maxAttempts, long pointTimeoutMillis,
+                            Path workDir) {
+        if (workers <= 0) throw new IllegalArgumentException("workers must be > 0");
+        if (maxAttempts <= 0) throw new IllegalArgumentException("maxAttempts must be > 0");
+        if (pointTimeoutMillis < 0) throw new IllegalArgumentException("pointTimeoutMillis must be >= 0");
+        this.workers = workers;
+        this.heap = heap;
+        this.directMemory = directMemory;
+        this.maxAttempts = maxAttempts;
+        this.pointTimeoutMillis = pointTimeoutMillis;
+        this.workDir = workDir;
+    }
+
+    // ==========================================================
+    //  grid
+    // ==========================================================
+
+    /** ExperimentVmScaling 과 같은 grid ({host, vm} 쌍마다 point 하나) */
+    public static List<Point> vmScalingGrid(int[][] configs, TrafficSimulationCore.Topology topo,
+                                            double supernodePercentile) {
+        List<Point> grid = new ArrayList<>();
+        for (int[] c : configs) {
+            grid.add(new Point(grid.size(), Point.Kind.VM_SCALING, c[0], c[1], topo, supernodePercentile));
+        }
+        return grid;
+    }
+
+    /** ExperimentTopologyProposed 와 같은 grid (토폴로지마다 point 하나), index 는 from 부터 */
+    public static List<Point> topologyGrid(int from, int hostCount, int vmCount, double supernodePercentile) {
+        List<Point> grid = new ArrayList<>();
+        for (TrafficSimulationCore.Topology topo : TrafficSimulationCore.Topology.values()) {
+            grid.add(new Point(from + grid.size(), Point.Kind.TOPOLOGY, hostCount, vmCount, topo,
+                    supernodePercentile));
+        }
+        return grid;
+    }
+
+    // ==========================================================
+    //  실행
+    // ==========================================================
+
+    /** shard 하나의 진행 상태 */
+    private static class Shard {
+        final int id;
+        List<Point> remaining;
+        int attempts;
+        Process process;
+        Path resultFile;
+        long readOffset;
+        /** 마지막으로 결과가 나온 (또는 launch 한) 시각, timeout 기준 */
+        long lastProgressNanos;
+
+        Shard(int id, List<Point> points) {
+            this.id = id;
+            this.remaining = points;
+        }
+    }
+
+    public SweepResult run(List<Point> grid) throws IOException, InterruptedException {
+        Files.createDirectories(workDir);
+        SweepResult out = new SweepResult();
+        Map<Integer, PointResult> done = new TreeMap<>();
+
+        List<Shard> shards = new ArrayList<>();
+        int shardCount = Math.min(workers, grid.size());
+        for (int s = 0; s < shardCount; s++) shards.add(new Shard(s, new ArrayList<>()));
+        for (int i = 0; i < grid.size(); i++) shards.get(i % shardCount).remaining.add(grid.get(i));
+
+        for (Shard s : shards) {
+            launch(s);
+            out.launches++;
+        }
+
+        // point index → worker 가 그 point 를 돌다 죽은 횟수
+        Map<Integer, Integer> crashes = new HashMap<>();
+        List<Shard> running = new ArrayList<>(shards);
+        while (!running.isEmpty()) {
+            Thread.sleep(POLL_MILLIS);
+            for (Iterator<Shard> it = running.iterator(); it.hasNext(); ) {
+                Shard s = it.next();
+                collect(s, done);
+                boolean timedOut = false;
+                if (s.process.isAlive()) {
+                    if (pointTimeoutMillis == 0
+                            || System.nanoTime() - s.lastProgressNanos < pointTimeoutMillis * 1_000_000L) continue;
+                    s.process.destroyForcibly();
+                    timedOut = true;
+                    out.timeouts++;
+                }
+
+                int exit = s.process.waitFor();
+                collect(s, done);
+                s.remaining.removeIf(p -> done.containsKey(p.index));
+                if (s.remaining.isEmpty()) {
+                    it.remove();
+                    continue;
+                }
+
+                // 결과가 없는 첫 point 가 돌던 point
+                Point inFlight = s.remaining.remove(0);
+                int n = crashes.merge(inFlight.index, 1, Integer::sum);
+                String why = timedOut ? "timed out on point #" + inFlight.index
+                        : "exited with " + exit + " on point #" + inFlight.index;
+                if (n >= maxAttempts) {
+                    System.out.println("[Sweep] shard " + s.id + " " + why + ", giving up on it after " + n
+                            + " attempt(s), see " + logFile(s));
+                    out.failed.add(inFlight);
+                } else {
+                    s.remaining.add(inFlight);
+                }
+                if (s.remaining.isEmpty()) {
+                    it.remove();
+                    continue;
+                }
+                System.out.println("[Sweep] shard " + s.id + " " + why + ", retrying " + s.remaining.size()
+                        + " point(s)");
+                launch(s);
+                out.launches++;
+                out.retries++;
+            }
+        }
+
+        out.results.addAll(done.values());
+        out.failed.sort(Comparator.comparingInt(p -> p.index));
+        out.mergedFile = workDir.resolve("merged.tsv");
+        try (BufferedWriter w = Files.newBufferedWriter(out.mergedFile, StandardCharsets.UTF_8)) {
+            w.write("index\tkind\thosts\tvms\ttopo\tpercentile\ttrafficCost\tactiveHosts\tseconds\n");
+            for (PointResult r : out.results) w.write(r.toLine() + "\n");
+        }
+        return out;
+    }
+
+    private void launch(Shard s) throws IOException {
+        s.attempts++;
+        Path pointsFile = workDir.resolve("shard-" + s.id + "-points.tsv");
+        s.resultFile = workDir.resolve("shard-" + s.id + "-attempt-" + s.attempts + ".tsv");
+        s.readOffset = 0;
+        try (BufferedWriter w = Files.newBufferedWriter(pointsFile, StandardCharsets.UTF_8)) {
+            for (Point p : s.remaining) w.write(p.toLine() + "\n");
+        }
+        Files.deleteIfExists(s.resultFile);
+
+        List<String> cmd = new ArrayList<>();
+        cmd.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (heap != null) cmd.add("-Xmx" + heap);
+        if (directMemory != null) cmd.add("-XX:MaxDirectMemorySize=" + directMemory);
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add(SweepWorker.class.getName());
+        cmd.add(pointsFile.toString());
+        cmd.add(s.resultFile.toString());
+
+        File log = logFile(s).toFile();
+        s.process = new ProcessBuilder(cmd)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(log))
+                .start();
+        s.lastProgressNanos = System.nanoTime();
+    }
+
+    private Path logFile(Shard s) {
+        return workDir.resolve("shard-" + s.id + ".log");
+    }
+
+    /** 결과 파일에 새로 붙은 완전한 줄만 읽어서 done 에 넣고 바로 출력 */
+    private void collect(Shard s, Map<Integer, PointResult> done) throws IOException {
+        if (!Files.exists(s.resultFile)) return;
+        try (RandomAccessFile f = new RandomAccessFile(s.resultFile.toFile(), "r")) {
+            long len = f.length();
+            if (len <= s.readOffset) return;
+            byte[] buf = new byte[(int) (len - s.readOffset)];
+            f.seek(s.readOffset);
+            f.readFully(buf);
+            int lineStart = 0;
+            for (int i = 0; i < buf.length; i++) {
+                if (buf[i] != '\n') continue;
+                String line = new String(buf, lineStart, i - lineStart, StandardCharsets.UTF_8);
+                PointResult r = PointResult.parse(line);
+                s.lastProgressNanos = System.nanoTime();
+                if (done.putIfAbsent(r.point.index, r) == null) {
+                    System.out.printf("[Sweep] #%d %s host=%d vm=%d %s → traffic = %.2f, activeHosts = %d (%.1fs, shard %d)%n",
+                            r.point.index, r.point.kind, r.point.hostCount, r.point.vmCount, r.point.topo,
+                            r.trafficCost, r.activeHosts, r.seconds, s.id);
+                }
+                lineStart = i + 1;
+            }
+            // 끝나지 않은 마지막 줄은 다음에 다시 읽는다
+            s.readOffset += lineStart;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package doit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SweepCoordinator 가 띄우는 worker JVM 진입점.
+ *
+ *   java -Xmx.. doit.SweepWorker <point 파일> <결과 파일>
+ *
+ * point 를 순서대로 실행하고, 하나 끝날 때마다 결과 파일에 한 줄 append + flush 한다
+ * (중간에 죽어도 끝난 point 는 coordinator 가 가져가고 나머지만 다시 보낸다).
+ *
+ * 워크로드는 double[n][n] 이 이 JVM heap 의 1 / DENSE_HEAP_SHARE 안에 들어가면 기존 실험과 같은
+ * core.createVmList / createTrafficMatrix, 아니면 WorkloadGenerator 의 UNIFORM (같은 분포) 을
+ * off-heap PackedTrafficStore 에 만든다. 한계를 -Xmx 에서 정하므로 coordinator 가 준 heap 과 항상 맞는다
+ * (기본 1g 이면 VM 약 8000 까지 dense).
+ */
+public class SweepWorker {
+
+    /** dense 행렬이 쓸 수 있는 heap 비율의 역수 (나머지는 core / workspace / GC 여유) */
+    private static final int DENSE_HEAP_SHARE = 2;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: SweepWorker <points file> <result file>");
+            System.exit(2);
+        }
+        List<String> lines = Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8);
+        TrafficSimulationCore core = new TrafficSimulationCore();
+        core.setVerbose(false);
+
+        try (BufferedWriter out = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (String line : lines) {
+                if (line.isBlank()) continue;
+                SweepCoordinator.PointResult r = run(core, SweepCoordinator.Point.parse(line));
+                out.write(r.toLine());
+                out.write('\n');
+                out.flush();
+            }
+        }
+    }
+
+    static SweepCoordinator.PointResult run(TrafficSimulationCore core, SweepCoordinator.Point p) {
+        long t0 = System.nanoTime();
+        List<TrafficSimulationCore.HostInfo> hosts = core.createHostList(p.hostCount);
+        List<TrafficSimulationCore.VmInfo> vms;
+        TrafficMatrix traffic;
+        if (p.vmCount <= denseLimit(Runtime.getRuntime().maxMemory())) {
+            vms = core.createVmList(p.vmCount);
+            traffic = TrafficMatrix.of(core.createTrafficMatrix(p.vmCount));
+        } else {
+            WorkloadGenerator gen = new WorkloadGenerator(1);
+            vms = gen.createVmList(p.vmCount);
+            traffic = gen.createPackedTraffic(p.vmCount, WorkloadGenerator.Shape.UNIFORM);
+        }
+
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> proposed =
+                core.placeVmsProposed(hosts, vms, traffic, p.supernodePercentile, p.topo, 0.0);
+        double cost = core.calcTrafficCost(proposed, traffic, p.topo);
+        int active = core.countActiveHosts(proposed);
+        return new SweepCoordinator.PointResult(p, cost, active, (System.nanoTime() - t0) / 1e9);
+    }
+
+    /** maxHeapBytes 에서 double[n][n] 으로 둘 수 있는 최대 VM 수 */
+    static int denseLimit(long maxHeapBytes) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) Math.sqrt(maxHeapBytes / (DENSE_HEAP_SHARE * 8.0)));
+    }
+}
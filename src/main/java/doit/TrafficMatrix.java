@@ -0,0 +1,39 @@
+package doit;
+
+/**
+ * VM 간 트래픽 조회 인터페이스.
+ * Core 알고리즘은 traffic[a][b] 대신 이 인터페이스로 읽는다 (대칭 행렬, 대각선 = 0 가정).
+ */
+public interface TrafficMatrix {
+
+    /** VM 수 (= 행렬 한 변의 크기) */
+    int size();
+
+    /** VM a ↔ VM b 사이 트래픽 */
+    double get(int a, int b);
+
+    /** forEachPairWith 의 콜백: a 는 ids 중 하나, b 는 a 가 아닌 VM, t != 0 */
+    interface PairVisitor {
+        void visit(int a, int b, double t);
+    }
+
+    /**
+     * ids (오름차순, 중복 없음) 의 VM 각각과 나머지 모든 VM 사이의 0 이 아닌 트래픽을 훑는다.
+     * ids 안의 쌍은 (a, b), (b, a) 로 두 번 나온다. 호출 순서는 구현의 저장 순서를 따른다.
+     */
+    default void forEachPairWith(int[] ids, PairVisitor visitor) {
+        int n = size();
+        for (int a : ids) {
+            for (int b = 0; b < n; b++) {
+                if (b == a) continue;
+                double t = get(a, b);
+                if (t != 0.0) visitor.visit(a, b, t);
+            }
+        }
+    }
+
+    /** 기존 double[n][n] 행렬을 그대로 감싼다 (복사 없음) */
+    static TrafficMatrix of(double[][] m) {
+        return new DenseTrafficMatrix(m);
+    }
+}
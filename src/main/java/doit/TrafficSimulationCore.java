@@ -1,14 +1,178 @@
 package doit;
 
+import java.lang.management.ManagementFactory;
 import java.util.*;
 
 public class TrafficSimulationCore {
 
+    /** 단계별 지연 / 작업량 계측 (기본: 기록 안 함) */
+    private ConsolidationMetrics metrics = ConsolidationMetrics.NOOP;
+
+    public void setMetrics(ConsolidationMetrics metrics) {
+        this.metrics = (metrics == null) ? ConsolidationMetrics.NOOP : metrics;
+    }
+
+    public ConsolidationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /** "[Proposed] Host .." 같은 진행 로그 출력 여부 (튜너처럼 수백 번 돌릴 때 끈다) */
+    private boolean verbose = true;
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    private void log(String line) {
+        if (verbose) System.out.println(line);
+    }
+
+    /**
+     * Proposed 해제 후보 점수 S_i = wU·U + wB·B + wR·R 의 가중치 (기본 0.5 / 0.3 / 0.2).
+     * ParameterTuner 가 토폴로지별로 찾은 값을 넣는 용도.
+     */
+    private double weightU = 0.5, weightB = 0.3, weightR = 0.2;
+
+    public void setReleaseScoreWeights(double u, double b, double r) {
+        if (u < 0 || b < 0 || r < 0 || u + b + r <= 0) {
+            throw new IllegalArgumentException("score weights must be >= 0 and not all zero: " + u + ", " + b + ", " + r);
+        }
+        this.weightU = u;
+        this.weightB = b;
+        this.weightR = r;
+    }
+
+    public double[] getReleaseScoreWeights() {
+        return new double[]{weightU, weightB, weightR};
+    }
+
+    /** Phase 0 초기 배치 방식 */
+    public enum InitialPlacement {
+        /** VM 리스트 순서 first-fit (기존) */
+        FIRST_FIT,
+        /** 트래픽 gain 기준 greedy graph-growing (GraphGrowingPlacement) */
+        GRAPH_GROWING
+    }
+
+    /**
+     * placeVmsProposed / placeVmsSingleRelease / placeVmsSercon(traffic 버전) 의 Phase 0.
+     * 기본은 FIRST_FIT (기존 결과 그대로).
+     */
+    private InitialPlacement initialPlacement = InitialPlacement.FIRST_FIT;
+
+    public void setInitialPlacement(InitialPlacement initialPlacement) {
+        if (initialPlacement == null) throw new IllegalArgumentException("initialPlacement must not be null");
+        this.initialPlacement = initialPlacement;
+    }
+
+    public InitialPlacement getInitialPlacement() {
+        return initialPlacement;
+    }
+
+    /**
+     * Proposed 해제 시도의 비용 판정을 표본 추정으로 먼저 거른다 (null 이면 항상 exact, 기본).
+     * 추정 구간 전체가 reject 쪽이면 추정만으로 reject 하고, 나머지 (accept 가능성이 있는 시도) 는
+     * exact delta 로 판정한다. accept 는 항상 exact 값으로 반영되므로 현재 비용은 추정 오차가 쌓이지 않는다.
+     * 같은 TrafficMatrix 로 만든 estimator 일 때만 쓰이며, 켜져 있으면 해제 결과 캐시는 쓰지 않는다.
+     */
+    private SampledCostEstimator costScreening;
+
+    public void setCostScreening(SampledCostEstimator estimator) {
+        this.costScreening = estimator;
+    }
+
+    public SampledCostEstimator getCostScreening() {
+        return costScreening;
+    }
+
+    /**
+     * migratePartition 이 파티션의 heavy neighbor 가 있는 host / rack (+ fallback) 만 점수를 매긴다
+     * (null 이면 들어가는 host 전부, 기본). 같은 TrafficMatrix 로 만든 index 일 때만 쓰인다.
+     * verifyShortlist 면 전체 scan 도 같이 돌려 그 결과를 쓰고, shortlist 가 더 비싼 host 를 골랐던
+     * 횟수를 SHORTLIST_MISSES 로 센다. shortlist 가 켜져 있으면 해제 결과 캐시는 쓰지 않는다.
+     */
+    private NeighborIndex neighborIndex;
+    private boolean verifyShortlist;
+
+    public void setNeighborIndex(NeighborIndex neighborIndex) {
+        this.neighborIndex = neighborIndex;
+    }
+
+    public NeighborIndex getNeighborIndex() {
+        return neighborIndex;
+    }
+
+    public void setVerifyShortlist(boolean verifyShortlist) {
+        this.verifyShortlist = verifyShortlist;
+    }
+
+    public boolean isVerifyShortlist() {
+        return verifyShortlist;
+    }
+
+    /**
+     * Proposed 해제 판정에 link 혼잡을 더한다: 비용 = 트래픽 + migration + congestionWeight · overload
+     * (overload = LinkLoadEngine 의 용량 초과 트래픽 합). 0 이면 기존과 같음 (기본).
+     * 혼잡은 해제 시도마다 옮긴 VM 의 row 만 다시 싣는다. 켜져 있으면 해제 결과 캐시는 쓰지 않는다.
+     */
+    private double congestionWeight = 0.0;
+    private double hostLinkCapacity = 1.0;
+    /** NaN 이면 토폴로지 기본 oversubscription */
+    private double rackOversubscription = Double.NaN, podOversubscription = Double.NaN;
+
+    public void setCongestionWeight(double congestionWeight) {
+        if (!(congestionWeight >= 0)) throw new IllegalArgumentException("congestionWeight must be >= 0");
+        this.congestionWeight = congestionWeight;
+    }
+
+    public double getCongestionWeight() {
+        return congestionWeight;
+    }
+
+    /** host ↔ ToR link 용량 (트래픽 행렬과 같은 단위), 위 계층 oversubscription 은 LinkLoadEngine 생성자 참고 */
+    public void setLinkCapacity(double hostLinkCapacity, double rackOversubscription, double podOversubscription) {
+        if (!(hostLinkCapacity > 0)) throw new IllegalArgumentException("hostLinkCapacity must be > 0");
+        if (!(rackOversubscription > 0) || !(podOversubscription > 0)) {
+            throw new IllegalArgumentException("oversubscription must be > 0");
+        }
+        this.hostLinkCapacity = hostLinkCapacity;
+        this.rackOversubscription = rackOversubscription;
+        this.podOversubscription = podOversubscription;
+    }
+
+    /** 위 계층은 토폴로지 기본 oversubscription */
+    public void setLinkCapacity(double hostLinkCapacity) {
+        if (!(hostLinkCapacity > 0)) throw new IllegalArgumentException("hostLinkCapacity must be > 0");
+        this.hostLinkCapacity = hostLinkCapacity;
+        this.rackOversubscription = Double.NaN;
+        this.podOversubscription = Double.NaN;
+    }
+
+    public double getHostLinkCapacity() {
+        return hostLinkCapacity;
+    }
+
+    /** consolidateProposed 가 쓰는 link 모델 (workspace 의 engine 을 reset 해서 재사용) */
+    private LinkLoadEngine linkLoadEngine(ConsolidationWorkspace ws, List<HostInfo> hosts, Topology topo) {
+        return Double.isNaN(rackOversubscription)
+                ? ws.linkLoadEngine(hosts, topo, hostLinkCapacity, LinkLoadEngine.defaultRackOversubscription(topo), 1.0)
+                : ws.linkLoadEngine(hosts, topo, hostLinkCapacity, rackOversubscription, podOversubscription);
+    }
+
+    /** placeVmsProposed 의 해제 시도 결과 캐시 (같은 core 로 반복 실행할 때 재사용) */
+    private final ReleaseAttemptCache releaseCache = new ReleaseAttemptCache();
+
+    public ReleaseAttemptCache getReleaseCache() {
+        return releaseCache;
+    }
+
     public enum Topology {
         TREE, FAT_TREE, VL2
     }
 
     /** Host 정보 */
+    private static final long[] NO_EXTRA = new long[0];
+
     public static class HostInfo {
         public final int id;
         public final int rackId;
@@ -17,8 +181,18 @@ public class TrafficSimulationCore {
         public final long totalMips;
         public long remainingRam;
         public long remainingMips;
+        /**
+         * RAM / MIPS 외 자원 (ResourceTable.Dimension 의 NIC_BANDWIDTH 부터 순서대로), 없으면 길이 0.
+         * first-fit-nd (ResourceTable) 와 WhatIfEvaluator 만 본다. 나머지 경로는 extra 요구가 있는 VM 을 거절 (requireRamMipsOnly)
+         */
+        public final long[] extraCapacity;
+        public final long[] remainingExtra;
 
         public HostInfo(int id, int rackId, int podId, long totalRam, long totalMips) {
+            this(id, rackId, podId, totalRam, totalMips, NO_EXTRA);
+        }
+
+        public HostInfo(int id, int rackId, int podId, long totalRam, long totalMips, long[] extraCapacity) {
             this.id = id;
             this.rackId = rackId;
             this.podId = podId;
@@ -26,6 +200,8 @@ public class TrafficSimulationCore {
             this.totalMips = totalMips;
             this.remainingRam = totalRam;
             this.remainingMips = totalMips;
+            this.extraCapacity = extraCapacity.length == 0 ? NO_EXTRA : extraCapacity.clone();
+            this.remainingExtra = extraCapacity.length == 0 ? NO_EXTRA : extraCapacity.clone();
         }
 
         public long usedRam()  { return totalRam  - remainingRam; }
@@ -37,11 +213,33 @@ public class TrafficSimulationCore {
         public final int id;
         public final long ram;
         public final long mips;
+        /** RAM / MIPS 외 요구량 (HostInfo.extraCapacity 와 같은 순서), 없으면 길이 0 */
+        public final long[] extraDemand;
 
         public VmInfo(int id, long ram, long mips) {
+            this(id, ram, mips, NO_EXTRA);
+        }
+
+        public VmInfo(int id, long ram, long mips, long[] extraDemand) {
             this.id = id;
             this.ram = ram;
             this.mips = mips;
+            this.extraDemand = extraDemand.length == 0 ? NO_EXTRA : extraDemand.clone();
+        }
+    }
+
+    /**
+     * RAM / MIPS 만 검사하고 차감하는 배치 / 통합 경로의 입력 검사.
+     * extra 차원 (NIC / IOPS ...) 요구가 있는 VM 을 받으면 그 차원을 넘겨 담게 되므로 IllegalArgumentException.
+     */
+    static void requireRamMipsOnly(Iterable<VmInfo> vms, String path) {
+        for (VmInfo v : vms) {
+            for (long d : v.extraDemand) {
+                if (d > 0) {
+                    throw new IllegalArgumentException(path + " only checks RAM / MIPS but VM " + v.id
+                            + " demands extra resources, use " + PlacementAlgorithms.FIRST_FIT_ND);
+                }
+            }
         }
     }
 
@@ -80,9 +278,10 @@ public class TrafficSimulationCore {
     public List<HostInfo> copyHosts(List<HostInfo> list) {
         List<HostInfo> res = new ArrayList<>();
         for (HostInfo h : list) {
-            HostInfo n = new HostInfo(h.id, h.rackId, h.podId, h.totalRam, h.totalMips);
+            HostInfo n = new HostInfo(h.id, h.rackId, h.podId, h.totalRam, h.totalMips, h.extraCapacity);
             n.remainingRam = h.remainingRam;
             n.remainingMips = h.remainingMips;
+            System.arraycopy(h.remainingExtra, 0, n.remainingExtra, 0, h.remainingExtra.length);
             res.add(n);
         }
         return res;
@@ -91,7 +290,7 @@ public class TrafficSimulationCore {
     public List<VmInfo> copyVms(List<VmInfo> list) {
         List<VmInfo> res = new ArrayList<>();
         for (VmInfo v : list) {
-            res.add(new VmInfo(v.id, v.ram, v.mips));
+            res.add(new VmInfo(v.id, v.ram, v.mips, v.extraDemand));
         }
         return res;
     }
@@ -160,23 +359,112 @@ public class TrafficSimulationCore {
         }
     }
 
+    /**
+     * dist() 를 단계별 상수로 풀어 놓은 것: {같은 rack, 같은 pod(다른 rack), 다른 pod}.
+     * 같은 host 는 항상 0. 배열 기반 비용 계산(PlacementState 등)에서 사용.
+     */
+    public static double[] distanceLevels(Topology topo) {
+        switch (topo) {
+            case TREE:
+                return new double[]{1.0, 20.0, 20.0};
+            case FAT_TREE:
+                return new double[]{1.0, 5.0, 20.0};
+            case VL2:
+                return new double[]{1.0, 5.0, 5.0};
+            default:
+                return new double[]{20.0, 20.0, 20.0};
+        }
+    }
+
     public int countActiveHosts(Map<VmInfo, HostInfo> pm) {
         return new HashSet<>(pm.values()).size();
     }
 
     public double calcTrafficCost(Map<VmInfo, HostInfo> pm, double[][] t, Topology topo) {
+        return calcTrafficCost(pm, TrafficMatrix.of(t), topo);
+    }
+
+    public double calcTrafficCost(Map<VmInfo, HostInfo> pm, TrafficMatrix t, Topology topo) {
         double total = 0.0;
-        List<VmInfo> vms = new ArrayList<>(pm.keySet());
 
-        for (int i = 0; i < vms.size(); i++) {
-            for (int j = i + 1; j < vms.size(); j++) {
-                VmInfo a = vms.get(i);
-                VmInfo b = vms.get(j);
-                HostInfo ha = pm.get(a);
-                HostInfo hb = pm.get(b);
-                if (ha == null || hb == null) continue;
-                total += t[a.id][b.id] * dist(ha, hb, topo);
+        // placement 를 (vm id, host) 배열로 한 번 펼쳐 놓고 pair 루프에서는 map 조회 없이 사용
+        ConsolidationWorkspace ws = ConsolidationWorkspace.get();
+        int n = pm.size();
+
+        // dense 행렬이면 row 를 통째로 CostKernel 에 넘긴다 (VM id 인덱스 배열)
+        int idBound = 0;
+        for (VmInfo v : pm.keySet()) idBound = Math.max(idBound, v.id + 1);
+        double[][] rows = denseRows(t, idBound);
+        if (rows != null) {
+            ws.resetIdKeys(idBound);
+            for (Map.Entry<VmInfo, HostInfo> e : pm.entrySet()) {
+                if (e.getValue() != null) ws.setIdKey(e.getKey().id, e.getValue());
             }
+            double[] lv = distanceLevels(topo);
+            for (int i = 0; i < idBound; i++) {
+                if (ws.idHost[i] < 0) continue;
+                total += CostKernel.INSTANCE.rowCost(rows[i], i + 1, idBound,
+                        ws.idHost, ws.idRack, ws.idPod, ws.idHost[i], ws.idRack[i], ws.idPod[i],
+                        lv[0], lv[1], lv[2]);
+            }
+            metrics.increment(ConsolidationMetrics.Counter.PAIR_EVALUATIONS, (long) n * (n - 1) / 2);
+            return total;
+        }
+
+        ws.ensurePlacement(n);
+        int[] ids = ws.vmIds;
+        HostInfo[] hs = ws.vmHosts;
+        int idx = 0;
+        for (Map.Entry<VmInfo, HostInfo> e : pm.entrySet()) {
+            ids[idx] = e.getKey().id;
+            hs[idx] = e.getValue();
+            idx++;
+        }
+
+        for (int i = 0; i < n; i++) {
+            HostInfo ha = hs[i];
+            if (ha == null) continue;
+            for (int j = i + 1; j < n; j++) {
+                HostInfo hb = hs[j];
+                if (hb == null) continue;
+                total += t.get(ids[i], ids[j]) * dist(ha, hb, topo);
+            }
+        }
+        Arrays.fill(hs, 0, n, null);   // host 참조를 workspace 에 남겨두지 않음
+        metrics.increment(ConsolidationMetrics.Counter.PAIR_EVALUATIONS, (long) n * (n - 1) / 2);
+        return total;
+    }
+
+    /** CostKernel 로 row 를 직접 훑을 수 있으면 내부 행렬, 아니면 null */
+    private static double[][] denseRows(TrafficMatrix t, int idBound) {
+        if (!(t instanceof DenseTrafficMatrix)) return null;
+        double[][] m = ((DenseTrafficMatrix) t).raw();
+        return (m.length >= idBound && (idBound == 0 || m[0].length >= idBound)) ? m : null;
+    }
+
+    // ==========================================================
+    //  Migration 비용 모델
+    // ==========================================================
+
+    /** VM 하나를 from → to 로 옮기는 비용: 복사할 RAM(MB) × 토폴로지 거리 */
+    public double migrationCost(VmInfo v, HostInfo from, HostInfo to, Topology topo) {
+        if (from == null || to == null) return 0.0;
+        return v.ram * dist(from, to, topo);
+    }
+
+    /** before → after 배치 사이에 발생한 전체 migration 비용 (VM id / Host id 기준 비교) */
+    public double calcMigrationCost(Map<VmInfo, HostInfo> before,
+                                    Map<VmInfo, HostInfo> after,
+                                    Topology topo) {
+        Map<Integer, HostInfo> origin = new HashMap<>();
+        for (Map.Entry<VmInfo, HostInfo> e : before.entrySet()) {
+            origin.put(e.getKey().id, e.getValue());
+        }
+        double total = 0.0;
+        for (Map.Entry<VmInfo, HostInfo> e : after.entrySet()) {
+            HostInfo from = origin.get(e.getKey().id);
+            if (from == null || from.id == e.getValue().id) continue;
+            total += migrationCost(e.getKey(), from, e.getValue(), topo);
         }
         return total;
     }
@@ -186,6 +474,7 @@ public class TrafficSimulationCore {
     // ==========================================================
 
     public Map<VmInfo, HostInfo> placeVmsFFD(List<HostInfo> hosts, List<VmInfo> vms) {
+        requireRamMipsOnly(vms, "FFD");
         Map<VmInfo, HostInfo> pm = new HashMap<>();
 
         vms.sort((a, b) -> Long.compare(b.mips, a.mips)); // 큰 VM 먼저
@@ -203,14 +492,13 @@ public class TrafficSimulationCore {
         return pm;
     }
 
-    // ==========================================================
-    //  (2) Sercon (간단 구현)
-    // ==========================================================
-
-    public Map<VmInfo, HostInfo> placeVmsSercon(List<HostInfo> hosts, List<VmInfo> vms) {
+    /**
+     * Sercon / Proposed 의 Phase 0 에서 쓰는 first-fit 배치 (VM 리스트 순서 그대로).
+     * 통합 전 초기 배치(before)를 따로 얻고 싶을 때도 사용.
+     */
+    public Map<VmInfo, HostInfo> placeVmsFirstFit(List<HostInfo> hosts, List<VmInfo> vms) {
+        requireRamMipsOnly(vms, "first-fit");
         Map<VmInfo, HostInfo> placement = new HashMap<>();
-
-        // 초기 FFD 배치
         for (VmInfo v : vms) {
             for (HostInfo h : hosts) {
                 if (h.remainingRam >= v.ram && h.remainingMips >= v.mips) {
@@ -221,7 +509,36 @@ public class TrafficSimulationCore {
                 }
             }
         }
+        return placement;
+    }
+
+    /** setInitialPlacement 로 고른 Phase 0 */
+    private Map<VmInfo, HostInfo> initialPlacement(List<HostInfo> hosts, List<VmInfo> vms,
+                                                   TrafficMatrix traffic, Topology topo) {
+        if (initialPlacement == InitialPlacement.GRAPH_GROWING) {
+            return new GraphGrowingPlacement().place(hosts, vms, traffic, topo);
+        }
+        return placeVmsFirstFit(hosts, vms);
+    }
+
+    // ==========================================================
+    //  (2) Sercon (간단 구현)
+    // ==========================================================
+
+    public Map<VmInfo, HostInfo> placeVmsSercon(List<HostInfo> hosts, List<VmInfo> vms) {
+        // 초기 FFD 배치
+        return consolidateSercon(hosts, placeVmsFirstFit(hosts, vms));
+    }
+
+    /** Phase 0 을 setInitialPlacement 설정대로 하는 버전 */
+    public Map<VmInfo, HostInfo> placeVmsSercon(List<HostInfo> hosts, List<VmInfo> vms,
+                                                TrafficMatrix traffic, Topology topo) {
+        return consolidateSercon(hosts, initialPlacement(hosts, vms, traffic, topo));
+    }
 
+    /** Sercon 의 host 비우기 단계만 (placement 는 그 자리에서 바뀌고 그대로 반환) */
+    public Map<VmInfo, HostInfo> consolidateSercon(List<HostInfo> hosts, Map<VmInfo, HostInfo> placement) {
+        requireRamMipsOnly(placement.keySet(), "Sercon");
         // 클러스터 부하 계산
         double clusterCpu = 0, clusterMem = 0;
         for (HostInfo h : hosts) {
@@ -231,53 +548,75 @@ public class TrafficSimulationCore {
         double lambda = clusterCpu / (clusterCpu + clusterMem + 1e-9);
 
         // Host load 기준 정렬 (낮은 부하 → 비울 타겟)
-        List<HostInfo> sortedHosts = new ArrayList<>(hosts);
-        Comparator<HostInfo> loadCmp = (a, b) -> {
-            double la = lambda * ((double)a.usedMips()/a.totalMips)
-                    + (1-lambda) * ((double)a.usedRam()/a.totalRam);
-            double lb = lambda * ((double)b.usedMips()/b.totalMips)
-                    + (1-lambda) * ((double)b.usedRam()/b.totalRam);
-            return Double.compare(la, lb);
-        };
-        sortedHosts.sort(loadCmp);
-
-        for (HostInfo target : sortedHosts) {
-            List<VmInfo> inside = new ArrayList<>();
+        // comparator 안에서 매번 load 를 다시 계산하지 않고, 정렬 직전에 key 배열로 한 번만 계산
+        ConsolidationWorkspace ws = ConsolidationWorkspace.get();
+        int hostCount = hosts.size();
+        ws.ensureSort(hostCount);
+        for (int i = 0; i < hostCount; i++) {
+            ws.keys[i] = hostLoad(hosts.get(i), lambda);
+            ws.order[i] = i;
+        }
+        ws.stableSortOrder(hostCount, false);
+        ws.ensureHosts(hostCount);
+        int[] sortedHosts = ws.hostOrder;
+        System.arraycopy(ws.order, 0, sortedHosts, 0, hostCount);
+
+        // fit 검사는 rack / pod 집계로 가지치기 (target 은 순위에서 빼는 방식으로 제외)
+        ResidualIndex index = ws.residualIndex(hosts);
+        int[] rank = ws.hostRank;
+
+        List<VmInfo> inside = new ArrayList<>();
+        for (int s = 0; s < hostCount; s++) {
+            int targetIdx = sortedHosts[s];
+            HostInfo target = hosts.get(targetIdx);
+            inside.clear();
             for (Map.Entry<VmInfo, HostInfo> e : placement.entrySet()) {
                 if (e.getValue().id == target.id) inside.add(e.getKey());
             }
             if (inside.isEmpty()) continue;
 
-            List<HostInfo> candidates = new ArrayList<>(hosts);
-            candidates.remove(target);
-            candidates.sort((a, b) -> -loadCmp.compare(a, b)); // 부하 높은 순
+            // target 을 뺀 나머지 host 를 부하 높은 순으로 (안정 정렬)
+            int candidateCount = 0;
+            for (int i = 0; i < hostCount; i++) {
+                HostInfo h = hosts.get(i);
+                ws.keys[i] = hostLoad(h, lambda);
+                if (h != target) ws.order[candidateCount++] = i;
+            }
+            ws.stableSortOrder(candidateCount, true);
+            Arrays.fill(rank, 0, hostCount, Integer.MAX_VALUE);
+            for (int c = 0; c < candidateCount; c++) rank[ws.order[c]] = c;
+            index.rankHosts(rank);
 
             boolean allMoved = true;
             for (VmInfo vm : inside) {
-                boolean placed = false;
-                for (HostInfo h : candidates) {
-                    if (h.remainingRam >= vm.ram && h.remainingMips >= vm.mips) {
-                        placement.put(vm, h);
-                        target.remainingRam += vm.ram;
-                        target.remainingMips += vm.mips;
-                        h.remainingRam -= vm.ram;
-                        h.remainingMips -= vm.mips;
-                        placed = true;
-                        break;
-                    }
-                }
-                if (!placed) {
+                // 부하 높은 순 first-fit 과 같은 host (들어가는 후보 중 순위가 가장 앞)
+                int hi = index.firstFitRanked(vm.ram, vm.mips);
+                if (hi < 0) {
                     allMoved = false;
                     break;
                 }
+                HostInfo h = hosts.get(hi);
+                placement.put(vm, h);
+                target.remainingRam += vm.ram;
+                target.remainingMips += vm.mips;
+                h.remainingRam -= vm.ram;
+                h.remainingMips -= vm.mips;
+                index.sync(hi);
+                index.sync(targetIdx);
             }
             if (allMoved) {
-                System.out.println("[Sercon] Host " + target.id + " emptied.");
+                log("[Sercon] Host " + target.id + " emptied.");
             }
         }
         return placement;
     }
 
+    /** Sercon host load = λ·CPU + (1-λ)·MEM */
+    private static double hostLoad(HostInfo h, double lambda) {
+        return lambda * ((double) h.usedMips() / h.totalMips)
+                + (1 - lambda) * ((double) h.usedRam() / h.totalRam);
+    }
+
     // ==========================================================
     //  (3) Proposed: S_i + Traffic-aware Partitioning
     // ==========================================================
@@ -287,18 +626,7 @@ public class TrafficSimulationCore {
         HostInfo best = null;
 
         for (HostInfo h : hosts) {
-            double uCpu = (double) h.usedMips() / h.totalMips;
-            double uMem = (double) h.usedRam() / h.totalRam;
-
-            double U = 1 - (uCpu + uMem) / 2; // 남은 자원 비율
-            double B = (Math.max(uCpu, uMem) == 0)
-                    ? 1.0
-                    : 1.0 - Math.abs(uCpu - uMem) / Math.max(uCpu, uMem);
-            double R = (uCpu == 0 || uMem == 0)
-                    ? 0.0
-                    : Math.min(1 - uCpu, 1 - uMem) / Math.max(uCpu, uMem);
-
-            double S = 0.5 * U + 0.3 * B + 0.2 * R;
+            double S = releaseScore(h);
 
             if (S > bestScore) {
                 bestScore = S;
@@ -308,87 +636,123 @@ public class TrafficSimulationCore {
         return best;
     }
 
-    private List<List<VmInfo>> partitionCandidateHostVms(
-            List<VmInfo> vms, double[][] traffic, int k, double percentile) {
-
-        int n = vms.size();
-        boolean[] visited = new boolean[n];
-
-        double[] edges = new double[n * n];
-        int idx = 0;
-        for (int i = 0; i < n; i++)
-            for (int j = i + 1; j < n; j++)
-                edges[idx++] = traffic[vms.get(i).id][vms.get(j).id];
-
-        Arrays.sort(edges, 0, idx);
-        double threshold = edges[(int)(idx * percentile)];
-
-        List<List<VmInfo>> clusters = new ArrayList<>();
-
-        for (int i = 0; i < n; i++) {
-            if (visited[i]) continue;
-            Queue<Integer> q = new LinkedList<>();
-            q.add(i);
-            visited[i] = true;
-
-            List<VmInfo> c = new ArrayList<>();
-            while (!q.isEmpty()) {
-                int x = q.poll();
-                c.add(vms.get(x));
-                for (int y = 0; y < n; y++) {
-                    if (!visited[y] &&
-                            traffic[vms.get(x).id][vms.get(y).id] >= threshold) {
-                        visited[y] = true;
-                        q.add(y);
-                    }
-                }
-            }
-            clusters.add(c);
+    /**
+     * 파티션을 크기 내림차순으로 정렬 (joint packing / migration 순서).
+     * 크기 = RAM, MIPS 를 각각 가장 큰 host 용량으로 나눈 값의 합, 같으면 원래 순서.
+     */
+    @SuppressWarnings("unchecked")
+    static void sortPartitionsBySize(List<List<VmInfo>> parts, List<HostInfo> hosts) {
+        long scaleRam = 1, scaleMips = 1;
+        for (HostInfo h : hosts) {
+            scaleRam = Math.max(scaleRam, h.totalRam);
+            scaleMips = Math.max(scaleMips, h.totalMips);
         }
-
-        // 너무 많은 클러스터면 작은 것부터 합치기
-        while (clusters.size() > k) {
-            clusters.sort(Comparator.comparingInt(List::size));
-            List<VmInfo> a = clusters.remove(0);
-            List<VmInfo> b = clusters.remove(0);
-            a.addAll(b);
-            clusters.add(a);
+        double sr = scaleRam, sm = scaleMips;
+        // 크기는 ws.keys 에 한 번만 계산하고 index 를 안정 정렬한 뒤 그 순서로 다시 넣는다
+        ConsolidationWorkspace ws = ConsolidationWorkspace.get();
+        int n = parts.size();
+        ws.ensureSort(n);
+        ws.ensureItems(n);
+        for (int p = 0; p < n; p++) {
+            List<VmInfo> part = parts.get(p);
+            double s = 0;
+            for (VmInfo v : part) s += v.ram / sr + v.mips / sm;
+            ws.keys[p] = s;
+            ws.order[p] = p;
+            ws.items[p] = part;
         }
-
-        return clusters;
+        ws.stableSortOrder(n, true);
+        for (int p = 0; p < n; p++) parts.set(p, (List<VmInfo>) ws.items[ws.order[p]]);
+        Arrays.fill(ws.items, 0, n, null);
     }
 
-    private boolean canMigrateAllPartitions(
-            List<List<VmInfo>> parts,
-            List<HostInfo> hosts,
-            HostInfo exclude) {
-
-        for (List<VmInfo> part : parts) {
+    /** 파티션별 RAM / MIPS 합을 ws.partRam / ws.partMips 의 [0, parts.size()) 에 채운다 */
+    private static void partitionSums(List<List<VmInfo>> parts, ConsolidationWorkspace ws) {
+        int n = parts.size();
+        ws.ensureParts(n);
+        for (int p = 0; p < n; p++) {
             long ram = 0, mips = 0;
-            for (VmInfo v : part) {
+            for (VmInfo v : parts.get(p)) {
                 ram += v.ram;
                 mips += v.mips;
             }
-            boolean ok = false;
-            for (HostInfo h : hosts) {
-                if (h == exclude) continue;
-                if (h.remainingRam >= ram && h.remainingMips >= mips) {
-                    ok = true;
-                    break;
-                }
+            ws.partRam[p] = ram;
+            ws.partMips[p] = mips;
+        }
+    }
+
+    /**
+     * 파티션 전체를 동시에 옮길 수 있는가 (FeasibilityOracle 로 joint packing).
+     * parts 는 sortPartitionsBySize 로 정렬된 상태여야 한다.
+     */
+    private boolean canMigrateAllPartitions(List<List<VmInfo>> parts, FeasibilityOracle oracle) {
+        long before = oracle.nodeVisits;
+        ConsolidationWorkspace ws = ConsolidationWorkspace.get();
+        partitionSums(parts, ws);
+        boolean ok = oracle.canPack(ws.partRam, ws.partMips, 0, parts.size(), -1, 0, 0);
+        metrics.increment(ConsolidationMetrics.Counter.HOST_EVALUATIONS, oracle.nodeVisits - before);
+        return ok;
+    }
+
+    /**
+     * 정렬된 파티션을 순서대로 migration.
+     * 각 파티션은 비용이 가장 낮은 host 로 가되, 그 host 에 두면 남은 파티션이 함께 들어가지
+     * 않는 경우에는 그 다음으로 싼 host 를 쓴다 (VM 이 released host 에 남는 일을 막음).
+     * oracle / index 는 exclude 가 이미 exclude host 로 맞춰져 있어야 하고, 옮긴 host 는 여기서 sync 한다.
+     * vmHost (VM id → host) 도 여기서 갱신하고, shortlist 는 null 이면 전체 scan.
+     */
+    private void migratePartitions(
+            List<List<VmInfo>> parts,
+            List<HostInfo> hosts,
+            Map<VmInfo, HostInfo> placement,
+            HostInfo exclude,
+            TrafficMatrix traffic,
+            Topology topo,
+            double migrationWeight,
+            FeasibilityOracle oracle,
+            ResidualIndex index,
+            HostInfo[] vmHost,
+            NeighborShortlist shortlist) {
+        ConsolidationWorkspace ws = ConsolidationWorkspace.get();
+        partitionSums(parts, ws);
+        long[] partRam = ws.partRam;
+        long[] partMips = ws.partMips;
+        if (shortlist != null) shortlist.setExclude(exclude);
+        for (int p = 0; p < parts.size(); p++) {
+            int h = migratePartition(parts.get(p), hosts, placement, exclude, traffic, topo, migrationWeight,
+                    oracle, index, shortlist, partRam, partMips, parts.size(), p + 1);
+            if (h >= 0) {
+                oracle.sync(h);
+                index.sync(h);
+                HostInfo target = hosts.get(h);
+                for (VmInfo v : parts.get(p)) vmHost[v.id] = target;
             }
-            if (!ok) return false;
         }
-        return true;
     }
 
-    private void migratePartition(
+    /** neighborIndex 가 이 traffic 용이면 run 동안 쓸 shortlist, 아니면 null */
+    private NeighborShortlist neighborShortlist(ConsolidationWorkspace ws, List<HostInfo> hosts, HostInfo[] vmHost,
+                                                TrafficMatrix traffic, Topology topo) {
+        if (neighborIndex == null || neighborIndex.traffic != traffic) return null;
+        return ws.neighborShortlist(hosts, neighborIndex, vmHost, topo);
+    }
+
+    /** part 를 옮긴 host 의 index 를 돌려준다 (못 옮기면 -1) */
+    private int migratePartition(
             List<VmInfo> part,
             List<HostInfo> hosts,
             Map<VmInfo, HostInfo> placement,
             HostInfo exclude,
-            double[][] traffic,
-            Topology topo) {
+            TrafficMatrix traffic,
+            Topology topo,
+            double migrationWeight,
+            FeasibilityOracle oracle,
+            ResidualIndex index,
+            NeighborShortlist shortlist,
+            long[] partRam,
+            long[] partMips,
+            int count,
+            int rest) {
 
         long ram = 0, mips = 0;
         for (VmInfo v : part) {
@@ -396,45 +760,176 @@ public class TrafficSimulationCore {
             mips += v.mips;
         }
 
-        HostInfo bestHost = null;
+        int bestHost = -1;
         double bestCost = Double.MAX_VALUE;
+        ConsolidationWorkspace ws = ConsolidationWorkspace.get();
+        ws.ensureSort(hosts.size());
+        int fitting = 0;
+        long hostEvals = 0, pairEvals = 0;
+
+        // shortlist: heavy neighbor 의 host / rack 만 −gain (+ migration) 으로 점수
+        int shortBest = -1;
+        if (shortlist != null) {
+            ws.newStamp(traffic.size());
+            for (VmInfo v : part) ws.mark(v.id);
+            long visitsBefore = index.visits, edgesBefore = shortlist.edges;
+            fitting = shortlist.collect(part, ram, mips, ws, index, ws.order);
+            hostEvals += fitting + index.visits - visitsBefore;
+            pairEvals += shortlist.edges - edgesBefore;
+            for (int c = 0; c < fitting; c++) {
+                int hi = ws.order[c];
+                HostInfo h = hosts.get(hi);
+                double cost = -shortlist.gain(hi);
+                if (migrationWeight > 0) {
+                    for (VmInfo v : part) cost += migrationWeight * migrationCost(v, placement.get(v), h, topo);
+                }
+                ws.keys[hi] = cost;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestHost = hi;
+                }
+            }
+            shortBest = bestHost;
+        }
 
-        for (HostInfo h : hosts) {
-            if (h == exclude) continue;
-            if (h.remainingRam < ram || h.remainingMips < mips) continue;
-
-            double cost = 0.0;
-
-            for (VmInfo v : part) {
-                for (Map.Entry<VmInfo, HostInfo> e : placement.entrySet()) {
-                    VmInfo other = e.getKey();
-                    HostInfo otherHost = e.getValue();
-                    if (part.contains(other)) continue;
-
-                    double t = traffic[v.id][other.id];
-                    double d = dist(h, otherHost, topo);
-                    cost += t * d;
+        if (shortlist == null || verifyShortlist) {
+            bestHost = -1;
+            bestCost = Double.MAX_VALUE;
+            fitting = fullScan(part, hosts, placement, traffic, topo, migrationWeight, index, ram, mips, ws);
+            for (int c = 0; c < fitting; c++) {
+                int hi = ws.order[c];
+                if (ws.keys[hi] < bestCost) {
+                    bestCost = ws.keys[hi];
+                    bestHost = hi;
                 }
             }
+            // shortlist 가 고른 host 의 exact 비용이 최선보다 크면 miss
+            if (shortlist != null && bestHost >= 0
+                    && (shortBest < 0 || ws.keys[shortBest] > bestCost + 1e-9 * Math.max(1.0, Math.abs(bestCost)))) {
+                metrics.increment(ConsolidationMetrics.Counter.SHORTLIST_MISSES, 1);
+            }
+        }
 
-            if (cost < bestCost) {
-                bestCost = cost;
-                bestHost = h;
+        // 가장 싼 host 에 두면 남은 파티션이 못 들어가는 경우 → 비용 순으로 다음 후보
+        if (bestHost >= 0 && rest < count) {
+            long before = oracle.nodeVisits;
+            if (!oracle.canPack(partRam, partMips, rest, count, bestHost, ram, mips)) {
+                ws.packingFallbacks++;
+                ws.stableSortOrder(fitting, false);
+                for (int c = 0; c < fitting; c++) {
+                    int hi = ws.order[c];
+                    if (hi == bestHost) continue;
+                    if (oracle.canPack(partRam, partMips, rest, count, hi, ram, mips)) {
+                        bestHost = hi;
+                        break;
+                    }
+                }
+                // 아무 데도 안 되면 가장 싼 host 그대로 (이후 파티션이 남을 수 있음)
             }
+            hostEvals += oracle.nodeVisits - before;
         }
+        metrics.increment(ConsolidationMetrics.Counter.HOST_EVALUATIONS, hostEvals);
+        metrics.increment(ConsolidationMetrics.Counter.PAIR_EVALUATIONS, pairEvals);
 
-        if (bestHost != null) {
+        if (bestHost >= 0) {
+            HostInfo target = hosts.get(bestHost);
             for (VmInfo v : part) {
                 HostInfo old = placement.get(v);
                 if (old != null) {
                     old.remainingRam += v.ram;
                     old.remainingMips += v.mips;
                 }
-                placement.put(v, bestHost);
-                bestHost.remainingRam -= v.ram;
-                bestHost.remainingMips -= v.mips;
+                placement.put(v, target);
+                target.remainingRam -= v.ram;
+                target.remainingMips -= v.mips;
             }
         }
+        return bestHost;
+    }
+
+    /**
+     * 들어가는 host 전부의 exact 비용 (파티션 밖 VM 과의 트래픽 + migration) 을 ws.keys[hostIndex] 에,
+     * 후보 목록을 ws.order 에 index 오름차순으로 채우고 후보 수를 돌려준다.
+     */
+    private int fullScan(
+            List<VmInfo> part,
+            List<HostInfo> hosts,
+            Map<VmInfo, HostInfo> placement,
+            TrafficMatrix traffic,
+            Topology topo,
+            double migrationWeight,
+            ResidualIndex index,
+            long ram,
+            long mips,
+            ConsolidationWorkspace ws) {
+
+        // placement 를 배열로 펼치고, part 소속 여부는 VM id 마킹으로 O(1) 판단
+        int n = placement.size();
+        ws.ensurePlacement(n);
+        int[] ids = ws.vmIds;
+        HostInfo[] hs = ws.vmHosts;
+        int idx = 0;
+        int idBound = 0;
+        for (Map.Entry<VmInfo, HostInfo> e : placement.entrySet()) {
+            ids[idx] = e.getKey().id;
+            hs[idx] = e.getValue();
+            idBound = Math.max(idBound, ids[idx] + 1);
+            idx++;
+        }
+        for (VmInfo v : part) idBound = Math.max(idBound, v.id + 1);
+        ws.newStamp(idBound);
+        for (VmInfo v : part) ws.mark(v.id);
+
+        // dense 행렬이면 part 밖 VM 의 host / rack / pod 를 id 인덱스로 깔아 두고 CostKernel 사용
+        double[][] rows = denseRows(traffic, idBound);
+        double[] lv = distanceLevels(topo);
+        if (rows != null) {
+            ws.resetIdKeys(idBound);
+            for (int i = 0; i < n; i++) {
+                if (!ws.isMarked(ids[i]) && hs[i] != null) ws.setIdKey(ids[i], hs[i]);
+            }
+        }
+
+        // 후보 host 비용은 keys[hostIndex] 에, 후보 목록은 order 에 (충돌 시 다음 후보용)
+        //  들어가는 host 만 rack / pod 집계로 추려서 index 오름차순으로 (전체 순회와 같은 순서)
+        long visitsBefore = index.visits;
+        int fitting = index.collectFits(ram, mips, ws.order);
+
+        long pairEvals = 0;
+        for (int c = 0; c < fitting; c++) {
+            int hi = ws.order[c];
+            HostInfo h = hosts.get(hi);
+            pairEvals += (long) part.size() * n;
+
+            double cost = 0.0;
+
+            for (VmInfo v : part) {
+                if (rows != null) {
+                    cost += CostKernel.INSTANCE.rowCost(rows[v.id], 0, idBound,
+                            ws.idHost, ws.idRack, ws.idPod, h.id, h.rackId, h.podId,
+                            lv[0], lv[1], lv[2]);
+                } else {
+                    for (int i = 0; i < n; i++) {
+                        if (ws.isMarked(ids[i])) continue;
+
+                        double t = traffic.get(v.id, ids[i]);
+                        double d = dist(h, hs[i], topo);
+                        cost += t * d;
+                    }
+                }
+                // migration 비용도 목적함수에 포함 (weight=0 이면 기존과 동일)
+                if (migrationWeight > 0) {
+                    cost += migrationWeight * migrationCost(v, placement.get(v), h, topo);
+                }
+            }
+
+            ws.keys[hi] = cost;
+        }
+
+        Arrays.fill(hs, 0, n, null);
+        metrics.increment(ConsolidationMetrics.Counter.HOST_EVALUATIONS, index.visits - visitsBefore);
+        metrics.increment(ConsolidationMetrics.Counter.PAIR_EVALUATIONS, pairEvals);
+        return fitting;
     }
 
     // 새 버전: 이미 해제 시도한 host(tried)에 속한 건 제외
@@ -448,18 +943,28 @@ public class TrafficSimulationCore {
         for (HostInfo h : hosts) {
             if (tried.contains(h.id)) continue;
 
-            double uCpu = (double) h.usedMips() / h.totalMips;
-            double uMem = (double) h.usedRam() / h.totalRam;
+            double S = releaseScore(h);
 
-            double U = 1 - (uCpu + uMem) / 2;
-            double B = (Math.max(uCpu, uMem) == 0)
-                    ? 1
-                    : 1 - Math.abs(uCpu - uMem) / Math.max(uCpu, uMem);
-            double R = (uCpu == 0 || uMem == 0)
-                    ? 0
-                    : Math.min((1 - uCpu), (1 - uMem)) / Math.max(uCpu, uMem);
+            if (S > bestScore) {
+                bestScore = S;
+                best = h;
+            }
+        }
+        return best;
+    }
 
-            double S = 0.5 * U + 0.3 * B + 0.2 * R;
+    // boxing 없는 버전 (placeVmsProposed 내부용)
+    private HostInfo selectReleaseCandidateForProposed(
+            List<HostInfo> hosts,
+            IntHashSet tried) {
+
+        double bestScore = -1;
+        HostInfo best = null;
+
+        for (HostInfo h : hosts) {
+            if (tried.contains(h.id)) continue;
+
+            double S = releaseScore(h);
 
             if (S > bestScore) {
                 bestScore = S;
@@ -469,6 +974,75 @@ public class TrafficSimulationCore {
         return best;
     }
 
+    /** S_i = 0.5·U(남은 자원 비율) + 0.3·B(자원 균형도) + 0.2·R(여유/사용 비) */
+    private double releaseScore(HostInfo h) {
+        double uCpu = (double) h.usedMips() / h.totalMips;
+        double uMem = (double) h.usedRam() / h.totalRam;
+
+        double U = 1 - (uCpu + uMem) / 2;
+        double B = (Math.max(uCpu, uMem) == 0)
+                ? 1
+                : 1 - Math.abs(uCpu - uMem) / Math.max(uCpu, uMem);
+        double R = (uCpu == 0 || uMem == 0)
+                ? 0
+                : Math.min((1 - uCpu), (1 - uMem)) / Math.max(uCpu, uMem);
+
+        return weightU * U + weightB * B + weightR * R;
+    }
+
+
+    /**
+     * 초기 제안 기법 (single-release):
+     * S_i 가 가장 큰 host 하나만 파티셔닝 후 다른 host 로 옮긴다 (비용 비교 / reject 없음).
+     */
+    public Map<VmInfo, HostInfo> placeVmsSingleRelease(
+            List<HostInfo> hosts,
+            List<VmInfo> vms,
+            TrafficMatrix traffic,
+            double supernodePercentile,
+            Topology topo) {
+
+        // Phase 0: 초기 배치 (기본 first-fit)
+        Map<VmInfo, HostInfo> placement = initialPlacement(hosts, vms, traffic, topo);
+
+        // Phase 1: Release Candidate Host 선정 (S_i 계산)
+        HostInfo candidate = selectReleaseCandidateForProposed(hosts);
+        if (candidate == null) return placement;
+
+        List<VmInfo> candidateVms = new ArrayList<>();
+        for (Map.Entry<VmInfo, HostInfo> e : placement.entrySet()) {
+            if (e.getValue().id == candidate.id) candidateVms.add(e.getKey());
+        }
+        if (candidateVms.isEmpty()) return placement;
+
+        // Phase 2: Traffic-aware Partitioning (dendrogram 한 번 만들고 k 를 늘려 가며 cut)
+        PartitionDendrogram dendrogram = new PartitionDendrogram(candidateVms, traffic, supernodePercentile);
+        int maxK = Math.max(2, dendrogram.supernodeCount());
+        ConsolidationWorkspace ws = ConsolidationWorkspace.get();
+        FeasibilityOracle oracle = ws.feasibilityOracle(hosts);
+        ResidualIndex index = ws.residualIndex(hosts);
+        int candidateIdx = index.indexOf(candidate);
+        oracle.setExclude(candidateIdx);
+        index.setExclude(candidateIdx);
+        List<List<VmInfo>> partitions = null;
+        for (int k = 2; k <= maxK; k++) {
+            partitions = dendrogram.cut(k);
+            sortPartitionsBySize(partitions, hosts);
+            if (canMigrateAllPartitions(partitions, oracle)) break;
+        }
+
+        // Phase 3: 각 파티션 Migration 실행
+        HostInfo[] vmHost = ws.hostsById(placement, traffic.size());
+        migratePartitions(partitions, hosts, placement, candidate, traffic, topo, 0.0, oracle, index,
+                vmHost, neighborShortlist(ws, hosts, vmHost, traffic, topo));
+
+        if (candidate.usedRam() == 0 && candidate.usedMips() == 0) {
+            log("[SingleRelease] Host " + candidate.id + " successfully released.");
+        } else {
+            log("[SingleRelease] Host " + candidate.id + " only partially released.");
+        }
+        return placement;
+    }
 
     public Map<VmInfo, HostInfo> placeVmsProposed(
             List<HostInfo> hosts,
@@ -476,42 +1050,112 @@ public class TrafficSimulationCore {
             double[][] traffic,
             double supernodePercentile,
             Topology topo) {
+        return placeVmsProposed(hosts, vms, traffic, supernodePercentile, topo, 0.0);
+    }
 
-        Map<VmInfo, HostInfo> placement = new HashMap<>();
+    /**
+     * migrationWeight > 0 이면 해제 시도의 비용을
+     * "트래픽 비용 + migrationWeight × (이동 RAM × 거리)" 로 평가한다.
+     */
+    public Map<VmInfo, HostInfo> placeVmsProposed(
+            List<HostInfo> hosts,
+            List<VmInfo> vms,
+            double[][] traffic,
+            double supernodePercentile,
+            Topology topo,
+            double migrationWeight) {
+        return placeVmsProposed(hosts, vms, TrafficMatrix.of(traffic),
+                supernodePercentile, topo, migrationWeight);
+    }
+
+    /** traffic 을 TrafficMatrix (dense / packed off-heap 등) 로 받는 버전 */
+    public Map<VmInfo, HostInfo> placeVmsProposed(
+            List<HostInfo> hosts,
+            List<VmInfo> vms,
+            TrafficMatrix traffic,
+            double supernodePercentile,
+            Topology topo,
+            double migrationWeight) {
+
+        long allocStart = threadAllocatedBytes();
+        long t0 = System.nanoTime();
 
         // ------------------------------------------------------
-        // Phase 0: 초기 FFD 배치 (지금까지랑 동일)
+        // Phase 0: 초기 배치 (기본은 지금까지와 같은 first-fit)
         // ------------------------------------------------------
-        for (VmInfo v : vms) {
-            for (HostInfo h : hosts) {
-                if (h.remainingRam >= v.ram && h.remainingMips >= v.mips) {
-                    placement.put(v, h);
-                    h.remainingRam -= v.ram;
-                    h.remainingMips -= v.mips;
-                    break;
-                }
-            }
+        Map<VmInfo, HostInfo> placement = initialPlacement(hosts, vms, traffic, topo);
+        metrics.recordPhase(initialPlacement == InitialPlacement.GRAPH_GROWING
+                ? ConsolidationMetrics.Phase.PHASE0_GROWN
+                : ConsolidationMetrics.Phase.PHASE0_FFD, System.nanoTime() - t0);
+
+        long allocated = threadAllocatedBytes() - allocStart;
+        if (allocated > 0) {
+            metrics.increment(ConsolidationMetrics.Counter.BYTES_ALLOCATED, allocated);
         }
+        return consolidateProposed(hosts, placement, traffic, supernodePercentile, topo, migrationWeight);
+    }
+
+    /**
+     * Proposed 의 Phase 1~4 만 (Phase 0 없이) 이미 있는 배치에서 시작한다.
+     * PlacementSnapshot 으로 불러온 운영 배치처럼, hosts 의 잔여 자원이 placement 와 맞아 있어야 한다.
+     * placement 는 그 자리에서 바뀌고 그대로 반환된다.
+     */
+    public Map<VmInfo, HostInfo> consolidateProposed(
+            List<HostInfo> hosts,
+            Map<VmInfo, HostInfo> placement,
+            TrafficMatrix traffic,
+            double supernodePercentile,
+            Topology topo,
+            double migrationWeight) {
+
+        long allocStart = threadAllocatedBytes();
+        requireRamMipsOnly(placement.keySet(), "Proposed");
 
         // 초기 전체 트래픽 비용
+        long t0 = System.nanoTime();
         double currentCost = calcTrafficCost(placement, traffic, topo);
+        LinkLoadEngine links = null;
+        if (congestionWeight > 0) {
+            links = linkLoadEngine(ConsolidationWorkspace.get(), hosts, topo);
+            links.rebuild(placement, traffic);
+        }
+        metrics.recordPhase(ConsolidationMetrics.Phase.COST_RECOMPUTE, System.nanoTime() - t0);
+        // 해제 결과 캐시 key 에 없는 설정 (혼잡 가중, neighbor shortlist, 표본 screening) 이 판정을 바꾸면
+        // 캐시를 쓰지 않는다
+        boolean screening = costScreening != null && costScreening.traffic == traffic;
+        boolean useCache = links == null && !screening
+                && !(neighborIndex != null && neighborIndex.traffic == traffic);
 
         // ------------------------------------------------------
         // Phase 1~4: 여러 Host를 순차적으로 해제 시도하되
         //            "더 나빠지는 이동은 reject"
         // ------------------------------------------------------
         final int MAX_RELEASE = 3;              // 최대 해제 시도 서버 수
-        Set<Integer> triedHosts = new HashSet<>();
+        IntHashSet triedHosts = new IntHashSet();
+        List<VmInfo> candidateVms = new ArrayList<>();
+        // joint packing oracle 과 host fit 검사용 rack / pod 집계: run 동안 하나씩 쓰고,
+        // 후보는 exclude 로 빼고, 잔여가 바뀐 host 만 sync
+        ConsolidationWorkspace ws = ConsolidationWorkspace.get();
+        FeasibilityOracle oracle = ws.feasibilityOracle(hosts);
+        ResidualIndex index = ws.residualIndex(hosts);
+        // VM id → host: migration / undo / 캐시 replay 때마다 갱신 (shortlist, screening, 캐시 조회가 같이 읽음)
+        HostInfo[] vmHost = ws.hostsById(placement, traffic.size());
+        NeighborShortlist shortlist = neighborShortlist(ws, hosts, vmHost, traffic, topo);
+        // 캐시 조회용 전체 잔여 자원 지문 (reject 는 undo 로 원상복구되므로 accept 때만 갱신)
+        ReleaseAttemptCache.StateStamp stamp = useCache ? ReleaseAttemptCache.StateStamp.of(hosts) : null;
 
         for (int iter = 0; iter < MAX_RELEASE; iter++) {
 
             // 1) 아직 시도 안 한 host들 중 S_i가 가장 큰 candidate 선택
+            t0 = System.nanoTime();
             HostInfo candidate = selectReleaseCandidateForProposed(hosts, triedHosts);
+            metrics.recordPhase(ConsolidationMetrics.Phase.CANDIDATE_SELECTION, System.nanoTime() - t0);
+            metrics.increment(ConsolidationMetrics.Counter.HOST_EVALUATIONS, hosts.size());
             if (candidate == null) break;
             triedHosts.add(candidate.id);
 
             // 2) candidate host에 올라간 VM 목록
-            List<VmInfo> candidateVms = new ArrayList<>();
+            candidateVms.clear();
             for (Map.Entry<VmInfo, HostInfo> e : placement.entrySet()) {
                 if (e.getValue().id == candidate.id) {
                     candidateVms.add(e.getKey());
@@ -523,52 +1167,78 @@ public class TrafficSimulationCore {
                 continue;
             }
 
+            // 입력이 같은 시도를 이미 해 봤으면 시뮬레이션 없이 결과만 재사용
+            ReleaseAttemptCache.Key cacheKey = useCache ? new ReleaseAttemptCache.Key(
+                    candidate.id, candidateVms, supernodePercentile, migrationWeight, topo) : null;
+            ReleaseAttemptCache.Result cached = useCache
+                    ? releaseCache.lookup(traffic, cacheKey, hosts, vmHost, stamp) : null;
+            if (cached != null) {
+                metrics.increment(ConsolidationMetrics.Counter.RELEASE_CACHE_HITS, 1);
+                if (cached.outcome == ReleaseAttemptCache.Outcome.ACCEPTED) {
+                    replayRelease(cached, candidate, candidateVms, hosts, placement, oracle, index, vmHost);
+                    currentCost += cached.trafficDelta;
+                    stamp = ReleaseAttemptCache.StateStamp.of(hosts);
+                    metrics.increment(ConsolidationMetrics.Counter.RELEASES_ACCEPTED, 1);
+                    log("[Proposed] Host " + candidate.id +
+                            " successfully released (accepted, cost improved, cached).");
+                } else {
+                    metrics.increment(ConsolidationMetrics.Counter.RELEASES_REJECTED, 1);
+                    log("[Proposed] Host " + candidate.id +
+                            (cached.outcome == ReleaseAttemptCache.Outcome.INFEASIBLE
+                                    ? " cannot be fully released (capacity constraint, cached)."
+                                    : " release rejected (cost increased, cached: " +
+                                      String.format("%.2f -> %.2f", currentCost, currentCost + cached.costDelta) + ")"));
+                }
+                continue;
+            }
+
             // --------------------------------------------------
             // [중요] 여기부터는 "시뮬레이션 모드"에서 먼저 해본다
-            //  hosts / placement의 복사본을 만든 뒤,
-            //  그 위에서 파티셔닝 + migration 실행 → newCost 계산
+            //  hosts / placement 를 복사하지 않고 그 자리에서 파티셔닝 + migration 실행
+            //  → newCost 계산, reject 이면 candidate VM 들만 원래 host 로 되돌린다 (undo)
             // --------------------------------------------------
-
-            // (a) Host 복사
-            List<HostInfo> simHosts = copyHosts(hosts);  // 기존에 있던 copyHosts 재사용
-            Map<Integer, HostInfo> idToSimHost = new HashMap<>();
-            for (HostInfo h : simHosts) {
-                idToSimHost.put(h.id, h);
-            }
-
-            // (b) Placement 복사 (Vm -> Host 매핑을 복사된 host로 바꿔줌)
-            Map<VmInfo, HostInfo> simPlacement = new HashMap<>();
-            for (Map.Entry<VmInfo, HostInfo> e : placement.entrySet()) {
-                VmInfo vm = e.getKey();
-                HostInfo oldHost = e.getValue();
-                HostInfo simHost = idToSimHost.get(oldHost.id);
-                simPlacement.put(vm, simHost);
-            }
-
-            HostInfo simCandidate = idToSimHost.get(candidate.id);
-
             // --------------------------------------------------
             // (c) Traffic-aware 파티셔닝 (k를 늘려가며 시도)
             // --------------------------------------------------
-            int k = 2;
+            //  threshold / BFS / linkage 는 dendrogram 생성 때 한 번만, k 마다는 cut 만 한다.
+            //  k 가 supernode 수 이상이면 파티션이 더 바뀌지 않으므로 거기서 멈춘다.
+            t0 = System.nanoTime();
+            PartitionDendrogram dendrogram =
+                    new PartitionDendrogram(candidateVms, traffic, supernodePercentile);
+            metrics.recordPhase(ConsolidationMetrics.Phase.PARTITIONING, System.nanoTime() - t0);
+
+            int maxK = Math.max(2, dendrogram.supernodeCount());
+            int candidateIdx = index.indexOf(candidate);
+            oracle.setExclude(candidateIdx);
+            index.setExclude(candidateIdx);
             List<List<VmInfo>> partitions = null;
-
-            while (true) {
-                partitions = partitionCandidateHostVms(
-                        candidateVms, traffic, k, supernodePercentile);
-
-                boolean ok = canMigrateAllPartitions(partitions, simHosts, simCandidate);
-                if (ok) break;
-
-                k++;
-                if (k > candidateVms.size()) {
-                    partitions = null; // 이 host는 해제 불가
+            // 용량 때문에 안 된 단계가 있으면 결과가 전체 host 잔여에 기댄다 (캐시 Dependencies)
+            boolean capacityBound = false;
+            for (int k = 2; k <= maxK; k++) {
+                t0 = System.nanoTime();
+                List<List<VmInfo>> cut = dendrogram.cut(k);
+                sortPartitionsBySize(cut, hosts);
+                metrics.recordPhase(ConsolidationMetrics.Phase.PARTITIONING, System.nanoTime() - t0);
+
+                t0 = System.nanoTime();
+                boolean ok = canMigrateAllPartitions(cut, oracle);
+                metrics.recordPhase(ConsolidationMetrics.Phase.FEASIBILITY_CHECK, System.nanoTime() - t0);
+                if (ok) {
+                    partitions = cut;
                     break;
                 }
+                capacityBound = true;
+                metrics.increment(ConsolidationMetrics.Counter.PARTITION_RETRIES, 1);
             }
+            // partitions == null 이면 이 host는 해제 불가
 
             if (partitions == null) {
-                System.out.println("[Proposed] Host " + candidate.id +
+                if (useCache) {
+                    releaseCache.store(cacheKey, ReleaseAttemptCache.infeasible(),
+                            ReleaseAttemptCache.Dependencies.capacityOnly(stamp));
+                }
+                metrics.increment(ConsolidationMetrics.Counter.RELEASES_REJECTED, 1);
+                log("[Proposed] Host " + candidate.id +
                         " cannot be fully released (capacity constraint).");
                 continue;
             }
@@ -576,34 +1246,160 @@ public class TrafficSimulationCore {
             // --------------------------------------------------
             // (d) 시뮬레이션 상에서 각 파티션 migration 실행
             // --------------------------------------------------
-            for (List<VmInfo> part : partitions) {
-                migratePartition(part, simHosts, simPlacement, simCandidate, traffic, topo);
+            t0 = System.nanoTime();
+            int fallbacksBefore = ws.packingFallbacks;
+            migratePartitions(partitions, hosts, placement, candidate,
+                    traffic, topo, migrationWeight, oracle, index, vmHost, shortlist);
+            capacityBound |= ws.packingFallbacks != fallbacksBefore;
+            metrics.recordPhase(ConsolidationMetrics.Phase.MIGRATION_SIMULATION, System.nanoTime() - t0);
+
+            // (e) 시뮬레이션 결과 트래픽 비용 계산 (+ 이번 해제에 드는 migration 비용, 혼잡 변화)
+            double migration = 0.0;
+            if (migrationWeight > 0) {
+                for (VmInfo v : candidateVms) {
+                    migration += migrationWeight
+                            * migrationCost(v, candidate, placement.get(v), topo);
+                }
             }
-
-            // (e) 시뮬레이션 결과 트래픽 비용 계산
-            double newCost = calcTrafficCost(simPlacement, traffic, topo);
+            t0 = System.nanoTime();
+            double congestion = 0.0;
+            if (links != null) {
+                double before = links.overload();
+                for (VmInfo v : candidateVms) links.move(v, placement.get(v));
+                congestion = congestionWeight * (links.overload() - before);
+            }
+            double newTraffic = screening
+                    ? currentCost + screenedDelta(candidate, candidateVms, placement, vmHost, topo,
+                            migration + congestion)
+                    : calcTrafficCost(placement, traffic, topo);
+            metrics.recordPhase(ConsolidationMetrics.Phase.COST_RECOMPUTE, System.nanoTime() - t0);
+            double newCost = newTraffic + migration + congestion;
+            // 판정 직전 상태 (undo 전에 만들어야 옮겨 간 host 를 안다)
+            ReleaseAttemptCache.Dependencies deps = useCache
+                    ? ReleaseAttemptCache.Dependencies.of(cacheKey, hosts, candidate, candidateVms, placement, vmHost,
+                            traffic, stamp, capacityBound)
+                    : null;
 
             // --------------------------------------------------
             // (f) 더 좋아졌으면 → 실제 배치에 반영 (accept)
             //     더 나빠졌으면 → 버리고 넘어감 (reject)
             // --------------------------------------------------
             if (newCost < currentCost) {
-                // accept: 실제 hosts/placement를 시뮬레이션 결과로 교체
-                placement = simPlacement;
-                hosts.clear();
-                hosts.addAll(simHosts);
-                currentCost = newCost;
-                System.out.println("[Proposed] Host " + candidate.id +
+                // accept: 시뮬레이션 결과가 이미 hosts/placement 에 반영되어 있음
+                if (useCache) {
+                    releaseCache.store(cacheKey, ReleaseAttemptCache.accepted(newCost - currentCost,
+                            newTraffic - currentCost, candidateVms, placement), deps);
+                    stamp = ReleaseAttemptCache.StateStamp.of(hosts);
+                }
+                currentCost = newTraffic;   // migration 비용은 한 번만 지불 (혼잡은 links 에 이미 반영)
+                metrics.increment(ConsolidationMetrics.Counter.RELEASES_ACCEPTED, 1);
+                log("[Proposed] Host " + candidate.id +
                         " successfully released (accepted, cost improved).");
             } else {
-                System.out.println("[Proposed] Host " + candidate.id +
+                // reject: candidate 에서 옮겨간 VM 을 되돌림
+                if (links != null) {
+                    for (VmInfo v : candidateVms) links.move(v, candidate);
+                }
+                undoRelease(candidate, candidateVms, placement, oracle, index, vmHost);
+                if (useCache) releaseCache.store(cacheKey, ReleaseAttemptCache.rejected(newCost - currentCost), deps);
+                metrics.increment(ConsolidationMetrics.Counter.RELEASES_REJECTED, 1);
+                log("[Proposed] Host " + candidate.id +
                         " release rejected (cost increased: " +
                         String.format("%.2f -> %.2f", currentCost, newCost) + ")");
             }
         }
 
+        long allocated = threadAllocatedBytes() - allocStart;
+        if (allocated > 0) {
+            metrics.increment(ConsolidationMetrics.Counter.BYTES_ALLOCATED, allocated);
+        }
         return placement;
     }
 
+    /**
+     * candidate 에서 옮긴 VM 들의 트래픽 비용 변화.
+     * 추정 구간 전체가 reject 쪽 (delta + offset >= 0, offset = migration + 혼잡 변화) 이면 추정값,
+     * 아니면 exact delta (옮긴 VM 의 row 만 다시 더함, O(moved·n)). accept 되는 값은 항상 exact 다.
+     * vmHost 는 run 동안 갱신하는 VM id → host (옮긴 뒤 상태), 옮긴 VM 목록은 workspace 버퍼에 담는다.
+     */
+    private double screenedDelta(HostInfo candidate, List<VmInfo> candidateVms, Map<VmInfo, HostInfo> placement,
+                                 HostInfo[] vmHost, Topology topo, double offset) {
+        ConsolidationWorkspace ws = ConsolidationWorkspace.get();
+        ws.ensureMoved(candidateVms.size());
+        int[] ids = ws.movedIds;
+        HostInfo[] from = ws.movedFrom;
+        int moved = 0;
+        for (VmInfo v : candidateVms) {
+            if (placement.get(v) == candidate) continue;
+            ids[moved] = v.id;
+            from[moved++] = candidate;
+        }
+
+        SampledCostEstimator.Estimate est = costScreening.estimateDelta(vmHost, ids, from, moved, topo);
+        if (est.lower() + offset >= 0) {
+            metrics.increment(ConsolidationMetrics.Counter.RELEASES_SCREENED, 1);
+            return est.value;
+        }
+        metrics.increment(ConsolidationMetrics.Counter.SCREENING_FALLBACKS, 1);
+        return costScreening.exactDelta(vmHost, ids, from, moved, topo);
+    }
+
+    /** 시뮬레이션으로 candidate 밖으로 옮긴 VM 들을 다시 candidate 로 되돌린다 (oracle / index / vmHost 도 갱신) */
+    private void undoRelease(HostInfo candidate, List<VmInfo> candidateVms, Map<VmInfo, HostInfo> placement,
+                             FeasibilityOracle oracle, ResidualIndex index, HostInfo[] vmHost) {
+        for (VmInfo v : candidateVms) {
+            HostInfo moved = placement.get(v);
+            if (moved == candidate) continue;
+            moved.remainingRam += v.ram;
+            moved.remainingMips += v.mips;
+            candidate.remainingRam -= v.ram;
+            candidate.remainingMips -= v.mips;
+            placement.put(v, candidate);
+            vmHost[v.id] = candidate;
+            syncHost(moved, oracle, index);
+        }
+        syncHost(candidate, oracle, index);
+    }
+
+    /** 캐시된 accept 결과를 그대로 적용 (candidate VM → 기록된 host, oracle / index / vmHost 도 갱신) */
+    private void replayRelease(ReleaseAttemptCache.Result cached, HostInfo candidate,
+                               List<VmInfo> candidateVms, List<HostInfo> hosts, Map<VmInfo, HostInfo> placement,
+                               FeasibilityOracle oracle, ResidualIndex index, HostInfo[] vmHost) {
+        Map<Integer, HostInfo> hostById = new HashMap<>();
+        for (HostInfo h : hosts) hostById.put(h.id, h);
+        Map<Integer, VmInfo> vmById = new HashMap<>();
+        for (VmInfo v : candidateVms) vmById.put(v.id, v);
+        for (int i = 0; i < cached.movedVmIds.length; i++) {
+            VmInfo v = vmById.get(cached.movedVmIds[i]);
+            HostInfo to = hostById.get(cached.movedToHostIds[i]);
+            if (to == candidate) continue;
+            candidate.remainingRam += v.ram;
+            candidate.remainingMips += v.mips;
+            to.remainingRam -= v.ram;
+            to.remainingMips -= v.mips;
+            placement.put(v, to);
+            vmHost[v.id] = to;
+            syncHost(to, oracle, index);
+        }
+        syncHost(candidate, oracle, index);
+    }
 
+    /** h 의 잔여 자원이 바뀐 뒤 oracle / index 에 반영 (hosts 에 없는 host 면 무시) */
+    private static void syncHost(HostInfo h, FeasibilityOracle oracle, ResidualIndex index) {
+        int i = index.indexOf(h);
+        if (i < 0) return;
+        oracle.sync(i);
+        index.sync(i);
+    }
+
+    /** 현재 스레드가 지금까지 할당한 바이트 수 (HotSpot 에서만 지원, 아니면 -1) */
+    private long threadAllocatedBytes() {
+        if (metrics == ConsolidationMetrics.NOOP) return -1;
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
 }
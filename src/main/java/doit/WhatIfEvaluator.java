@@ -0,0 +1,288 @@
+package doit;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * 배치를 바꾸지 않고 "이 VM 들을 이 host 들로 옮기면?" 을 한꺼번에 평가하는 batch API.
+ *
+ * 지금까지는 시나리오마다 host / placement 를 복사하고 calcTrafficCost 를 다시 부르는 수밖에 없었다 (O(n²) / 시나리오).
+ * 여기서는 PlacementState 하나를 기준 상태로 두고
+ *
+ *  1) batch 에 나오는 VM 마다 neighbor scan 을 한 번만 해서 트래픽을 host / rack / pod 별로 합쳐 둔다 (affinity).
+ *     이러면 "VM v 가 host h 에 있을 때의 비용" 이 target 에 상관없이 O(1):
+ *       cost(h) = dFar·W − (dFar−dPod)·W_pod(h) − (dPod−dRack)·W_rack(h) − dRack·W_host(h)
+ *  2) move set 은 move 를 순서대로 적용한다고 보고, 앞에서 이미 옮긴 VM 과의 쌍만 보정한다 (O(m²) / set).
+ *  3) 용량은 set 을 다 적용한 최종 상태 기준 (RAM / MIPS / 추가 자원). 옮기는 순서 문제는 MigrationPlanner 몫.
+ *
+ * affinity 계산과 set 평가는 각각 dedicated ForkJoinPool 에서 병렬로 돌린다.
+ * 기준 상태(hosts 의 잔여 자원, placement)는 읽기만 하므로 평가 중에 바꾸면 안 된다.
+ * rack 은 한 pod 안에 있어야 한다 (createHostList 와 같은 layout).
+ */
+public class WhatIfEvaluator {
+
+    /** VM 하나를 target host 로 옮기는 후보 (id 기준) */
+    public static class Move {
+        public final int vmId;
+        public final int targetHostId;
+
+        public Move(int vmId, int targetHostId) {
+            this.vmId = vmId;
+            this.targetHostId = targetHostId;
+        }
+    }
+
+    /** 시나리오 하나 (move 하나 또는 move set 하나) 의 평가 결과 */
+    public static class Outcome {
+        /** 트래픽 비용 변화 (음수면 개선) */
+        public final double costDelta;
+        /** 기준 배치에서 최종 위치까지의 migration 비용 (RAM × 거리, core.migrationCost 와 같은 모델) */
+        public final double migrationCost;
+        public final boolean feasible;
+        /** 용량을 넘는 첫 host id (feasible 이면 -1) */
+        public final int overloadedHostId;
+
+        Outcome(double costDelta, double migrationCost, int overloadedHostId) {
+            this.costDelta = costDelta;
+            this.migrationCost = migrationCost;
+            this.feasible = overloadedHostId < 0;
+            this.overloadedHostId = overloadedHostId;
+        }
+    }
+
+    private final PlacementState base;
+    private final Map<Integer, Integer> hostIndex = new HashMap<>();
+    private final int parallelism;
+    private double baseCost = Double.NaN;
+
+    /** set 평가용 host 단위 누적 (worker thread 마다 하나) */
+    private final ThreadLocal<Scratch> scratch;
+
+    public WhatIfEvaluator(List<TrafficSimulationCore.HostInfo> hosts,
+                           Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement,
+                           TrafficMatrix traffic,
+                           TrafficSimulationCore.Topology topo,
+                           int parallelism) {
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be > 0");
+        this.base = new PlacementState(hosts, placement, traffic, topo);
+        this.parallelism = parallelism;
+        Map<Integer, Integer> rackPod = new HashMap<>();
+        for (int h = 0; h < base.hostCount(); h++) {
+            hostIndex.put(base.hosts[h].id, h);
+            Integer pod = rackPod.putIfAbsent(base.hostRack[h], base.hostPod[h]);
+            if (pod != null && pod != base.hostPod[h]) {
+                throw new IllegalArgumentException("rack " + base.hostRack[h] + " spans pods " + pod
+                        + " and " + base.hostPod[h]);
+            }
+        }
+        int hostCount = base.hostCount();
+        int extra = hostCount == 0 ? 0 : base.hosts[0].remainingExtra.length;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(hostCount, extra));
+    }
+
+    public WhatIfEvaluator(List<TrafficSimulationCore.HostInfo> hosts,
+                           Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> placement,
+                           TrafficMatrix traffic,
+                           TrafficSimulationCore.Topology topo) {
+        this(hosts, placement, traffic, topo, Runtime.getRuntime().availableProcessors());
+    }
+
+    /** 기준 배치의 전체 트래픽 비용 (처음 부를 때 한 번 계산) */
+    public synchronized double baseCost() {
+        if (Double.isNaN(baseCost)) baseCost = base.totalCost();
+        return baseCost;
+    }
+
+    /** move 하나하나를 각각 독립된 시나리오로 평가 (결과는 입력 순서) */
+    public List<Outcome> evaluateMoves(List<Move> moves) {
+        List<List<Move>> sets = new ArrayList<>(moves.size());
+        for (Move m : moves) sets.add(Collections.singletonList(m));
+        return evaluateSets(sets);
+    }
+
+    /** move set 마다 set 전체를 적용한 결과 (결과는 입력 순서) */
+    public List<Outcome> evaluateSets(List<List<Move>> sets) {
+        // id → index 변환과 검증은 병렬 구간 밖에서 (잘못된 입력은 바로 예외)
+        int[][] setVm = new int[sets.size()][];
+        int[][] setHost = new int[sets.size()][];
+        boolean[] needed = new boolean[base.vmCount()];
+        for (int s = 0; s < sets.size(); s++) {
+            List<Move> set = sets.get(s);
+            setVm[s] = new int[set.size()];
+            setHost[s] = new int[set.size()];
+            for (int k = 0; k < set.size(); k++) {
+                Move m = set.get(k);
+                int v = Arrays.binarySearch(base.vmId, m.vmId);
+                if (v < 0) throw new IllegalArgumentException("VM " + m.vmId + " is not in the placement");
+                Integer h = hostIndex.get(m.targetHostId);
+                if (h == null) throw new IllegalArgumentException("host " + m.targetHostId + " is not in the host list");
+                setVm[s][k] = v;
+                setHost[s][k] = h;
+                needed[v] = true;
+            }
+        }
+
+        IntArrayList distinct = new IntArrayList();
+        for (int v = 0; v < needed.length; v++) if (needed[v]) distinct.add(v);
+        Affinity[] affinity = new Affinity[base.vmCount()];
+        Outcome[] out = new Outcome[sets.size()];
+        ParallelRunner.runParallel(parallelism, () -> {
+            IntStream.range(0, distinct.size()).parallel().forEach(i -> {
+                int v = distinct.get(i);
+                affinity[v] = new Affinity(v);
+            });
+            IntStream.range(0, sets.size()).parallel().forEach(s ->
+                    out[s] = evaluate(setVm[s], setHost[s], affinity));
+        });
+        return Arrays.asList(out);
+    }
+
+    // ==========================================================
+    //  affinity (VM 하나의 neighbor scan 결과)
+    // ==========================================================
+
+    /** 기준 배치에서 VM v 와 나머지 VM 사이 트래픽을 host / rack / pod 별로 합친 것 */
+    private final class Affinity {
+        final double total;
+        final IntDoubleHashMap byHost = new IntDoubleHashMap();
+        final IntDoubleHashMap byRack = new IntDoubleHashMap();
+        final IntDoubleHashMap byPod = new IntDoubleHashMap();
+
+        Affinity(int v) {
+            double sum = 0.0;
+            int id = base.vmId[v];
+            for (int u = 0; u < base.vmCount(); u++) {
+                if (u == v) continue;
+                double t = base.traffic.get(id, base.vmId[u]);
+                if (t == 0.0) continue;
+                int hu = base.vmHost[u];
+                sum += t;
+                byHost.add(hu, t);
+                byRack.add(base.hostRack[hu], t);
+                byPod.add(base.hostPod[hu], t);
+            }
+            this.total = sum;
+        }
+
+        /** v 가 host h 에 있을 때 v 와 (기준 위치의) 나머지 VM 사이 비용 */
+        double costAt(int h) {
+            return base.dFar * total
+                    - (base.dFar - base.dPod) * byPod.get(base.hostPod[h])
+                    - (base.dPod - base.dRack) * byRack.get(base.hostRack[h])
+                    - base.dRack * byHost.get(h);
+        }
+    }
+
+    // ==========================================================
+    //  set 평가
+    // ==========================================================
+
+    private Outcome evaluate(int[] vms, int[] targets, Affinity[] affinity) {
+        int m = vms.length;
+        // 이 set 에서 이미 옮긴 VM: 기준 host, 현재 host
+        int[] moved = new int[m];
+        int[] from = new int[m];
+        int[] now = new int[m];
+        int movedCount = 0;
+
+        double delta = 0.0;
+        for (int k = 0; k < m; k++) {
+            int v = vms[k], t = targets[k];
+            int slot = -1;
+            for (int i = 0; i < movedCount; i++) {
+                if (moved[i] == v) {
+                    slot = i;
+                    break;
+                }
+            }
+            int cur = slot >= 0 ? now[slot] : base.vmHost[v];
+            if (cur == t) continue;
+
+            Affinity a = affinity[v];
+            double d = a.costAt(t) - a.costAt(cur);
+            // affinity 는 이웃의 기준 위치로 합친 값이므로, 앞에서 옮긴 이웃만 새 위치로 보정
+            int idV = base.vmId[v];
+            for (int i = 0; i < movedCount; i++) {
+                int u = moved[i];
+                if (u == v) continue;
+                double w = base.traffic.get(idV, base.vmId[u]);
+                if (w == 0.0) continue;
+                int b0 = from[i], b1 = now[i];
+                d += w * ((base.dist(t, b1) - base.dist(cur, b1)) - (base.dist(t, b0) - base.dist(cur, b0)));
+            }
+            delta += d;
+
+            if (slot < 0) {
+                slot = movedCount++;
+                moved[slot] = v;
+                from[slot] = base.vmHost[v];
+            }
+            now[slot] = t;
+        }
+
+        Scratch sc = scratch.get();
+        double migration = 0.0;
+        for (int i = 0; i < movedCount; i++) {
+            int v = moved[i];
+            if (from[i] == now[i]) continue;
+            migration += base.vmRam[v] * base.dist(from[i], now[i]);
+            sc.add(from[i], v, -1);
+            sc.add(now[i], v, +1);
+        }
+        int overloaded = sc.firstOverloaded();
+        sc.clear();
+        return new Outcome(delta, migration, overloaded < 0 ? -1 : base.hosts[overloaded].id);
+    }
+
+    /** set 하나를 적용했을 때 host 별 자원 사용량 변화 */
+    private final class Scratch {
+        final long[] ram;
+        final long[] mips;
+        final long[][] extra;
+        final boolean[] mark;
+        final IntArrayList touched = new IntArrayList();
+
+        Scratch(int hostCount, int extraDims) {
+            ram = new long[hostCount];
+            mips = new long[hostCount];
+            extra = new long[extraDims][hostCount];
+            mark = new boolean[hostCount];
+        }
+
+        void add(int h, int v, int sign) {
+            if (!mark[h]) {
+                mark[h] = true;
+                touched.add(h);
+            }
+            ram[h] += sign * base.vmRam[v];
+            mips[h] += sign * base.vmMips[v];
+            long[] demand = base.vms[v].extraDemand;
+            for (int d = 0; d < demand.length && d < extra.length; d++) extra[d][h] += sign * demand[d];
+        }
+
+        /** 사용량이 늘어 잔여가 음수가 되는 첫 host index (touch 순서), 없으면 -1 */
+        int firstOverloaded() {
+            for (int i = 0; i < touched.size(); i++) {
+                int h = touched.get(i);
+                if (ram[h] > 0 && base.residRam[h] < ram[h]) return h;
+                if (mips[h] > 0 && base.residMips[h] < mips[h]) return h;
+                long[] resid = base.hosts[h].remainingExtra;
+                for (int d = 0; d < extra.length; d++) {
+                    if (extra[d][h] > 0 && resid[d] < extra[d][h]) return h;
+                }
+            }
+            return -1;
+        }
+
+        void clear() {
+            for (int i = 0; i < touched.size(); i++) {
+                int h = touched.get(i);
+                mark[h] = false;
+                ram[h] = 0;
+                mips[h] = 0;
+                for (long[] e : extra) e[h] = 0;
+            }
+            touched.clear();
+        }
+    }
+}
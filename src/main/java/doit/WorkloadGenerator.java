@@ -0,0 +1,236 @@
+package doit;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * 병렬 / 재현 가능한 워크로드 생성기.
+ *
+ * TrafficSimulationCore.createVmList / createTrafficMatrix 는 하나의 java.util.Random 을
+ * 순서대로 뽑기 때문에 병렬로 나누면 결과가 달라진다.
+ * 여기서는 (seed, row) 마다 독립된 SplittableRandom 을 만들어 row 단위로 채우므로
+ * 스레드 수와 상관없이 항상 같은 결과가 나온다.
+ *
+ * 워크로드 종류 (Shape):
+ *   UNIFORM      : createTrafficMatrix 와 같은 분포 (70% 약한 / 30% 강한 트래픽)
+ *   CLUSTERED    : createTrafficMatrixClustered 와 같은 분포 (i % groupCount 그룹)
+ *   POWER_LAW    : VM별 degree 가 power-law (소수 hub VM 이 대부분의 강한 edge 보유)
+ *   TIERED_APPS  : web / app / db 3-tier 애플리케이션 묶음, 인접 tier 사이 트래픽 강함
+ *   RACK_SKEWED  : VM마다 "선호 rack" 이 있고, 일부 hot rack 쪽으로 트래픽이 몰림
+ */
+public class WorkloadGenerator {
+
+    public enum Shape {
+        UNIFORM, CLUSTERED, POWER_LAW, TIERED_APPS, RACK_SKEWED
+    }
+
+    /** 생성된 (i, j) 값을 받는 곳 (i < j, 서로 다른 row 는 동시에 호출될 수 있음) */
+    public interface TrafficSink {
+        void set(int i, int j, double value);
+    }
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+    private final int parallelism;
+
+    // shape별 파라미터 (기본값은 기존 실험 규모에 맞춤)
+    private int groupCount = 10;        // CLUSTERED
+    private double powerLawAlpha = 2.2; // POWER_LAW
+    private int appSize = 9;            // TIERED_APPS: 앱 하나당 VM 수 (3 tier × 3)
+    private int rackCount = 16;         // RACK_SKEWED
+    private double rackSkew = 1.2;      // RACK_SKEWED: rack 인기도 Zipf 지수
+
+    public WorkloadGenerator(long seed, int parallelism) {
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be > 0");
+        this.seed = seed;
+        this.parallelism = parallelism;
+    }
+
+    public WorkloadGenerator(long seed) {
+        this(seed, Runtime.getRuntime().availableProcessors());
+    }
+
+    public void setGroupCount(int groupCount) { this.groupCount = Math.max(1, groupCount); }
+    public void setPowerLawAlpha(double alpha) { this.powerLawAlpha = Math.max(1.01, alpha); }
+    public void setAppSize(int appSize) { this.appSize = Math.max(3, appSize); }
+    public void setRackCount(int rackCount) { this.rackCount = Math.max(1, rackCount); }
+    public void setRackSkew(double rackSkew) { this.rackSkew = Math.max(0.0, rackSkew); }
+
+    // ==========================================================
+    //  VM 생성
+    // ==========================================================
+
+    public List<TrafficSimulationCore.VmInfo> createVmList(int vmCount) {
+        TrafficSimulationCore.VmInfo[] arr = new TrafficSimulationCore.VmInfo[vmCount];
+        long vmSeed = seed ^ 1L;
+        ParallelRunner.runParallel(parallelism, () -> IntStream.range(0, vmCount).parallel().forEach(i -> {
+            SplittableRandom r = rng(vmSeed, i);
+            long ram  = 1_000 + r.nextInt(7_000);
+            long mips = 1_000 + r.nextInt(5_000);
+            arr[i] = new TrafficSimulationCore.VmInfo(i, ram, mips);
+        }));
+        return new ArrayList<>(Arrays.asList(arr));
+    }
+
+    // ==========================================================
+    //  트래픽 생성
+    // ==========================================================
+
+    public double[][] createTrafficMatrix(int n, Shape shape) {
+        double[][] m = new double[n][n];
+        fill(n, shape, (i, j, v) -> m[i][j] = m[j][i] = v);
+        return m;
+    }
+
+    /** 대규모(수만 VM 이상)용: off-heap packed 저장소에 바로 채움 */
+    public PackedTrafficStore createPackedTraffic(int n, Shape shape) {
+        PackedTrafficStore store = new PackedTrafficStore(n);
+        fill(n, shape, store::set);
+        return store;
+    }
+
+    public void fill(int n, Shape shape, TrafficSink sink) {
+        RowFiller filler = filler(n, shape);
+        long trafficSeed = seed ^ 2L;
+
+        // 상삼각이라 row i 의 길이는 n-i-1 → 앞/뒤 row 를 짝지어 작업량을 맞춤
+        int pairs = (n + 1) / 2;
+        ParallelRunner.runParallel(parallelism, () -> IntStream.range(0, pairs).parallel().forEach(p -> {
+            int lo = p;
+            int hi = n - 1 - p;
+            filler.fillRow(lo, rng(trafficSeed, lo), sink);
+            if (hi != lo) filler.fillRow(hi, rng(trafficSeed, hi), sink);
+        }));
+    }
+
+    // ==========================================================
+    //  Shape별 row 생성 규칙
+    // ==========================================================
+
+    private interface RowFiller {
+        void fillRow(int i, SplittableRandom r, TrafficSink sink);
+    }
+
+    private RowFiller filler(int n, Shape shape) {
+        switch (shape) {
+            case UNIFORM:
+                return (i, r, sink) -> {
+                    for (int j = i + 1; j < n; j++) {
+                        double p = r.nextDouble();
+                        sink.set(i, j, (p < 0.7) ? p * 5 : 50 + p * 50);
+                    }
+                };
+            case CLUSTERED: {
+                int groups = groupCount;
+                return (i, r, sink) -> {
+                    for (int j = i + 1; j < n; j++) {
+                        double val = (i % groups == j % groups)
+                                ? 100 + r.nextDouble() * 100
+                                : r.nextDouble() * 5;
+                        sink.set(i, j, val);
+                    }
+                };
+            }
+            case POWER_LAW: {
+                double[] w = powerLawWeights(n);
+                return (i, r, sink) -> {
+                    for (int j = i + 1; j < n; j++) {
+                        // 강한 edge 확률 ∝ w_i * w_j (평균 30% 근처가 되도록 정규화됨)
+                        double pHeavy = Math.min(1.0, 0.3 * w[i] * w[j]);
+                        double val = (r.nextDouble() < pHeavy)
+                                ? 50 + r.nextDouble() * 50
+                                : r.nextDouble() * 5;
+                        sink.set(i, j, val);
+                    }
+                };
+            }
+            case TIERED_APPS: {
+                int size = appSize;
+                return (i, r, sink) -> {
+                    int appI = i / size, tierI = (i % size) % 3;
+                    for (int j = i + 1; j < n; j++) {
+                        int appJ = j / size, tierJ = (j % size) % 3;
+                        double val;
+                        if (appI != appJ) {
+                            // 다른 앱: 대부분 0, 가끔 약한 공용 서비스 트래픽
+                            val = (r.nextDouble() < 0.1) ? r.nextDouble() : 0.0;
+                        } else if (Math.abs(tierI - tierJ) == 1) {
+                            val = 50 + r.nextDouble() * 100;   // web↔app, app↔db
+                        } else if (tierI == tierJ) {
+                            val = 10 + r.nextDouble() * 10;    // 같은 tier (replication 등)
+                        } else {
+                            val = r.nextDouble() * 5;          // web↔db
+                        }
+                        sink.set(i, j, val);
+                    }
+                };
+            }
+            case RACK_SKEWED: {
+                int[] home = new int[n];
+                double[] pop = rackPopularity();
+                long homeSeed = seed ^ 3L;
+                ParallelRunner.runParallel(parallelism, () -> IntStream.range(0, n).parallel().forEach(i ->
+                        home[i] = sampleIndex(pop, rng(homeSeed, i).nextDouble())));
+                return (i, r, sink) -> {
+                    for (int j = i + 1; j < n; j++) {
+                        double val;
+                        if (home[i] == home[j]) {
+                            // 같은 rack 선호 그룹: hot rack 일수록 더 강함
+                            val = 50 + r.nextDouble() * 50 * (1 + pop[home[i]] * rackCount);
+                        } else {
+                            val = r.nextDouble() * 5;
+                        }
+                        sink.set(i, j, val);
+                    }
+                };
+            }
+            default:
+                throw new IllegalArgumentException("unknown shape: " + shape);
+        }
+    }
+
+    /** Pareto(alpha) 가중치, 평균 1 로 정규화 */
+    private double[] powerLawWeights(int n) {
+        double[] w = new double[n];
+        long weightSeed = seed ^ 4L;
+        double exp = -1.0 / (powerLawAlpha - 1.0);
+        ParallelRunner.runParallel(parallelism, () -> IntStream.range(0, n).parallel().forEach(i ->
+                w[i] = Math.pow(1.0 - rng(weightSeed, i).nextDouble(), exp)));
+        double sum = 0;
+        for (double x : w) sum += x;
+        double mean = (n == 0) ? 1.0 : sum / n;
+        for (int i = 0; i < n; i++) w[i] /= mean;
+        return w;
+    }
+
+    /** Zipf(rackSkew) rack 인기도 (합 = 1) */
+    private double[] rackPopularity() {
+        double[] pop = new double[rackCount];
+        double sum = 0;
+        for (int k = 0; k < rackCount; k++) {
+            pop[k] = 1.0 / Math.pow(k + 1, rackSkew);
+            sum += pop[k];
+        }
+        for (int k = 0; k < rackCount; k++) pop[k] /= sum;
+        return pop;
+    }
+
+    private static int sampleIndex(double[] prob, double u) {
+        double acc = 0;
+        for (int k = 0; k < prob.length; k++) {
+            acc += prob[k];
+            if (u < acc) return k;
+        }
+        return prob.length - 1;
+    }
+
+    // ==========================================================
+    //  내부 유틸
+    // ==========================================================
+
+    /** (stream seed, index) 마다 독립적인 난수열 → 분할 방식과 무관한 결과 */
+    private static SplittableRandom rng(long streamSeed, int index) {
+        return new SplittableRandom(streamSeed * GOLDEN + index);
+    }
+}
@@ -0,0 +1,110 @@
+package doit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * consolidateProposed 의 BYTES_ALLOCATED 상한 검사.
+ *
+ * ConsolidationWorkspace 를 한 번 데운 뒤 (버퍼 / ResidualIndex / FeasibilityOracle 가 필요한 크기까지 자람)
+ * 같은 입력으로 두 번 더 돌려, 각 run 의 할당량이 MAX_BYTES 를 넘으면 실패한다.
+ * 해제 시도마다 index / oracle 을 새로 만들거나 k 마다 배열을 만드는 회귀는 여기서 걸린다.
+ * 매 run 전에 release cache 를 비워서 cache hit 없이 파티셔닝 + migration 을 실제로 돈다.
+ * 기본 경로 외에 표본 screening, neighbor shortlist, link 혼잡을 켠 경로도 같은 상한으로 검사한다.
+ * 할당량은 HotSpot 의 thread allocated bytes 로 재므로, 지원하지 않는 JVM 에서는 건너뛴다.
+ */
+class ConsolidationAllocationTest {
+
+    private static final int VMS = 1_500;
+    private static final TrafficSimulationCore.Topology TOPO = TrafficSimulationCore.Topology.FAT_TREE;
+
+    /** 데운 workspace 에서 consolidateProposed 한 번이 할당해도 되는 바이트 (지금은 약 9 KB) */
+    private static final long MAX_BYTES = 32 * 1024;
+
+    @Test
+    void warmedConsolidateProposedStaysUnderAllocationBound() {
+        assertWarmedRunsUnderBound((core, traffic) -> { });
+    }
+
+    @Test
+    void warmedScreeningRunStaysUnderAllocationBound() {
+        assertWarmedRunsUnderBound((core, traffic) -> core.setCostScreening(new SampledCostEstimator(traffic)));
+    }
+
+    @Test
+    void warmedShortlistRunStaysUnderAllocationBound() {
+        assertWarmedRunsUnderBound((core, traffic) -> core.setNeighborIndex(new NeighborIndex(traffic, 4)));
+    }
+
+    @Test
+    void warmedCongestionRunStaysUnderAllocationBound() {
+        assertWarmedRunsUnderBound((core, traffic) -> core.setCongestionWeight(1.0));
+    }
+
+    /** configure 로 경로를 켠 core 로 데운 뒤 두 run 의 할당량을 검사 */
+    private static void assertWarmedRunsUnderBound(BiConsumer<TrafficSimulationCore, TrafficMatrix> configure) {
+        TrafficSimulationCore core = new TrafficSimulationCore();
+        core.setVerbose(false);
+        WorkloadGenerator gen = new WorkloadGenerator(7);
+        List<TrafficSimulationCore.VmInfo> vms = gen.createVmList(VMS);
+        List<TrafficSimulationCore.HostInfo> fleet = core.createHostList(VMS / 3);
+        int used = core.countActiveHosts(core.placeVmsFirstFit(core.copyHosts(fleet), vms));
+        List<TrafficSimulationCore.HostInfo> hosts = new ArrayList<>(fleet.subList(0,
+                Math.min(fleet.size(), used + used / 20)));
+        TrafficMatrix traffic = TrafficMatrix.of(gen.createTrafficMatrix(VMS, WorkloadGenerator.Shape.TIERED_APPS));
+        configure.accept(core, traffic);
+
+        // 데우기 (workspace 버퍼, 클래스 로딩)
+        Map<String, Long> warm = run(core, hosts, vms, traffic);
+        assumeTrue(warm.get("BYTES_ALLOCATED") > 0, "thread allocation counter not supported");
+
+        for (int i = 0; i < 2; i++) {
+            Map<String, Long> c = run(core, hosts, vms, traffic);
+            assertEquals(0L, c.get("RELEASE_CACHE_HITS"), "release cache must be cleared between runs");
+            assertTrue(c.get("RELEASES_ACCEPTED") > 0, "no release was accepted, the bound would not cover migration");
+            long bytes = c.get("BYTES_ALLOCATED");
+            assertTrue(bytes <= MAX_BYTES, "consolidateProposed allocated " + bytes
+                    + " bytes on a warmed workspace (bound " + MAX_BYTES + ")");
+        }
+    }
+
+    private static Map<String, Long> run(TrafficSimulationCore core, List<TrafficSimulationCore.HostInfo> hosts,
+                                         List<TrafficSimulationCore.VmInfo> vms, TrafficMatrix traffic) {
+        List<TrafficSimulationCore.HostInfo> hs = core.copyHosts(hosts);
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> start = scattered(core, hs, vms);
+        core.getReleaseCache().clear();
+        InMemoryConsolidationMetrics metrics = new InMemoryConsolidationMetrics();
+        core.setMetrics(metrics);
+        core.consolidateProposed(hs, start, traffic, 0.95, TOPO, 0.0);
+        core.setMetrics(null);
+        return metrics.getCounters();
+    }
+
+    /** first-fit 후 VM 2% 를 first-fit 이 안 쓴 host 로 옮긴 배치 (해제 시도가 accept 되도록) */
+    private static Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> scattered(
+            TrafficSimulationCore core, List<TrafficSimulationCore.HostInfo> hosts,
+            List<TrafficSimulationCore.VmInfo> vms) {
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> pm = core.placeVmsFirstFit(hosts, vms);
+        List<TrafficSimulationCore.HostInfo> empty = new ArrayList<>();
+        for (TrafficSimulationCore.HostInfo h : hosts) if (h.usedRam() == 0) empty.add(h);
+        if (empty.isEmpty()) return pm;
+        Random r = new Random(3);
+        for (TrafficSimulationCore.VmInfo v : vms) {
+            if (r.nextDouble() >= 0.02 || !pm.containsKey(v)) continue;
+            TrafficSimulationCore.HostInfo to = empty.get(r.nextInt(empty.size()));
+            if (to.remainingRam < v.ram || to.remainingMips < v.mips) continue;
+            TrafficSimulationCore.HostInfo from = pm.put(v, to);
+            from.remainingRam += v.ram;
+            from.remainingMips += v.mips;
+            to.remainingRam -= v.ram;
+            to.remainingMips -= v.mips;
+        }
+        return pm;
+    }
+}
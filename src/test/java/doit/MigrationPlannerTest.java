@@ -0,0 +1,40 @@
+package doit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * MigrationPlanner 가 끝내 자리가 안 나는 after 배치에서 멈추는지 검사.
+ * 도착 host 를 머무는 VM 이 차지하고 있으면 staging host 를 거쳐도 풀리지 않으므로,
+ * 같은 VM 을 다시 staging 하지 말고 unresolved 로 보고해야 한다.
+ */
+class MigrationPlannerTest {
+
+    @Test
+    void unreachableTargetIsReportedInsteadOfStagedForever() {
+        TrafficSimulationCore core = new TrafficSimulationCore();
+        core.setVerbose(false);
+        List<TrafficSimulationCore.HostInfo> hosts = new ArrayList<>();
+        for (int i = 0; i < 3; i++) hosts.add(new TrafficSimulationCore.HostInfo(i, i, 0, 100, 100));
+        TrafficSimulationCore.VmInfo moving = new TrafficSimulationCore.VmInfo(0, 60, 10);
+        TrafficSimulationCore.VmInfo staying = new TrafficSimulationCore.VmInfo(1, 60, 10);
+
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> before = new HashMap<>();
+        before.put(moving, hosts.get(0));
+        before.put(staying, hosts.get(1));
+        // after 는 host 1 을 overcommit (staying 이 안 나가므로 moving 은 영원히 못 들어감)
+        Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> after = new HashMap<>(before);
+        after.put(moving, hosts.get(1));
+
+        MigrationPlanner.MigrationSchedule s = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> new MigrationPlanner(core, 1_000, 2).plan(hosts, before, after,
+                        TrafficSimulationCore.Topology.FAT_TREE));
+        assertEquals(List.of(moving), s.unresolved);
+        assertEquals(1, s.migrations.size(), "only the single staging hop is scheduled");
+    }
+}
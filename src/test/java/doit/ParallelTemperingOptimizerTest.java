@@ -0,0 +1,38 @@
+package doit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ParallelTemperingOptimizer 가 Proposed 가 비운 host 를 다시 켜지 않는지 검사.
+ * 목적 함수가 트래픽뿐이라 이동 대상을 제한하지 않으면 VM 이 빈 host 로 퍼진다.
+ */
+class ParallelTemperingOptimizerTest {
+
+    @Test
+    void neverUsesMoreActiveHostsThanSeed() {
+        TrafficSimulationCore core = new TrafficSimulationCore();
+        core.setVerbose(false);
+        WorkloadGenerator gen = new WorkloadGenerator(11);
+        int n = 300;
+        List<TrafficSimulationCore.VmInfo> vms = gen.createVmList(n);
+        List<TrafficSimulationCore.HostInfo> hosts = core.createHostList(n / 2);
+        TrafficMatrix traffic = TrafficMatrix.of(gen.createTrafficMatrix(n, WorkloadGenerator.Shape.TIERED_APPS));
+
+        for (TrafficSimulationCore.Topology topo : TrafficSimulationCore.Topology.values()) {
+            List<TrafficSimulationCore.HostInfo> hs = core.copyHosts(hosts);
+            Map<TrafficSimulationCore.VmInfo, TrafficSimulationCore.HostInfo> seed =
+                    core.placeVmsProposed(hs, vms, traffic, 0.95, topo, 0.0);
+            int before = core.countActiveHosts(seed);
+
+            ParallelTemperingOptimizer.Result r =
+                    new ParallelTemperingOptimizer(2, 200, 2_000, 42L).optimize(hs, seed, traffic, topo);
+            int after = core.countActiveHosts(r.placement);
+            assertTrue(after <= before, topo + ": active hosts " + before + " -> " + after);
+            assertTrue(r.bestCost <= r.seedCost + 1e-6 * Math.max(1.0, r.seedCost), topo + ": " + r);
+        }
+    }
+}